@@ -10,6 +10,7 @@ import com.netflix.astyanax.connectionpool.exceptions.ConnectionException;
 import com.netflix.astyanax.model.*;
 import com.netflix.astyanax.query.AllRowsQuery;
 import com.netflix.astyanax.query.RowQuery;
+import com.netflix.astyanax.query.RowSliceQuery;
 import com.netflix.astyanax.retry.RetryPolicy;
 import com.netflix.astyanax.serializers.ByteBufferSerializer;
 import com.thinkaurelius.titan.diskstorage.PermanentStorageException;
@@ -120,13 +121,58 @@ public class AstyanaxOrderedKeyColumnValueStore implements
             throw new TemporaryStorageException(e);
         }
 
-        List<Entry> result = new ArrayList<Entry>(r.getResult().size());
+        return toEntries(r.getResult(), query.getSliceEnd().asByteBuffer(), limit);
+    }
 
-        int i = 0;
+    @Override
+    public List<List<Entry>> getSlice(List<StaticBuffer> keys, SliceQuery query, StoreTransaction txh) throws StorageException {
+        List<ByteBuffer> requestKeys = new ArrayList<ByteBuffer>(keys.size());
+        for (StaticBuffer key : keys) requestKeys.add(key.asByteBuffer());
+
+        // Raw type for the same reason as in getSlice(KeySliceQuery,StoreTransaction) above
+        RowSliceQuery rq = keyspace.prepareQuery(columnFamily)
+                .setConsistencyLevel(getTx(txh).getReadConsistencyLevel().getAstyanaxConsistency())
+                .withRetryPolicy(retryPolicy.duplicate())
+                .getKeySlice(requestKeys);
+        int limit = Integer.MAX_VALUE - 1;
+        if (query.hasLimit()) limit = query.getLimit();
+        rq.withColumnRange(query.getSliceStart().asByteBuffer(), query.getSliceEnd().asByteBuffer(), false, limit + 1);
+
+        OperationResult<Rows<ByteBuffer, ByteBuffer>> r;
+        try {
+            @SuppressWarnings("unchecked")
+            OperationResult<Rows<ByteBuffer, ByteBuffer>> tmp = (OperationResult<Rows<ByteBuffer, ByteBuffer>>) rq.execute();
+            r = tmp;
+        } catch (ConnectionException e) {
+            throw new TemporaryStorageException(e);
+        }
 
         ByteBuffer sliceEndBB = query.getSliceEnd().asByteBuffer();
-        
-        for (Column<ByteBuffer> c : r.getResult()) {
+        List<List<Entry>> results = new ArrayList<List<Entry>>(keys.size());
+        for (ByteBuffer key : requestKeys) {
+            Row<ByteBuffer, ByteBuffer> row = r.getResult().getRow(key);
+            if (row == null) results.add(new ArrayList<Entry>(0));
+            else results.add(toEntries(row.getColumns(), sliceEndBB, limit));
+        }
+        return results;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Each page is retrieved by a limited slice query which starts right after the last column of the previous page.
+     */
+    @Override
+    public RecordIterator<Entry> getSliceIterator(KeySliceQuery query, int pageSize, StoreTransaction txh) throws StorageException {
+        return new PagedSliceIterator(this, query, pageSize, txh);
+    }
+
+    private static List<Entry> toEntries(ColumnList<ByteBuffer> columns, ByteBuffer sliceEndBB, int limit) {
+        List<Entry> result = new ArrayList<Entry>(columns.size());
+
+        int i = 0;
+
+        for (Column<ByteBuffer> c : columns) {
             ByteBuffer colName = c.getName();
 
             // Cassandra treats the end of a slice column range inclusively, but
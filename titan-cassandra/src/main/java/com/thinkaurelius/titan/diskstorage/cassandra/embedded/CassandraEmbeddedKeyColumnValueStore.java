@@ -303,6 +303,56 @@ public class CassandraEmbeddedKeyColumnValueStore implements KeyColumnValueStore
         return cfToEntries(cf, query.getSliceEnd());
     }
 
+    @Override
+    public List<List<Entry>> getSlice(List<StaticBuffer> keys, SliceQuery query, StoreTransaction txh) throws StorageException {
+        QueryPath slicePath = new QueryPath(columnFamily);
+        List<ReadCommand> sliceCmds = new ArrayList<ReadCommand>(keys.size());
+        for (StaticBuffer key : keys) {
+            sliceCmds.add(new SliceFromReadCommand(
+                    keyspace,                      // Keyspace name
+                    key.asByteBuffer(),            // Row key
+                    slicePath,                     // ColumnFamily
+                    query.getSliceStart().asByteBuffer(),  // Start column name (empty means begin at first result)
+                    query.getSliceEnd().asByteBuffer(),   // End column name (empty means max out the count)
+                    false,                         // Reverse results? (false=no)
+                    query.getLimit()));            // Max count of Columns to return
+        }
+
+        List<Row> slices = read(sliceCmds, getTx(txh).getReadConsistencyLevel().getDBConsistency());
+
+        // StorageProxy does not guarantee that rows are returned in the order of the read commands
+        Map<ByteBuffer, ColumnFamily> cfs = new HashMap<ByteBuffer, ColumnFamily>(keys.size());
+        if (null != slices) {
+            for (Row r : slices) {
+                if (null == r) {
+                    log.warn("Null Row object retrieved from Cassandra StorageProxy");
+                    continue;
+                }
+                if (null == r.cf || r.cf.isMarkedForDelete())
+                    continue;
+                cfs.put(r.key.key, r.cf);
+            }
+        }
+
+        List<List<Entry>> results = new ArrayList<List<Entry>>(keys.size());
+        for (StaticBuffer key : keys) {
+            ColumnFamily cf = cfs.get(key.asByteBuffer());
+            if (null == cf) results.add(new ArrayList<Entry>(0));
+            else results.add(cfToEntries(cf, query.getSliceEnd()));
+        }
+        return results;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Each page is retrieved by a limited slice query which starts right after the last column of the previous page.
+     */
+    @Override
+    public RecordIterator<Entry> getSliceIterator(KeySliceQuery query, int pageSize, StoreTransaction txh) throws StorageException {
+        return new PagedSliceIterator(this, query, pageSize, txh);
+    }
+
     @Override
     public void mutate(StaticBuffer key, List<Entry> additions,
                        List<StaticBuffer> deletions, StoreTransaction txh) throws StorageException {
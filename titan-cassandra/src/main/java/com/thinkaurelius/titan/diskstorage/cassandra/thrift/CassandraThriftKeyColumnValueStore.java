@@ -53,6 +53,8 @@ import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KCVMutation;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeyColumnValueStore;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeySliceQuery;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.PagedSliceIterator;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.SliceQuery;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StoreTransaction;
 import com.thinkaurelius.titan.diskstorage.util.ByteBufferUtil;
 import com.thinkaurelius.titan.diskstorage.util.RecordIterator;
@@ -123,14 +125,95 @@ public class CassandraThriftKeyColumnValueStore implements KeyColumnValueStore {
      */
     @Override
     public List<Entry> getSlice(KeySliceQuery query, StoreTransaction txh) throws StorageException {
+        SlicePredicate predicate = getPredicate(query);
+        if (predicate == null) return ImmutableList.<Entry>of();
+
+        ColumnParent parent = new ColumnParent(columnFamily);
+        ConsistencyLevel consistency = getTx(txh).getReadConsistencyLevel().getThriftConsistency();
+
+        CTConnection conn = null;
+        try {
+            conn = pool.borrowObject(keyspace);
+            Cassandra.Client client = conn.getClient();
+            List<ColumnOrSuperColumn> rows = client.get_slice(query.getKey().asByteBuffer(), parent, predicate, consistency);
+            return toEntries(rows, query.getSliceEnd().asByteBuffer());
+        } catch (Exception e) {
+            throw convertException(e);
+        } finally {
+            pool.returnObjectUnsafe(keyspace, conn);
+        }
+    }
+
+    /**
+     * Call Cassandra's Thrift multiget_slice() method to retrieve the slice for all
+     * given keys in a single round-trip.
+     * <p/>
+     * The same special cases documented on {@link #getSlice(KeySliceQuery, StoreTransaction)}
+     * apply to each key.
+     *
+     * @throws com.thinkaurelius.titan.diskstorage.StorageException
+     *          when columnEnd < columnStart
+     */
+    @Override
+    public List<List<Entry>> getSlice(List<StaticBuffer> keys, SliceQuery query, StoreTransaction txh) throws StorageException {
+        List<List<Entry>> results = new ArrayList<List<Entry>>(keys.size());
+        SlicePredicate predicate = getPredicate(query);
+        if (predicate == null || keys.isEmpty()) {
+            for (int i = 0; i < keys.size(); i++) results.add(ImmutableList.<Entry>of());
+            return results;
+        }
+
+        ColumnParent parent = new ColumnParent(columnFamily);
+        ConsistencyLevel consistency = getTx(txh).getReadConsistencyLevel().getThriftConsistency();
+
+        List<ByteBuffer> requestKeys = new ArrayList<ByteBuffer>(keys.size());
+        for (StaticBuffer key : keys) requestKeys.add(key.asByteBuffer());
+
+        CTConnection conn = null;
+        try {
+            conn = pool.borrowObject(keyspace);
+            Cassandra.Client client = conn.getClient();
+            Map<ByteBuffer, List<ColumnOrSuperColumn>> rows = client.multiget_slice(requestKeys, parent, predicate, consistency);
+
+            ByteBuffer sliceEndBB = query.getSliceEnd().asByteBuffer();
+            for (ByteBuffer key : requestKeys) {
+                List<ColumnOrSuperColumn> row = rows.get(key);
+                if (row == null) results.add(ImmutableList.<Entry>of());
+                else results.add(toEntries(row, sliceEndBB));
+            }
+            return results;
+        } catch (Exception e) {
+            throw convertException(e);
+        } finally {
+            pool.returnObjectUnsafe(keyspace, conn);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Each page is retrieved by a limited slice query which starts right after the last column of the previous page.
+     */
+    @Override
+    public RecordIterator<Entry> getSliceIterator(KeySliceQuery query, int pageSize, StoreTransaction txh) throws StorageException {
+        return new PagedSliceIterator(this, query, pageSize, txh);
+    }
+
+    /**
+     * Builds the Thrift {@link SlicePredicate} for the given query or returns null if the query
+     * is known to have an empty result.
+     * <p/>
+     * When columnEnd equals columnStart and neither is empty, no Thrift call is needed
+     * since the slice is empty (Cassandra's Thrift getSlice() throws InvalidRequestException
+     * if columnStart = columnEnd).
+     *
+     * @throws com.thinkaurelius.titan.diskstorage.StorageException
+     *          when columnEnd < columnStart
+     */
+    private static SlicePredicate getPredicate(SliceQuery query) throws StorageException {
         Preconditions.checkArgument(query.getLimit() >= 0);
-        if (0 == query.getLimit()) return ImmutableList.<Entry>of();
+        if (0 == query.getLimit()) return null;
 
-        ColumnParent parent = new ColumnParent(columnFamily);        /*
-		 * Cassandra cannot handle columnStart = columnEnd.
-		 * Cassandra's Thrift getSlice() throws InvalidRequestException
-		 * if columnStart = columnEnd.
-		 */
         if (ByteBufferUtil.compare(query.getSliceStart(), query.getSliceEnd())>=0) {
             // Check for invalid arguments where columnEnd < columnStart
             if (ByteBufferUtil.isSmallerThan(query.getSliceEnd(), query.getSliceStart())) {
@@ -140,50 +223,40 @@ public class CassandraThriftKeyColumnValueStore implements KeyColumnValueStore {
             }
             if (0 != query.getSliceStart().length() && 0 != query.getSliceEnd().length()) {
                 logger.debug("Return empty list due to columnEnd==columnStart and neither empty");
-                return ImmutableList.<Entry>of();
+                return null;
             }
         }
 
         // true: columnStart < columnEnd
-        ConsistencyLevel consistency = getTx(txh).getReadConsistencyLevel().getThriftConsistency();
         SlicePredicate predicate = new SlicePredicate();
         SliceRange range = new SliceRange();
         range.setCount(query.getLimit());
         range.setStart(query.getSliceStart().asByteBuffer());
         range.setFinish(query.getSliceEnd().asByteBuffer());
         predicate.setSlice_range(range);
-        
-        CTConnection conn = null;
-        try {
-            conn = pool.borrowObject(keyspace);
-            Cassandra.Client client = conn.getClient();
-            List<ColumnOrSuperColumn> rows = client.get_slice(query.getKey().asByteBuffer(), parent, predicate, consistency);
-			/*
-			 * The final size of the "result" List may be at most rows.size().
-			 * However, "result" could also be up to two elements smaller than
-			 * rows.size(), depending on startInclusive and endInclusive
-			 */
-            List<Entry> result = new ArrayList<Entry>(rows.size());
-            
-            ByteBuffer sliceEndBB = query.getSliceEnd().asByteBuffer();
-            
-            for (ColumnOrSuperColumn r : rows) {
-                Column c = r.getColumn();
+        return predicate;
+    }
 
-                // Skip column if it is equal to columnEnd because columnEnd is exclusive
-                if (sliceEndBB.equals(c.bufferForName())) {
-                    continue;
-                }
+    private static List<Entry> toEntries(List<ColumnOrSuperColumn> rows, ByteBuffer sliceEndBB) {
+        /*
+         * The final size of the "result" List may be at most rows.size().
+         * However, "result" could also be up to two elements smaller than
+         * rows.size(), depending on startInclusive and endInclusive
+         */
+        List<Entry> result = new ArrayList<Entry>(rows.size());
+
+        for (ColumnOrSuperColumn r : rows) {
+            Column c = r.getColumn();
 
-                result.add(new ByteBufferEntry(c.bufferForName(), c.bufferForValue()));
+            // Skip column if it is equal to columnEnd because columnEnd is exclusive
+            if (sliceEndBB.equals(c.bufferForName())) {
+                continue;
             }
-            
-            return result;
-        } catch (Exception e) {
-            throw convertException(e);
-        } finally {
-            pool.returnObjectUnsafe(keyspace, conn);
+
+            result.add(new ByteBufferEntry(c.bufferForName(), c.bufferForValue()));
         }
+
+        return result;
     }
 
     @Override
@@ -5,6 +5,8 @@ import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.KeyIndexableGraph;
 import com.tinkerpop.blueprints.ThreadedTransactionalGraph;
 
+import java.util.Collection;
+
 /**
  * Titan graph database implementation of the Blueprint's interface.
  * Use {@link TitanFactory} to open and configure TitanGraph instances.
@@ -54,6 +56,22 @@ public interface TitanGraph extends Graph, KeyIndexableGraph, ThreadedTransactio
      */
     public TitanGraphQuery query();
 
+    /**
+     * Returns a {@link TitanMultiVertexQuery} to query for incident relations of multiple vertices at once.
+     *
+     * @param vertices
+     * @return
+     * @see TitanTransaction#multiQuery(TitanVertex...)
+     */
+    public TitanMultiVertexQuery multiQuery(TitanVertex... vertices);
+
+    /**
+     * @param vertices
+     * @return
+     * @see TitanTransaction#multiQuery(java.util.Collection)
+     */
+    public TitanMultiVertexQuery multiQuery(Collection<TitanVertex> vertices);
+
 
     /**
      * Returns the {@link TitanType} uniquely identified by the given name, or NULL if such does not exist.
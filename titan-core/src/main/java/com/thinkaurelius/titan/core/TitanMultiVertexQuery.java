@@ -0,0 +1,140 @@
+package com.thinkaurelius.titan.core;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Query;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * TitanMultiVertexQuery constructs and executes a query over incident edges for multiple vertices at once.
+ * <p/>
+ * The query is defined in the same way as a {@link TitanVertexQuery} but is executed against all vertices that have
+ * been added to it. The adjacency lists of all those vertices are retrieved from the storage backend in a single
+ * batched call which is significantly faster than executing one {@link TitanVertexQuery} per vertex, e.g. when expanding
+ * the frontier of a traversal.
+ * <br />
+ * A TitanMultiVertexQuery is initialized by calling {@link TitanTransaction#multiQuery(TitanVertex...)}.
+ *
+ * @author Matthias Broecheler (me@matthiasb.com)
+ * @see TitanVertexQuery
+ */
+public interface TitanMultiVertexQuery {
+
+    /* ---------------------------------------------------------------
+    * Query Specification
+    * ---------------------------------------------------------------
+    */
+
+    /**
+     * Adds the given vertex to the set of vertices against which to execute this query.
+     *
+     * @param vertex vertex to add
+     * @return this query
+     */
+    public TitanMultiVertexQuery addVertex(TitanVertex vertex);
+
+    /**
+     * Adds the given collection of vertices to the set of vertices against which to execute this query.
+     *
+     * @param vertices vertices to add
+     * @return this query
+     */
+    public TitanMultiVertexQuery addAllVertices(Collection<TitanVertex> vertices);
+
+    /**
+     * @see TitanVertexQuery#types(TitanType...)
+     */
+    public TitanMultiVertexQuery types(TitanType... type);
+
+    /**
+     * @see TitanVertexQuery#labels(String...)
+     */
+    public TitanMultiVertexQuery labels(String... labels);
+
+    /**
+     * @see TitanVertexQuery#keys(String...)
+     */
+    public TitanMultiVertexQuery keys(String... keys);
+
+    /**
+     * @see TitanVertexQuery#group(TypeGroup)
+     */
+    public TitanMultiVertexQuery group(TypeGroup group);
+
+    /**
+     * @see TitanVertexQuery#direction(Direction)
+     */
+    public TitanMultiVertexQuery direction(Direction d);
+
+    /**
+     * @see TitanVertexQuery#has(TitanKey, Object)
+     */
+    public TitanMultiVertexQuery has(TitanKey key, Object value);
+
+    /**
+     * @see TitanVertexQuery#has(TitanLabel, TitanVertex)
+     */
+    public TitanMultiVertexQuery has(TitanLabel label, TitanVertex vertex);
+
+    /**
+     * @see TitanVertexQuery#has(String, Object)
+     */
+    public TitanMultiVertexQuery has(String type, Object value);
+
+    public <T extends Comparable<T>> TitanMultiVertexQuery has(String key, T value, Query.Compare compare);
+
+    /**
+     * @see TitanVertexQuery#interval(String, Comparable, Comparable)
+     */
+    public <T extends Comparable<T>> TitanMultiVertexQuery interval(String key, T start, T end);
+
+    /**
+     * @see TitanVertexQuery#interval(TitanKey, Comparable, Comparable)
+     */
+    public <T extends Comparable<T>> TitanMultiVertexQuery interval(TitanKey key, T start, T end);
+
+    /**
+     * Sets the retrieval limit for this query. The limit applies to each vertex individually.
+     *
+     * @param limit maximum number of relations to retrieve per vertex for this query
+     * @return this query
+     */
+    public TitanMultiVertexQuery limit(long limit);
+
+    /* ---------------------------------------------------------------
+    * Query execution
+    * ---------------------------------------------------------------
+    */
+
+    /**
+     * Returns a map from each vertex of this query to an iterable over all its incident edges that match this query
+     *
+     * @return Map of vertex to all incident edges that match this query
+     */
+    public Map<TitanVertex,Iterable<TitanEdge>> titanEdges();
+
+    /**
+     * Returns a map from each vertex of this query to an iterable over all its incident properties that match this query
+     *
+     * @return Map of vertex to all incident properties that match this query
+     */
+    public Map<TitanVertex,Iterable<TitanProperty>> properties();
+
+    /**
+     * Returns a map from each vertex of this query to an iterable over all its incident relations that match this query
+     *
+     * @return Map of vertex to all incident relations that match this query
+     */
+    public Map<TitanVertex,Iterable<TitanRelation>> relations();
+
+    /**
+     * Returns a map from each vertex of this query to the list of vertices connected to it by edges matching
+     * the conditions defined in this query.
+     *
+     * @return Map of vertex to all vertices connected to it by matching edges
+     * @see TitanVertexQuery#vertexIds()
+     */
+    public Map<TitanVertex,VertexList> vertexIds();
+
+}
@@ -4,6 +4,8 @@ package com.thinkaurelius.titan.core;
 import com.tinkerpop.blueprints.KeyIndexableGraph;
 import com.tinkerpop.blueprints.TransactionalGraph;
 
+import java.util.Collection;
+
 /**
  * TitanTransaction defines a transactional context for a {@link TitanGraph}. Since TitanGraph is a transactional graph
  * database, all interactions with the graph are mitigated by a TitanTransaction.
@@ -111,6 +113,22 @@ public interface TitanTransaction extends TransactionalGraph, KeyIndexableGraph
 
     public TitanGraphQuery query();
 
+    /**
+     * Returns a {@link TitanMultiVertexQuery} to query for incident relations of multiple vertices at once.
+     * The adjacency lists of all vertices are retrieved from the storage backend in one batched call.
+     *
+     * @param vertices vertices to query
+     * @return multi-vertex query
+     */
+    public TitanMultiVertexQuery multiQuery(TitanVertex... vertices);
+
+    /**
+     * @param vertices vertices to query
+     * @return multi-vertex query
+     * @see #multiQuery(TitanVertex...)
+     */
+    public TitanMultiVertexQuery multiQuery(Collection<TitanVertex> vertices);
+
     public TitanVertex getVertex(TitanKey key, Object attribute);
 
     public TitanVertex getVertex(String key, Object attribute);
@@ -36,7 +36,13 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.thinkaurelius.titan.graphdb.configuration.GraphDatabaseConfiguration.*;
 
@@ -96,6 +102,12 @@ public class Backend {
     private final int readAttempts;
     private final int persistAttemptWaittime;
 
+    private final ExecutorService readExecutor;
+    private final ExecutorService flushExecutor;
+    private final GroupCommitCoordinator groupCommit;
+    private final ExecutorService commitExecutor;
+    private final long indexCommitTimeout;
+
     public Backend(Configuration storageConfig) {
         storeManager = getStorageManager(storageConfig);
         indexes = getIndexes(storageConfig);
@@ -112,7 +124,7 @@ public class Backend {
         } else bufferSize = bufferSizeTmp;
 
         if (!storeFeatures.supportsLocking() && storeFeatures.supportsConsistentKeyOperations()) {
-            lockConfiguration = new ConsistentKeyLockConfiguration(storageConfig, storeManager.toString());
+            lockConfiguration = new ConsistentKeyLockConfiguration(storageConfig, storeManager.toString(), !storeFeatures.isDistributed());
         } else {
             lockConfiguration = null;
         }
@@ -130,6 +142,54 @@ public class Backend {
         } else {
             hashPrefixIndex = false;
         }
+
+        int readThreads = storageConfig.getInt(READ_THREADS_KEY, READ_THREADS_DEFAULT);
+        Preconditions.checkArgument(readThreads >= 0, "Number of read threads must be non-negative (use 0 to disable)");
+        if (readThreads > 0 && storeFeatures.supportsTransactions()) {
+            log.debug("Asynchronous reads disabled because backend transactions are bound to threads");
+            readThreads = 0;
+        }
+        readExecutor = readThreads > 0 ? getExecutor("titan-read-", readThreads) : null;
+
+        int flushThreads = storageConfig.getInt(BUFFER_FLUSH_THREADS_KEY, BUFFER_FLUSH_THREADS_DEFAULT);
+        Preconditions.checkArgument(flushThreads >= 0, "Number of flush threads must be non-negative (use 0 to disable)");
+        flushExecutor = flushThreads > 0 && bufferSize > 1 ? getExecutor("titan-flush-", flushThreads) : null;
+
+        long groupCommitWindow = storageConfig.getLong(GROUP_COMMIT_WINDOW_KEY, GROUP_COMMIT_WINDOW_DEFAULT);
+        Preconditions.checkArgument(groupCommitWindow >= 0, "Group commit window must be non-negative (use 0 to disable)");
+        if (groupCommitWindow > 0 && bufferSize > 1 && !storeFeatures.supportsTransactions()) {
+            groupCommit = new GroupCommitCoordinator(storeManager, groupCommitWindow, bufferSize);
+        } else {
+            if (groupCommitWindow > 0) log.warn("Group commit disabled because buffering is disabled or the storage backend supports transactions");
+            groupCommit = null;
+        }
+
+        int commitThreads = storageConfig.getInt(INDEX_COMMIT_THREADS_KEY, INDEX_COMMIT_THREADS_DEFAULT);
+        Preconditions.checkArgument(commitThreads >= 0, "Number of index commit threads must be non-negative (use 0 to disable)");
+        indexCommitTimeout = storageConfig.getLong(INDEX_COMMIT_TIMEOUT_KEY, INDEX_COMMIT_TIMEOUT_DEFAULT);
+        Preconditions.checkArgument(indexCommitTimeout > 0, "Index commit timeout must be positive");
+        commitExecutor = commitThreads > 0 && !indexes.isEmpty() ? getExecutor("titan-commit-", commitThreads) : null;
+    }
+
+    /**
+     * Returns a bounded executor for asynchronous operations. When all threads are busy and the queue is full,
+     * operations are executed in the calling thread which throttles the rate at which operations are submitted.
+     *
+     * @param threadPrefix
+     * @param numThreads
+     * @return
+     */
+    public static ExecutorService getExecutor(final String threadPrefix, int numThreads) {
+        final AtomicInteger threadCounter = new AtomicInteger(0);
+        return new ThreadPoolExecutor(numThreads, numThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(numThreads * 16), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, threadPrefix + threadCounter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
     }
 
 
@@ -143,7 +203,7 @@ public class Backend {
                 store = new TransactionalLockStore(store);
             } else if (storeFeatures.supportsConsistentKeyOperations()) {
                 if (lockEnabled) {
-                    store = new ConsistentKeyLockStore(store, getStore(store.getName() + LOCK_STORE_SUFFIX), lockConfiguration);
+                    store = new ConsistentKeyLockStore(store, getStore(store.getName() + LOCK_STORE_SUFFIX), storeManager, lockConfiguration);
                 } else {
                     store = new ConsistentKeyLockStore(store);
                 }
@@ -340,7 +400,7 @@ public class Backend {
         StoreTransaction tx = storeManager.beginTransaction(ConsistencyLevel.DEFAULT);
         if (bufferSize > 1) {
             assert storeManager.getFeatures().supportsBatchMutation();
-            tx = new BufferTransaction(tx, storeManager, bufferSize, writeAttempts, persistAttemptWaittime);
+            tx = new BufferTransaction(tx, storeManager, bufferSize, writeAttempts, persistAttemptWaittime, 8, flushExecutor, groupCommit);
         }
         if (!storeFeatures.supportsLocking()) {
             if (storeFeatures.supportsTransactions()) {
@@ -356,10 +416,14 @@ public class Backend {
             indexTx.put(entry.getKey(),new IndexTransaction(entry.getValue()));
         }
 
-        return new BackendTransaction(tx, edgeStore, vertexIndexStore, edgeIndexStore, readAttempts, persistAttemptWaittime, indexTx);
+        return new BackendTransaction(tx, edgeStore, vertexIndexStore, edgeIndexStore, readAttempts, persistAttemptWaittime, indexTx,
+                readExecutor, commitExecutor, indexCommitTimeout, bufferSize);
     }
 
     public void close() throws StorageException {
+        if (readExecutor != null) readExecutor.shutdown();
+        if (flushExecutor != null) flushExecutor.shutdown();
+        if (commitExecutor != null) commitExecutor.shutdown();
         edgeStore.close();
         vertexIndexStore.close();
         edgeIndexStore.close();
@@ -377,6 +441,9 @@ public class Backend {
      * @throws StorageException
      */
     public void clearStorage() throws StorageException {
+        if (readExecutor != null) readExecutor.shutdown();
+        if (flushExecutor != null) flushExecutor.shutdown();
+        if (commitExecutor != null) commitExecutor.shutdown();
         edgeStore.close();
         vertexIndexStore.close();
         edgeIndexStore.close();
@@ -2,11 +2,14 @@ package com.thinkaurelius.titan.diskstorage;
 
 import com.google.common.base.Preconditions;
 import com.thinkaurelius.titan.core.TitanException;
+import com.thinkaurelius.titan.graphdb.configuration.GraphDatabaseConfiguration;
 import com.thinkaurelius.titan.diskstorage.indexing.IndexQuery;
 import com.thinkaurelius.titan.diskstorage.indexing.IndexTransaction;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeyColumnValueStore;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeySliceQuery;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.MutationAccumulator;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.SliceQuery;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StoreTransaction;
 import com.thinkaurelius.titan.diskstorage.util.BackendOperation;
 import com.thinkaurelius.titan.diskstorage.util.RecordIterator;
@@ -14,14 +17,32 @@ import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Bundles all transaction handles from the various backend systems and provides a proxy for some of their
  * methods for convenience.
  * Also increases robustness of read call by attempting read calls multiple times on failure.
+ * <p/>
+ * The asynchronous read methods return immediately and execute the read (including its retries) on the read executor
+ * of the backend, if one has been configured. Otherwise, they execute the read in the calling thread.
+ * Similarly, if a commit executor has been configured, the index transactions are committed concurrently on that
+ * executor once the storage transaction has been committed.
+ * <p/>
+ * Mutations are accumulated per store and key and written to the stores when they are persisted explicitly,
+ * the transaction is flushed or committed, or the mutations accumulated for a store reach the mutation buffer size.
+ * Hence, each key is written with a single mutation per buffer and the memory held by the accumulated mutations
+ * is bounded, as is the case for buffering store transactions.
  *
  * @author Matthias Broecheler (me@matthiasb.com)
  */
@@ -41,10 +62,42 @@ public class BackendTransaction implements TransactionHandle {
 
     private final Map<String,IndexTransaction> indexTx;
 
+    private final ExecutorService readExecutor;
+    private final ExecutorService commitExecutor;
+    private final long indexCommitTimeout;
+
+    private final MutationAccumulator edgeMutations;
+    private final MutationAccumulator vertexIndexMutations;
+    private final MutationAccumulator edgeIndexMutations;
+    private final int mutationBufferSize;
+
     public BackendTransaction(StoreTransaction storeTx, KeyColumnValueStore edgeStore,
                               KeyColumnValueStore vertexIndexStore, KeyColumnValueStore edgeIndexStore,
                               int maxReadRetryAttempts, int retryStorageWaitTime,
                               Map<String, IndexTransaction> indexTx) {
+        this(storeTx, edgeStore, vertexIndexStore, edgeIndexStore, maxReadRetryAttempts, retryStorageWaitTime, indexTx,
+                null, null, 0);
+    }
+
+    public BackendTransaction(StoreTransaction storeTx, KeyColumnValueStore edgeStore,
+                              KeyColumnValueStore vertexIndexStore, KeyColumnValueStore edgeIndexStore,
+                              int maxReadRetryAttempts, int retryStorageWaitTime,
+                              Map<String, IndexTransaction> indexTx, ExecutorService readExecutor,
+                              ExecutorService commitExecutor, long indexCommitTimeout) {
+        this(storeTx, edgeStore, vertexIndexStore, edgeIndexStore, maxReadRetryAttempts, retryStorageWaitTime, indexTx,
+                readExecutor, commitExecutor, indexCommitTimeout, GraphDatabaseConfiguration.BUFFER_SIZE_DEFAULT);
+    }
+
+    /**
+     * @param mutationBufferSize Number of mutations accumulated per store after which they are written to the store.
+     *                           Mutations are written immediately if this is at most 1.
+     */
+    public BackendTransaction(StoreTransaction storeTx, KeyColumnValueStore edgeStore,
+                              KeyColumnValueStore vertexIndexStore, KeyColumnValueStore edgeIndexStore,
+                              int maxReadRetryAttempts, int retryStorageWaitTime,
+                              Map<String, IndexTransaction> indexTx, ExecutorService readExecutor,
+                              ExecutorService commitExecutor, long indexCommitTimeout, int mutationBufferSize) {
+        Preconditions.checkArgument(commitExecutor==null || indexCommitTimeout>0);
         this.storeTx = storeTx;
         this.edgeStore = edgeStore;
         this.vertexIndexStore = vertexIndexStore;
@@ -52,6 +105,13 @@ public class BackendTransaction implements TransactionHandle {
         this.maxReadRetryAttempts = maxReadRetryAttempts;
         this.retryStorageWaitTime = retryStorageWaitTime;
         this.indexTx = indexTx;
+        this.readExecutor = readExecutor;
+        this.commitExecutor = commitExecutor;
+        this.indexCommitTimeout = indexCommitTimeout;
+        this.edgeMutations = new MutationAccumulator();
+        this.vertexIndexMutations = new MutationAccumulator();
+        this.edgeIndexMutations = new MutationAccumulator();
+        this.mutationBufferSize = Math.max(1,mutationBufferSize);
     }
 
     public StoreTransaction getStoreTransactionHandle() {
@@ -67,18 +127,79 @@ public class BackendTransaction implements TransactionHandle {
 
     @Override
     public void commit() throws StorageException {
+        persistMutations();
+        //Index transactions are only committed if the storage transaction commits, so they never index missing data
         storeTx.commit();
-        for (IndexTransaction itx : indexTx.values()) itx.commit();
+        if (commitExecutor==null || indexTx.isEmpty()) {
+            for (IndexTransaction itx : indexTx.values()) itx.commit();
+        } else {
+            commitIndexesConcurrently();
+        }
+    }
+
+    /**
+     * Submits the commits of all index transactions to the commit executor and waits for all of them to complete
+     * before reporting any failures, in which case the exception of the first failed index commit is thrown.
+     * Index commits which do not complete within the commit timeout are cancelled.
+     *
+     * @throws StorageException
+     */
+    private void commitIndexesConcurrently() throws StorageException {
+        Map<String,Future<Boolean>> indexCommits = new LinkedHashMap<String,Future<Boolean>>(indexTx.size());
+        for (Map.Entry<String,IndexTransaction> entry : indexTx.entrySet()) {
+            final IndexTransaction itx = entry.getValue();
+            indexCommits.put(entry.getKey(),commitExecutor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    itx.commit();
+                    return true;
+                }
+            }));
+        }
+
+        List<String> failedIndexes = new ArrayList<String>();
+        StorageException indexFailure = null;
+        long deadline = System.currentTimeMillis()+indexCommitTimeout;
+        for (Map.Entry<String,Future<Boolean>> entry : indexCommits.entrySet()) {
+            String index = entry.getKey();
+            try {
+                entry.getValue().get(Math.max(0,deadline-System.currentTimeMillis()),TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                for (Future<Boolean> commit : indexCommits.values()) commit.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new PermanentStorageException("Interrupted while waiting for commit of index: " + index, e);
+            } catch (TimeoutException e) {
+                entry.getValue().cancel(true);
+                failedIndexes.add(index);
+                if (indexFailure==null) indexFailure = new TemporaryStorageException("Commit of index ["+index+"] timed out after "+indexCommitTimeout+" ms",e);
+            } catch (ExecutionException e) {
+                failedIndexes.add(index);
+                log.error("Could not commit transaction against index: " + index, e.getCause());
+                if (indexFailure==null) {
+                    if (e.getCause() instanceof StorageException) indexFailure = (StorageException)e.getCause();
+                    else indexFailure = new PermanentStorageException("Could not commit transaction against index: " + index, e.getCause());
+                }
+            }
+        }
+
+        if (indexFailure!=null) {
+            log.error("Storage transaction committed but index transactions failed to commit: {}",failedIndexes);
+            throw indexFailure;
+        }
     }
 
     @Override
     public void rollback() throws StorageException {
+        edgeMutations.clear();
+        vertexIndexMutations.clear();
+        edgeIndexMutations.clear();
         storeTx.rollback();
         for (IndexTransaction itx : indexTx.values()) itx.rollback();
     }
 
     @Override
     public void flush() throws StorageException {
+        persistMutations();
         storeTx.flush();
         for (IndexTransaction itx : indexTx.values()) itx.flush();
     }
@@ -87,16 +208,28 @@ public class BackendTransaction implements TransactionHandle {
             Convenience Write Methods
      */
 
+    /**
+     * Writes all accumulated mutations to the respective stores.
+     *
+     * @throws StorageException
+     */
+    public void persistMutations() throws StorageException {
+        edgeMutations.persist(edgeStore, storeTx);
+        vertexIndexMutations.persist(vertexIndexStore, storeTx);
+        edgeIndexMutations.persist(edgeIndexStore, storeTx);
+    }
+
     /**
      * Applies the specified insertion and deletion mutations on the edge store to the provided key.
      * Both, the list of additions or deletions, may be empty or NULL if there is nothing to be added and/or deleted.
+     * The lists must not be modified afterwards since the mutation is only applied when it is persisted.
      *
      * @param key       Key
      * @param additions List of entries (column + value) to be added
      * @param deletions List of columns to be removed
      */
     public void mutateEdges(StaticBuffer key, List<Entry> additions, List<StaticBuffer> deletions) throws StorageException {
-        edgeStore.mutate(key, additions, deletions, storeTx);
+        mutate(edgeMutations, edgeStore, key, additions, deletions);
     }
 
     /**
@@ -108,11 +241,17 @@ public class BackendTransaction implements TransactionHandle {
      * @param deletions List of columns to be removed
      */
     public void mutateVertexIndex(StaticBuffer key, List<Entry> additions, List<StaticBuffer> deletions) throws StorageException {
-        vertexIndexStore.mutate(key, additions, deletions, storeTx);
+        mutate(vertexIndexMutations, vertexIndexStore, key, additions, deletions);
     }
 
     public void mutateEdgeIndex(StaticBuffer key, List<Entry> additions, List<StaticBuffer> deletions) throws StorageException {
-        edgeIndexStore.mutate(key, additions, deletions, storeTx);
+        mutate(edgeIndexMutations, edgeIndexStore, key, additions, deletions);
+    }
+
+    private void mutate(MutationAccumulator mutations, KeyColumnValueStore store, StaticBuffer key,
+                        List<Entry> additions, List<StaticBuffer> deletions) throws StorageException {
+        mutations.mutate(key, additions, deletions);
+        if (mutations.getNumMutations()>=mutationBufferSize) mutations.persist(store, storeTx);
     }
 
     /**
@@ -168,6 +307,45 @@ public class BackendTransaction implements TransactionHandle {
         });
     }
 
+    /**
+     * Returns an iterator over the slice defined by the given query which retrieves the entries from the edge store
+     * in pages of at most the given size. The returned iterator must be closed.
+     * Like all other reads, the retrieval of each page is re-attempted on temporary failures.
+     *
+     * @param query    Slice query
+     * @param pageSize Maximum number of entries to retrieve at a time
+     * @return
+     */
+    public RecordIterator<Entry> edgeStoreSliceIterator(final KeySliceQuery query, final int pageSize) {
+        return new RetryingRecordIterator<Entry>(executeRead(new Callable<RecordIterator<Entry>>() {
+            @Override
+            public RecordIterator<Entry> call() throws Exception {
+                return edgeStore.getSliceIterator(query,pageSize,storeTx);
+            }
+            @Override
+            public String toString() { return "EdgeStoreSliceIterator"; }
+        }));
+    }
+
+    /**
+     * Retrieves the slice defined by the given query for each of the specified keys from the edge store
+     * in one batched backend call.
+     *
+     * @param keys  Keys to retrieve the slice for
+     * @param query Slice query applied to each key
+     * @return List of entry lists in the same order as {@code keys}
+     */
+    public List<List<Entry>> edgeStoreMultiQuery(final List<StaticBuffer> keys, final SliceQuery query) {
+        return executeRead(new Callable<List<List<Entry>>>() {
+            @Override
+            public List<List<Entry>> call() throws Exception {
+                return edgeStore.getSlice(keys,query,storeTx);
+            }
+            @Override
+            public String toString() { return "MultiEdgeStoreQuery"; }
+        });
+    }
+
     public boolean edgeStoreContainsKey(final StaticBuffer key)  {
         return executeRead(new Callable<Boolean>() {
             @Override
@@ -226,10 +404,120 @@ public class BackendTransaction implements TransactionHandle {
     }
 
 
+    /* ###################################################
+            Asynchronous Read Methods
+     */
+
+    /**
+     * Whether reads submitted through the asynchronous read methods are executed concurrently, i.e. whether
+     * this transaction has a read executor.
+     *
+     * @return
+     */
+    public boolean hasAsyncReads() {
+        return readExecutor!=null;
+    }
+
+    public Future<List<Entry>> edgeStoreQueryAsync(final KeySliceQuery query) {
+        return executeAsync(new Callable<List<Entry>>() {
+            @Override
+            public List<Entry> call() throws Exception {
+                return edgeStoreQuery(query);
+            }
+        });
+    }
+
+    public Future<List<Entry>> vertexIndexQueryAsync(final KeySliceQuery query) {
+        return executeAsync(new Callable<List<Entry>>() {
+            @Override
+            public List<Entry> call() throws Exception {
+                return vertexIndexQuery(query);
+            }
+        });
+    }
+
+    public Future<List<Entry>> edgeIndexQueryAsync(final KeySliceQuery query) {
+        return executeAsync(new Callable<List<Entry>>() {
+            @Override
+            public List<Entry> call() throws Exception {
+                return edgeIndexQuery(query);
+            }
+        });
+    }
+
+    public Future<List<String>> indexQueryAsync(final String index, final IndexQuery query) {
+        return executeAsync(new Callable<List<String>>() {
+            @Override
+            public List<String> call() throws Exception {
+                return indexQuery(index, query);
+            }
+        });
+    }
+
+    /**
+     * Executes the given read, which must only use the read methods of this transaction, asynchronously.
+     * Failures of the read are reported through the returned future.
+     *
+     * @param read
+     * @param <V>
+     * @return
+     */
+    public<V> Future<V> executeAsync(Callable<V> read) {
+        Preconditions.checkNotNull(read);
+        if (readExecutor!=null) return readExecutor.submit(read);
+        FutureTask<V> task = new FutureTask<V>(read);
+        task.run();
+        return task;
+    }
+
     private final<V> V executeRead(Callable<V> exe) throws TitanException {
         return BackendOperation.execute(exe,maxReadRetryAttempts,retryStorageWaitTime);
     }
 
+    /**
+     * Wraps an iterator whose {@link RecordIterator#hasNext()} and {@link RecordIterator#next()} only advance once
+     * they succeed, such as {@link com.thinkaurelius.titan.diskstorage.keycolumnvalue.PagedSliceIterator},
+     * so that the reads they issue are re-attempted like all other reads.
+     */
+    private class RetryingRecordIterator<T> implements RecordIterator<T> {
+
+        private final RecordIterator<T> iterator;
+
+        private RetryingRecordIterator(RecordIterator<T> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return executeRead(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return iterator.hasNext();
+                }
+                @Override
+                public String toString() { return "RecordIteratorHasNext"; }
+            });
+        }
+
+        @Override
+        public T next() {
+            return executeRead(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    return iterator.next();
+                }
+                @Override
+                public String toString() { return "RecordIteratorNext"; }
+            });
+        }
+
+        @Override
+        public void close() throws StorageException {
+            iterator.close();
+        }
+
+    }
+
 
 
 }
@@ -21,8 +21,13 @@ import java.util.List;
  * supports consistent key operations.
  *
  * ID blocks are allocated by first applying for an id block, waiting for a specified period of time and then
- * checking that the application was the first received for that particular id block. If so, the application is
- * considered successful. If not, some other process won the application and a new application is tried.
+ * checking that the application was the first received among all applications which may overlap the id block.
+ * If so, the application is considered successful. If not, some other process won the application and a new
+ * application is tried.
+ *
+ * Since block sizes may differ between processes, e.g. when they are adapted to the id consumption rate, contending
+ * applications may end at different counter values. Hence, all applications ending after the start of the id block
+ * are considered contenders and not only those for the same block.
  *
  * The partition id is used as the key and since key operations are considered consistent, this protocol guarantees
  * unique id block assignments.
@@ -125,26 +130,35 @@ public class ConsistentKeyIDManager extends AbstractIDManager {
                     } else {
 
                         assert 0 != target.length();
-                        StaticBuffer[] slice = getBlockSlice(nextEnd);
+                        StaticBuffer[] slice = getBlockSlice(nextStart);
 
                         /* At this point we've written our claim on [nextStart, nextEnd),
                          * but we haven't yet guaranteed the absence of a contending claim on
-                         * the same id block from another machine
+                         * an overlapping id block from another machine
                          */
 
                         TimeUtility.sleepUntil(after + idApplicationWaitMS, log);
 
-                        // Read all id allocation claims on this partition, for the counter value we're claiming
-                        List<Entry> blocks = idStore.getSlice(new KeySliceQuery(partitionKey, slice[0], slice[1]), txh);
+                        /* Read all id allocation claims on this partition which end after nextStart. Those are
+                         * sorted by their counter value first, so we have to find the earliest one among them.
+                         */
+                        List<Entry> blocks = idStore.getSlice(new KeySliceQuery(partitionKey, LOWER_SLICE, slice[0]), txh);
                         if (blocks == null) throw new TemporaryStorageException("Could not read from storage");
-                        if (blocks.isEmpty())
+                        StaticBuffer first = null;
+                        boolean found = false;
+                        for (Entry e : blocks) {
+                            StaticBuffer claim = e.getColumn();
+                            if (first == null || compareApplications(claim, first) < 0) first = claim;
+                            if (target.equals(claim)) found = true;
+                        }
+                        if (!found)
                             throw new PermanentStorageException("It seems there is a race-condition in the block application. " +
                                     "If you have multiple Titan instances running on one physical machine, ensure that they have unique machine idAuthorities");
 
-                        /* If our claim is the lexicographically first one, then our claim
+                        /* If our claim is the earliest one, then our claim
                          * is the most senior one and we own this id block
                          */
-                        if (target.equals(blocks.get(0).getColumn())) {
+                        if (target.equals(first)) {
 
                             long result[] = new long[2];
                             result[0] = nextStart;
@@ -210,6 +224,17 @@ public class ConsistentKeyIDManager extends AbstractIDManager {
         return bb.getStaticBuffer();
     }
 
+    /**
+     * Compares two block applications by the time at which they were made, using the rid to break ties
+     *
+     * @param a
+     * @param b
+     * @return
+     */
+    private static int compareApplications(StaticBuffer a, StaticBuffer b) {
+        return a.subrange(8, a.length() - 8).compareTo(b.subrange(8, b.length() - 8));
+    }
+
     private final long getBlockValue(ReadBuffer column) {
         return -column.getLong();
     }
@@ -6,12 +6,14 @@ import com.thinkaurelius.titan.diskstorage.StorageException;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeyColumnValueStore;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeySliceQuery;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.SliceQuery;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StoreTransaction;
 import com.thinkaurelius.titan.diskstorage.util.RecordIterator;
 import com.thinkaurelius.titan.diskstorage.util.StaticArrayBuffer;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -69,6 +71,19 @@ public class HashPrefixKeyColumnValueStore implements KeyColumnValueStore {
         return store.getSlice(prefixQuery, txh);
     }
 
+    @Override
+    public List<List<Entry>> getSlice(List<StaticBuffer> keys, SliceQuery query, StoreTransaction txh) throws StorageException {
+        List<StaticBuffer> prefixKeys = new ArrayList<StaticBuffer>(keys.size());
+        for (StaticBuffer key : keys) prefixKeys.add(prefixKey(key));
+        return store.getSlice(prefixKeys, query, txh);
+    }
+
+    @Override
+    public RecordIterator<Entry> getSliceIterator(KeySliceQuery query, int pageSize, StoreTransaction txh) throws StorageException {
+        KeySliceQuery prefixQuery = new KeySliceQuery(prefixKey(query.getKey()),query);
+        return store.getSliceIterator(prefixQuery, pageSize, txh);
+    }
+
     @Override
     public void mutate(StaticBuffer key, List<Entry> additions, List<StaticBuffer> deletions, StoreTransaction txh) throws StorageException {
         store.mutate(prefixKey(key), additions, deletions, txh);
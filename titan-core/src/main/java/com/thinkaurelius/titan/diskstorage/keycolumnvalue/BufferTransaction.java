@@ -1,6 +1,7 @@
 package com.thinkaurelius.titan.diskstorage.keycolumnvalue;
 
 import com.google.common.base.Preconditions;
+import com.thinkaurelius.titan.diskstorage.PermanentStorageException;
 import com.thinkaurelius.titan.diskstorage.StaticBuffer;
 import com.thinkaurelius.titan.diskstorage.StorageException;
 import com.thinkaurelius.titan.diskstorage.util.BackendOperation;
@@ -11,6 +12,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Buffers mutations against multiple {@link KeyColumnValueStore} from the same storage backend for increased
@@ -18,6 +22,14 @@ import java.util.concurrent.Callable;
  *
  * A BufferTransaction also attempts to flush multiple times in the event of temporary storage failures for increased
  * write robustness.
+ * <p/>
+ * If a flush executor is given, a full buffer is flushed in the background while new mutations are collected in a
+ * second buffer. At most one background flush is outstanding at any time: when the second buffer fills up before the
+ * background flush has completed, the caller waits for it. A failed background flush is reported when the next
+ * buffer is flushed, i.e. by {@link #mutate(String, StaticBuffer, List, List)}, {@link #flush()} or {@link #commit()}.
+ * <p/>
+ * If a {@link GroupCommitCoordinator} is given, the final flush on {@link #commit()} is persisted together with the
+ * final flushes of other concurrently committing transactions.
  *
  * @author Matthias Broecheler (me@matthiasb.com)
  */
@@ -34,8 +46,13 @@ public class BufferTransaction implements StoreTransaction {
     private final int mutationAttempts;
     private final int attemptWaitTime;
 
+    private final int expectedNumStores;
+    private final ExecutorService flushExecutor;
+    private final GroupCommitCoordinator groupCommit;
+
     private int numMutations;
-    private final Map<String, Map<StaticBuffer, KCVMutation>> mutations;
+    private Map<String, Map<StaticBuffer, KCVMutation>> mutations;
+    private Future<Boolean> pendingFlush;
 
     public BufferTransaction(StoreTransaction tx, KeyColumnValueStoreManager manager,
                              int bufferSize, int attempts, int waitTime) {
@@ -44,6 +61,29 @@ public class BufferTransaction implements StoreTransaction {
 
     public BufferTransaction(StoreTransaction tx, KeyColumnValueStoreManager manager,
                              int bufferSize, int attempts, int waitTime, int expectedNumStores) {
+        this(tx, manager, bufferSize, attempts, waitTime, expectedNumStores, null);
+    }
+
+    public BufferTransaction(StoreTransaction tx, KeyColumnValueStoreManager manager,
+                             int bufferSize, int attempts, int waitTime, int expectedNumStores,
+                             ExecutorService flushExecutor) {
+        this(tx, manager, bufferSize, attempts, waitTime, expectedNumStores, flushExecutor, null);
+    }
+
+    /**
+     *
+     * @param tx
+     * @param manager
+     * @param bufferSize
+     * @param attempts
+     * @param waitTime
+     * @param expectedNumStores
+     * @param flushExecutor Executor on which full buffers are flushed in the background or null to flush synchronously
+     * @param groupCommit Coordinator through which the final flush on commit is persisted or null to persist it directly
+     */
+    public BufferTransaction(StoreTransaction tx, KeyColumnValueStoreManager manager,
+                             int bufferSize, int attempts, int waitTime, int expectedNumStores,
+                             ExecutorService flushExecutor, GroupCommitCoordinator groupCommit) {
         Preconditions.checkNotNull(tx);
         Preconditions.checkNotNull(manager);
         Preconditions.checkArgument(bufferSize > 1, "Buffering only makes sense when bufferSize>1");
@@ -53,7 +93,11 @@ public class BufferTransaction implements StoreTransaction {
         this.bufferSize = bufferSize;
         this.mutationAttempts = attempts;
         this.attemptWaitTime = waitTime;
+        this.expectedNumStores = expectedNumStores;
+        this.flushExecutor = flushExecutor;
+        this.groupCommit = groupCommit;
         this.mutations = new HashMap<String, Map<StaticBuffer, KCVMutation>>(expectedNumStores);
+        this.pendingFlush = null;
     }
 
     public StoreTransaction getWrappedTransactionHandle() {
@@ -81,31 +125,85 @@ public class BufferTransaction implements StoreTransaction {
         numMutations += deletions.size();
 
         if (numMutations >= bufferSize) {
-            flushInternal();
+            if (flushExecutor != null) flushBackground();
+            else flushInternal();
         }
     }
 
     @Override
     public void flush() throws StorageException {
+        awaitPendingFlush();
         flushInternal();
         tx.flush();
     }
 
+    private Callable<Boolean> getFlushOperation(final Map<String, Map<StaticBuffer, KCVMutation>> mutations) {
+        return new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                manager.mutateMany(mutations, tx);
+                return true;
+            }
+            @Override
+            public String toString() { return "BufferMutation"; }
+        };
+    }
+
+    private Callable<Boolean> getGroupCommitOperation(final Map<String, Map<StaticBuffer, KCVMutation>> mutations) {
+        return new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                groupCommit.mutateMany(mutations, tx);
+                return true;
+            }
+            @Override
+            public String toString() { return "GroupCommitMutation"; }
+        };
+    }
+
     private void flushInternal() throws StorageException {
         if (numMutations > 0) {
-            BackendOperation.execute(new Callable<Boolean>() {
-                @Override
-                public Boolean call() throws Exception {
-                    manager.mutateMany(mutations, tx);
-                    return true;
-                }
-                @Override
-                public String toString() { return "BufferMutation"; }
-            },mutationAttempts,attemptWaitTime);
+            BackendOperation.execute(getFlushOperation(mutations),mutationAttempts,attemptWaitTime);
             clear();
         }
     }
 
+    /**
+     * Hands the current buffer to the flush executor and continues with an empty buffer, after waiting for the
+     * previous background flush to complete.
+     *
+     * @throws StorageException if the previous background flush failed
+     */
+    private void flushBackground() throws StorageException {
+        awaitPendingFlush();
+        final Callable<Boolean> flush = getFlushOperation(mutations);
+        mutations = new HashMap<String, Map<StaticBuffer, KCVMutation>>(expectedNumStores);
+        numMutations = 0;
+        pendingFlush = flushExecutor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return BackendOperation.execute(flush,mutationAttempts,attemptWaitTime);
+            }
+        });
+    }
+
+    private void awaitPendingFlush() throws StorageException {
+        if (pendingFlush == null) return;
+        Future<Boolean> flush = pendingFlush;
+        pendingFlush = null;
+        try {
+            flush.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PermanentStorageException("Interrupted while waiting for background flush", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof StorageException) throw (StorageException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new PermanentStorageException("Background flush failed", cause);
+        }
+    }
+
     private void clear() {
         for (Map.Entry<String, Map<StaticBuffer, KCVMutation>> entry : mutations.entrySet()) {
             entry.getValue().clear();
@@ -115,13 +213,25 @@ public class BufferTransaction implements StoreTransaction {
 
     @Override
     public void commit() throws StorageException {
-        flushInternal();
+        awaitPendingFlush();
+        if (groupCommit != null && numMutations > 0) {
+            BackendOperation.execute(getGroupCommitOperation(mutations),mutationAttempts,attemptWaitTime);
+            clear();
+        } else {
+            flushInternal();
+        }
         tx.flush();
     }
 
     @Override
     public void rollback() throws StorageException {
         clear();
+        try {
+            //A background flush cannot be undone but must complete before the transaction is closed
+            awaitPendingFlush();
+        } catch (Exception e) {
+            log.warn("Background flush failed during rollback", e);
+        }
         tx.rollback();
     }
 
@@ -40,6 +40,16 @@ public class BufferedKeyColumnValueStore implements KeyColumnValueStore {
         return store.getSlice(query, getTx(txh));
     }
 
+    @Override
+    public List<List<Entry>> getSlice(List<StaticBuffer> keys, SliceQuery query, StoreTransaction txh) throws StorageException {
+        return store.getSlice(keys, query, getTx(txh));
+    }
+
+    @Override
+    public RecordIterator<Entry> getSliceIterator(KeySliceQuery query, int pageSize, StoreTransaction txh) throws StorageException {
+        return store.getSliceIterator(query, pageSize, getTx(txh));
+    }
+
     @Override
     public void mutate(StaticBuffer key, List<Entry> additions, List<StaticBuffer> deletions, StoreTransaction txh) throws StorageException {
         if (bufferEnabled) {
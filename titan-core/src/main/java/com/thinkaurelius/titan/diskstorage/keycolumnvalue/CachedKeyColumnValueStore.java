@@ -6,23 +6,28 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.Weigher;
 import com.thinkaurelius.titan.diskstorage.StaticBuffer;
 import com.thinkaurelius.titan.diskstorage.StorageException;
-import com.thinkaurelius.titan.diskstorage.TemporaryStorageException;
+import com.thinkaurelius.titan.diskstorage.util.ByteBufferUtil;
 import com.thinkaurelius.titan.diskstorage.util.RecordIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Wraps a {@link KeyColumnValueStore} and caches KeySliceQuery results which are marked <i>static</i> and hence do not change.
+ * <p/>
+ * The cached results are indexed per key as a sorted array of disjoint column ranges, each of which holds all entries
+ * of the key that fall into the range in column order. A query is answered from the cache if its range is covered
+ * by one of the cached ranges. The result is then located by binary search over the cached entries of that range,
+ * so that narrower and limited queries can be answered from the results of wider queries.
+ * If the result of a limited query is truncated by the limit, the cached range only extends up to the last returned column.
+ * Overlapping and adjacent ranges are merged when added.
  *
  * @see SliceQuery
  *
- * TODO: generalize cache to check for subsumption instead of equality of KeySliceQuery and allow having a limit
- *
  * @author Matthias Broecheler (me@matthiasb.com)
  */
 
@@ -33,7 +38,7 @@ public class CachedKeyColumnValueStore implements KeyColumnValueStore {
     private static final long DEFAULT_CACHE_SIZE = 100000;
 
     private final KeyColumnValueStore store;
-    private final Cache<KeySliceQuery,List<Entry>> cache;
+    private final Cache<StaticBuffer,CachedSlice[]> cache;
 
     private final AtomicLong cacheRetrieval = new AtomicLong(0);
     private final AtomicLong cacheMiss = new AtomicLong(0);
@@ -45,10 +50,12 @@ public class CachedKeyColumnValueStore implements KeyColumnValueStore {
     public CachedKeyColumnValueStore(final KeyColumnValueStore store, long cacheSize) {
         Preconditions.checkNotNull(store);
         this.store=store;
-        this.cache = CacheBuilder.newBuilder().weigher(new Weigher<KeySliceQuery, List<Entry>>() {
+        this.cache = CacheBuilder.newBuilder().weigher(new Weigher<StaticBuffer, CachedSlice[]>() {
             @Override
-            public int weigh(KeySliceQuery q, List<Entry> r) {
-                return 2 + r.size();
+            public int weigh(StaticBuffer key, CachedSlice[] slices) {
+                int weight = 2;
+                for (CachedSlice slice : slices) weight+=slice.entries.size();
+                return weight;
             }
         }).maximumWeight(cacheSize)
         .build();
@@ -66,32 +73,143 @@ public class CachedKeyColumnValueStore implements KeyColumnValueStore {
 
     @Override
     public List<Entry> getSlice(final KeySliceQuery query, final StoreTransaction txh) throws StorageException {
-        if (query.isStatic() && !query.hasLimit()) {
-            try {
-                if (log.isDebugEnabled()) log.debug("Cache Retrieval on "+store.getName()+". Attempts: {} | Misses: {}",cacheRetrieval.get(),cacheMiss.get());
+        if (query.isStatic()) {
+            if (log.isDebugEnabled()) log.debug("Cache Retrieval on "+store.getName()+". Attempts: {} | Misses: {}",cacheRetrieval.get(),cacheMiss.get());
+            cacheRetrieval.incrementAndGet();
+            List<Entry> result = getCached(query.getKey(),query);
+            if (result==null) {
+                cacheMiss.incrementAndGet();
+                result = store.getSlice(query,txh);
+                addCached(query.getKey(),query,result);
+            }
+            return result;
+        } else {
+            return store.getSlice(query,txh);
+        }
+    }
+
+    @Override
+    public List<List<Entry>> getSlice(final List<StaticBuffer> keys, final SliceQuery query, final StoreTransaction txh) throws StorageException {
+        if (query.isStatic()) {
+            List<List<Entry>> results = new ArrayList<List<Entry>>(keys.size());
+            List<StaticBuffer> missingKeys = new ArrayList<StaticBuffer>();
+            List<Integer> missingPositions = new ArrayList<Integer>();
+            for (int i=0;i<keys.size();i++) {
                 cacheRetrieval.incrementAndGet();
-                List<Entry> result = cache.get(query,new Callable<List<Entry>>() {
-                    @Override
-                    public List<Entry> call() throws StorageException {
-                        cacheMiss.incrementAndGet();
-                        return store.getSlice(query,txh);
-                    }
-                });
-                if (result.isEmpty()) cache.invalidate(query);
-                return result;
-            } catch (ExecutionException e) {
-                Throwable cause = e.getCause();
-                if (cause!=null && cause instanceof StorageException) {
-                    throw (StorageException)cause;
-                } else {
-                    throw new TemporaryStorageException("Exception while accessing cache",e);
+                List<Entry> result = getCached(keys.get(i),query);
+                if (result==null) {
+                    missingKeys.add(keys.get(i));
+                    missingPositions.add(i);
+                }
+                results.add(result);
+            }
+            if (log.isDebugEnabled()) log.debug("Cache Retrieval on "+store.getName()+". Attempts: {} | Misses: {}",cacheRetrieval.get(),cacheMiss.get());
+            if (!missingKeys.isEmpty()) {
+                cacheMiss.addAndGet(missingKeys.size());
+                List<List<Entry>> loaded = store.getSlice(missingKeys,query,txh);
+                for (int i=0;i<missingKeys.size();i++) {
+                    List<Entry> result = loaded.get(i);
+                    addCached(missingKeys.get(i),query,result);
+                    results.set(missingPositions.get(i),result);
                 }
             }
+            return results;
         } else {
-            return store.getSlice(query,txh);
+            return store.getSlice(keys,query,txh);
         }
     }
 
+    /**
+     * Streaming slices are not cached since their purpose is to avoid materializing large rows in memory.
+     */
+    @Override
+    public RecordIterator<Entry> getSliceIterator(KeySliceQuery query, int pageSize, StoreTransaction txh) throws StorageException {
+        return store.getSliceIterator(query,pageSize,txh);
+    }
+
+    /**
+     * Returns the result of the given query from the cached slices of the given key or null if the
+     * query is not covered by any of the cached slices.
+     *
+     * @param key
+     * @param query
+     * @return
+     */
+    private List<Entry> getCached(StaticBuffer key, SliceQuery query) {
+        CachedSlice[] slices = cache.getIfPresent(key);
+        if (slices==null) return null;
+        //Find the last slice that starts before the query
+        int lo=0, hi=slices.length-1, pos=-1;
+        while (lo<=hi) {
+            int mid = (lo+hi)>>>1;
+            if (slices[mid].sliceStart.compareTo(query.getSliceStart())<=0) {
+                pos=mid; lo=mid+1;
+            } else hi=mid-1;
+        }
+        if (pos<0 || slices[pos].sliceEnd.compareTo(query.getSliceEnd())<0) return null;
+        List<Entry> entries = slices[pos].entries;
+        int from = firstIndexOf(entries,query.getSliceStart());
+        int to = Math.max(from,firstIndexOf(entries,query.getSliceEnd()));
+        if (to-from>query.getLimit()) to=from+query.getLimit();
+        return entries.subList(from,to);
+    }
+
+    /**
+     * Adds the result of the given query for the given key to the cache. Empty results are not cached since
+     * only non-empty result sets of static queries are guaranteed not to change.
+     *
+     * @param key
+     * @param query
+     * @param result
+     */
+    private void addCached(StaticBuffer key, SliceQuery query, List<Entry> result) {
+        if (result.isEmpty()) return;
+        StaticBuffer sliceEnd = query.getSliceEnd();
+        if (result.size()>=query.getLimit()) {
+            //Result is truncated and hence only complete up to (and including) the last column
+            sliceEnd = ByteBufferUtil.successorBuffer(result.get(result.size()-1).getColumn());
+        }
+        CachedSlice slice = new CachedSlice(query.getSliceStart(),sliceEnd,result);
+        ConcurrentMap<StaticBuffer,CachedSlice[]> map = cache.asMap();
+        while (true) {
+            CachedSlice[] existing = map.get(key);
+            if (existing==null) {
+                if (map.putIfAbsent(key,new CachedSlice[]{slice})==null) return;
+            } else {
+                if (map.replace(key,existing,merge(existing,slice))) return;
+            }
+        }
+    }
+
+    private static CachedSlice[] merge(CachedSlice[] slices, CachedSlice slice) {
+        List<CachedSlice> merged = new ArrayList<CachedSlice>(slices.length+1);
+        int pos = 0;
+        while (pos<slices.length && slices[pos].sliceEnd.compareTo(slice.sliceStart)<0) merged.add(slices[pos++]);
+        while (pos<slices.length && slices[pos].sliceStart.compareTo(slice.sliceEnd)<=0) {
+            slice = slice.union(slices[pos++]);
+        }
+        merged.add(slice);
+        while (pos<slices.length) merged.add(slices[pos++]);
+        return merged.toArray(new CachedSlice[merged.size()]);
+    }
+
+    /**
+     * Returns the index of the first entry whose column is equal to or greater than the given column.
+     *
+     * @param entries
+     * @param column
+     * @return
+     */
+    private static int firstIndexOf(List<Entry> entries, StaticBuffer column) {
+        int lo=0, hi=entries.size();
+        while (lo<hi) {
+            int mid = (lo+hi)>>>1;
+            if (entries.get(mid).getColumn().compareTo(column)<0) lo=mid+1;
+            else hi=mid;
+        }
+        return lo;
+    }
+
     @Override
     public void mutate(StaticBuffer key, List<Entry> additions, List<StaticBuffer> deletions, StoreTransaction txh) throws StorageException {
         store.mutate(key,additions,deletions,txh);
@@ -121,4 +239,42 @@ public class CachedKeyColumnValueStore implements KeyColumnValueStore {
     public void close() throws StorageException {
         store.close();
     }
+
+    /**
+     * All entries of a key within the column range from sliceStart (inclusive) to sliceEnd (exclusive), in column order
+     */
+    private static class CachedSlice {
+
+        private final StaticBuffer sliceStart;
+        private final StaticBuffer sliceEnd;
+        private final List<Entry> entries;
+
+        private CachedSlice(StaticBuffer sliceStart, StaticBuffer sliceEnd, List<Entry> entries) {
+            this.sliceStart = sliceStart;
+            this.sliceEnd = sliceEnd;
+            this.entries = entries;
+        }
+
+        private CachedSlice union(CachedSlice other) {
+            StaticBuffer start = sliceStart.compareTo(other.sliceStart)<=0?sliceStart:other.sliceStart;
+            StaticBuffer end = sliceEnd.compareTo(other.sliceEnd)>=0?sliceEnd:other.sliceEnd;
+            List<Entry> merged = new ArrayList<Entry>(entries.size()+other.entries.size());
+            int i=0, j=0;
+            while (i<entries.size() || j<other.entries.size()) {
+                if (j>=other.entries.size()) merged.add(entries.get(i++));
+                else if (i>=entries.size()) merged.add(other.entries.get(j++));
+                else {
+                    int cmp = entries.get(i).getColumn().compareTo(other.entries.get(j).getColumn());
+                    if (cmp<0) merged.add(entries.get(i++));
+                    else if (cmp>0) merged.add(other.entries.get(j++));
+                    else {
+                        merged.add(entries.get(i++)); j++;
+                    }
+                }
+            }
+            return new CachedSlice(start,end,merged);
+        }
+
+    }
+
 }
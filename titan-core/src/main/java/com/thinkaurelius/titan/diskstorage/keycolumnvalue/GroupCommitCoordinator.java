@@ -0,0 +1,225 @@
+package com.thinkaurelius.titan.diskstorage.keycolumnvalue;
+
+import com.google.common.base.Preconditions;
+import com.thinkaurelius.titan.diskstorage.PermanentStorageException;
+import com.thinkaurelius.titan.diskstorage.StaticBuffer;
+import com.thinkaurelius.titan.diskstorage.StorageException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Merges the final flushes of transactions which commit concurrently against the same storage backend into a single
+ * {@link KeyColumnValueStoreManager#mutateMany(java.util.Map, StoreTransaction)} call, to reduce the per-call overhead
+ * of many small transactions.
+ * <p/>
+ * The first transaction to commit opens a batch and waits for the configured window (or until the batch is full)
+ * for other transactions to join. It then persists the merged mutations using its own transaction handle and
+ * releases all transactions in the batch, which observe the same outcome. Hence, a commit is delayed by at most the
+ * window plus the time to persist the batch.
+ * <p/>
+ * Transactions are only batched with transactions of the same {@link ConsistencyLevel}. A transaction whose
+ * mutations touch a key that is already mutated in the open batch, or which would exceed the maximum batch size,
+ * closes the open batch and waits for it to be persisted before joining the next one. This preserves the order of
+ * conflicting mutations.
+ * <p/>
+ * Since the mutations of all transactions in a batch are persisted through a single transaction handle, this must
+ * only be used with storage backends whose transaction handles do not carry state beyond their consistency level.
+ *
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class GroupCommitCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitCoordinator.class);
+
+    private final KeyColumnValueStoreManager manager;
+    private final long windowMs;
+    private final int maxBatchSize;
+
+    private final Map<ConsistencyLevel,Batch> openBatches = new EnumMap<ConsistencyLevel,Batch>(ConsistencyLevel.class);
+
+    /**
+     *
+     * @param manager Storage manager against which the batches are persisted
+     * @param windowMs Time in milliseconds a batch remains open for other transactions to join
+     * @param maxBatchSize Maximum number of additions and deletions in a batch
+     */
+    public GroupCommitCoordinator(KeyColumnValueStoreManager manager, long windowMs, int maxBatchSize) {
+        Preconditions.checkNotNull(manager);
+        Preconditions.checkArgument(windowMs>0,"Invalid window: %s",windowMs);
+        Preconditions.checkArgument(maxBatchSize>0,"Invalid batch size: %s",maxBatchSize);
+        this.manager = manager;
+        this.windowMs = windowMs;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Persists the given mutations as part of a batch and returns once the batch has been persisted.
+     *
+     * @param mutations Mutations to persist. The maps must not be modified until this method returns.
+     * @param txh Transaction handle of the committing transaction
+     * @throws StorageException if persisting the batch failed
+     */
+    public void mutateMany(Map<String, Map<StaticBuffer, KCVMutation>> mutations, StoreTransaction txh) throws StorageException {
+        int size = getSize(mutations);
+        if (size==0) return;
+        if (size>=maxBatchSize) {
+            //Too large to be batched
+            manager.mutateMany(mutations, txh);
+            return;
+        }
+
+        ConsistencyLevel level = txh.getConsistencyLevel();
+        Batch batch;
+        boolean isLeader;
+        while (true) {
+            Batch closed;
+            synchronized (openBatches) {
+                batch = openBatches.get(level);
+                if (batch==null) {
+                    batch = new Batch(txh);
+                    openBatches.put(level,batch);
+                    isLeader = true;
+                } else isLeader = false;
+                if (batch.add(mutations,size)) break;
+                //Conflicting or full batch: close it and wait for it to complete before trying again
+                openBatches.remove(level);
+                closed = batch;
+            }
+            closed.close();
+            closed.await();
+        }
+
+        if (isLeader) {
+            batch.awaitClose(windowMs);
+            synchronized (openBatches) {
+                if (openBatches.get(level)==batch) openBatches.remove(level);
+            }
+            batch.execute();
+        }
+        batch.await();
+        batch.checkFailure();
+    }
+
+    private static int getSize(Map<String, Map<StaticBuffer, KCVMutation>> mutations) {
+        int size = 0;
+        for (Map<StaticBuffer, KCVMutation> storeMutations : mutations.values()) {
+            for (KCVMutation m : storeMutations.values()) {
+                if (m.hasAdditions()) size+=m.getAdditions().size();
+                if (m.hasDeletions()) size+=m.getDeletions().size();
+            }
+        }
+        return size;
+    }
+
+    private class Batch {
+
+        private final StoreTransaction txh;
+        private final Map<String, Map<StaticBuffer, KCVMutation>> mutations;
+        private int numMembers;
+        private int size;
+
+        private boolean closed;
+        private boolean done;
+        private Throwable failure;
+
+        private Batch(StoreTransaction txh) {
+            this.txh = txh;
+            this.mutations = new HashMap<String, Map<StaticBuffer, KCVMutation>>();
+            this.numMembers = 0;
+            this.size = 0;
+            this.closed = false;
+            this.done = false;
+            this.failure = null;
+        }
+
+        /**
+         * Adds the given mutations to this batch unless it is closed, they would exceed the maximum batch size or
+         * they mutate a key that is already mutated in this batch.
+         */
+        private synchronized boolean add(Map<String, Map<StaticBuffer, KCVMutation>> additions, int addSize) {
+            if (closed || (size>0 && size+addSize>maxBatchSize)) return false;
+            for (Map.Entry<String, Map<StaticBuffer, KCVMutation>> entry : additions.entrySet()) {
+                Map<StaticBuffer, KCVMutation> storeMutations = mutations.get(entry.getKey());
+                if (storeMutations==null) continue;
+                for (StaticBuffer key : entry.getValue().keySet()) {
+                    if (storeMutations.containsKey(key)) return false;
+                }
+            }
+            for (Map.Entry<String, Map<StaticBuffer, KCVMutation>> entry : additions.entrySet()) {
+                if (entry.getValue().isEmpty()) continue;
+                Map<StaticBuffer, KCVMutation> storeMutations = mutations.get(entry.getKey());
+                if (storeMutations==null) {
+                    storeMutations = new HashMap<StaticBuffer, KCVMutation>();
+                    mutations.put(entry.getKey(),storeMutations);
+                }
+                storeMutations.putAll(entry.getValue());
+            }
+            numMembers++;
+            size+=addSize;
+            if (size>=maxBatchSize) close();
+            return true;
+        }
+
+        private synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+
+        /**
+         * Waits until this batch is closed or the given time has passed. This batch must be executed even if the
+         * leader is interrupted while waiting, since other transactions are waiting for it.
+         */
+        private synchronized void awaitClose(long timeoutMs) {
+            long deadline = System.currentTimeMillis()+timeoutMs;
+            try {
+                long remaining;
+                while (!closed && (remaining=deadline-System.currentTimeMillis())>0) wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            closed = true;
+        }
+
+        private void execute() {
+            Throwable error = null;
+            try {
+                log.trace("Persisting group commit of {} transactions with {} mutations",numMembers,size);
+                manager.mutateMany(mutations, txh);
+            } catch (Throwable e) {
+                error = e;
+            }
+            synchronized (this) {
+                failure = error;
+                done = true;
+                notifyAll();
+            }
+        }
+
+        private synchronized void await() throws StorageException {
+            try {
+                while (!done) wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PermanentStorageException("Interrupted while waiting for group commit", e);
+            }
+        }
+
+        private void checkFailure() throws StorageException {
+            Throwable e;
+            synchronized (this) {
+                e = failure;
+            }
+            if (e==null) return;
+            if (e instanceof StorageException) throw (StorageException)e;
+            if (e instanceof RuntimeException) throw (RuntimeException)e;
+            throw new PermanentStorageException("Group commit failed", e);
+        }
+
+    }
+
+}
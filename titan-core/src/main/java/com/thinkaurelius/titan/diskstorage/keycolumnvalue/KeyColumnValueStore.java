@@ -47,8 +47,38 @@ public interface KeyColumnValueStore {
      */
     public List<Entry> getSlice(KeySliceQuery query, StoreTransaction txh) throws StorageException;
 
-    //TODO: for declarative query optimization
-    //public List<List<Entry>> getSlice(List<StaticBuffer> keys, SliceQuery query, StoreTransaction txh) throws StorageException;
+    /**
+     * Retrieves the list of entries (i.e. column-value pairs) for the given slice query against each of the
+     * specified keys in a single call to the store.
+     * <p/>
+     * The returned list has the same size and order as {@code keys}, i.e. the i-th element of the returned list
+     * contains the entries for the i-th key. Keys without matching entries map onto an empty list.
+     *
+     * @param keys  List of keys to retrieve the slice for
+     * @param query Slice query which is applied to each key
+     * @param txh   Transaction
+     * @return List of entry lists, one for each key in {@code keys} in the same order
+     * @throws StorageException when columnEnd < columnStart
+     * @see SliceQuery
+     */
+    public List<List<Entry>> getSlice(List<StaticBuffer> keys, SliceQuery query, StoreTransaction txh) throws StorageException;
+
+    /**
+     * Returns an iterator over the entries (i.e. column-value pairs) for the specified query which retrieves the
+     * entries from the store in pages of at most {@code pageSize} entries. Unlike {@link #getSlice(KeySliceQuery, StoreTransaction)}
+     * the result is not materialized in memory, which makes it suitable for iterating over very large rows.
+     * <p/>
+     * The returned iterator must be closed when it is no longer needed.
+     *
+     * @param query    Query to get results for
+     * @param pageSize Maximum number of entries to retrieve from the store at a time
+     * @param txh      Transaction
+     * @return Iterator over the entries up to a maximum of "limit" entries
+     * @throws StorageException when columnEnd < columnStart
+     * @see KeySliceQuery
+     * @see PagedSliceIterator
+     */
+    public RecordIterator<Entry> getSliceIterator(KeySliceQuery query, int pageSize, StoreTransaction txh) throws StorageException;
 
     /**
      * Verifies acquisition of locks {@code txh} from previous calls to
@@ -0,0 +1,171 @@
+package com.thinkaurelius.titan.diskstorage.keycolumnvalue;
+
+import com.thinkaurelius.titan.diskstorage.StaticBuffer;
+import com.thinkaurelius.titan.diskstorage.StorageException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Accumulates the mutations against a single {@link KeyColumnValueStore} within a transaction and groups them by key,
+ * so that each mutated key is written with a single call to {@link KeyColumnValueStore#mutate(StaticBuffer, java.util.List, java.util.List, StoreTransaction)}
+ * when the mutations are persisted.
+ * <p/>
+ * Repeated mutations of the same key are merged by column. Since each mutation applies its deletions before its
+ * additions, an addition supersedes an earlier deletion of the same column and a deletion supersedes an earlier
+ * addition of the same column. In the latter case the deletion is retained, because the column may have existed
+ * prior to the transaction.
+ * <p/>
+ * This class is not thread-safe.
+ *
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class MutationAccumulator {
+
+    private final Map<StaticBuffer,KeyMutation> mutations;
+    private int numMutations;
+
+    public MutationAccumulator() {
+        mutations = new LinkedHashMap<StaticBuffer,KeyMutation>();
+        numMutations = 0;
+    }
+
+    /**
+     * Adds the given mutation of the given key. The lists must not be modified afterwards.
+     *
+     * @param key       Key
+     * @param additions List of entries (column + value) to be added, may be empty or null
+     * @param deletions List of columns to be removed, may be empty or null
+     */
+    public void mutate(StaticBuffer key, List<Entry> additions, List<StaticBuffer> deletions) {
+        if ((additions==null || additions.isEmpty()) && (deletions==null || deletions.isEmpty())) return;
+        numMutations += (additions==null?0:additions.size()) + (deletions==null?0:deletions.size());
+        KeyMutation m = mutations.get(key);
+        if (m==null) mutations.put(key,new KeyMutation(additions,deletions));
+        else m.merge(additions,deletions);
+    }
+
+    public boolean isEmpty() {
+        return mutations.isEmpty();
+    }
+
+    /**
+     * Returns the number of keys with pending mutations
+     * @return
+     */
+    public int getNumKeys() {
+        return mutations.size();
+    }
+
+    /**
+     * Returns the number of additions and deletions added since this accumulator was last persisted or cleared,
+     * including those which have been merged with later mutations of the same column
+     * @return
+     */
+    public int getNumMutations() {
+        return numMutations;
+    }
+
+    /**
+     * Writes all accumulated mutations to the given store in the order in which the keys were first mutated and
+     * clears this accumulator.
+     *
+     * @param store
+     * @param txh
+     * @throws StorageException
+     */
+    public void persist(KeyColumnValueStore store, StoreTransaction txh) throws StorageException {
+        if (mutations.isEmpty()) return;
+        try {
+            for (Map.Entry<StaticBuffer,KeyMutation> entry : mutations.entrySet()) {
+                KeyMutation m = entry.getValue();
+                store.mutate(entry.getKey(),m.getAdditions(),m.getDeletions(),txh);
+            }
+        } finally {
+            clear();
+        }
+    }
+
+    public void clear() {
+        mutations.clear();
+        numMutations = 0;
+    }
+
+    /**
+     * Holds the lists of the first mutation of a key as given and only indexes them by column once the key is
+     * mutated again, since most keys are mutated only once per transaction.
+     */
+    private static class KeyMutation {
+
+        private List<Entry> additions;
+        private List<StaticBuffer> deletions;
+
+        private Map<StaticBuffer,Entry> additionsByColumn;
+        private Set<StaticBuffer> deletedColumns;
+
+        private KeyMutation(List<Entry> additions, List<StaticBuffer> deletions) {
+            this.additions = additions;
+            this.deletions = deletions;
+        }
+
+        private void merge(List<Entry> newAdditions, List<StaticBuffer> newDeletions) {
+            if (additionsByColumn==null) {
+                additionsByColumn = new LinkedHashMap<StaticBuffer,Entry>();
+                deletedColumns = new LinkedHashSet<StaticBuffer>();
+                //The deletions of a single mutation are applied before its additions
+                apply(additions,deletions);
+                additions = null;
+                deletions = null;
+            }
+            apply(newAdditions,newDeletions);
+        }
+
+        private void apply(List<Entry> adds, List<StaticBuffer> dels) {
+            if (dels!=null) {
+                for (StaticBuffer column : dels) {
+                    additionsByColumn.remove(column);
+                    deletedColumns.add(column);
+                }
+            }
+            if (adds!=null) {
+                for (Entry e : adds) {
+                    deletedColumns.remove(e.getColumn());
+                    additionsByColumn.put(e.getColumn(),e);
+                }
+            }
+        }
+
+        /**
+         * Returns a non-empty list which may be modified by the store, as required by buffering stores which merge
+         * mutations, or the immutable {@link KeyColumnValueStore#NO_ADDITIONS} if there are no additions. Stores do not
+         * modify empty lists since {@link com.thinkaurelius.titan.diskstorage.Mutation} does not retain them.
+         */
+        private List<Entry> getAdditions() {
+            if (additionsByColumn!=null) {
+                if (additionsByColumn.isEmpty()) return KeyColumnValueStore.NO_ADDITIONS;
+                return new ArrayList<Entry>(additionsByColumn.values());
+            }
+            if (additions==null || additions.isEmpty()) return KeyColumnValueStore.NO_ADDITIONS;
+            return additions instanceof ArrayList?additions:new ArrayList<Entry>(additions);
+        }
+
+        /**
+         * Like {@link #getAdditions()}, returns {@link KeyColumnValueStore#NO_DELETIONS} if there are no deletions
+         */
+        private List<StaticBuffer> getDeletions() {
+            if (deletedColumns!=null) {
+                if (deletedColumns.isEmpty()) return KeyColumnValueStore.NO_DELETIONS;
+                return new ArrayList<StaticBuffer>(deletedColumns);
+            }
+            if (deletions==null || deletions.isEmpty()) return KeyColumnValueStore.NO_DELETIONS;
+            return deletions instanceof ArrayList?deletions:new ArrayList<StaticBuffer>(deletions);
+        }
+
+    }
+
+}
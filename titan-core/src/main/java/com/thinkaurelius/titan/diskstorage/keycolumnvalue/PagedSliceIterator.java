@@ -0,0 +1,85 @@
+package com.thinkaurelius.titan.diskstorage.keycolumnvalue;
+
+import com.google.common.base.Preconditions;
+import com.thinkaurelius.titan.diskstorage.StaticBuffer;
+import com.thinkaurelius.titan.diskstorage.StorageException;
+import com.thinkaurelius.titan.diskstorage.util.ByteBufferUtil;
+import com.thinkaurelius.titan.diskstorage.util.RecordIterator;
+import com.thinkaurelius.titan.graphdb.query.Query;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the entries of a {@link KeySliceQuery} by retrieving them from the underlying
+ * {@link KeyColumnValueStore} in pages of at most the configured page size. Each page is retrieved with
+ * a limited {@link KeyColumnValueStore#getSlice(KeySliceQuery, StoreTransaction)} call which starts right after
+ * the last column of the previous page, so that at most one page of entries is held in memory at any time.
+ * <p/>
+ * The state of the iterator is only advanced once a page has been retrieved successfully, hence a call to
+ * {@link #hasNext()} that failed with a {@link StorageException} can be retried. This iterator does not retry by
+ * itself; {@link com.thinkaurelius.titan.diskstorage.BackendTransaction#edgeStoreSliceIterator(KeySliceQuery, int)}
+ * re-attempts the retrieval of each page on temporary failures.
+ *
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class PagedSliceIterator implements RecordIterator<Entry> {
+
+    private final KeyColumnValueStore store;
+    private final KeySliceQuery query;
+    private final int pageSize;
+    private final StoreTransaction txh;
+
+    private List<Entry> page;
+    private int position;
+    private StaticBuffer nextStart;
+    private int remaining;
+    private boolean exhausted;
+
+    public PagedSliceIterator(KeyColumnValueStore store, KeySliceQuery query, int pageSize, StoreTransaction txh) {
+        Preconditions.checkNotNull(store);
+        Preconditions.checkNotNull(query);
+        Preconditions.checkArgument(pageSize>0,"Page size must be positive: %s",pageSize);
+        this.store = store;
+        this.query = query;
+        this.pageSize = pageSize;
+        this.txh = txh;
+
+        this.page = null;
+        this.position = 0;
+        this.nextStart = query.getSliceStart();
+        this.remaining = query.getLimit();
+        this.exhausted = false;
+    }
+
+    @Override
+    public boolean hasNext() throws StorageException {
+        if (page!=null && position<page.size()) return true;
+        if (exhausted) return false;
+        int limit = remaining==Query.NO_LIMIT?pageSize:Math.min(pageSize,remaining);
+        List<Entry> next = store.getSlice(new KeySliceQuery(query.getKey(),nextStart,query.getSliceEnd(),limit,query.isStatic()),txh);
+        page = next;
+        position = 0;
+        if (remaining!=Query.NO_LIMIT) remaining-=next.size();
+        if (next.size()<limit || remaining<=0) {
+            exhausted = true;
+        } else {
+            nextStart = ByteBufferUtil.successorBuffer(next.get(next.size()-1).getColumn());
+        }
+        return !next.isEmpty();
+    }
+
+    @Override
+    public Entry next() throws StorageException {
+        if (!hasNext()) throw new NoSuchElementException();
+        return page.get(position++);
+    }
+
+    @Override
+    public void close() throws StorageException {
+        page = null;
+        exhausted = true;
+    }
+
+}
@@ -60,4 +60,14 @@ public class ReadOnlyKeyColumnValueStore implements KeyColumnValueStore {
         return store.getSlice(query, txh);
     }
 
+    @Override
+    public List<List<Entry>> getSlice(List<StaticBuffer> keys, SliceQuery query, StoreTransaction txh) throws StorageException {
+        return store.getSlice(keys, query, txh);
+    }
+
+    @Override
+    public RecordIterator<Entry> getSliceIterator(KeySliceQuery query, int pageSize, StoreTransaction txh) throws StorageException {
+        return store.getSliceIterator(query, pageSize, txh);
+    }
+
 }
@@ -41,7 +41,7 @@ class ColumnValueStore {
         }
     }
 
-    List<Entry> getSlice(KeySliceQuery query, StoreTransaction txh) {
+    List<Entry> getSlice(SliceQuery query, StoreTransaction txh) {
         Lock lock = getLock(txh);
         lock.lock();
         try {
@@ -12,6 +12,7 @@ import com.thinkaurelius.titan.diskstorage.util.RecordIterator;
 import org.apache.commons.lang.StringUtils;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -49,6 +50,22 @@ public class InMemoryKeyColumnValueStore implements KeyColumnValueStore {
         else return cvs.getSlice(query,txh);
     }
 
+    @Override
+    public List<List<Entry>> getSlice(List<StaticBuffer> keys, SliceQuery query, StoreTransaction txh) throws StorageException {
+        List<List<Entry>> results = new ArrayList<List<Entry>>(keys.size());
+        for (StaticBuffer key : keys) {
+            ColumnValueStore cvs = kcv.get(key);
+            if (cvs==null) results.add(new ArrayList<Entry>(0));
+            else results.add(cvs.getSlice(query,txh));
+        }
+        return results;
+    }
+
+    @Override
+    public RecordIterator<Entry> getSliceIterator(KeySliceQuery query, int pageSize, StoreTransaction txh) throws StorageException {
+        return new PagedSliceIterator(this,query,pageSize,txh);
+    }
+
     @Override
     public void mutate(StaticBuffer key, List<Entry> additions, List<StaticBuffer> deletions, StoreTransaction txh) throws StorageException {
         ColumnValueStore cvs = kcv.get(key);
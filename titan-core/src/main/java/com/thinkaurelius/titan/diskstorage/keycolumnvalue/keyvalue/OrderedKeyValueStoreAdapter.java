@@ -59,6 +59,31 @@ public class OrderedKeyValueStoreAdapter implements KeyColumnValueStore {
                 new KeyColumnSliceSelector(query.getKey(), query.getLimit()), txh));
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Ordered key-value stores have no native multi-key read, hence this implementation retrieves the slice
+     * for each key individually.
+     */
+    @Override
+    public List<List<Entry>> getSlice(List<StaticBuffer> keys, SliceQuery query, StoreTransaction txh) throws StorageException {
+        List<List<Entry>> results = new ArrayList<List<Entry>>(keys.size());
+        for (StaticBuffer key : keys) {
+            results.add(getSlice(new KeySliceQuery(key, query), txh));
+        }
+        return results;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Each page is retrieved by a bounded range scan over the underlying {@link OrderedKeyValueStore}.
+     */
+    @Override
+    public RecordIterator<Entry> getSliceIterator(KeySliceQuery query, int pageSize, StoreTransaction txh) throws StorageException {
+        return new PagedSliceIterator(this, query, pageSize, txh);
+    }
+
     @Override
     public void mutate(StaticBuffer key, List<Entry> additions, List<StaticBuffer> deletions, StoreTransaction txh) throws StorageException {
         if (!deletions.isEmpty()) {
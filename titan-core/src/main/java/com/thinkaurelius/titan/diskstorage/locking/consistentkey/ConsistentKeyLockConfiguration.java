@@ -24,8 +24,22 @@ public class ConsistentKeyLockConfiguration {
     final long lockExpireMS;
     final long lockWaitMS;
     final String localLockMediatorPrefix;
+    /**
+     * Whether locks are only mediated by the {@link LocalLockMediator} and not written to the lock store
+     */
+    final boolean localLockOnly;
 
     public ConsistentKeyLockConfiguration(Configuration config, String storeManagerName) {
+        this(config, storeManagerName, false);
+    }
+
+    /**
+     *
+     * @param config
+     * @param storeManagerName
+     * @param localLockOnlyDefault Whether locks are local-only unless configured otherwise
+     */
+    public ConsistentKeyLockConfiguration(Configuration config, String storeManagerName, boolean localLockOnlyDefault) {
         this.rid = DistributedStoreManager.getRid(config);
 
         this.localLockMediatorPrefix = config.getString(
@@ -43,6 +57,10 @@ public class ConsistentKeyLockConfiguration {
         this.lockExpireMS = config.getLong(
                 GraphDatabaseConfiguration.LOCK_EXPIRE_MS,
                 GraphDatabaseConfiguration.LOCK_EXPIRE_MS_DEFAULT);
+
+        this.localLockOnly = config.getBoolean(
+                GraphDatabaseConfiguration.LOCK_LOCAL_ONLY,
+                localLockOnlyDefault);
     }
 
 }
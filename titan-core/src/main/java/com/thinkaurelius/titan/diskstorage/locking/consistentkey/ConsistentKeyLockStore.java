@@ -3,14 +3,19 @@ package com.thinkaurelius.titan.diskstorage.locking.consistentkey;
 import com.google.common.base.Preconditions;
 import com.thinkaurelius.titan.diskstorage.StaticBuffer;
 import com.thinkaurelius.titan.diskstorage.StorageException;
+import com.google.common.collect.ImmutableMap;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KCVMutation;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeyColumnValueStoreManager;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeySliceQuery;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.SliceQuery;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StoreTransaction;
 import com.thinkaurelius.titan.diskstorage.locking.PermanentLockingException;
 import com.thinkaurelius.titan.diskstorage.util.RecordIterator;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * A wrapper that adds locking support to a {@link KeyColumnValueStore} by
@@ -37,6 +42,10 @@ public class ConsistentKeyLockStore implements KeyColumnValueStore {
      * data in here aside from locking records.
      */
     final KeyColumnValueStore lockStore;
+    /**
+     * Manager of {@link #lockStore} if it supports batch mutations, else null
+     */
+    final KeyColumnValueStoreManager lockStoreManager;
     final LocalLockMediator localLockMediator;
     final ConsistentKeyLockConfiguration configuration;
 
@@ -47,16 +56,26 @@ public class ConsistentKeyLockStore implements KeyColumnValueStore {
     public ConsistentKeyLockStore(KeyColumnValueStore dataStore) {
         this.dataStore = dataStore;
         this.lockStore = null;
+        this.lockStoreManager = null;
         this.localLockMediator = null;
         this.configuration = null;
     }
 
     public ConsistentKeyLockStore(KeyColumnValueStore dataStore, KeyColumnValueStore lockStore, ConsistentKeyLockConfiguration config) throws StorageException {
+        this(dataStore, lockStore, null, config);
+    }
+
+    /**
+     * Lock claims are written to {@code lockStore} in batches through {@code lockStoreManager} if it is non-null and
+     * supports batch mutations, and key by key otherwise.
+     */
+    public ConsistentKeyLockStore(KeyColumnValueStore dataStore, KeyColumnValueStore lockStore, KeyColumnValueStoreManager lockStoreManager, ConsistentKeyLockConfiguration config) throws StorageException {
         Preconditions.checkNotNull(config);
         this.dataStore = dataStore;
         this.configuration = config;
         this.localLockMediator = LocalLockMediators.INSTANCE.get(config.localLockMediatorPrefix + ":" + dataStore.getName());
         this.lockStore = lockStore;
+        this.lockStoreManager = lockStoreManager != null && lockStoreManager.getFeatures().supportsBatchMutation() ? lockStoreManager : null;
     }
 
     public KeyColumnValueStore getDataStore() {
@@ -87,6 +106,32 @@ public class ConsistentKeyLockStore implements KeyColumnValueStore {
         return configuration.lockWaitMS;
     }
 
+    /**
+     * Whether locks are only mediated within this process and not written to the lock store
+     *
+     * @return
+     */
+    public boolean isLocalLockOnly() {
+        return configuration.localLockOnly;
+    }
+
+    /**
+     * Applies the given mutations of lock keys to {@link #lockStore}
+     *
+     * @param mutations
+     * @param consistentTx
+     * @throws StorageException
+     */
+    void mutateLockStore(Map<StaticBuffer, KCVMutation> mutations, StoreTransaction consistentTx) throws StorageException {
+        if (lockStoreManager != null) {
+            lockStoreManager.mutateMany(ImmutableMap.of(lockStore.getName(), mutations), consistentTx);
+        } else {
+            for (Map.Entry<StaticBuffer, KCVMutation> m : mutations.entrySet()) {
+                lockStore.mutate(m.getKey(), m.getValue().getAdditions(), m.getValue().getDeletions(), consistentTx);
+            }
+        }
+    }
+
     private StoreTransaction getTx(StoreTransaction txh) {
         Preconditions.checkArgument(txh != null && txh instanceof ConsistentKeyLockTransaction);
         return ((ConsistentKeyLockTransaction) txh).getWrappedTransaction();
@@ -102,6 +147,16 @@ public class ConsistentKeyLockStore implements KeyColumnValueStore {
         return dataStore.getSlice(query, getTx(txh));
     }
 
+    @Override
+    public List<List<Entry>> getSlice(List<StaticBuffer> keys, SliceQuery query, StoreTransaction txh) throws StorageException {
+        return dataStore.getSlice(keys, query, getTx(txh));
+    }
+
+    @Override
+    public RecordIterator<Entry> getSliceIterator(KeySliceQuery query, int pageSize, StoreTransaction txh) throws StorageException {
+        return dataStore.getSliceIterator(query, pageSize, getTx(txh));
+    }
+
     /**
      * {@inheritDoc}
      * 
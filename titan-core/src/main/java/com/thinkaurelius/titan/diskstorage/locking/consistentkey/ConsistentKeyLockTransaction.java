@@ -31,6 +31,12 @@ public class ConsistentKeyLockTransaction implements StoreTransaction {
 
     private static final long MILLION = 1000000;
 
+    /**
+     * Maximum number of lock claims written in a single batch. A batch must be
+     * written within the lock wait time, which bounds its size.
+     */
+    private static final int MAX_CLAIMS_PER_BATCH = 256;
+
 
     /**
      * This variable starts false.  It remains false during the
@@ -41,8 +47,8 @@ public class ConsistentKeyLockTransaction implements StoreTransaction {
     private boolean isMutationStarted;
 
     /**
-     * This variable holds the last time we successfully wrote a
-     * lock via the {@link #writeBlindLockClaim(ConsistentKeyLockStore, StaticBuffer, StaticBuffer, StaticBuffer)}
+     * This variable holds the last time we successfully wrote
+     * lock claims to each store via the {@link #writePendingLockClaims()}
      * method.
      */
     private final Map<ConsistentKeyLockStore, Long> lastLockApplicationTimesMS =
@@ -57,6 +63,13 @@ public class ConsistentKeyLockTransaction implements StoreTransaction {
     private final LinkedHashSet<LockClaim> lockClaims =
             new LinkedHashSet<LockClaim>();
 
+    /**
+     * The subset of {@link #lockClaims} which has been claimed locally but not
+     * yet been written to the lock store.
+     */
+    private final LinkedHashSet<LockClaim> pendingClaims =
+            new LinkedHashSet<LockClaim>();
+
     private final StoreTransaction baseTx;
     private final StoreTransaction consistentTx;
 
@@ -137,19 +150,13 @@ public class ConsistentKeyLockTransaction implements StoreTransaction {
      * <p>
      * 
      * Conflicts with locks held by transactions in other processes will not be
-     * detected before this method returns. We optimistically write a lock claim
-     * to {@code backer}'s {@code lockStore}, but whether the claim takes
-     * precedence and the lock succeeded won't be checked until
-     * {@link #verifyAllLockClaims()}.
-     * 
-     * <p>
-     * 
-     * Unless there's an StorageException-worthy problem communicating with
-     * {@code backer}'s {@code lockStore}, such as failure to connect or
-     * exceptionally high write latency, this method concludes by appending a
-     * {@link LockClaim} to its {@code #lockClaims} hash set and then returns.
-     * The {@code LockClaim} lets {@code #verifyAllLockClaims()} find and check
-     * this lock attempt when called.
+     * detected before this method returns, unless {@code backer} only mediates
+     * locks locally. Otherwise, the lock claim is recorded as
+     * pending and written to {@code backer}'s {@code lockStore} together with
+     * all other pending claims by {@link #verifyAllLockClaims()}, which then
+     * checks whether the claims take precedence and the locks succeeded.
+     * Deferring the writes allows all claims for a lock store to be written
+     * in a single batch and to share a single lock wait period.
      * 
      * <p>
      * 
@@ -192,14 +199,14 @@ public class ConsistentKeyLockTransaction implements StoreTransaction {
 		/* Check the local lock mediator.
 		 * 
 		 * The timestamp calculated here is only approximate.  If it turns out that we
-		 * spend longer than the expiration period attempting to finish the rest of
-		 * this method, then there's a window of time in which the LocalLockMediator
+		 * spend longer than the expiration period before writing the claim to the lock
+		 * store, then there's a window of time in which the LocalLockMediator
 		 * may tell other threads that our key-column target is unlocked.  Lock conflict
 		 * is still detected in such cases during verifyAllLockClaims() below (it's
 		 * just slower than when LocalLockMediator gives the correct answer).
 		 * 
 		 * We'll also update the timestamp in the LocalLockMediator after we're done
-		 * talking to the backend store.
+		 * writing the claim to the backend store.
 		 * 
 		 * We use TimeUtility.getApproxNSSinceEpoch()/1000 instead of the
 		 * superficially equivalent System.currentTimeMillis() to get consistent timestamp
@@ -210,16 +217,45 @@ public class ConsistentKeyLockTransaction implements StoreTransaction {
         if (!backer.getLocalLockMediator().lock(lc.getKc(), this, tempts)) {
             throw new PermanentLockingException("Lock could not be acquired because it is held by a local transaction [" + lc + "]");
         }
-		
-		/* Write lock to the backing store
-		 *
-		 * The key we write is a concatenation of the arguments key and column,
-		 * prefixed by an int (4 bytes) representing the length of the argument key.
-		 * 
-		 * The column we write is a concatenation of our rid and the timestamp.
-		 */
-        StaticBuffer lockKey = lc.getLockKey();
 
+        log.trace("Claimed lock locally: {}", lc);
+        lockClaims.add(lc);
+        // Local-only locks are fully mediated by the LocalLockMediator
+        if (!backer.isLocalLockOnly())
+            pendingClaims.add(lc);
+    }
+
+    /**
+     * Writes all pending lock claims to their lock stores, using one batch
+     * mutation per lock store and up to {@link #MAX_CLAIMS_PER_BATCH} claims.
+     * 
+     * @throws StorageException
+     */
+    private void writePendingLockClaims() throws StorageException {
+        if (pendingClaims.isEmpty())
+            return;
+
+        for (Map.Entry<ConsistentKeyLockStore, List<LockClaim>> claims : groupByBacker(pendingClaims).entrySet()) {
+            List<LockClaim> backerClaims = claims.getValue();
+            for (int i = 0; i < backerClaims.size(); i += MAX_CLAIMS_PER_BATCH) {
+                writeLockClaims(claims.getKey(), backerClaims.subList(i, Math.min(i + MAX_CLAIMS_PER_BATCH, backerClaims.size())));
+            }
+        }
+    }
+
+    /**
+     * Writes the given lock claims to {@code backer}'s {@code lockStore} with a
+     * common timestamp.
+     * <p>
+     * The key we write for each claim is a concatenation of the claim's key and column,
+     * prefixed by an int (4 bytes) representing the length of the claim's key.
+     * The column we write is a concatenation of our rid and the timestamp.
+     * <p>
+     * If the write takes longer than the lock wait time, the claims are deleted
+     * and written again with a new timestamp. If the write fails, the claims are
+     * released locally and dropped from this transaction.
+     */
+    private void writeLockClaims(ConsistentKeyLockStore backer, List<LockClaim> claims) throws StorageException {
         StaticBuffer valBuf = ByteBufferUtil.getIntBuffer(0);
 
         boolean ok = false;
@@ -227,36 +263,44 @@ public class ConsistentKeyLockTransaction implements StoreTransaction {
         try {
             for (int i = 0; i < backer.getLockRetryCount(); i++) {
                 tsNS = TimeUtility.getApproxNSSinceEpoch(false);
-                Entry addition = StaticBufferEntry.of(lc.getLockCol(tsNS, backer.getRid()), valBuf);
+                Map<StaticBuffer, KCVMutation> additions = new HashMap<StaticBuffer, KCVMutation>(claims.size());
+                for (LockClaim lc : claims) {
+                    Entry addition = StaticBufferEntry.of(lc.getLockCol(tsNS, backer.getRid()), valBuf);
+                    additions.put(lc.getLockKey(), new KCVMutation(Arrays.asList(addition), KeyColumnValueStore.NO_DELETIONS));
+                }
 
                 long before = System.currentTimeMillis();
-                backer.getLockStore().mutate(lockKey, Arrays.asList(addition), KeyColumnValueStore.NO_DELETIONS, consistentTx);
+                backer.mutateLockStore(additions, consistentTx);
                 long after = System.currentTimeMillis();
 
                 if (backer.getLockWaitMS() < after - before) {
                     // Too slow
-                    // Delete lock claim and loop again
-                    backer.getLockStore().mutate(lockKey, KeyColumnValueStore.NO_ADDITIONS, Arrays.asList(lc.getLockCol(tsNS, backer.getRid())), consistentTx);
+                    // Delete lock claims and loop again
+                    backer.mutateLockStore(getLockDeletions(claims, tsNS), consistentTx);
                 } else {
                     ok = true;
                     lastLockApplicationTimesMS.put(backer, before);
-                    lc.setTimestamp(tsNS);
-                    log.trace("Wrote lock: {}", lc);
-                    lockClaims.add(lc);
+                    for (LockClaim lc : claims) {
+                        lc.setTimestamp(tsNS);
+                        log.trace("Wrote lock: {}", lc);
+                    }
                     return;
                 }
             }
 
-            throw new TemporaryLockingException("Lock failed: exceeded max timeouts [" + lc + "]");
+            throw new TemporaryLockingException("Lock failed: exceeded max timeouts [" + claims + "]");
         } finally {
+            pendingClaims.removeAll(claims);
             if (ok) {
                 // Update the timeout
                 assert 0 != tsNS;
-                boolean expireTimeUpdated = backer.getLocalLockMediator().lock(
-                        lc.getKc(), this, tsNS + MILLION * backer.getLockExpireMS());
+                for (LockClaim lc : claims) {
+                    boolean expireTimeUpdated = backer.getLocalLockMediator().lock(
+                            lc.getKc(), this, tsNS + MILLION * backer.getLockExpireMS());
 
-                if (!expireTimeUpdated)
-                    log.warn("Failed to update expiration time of local lock {}; is titan.storage.lock-expiry-time too low?");
+                    if (!expireTimeUpdated)
+                        log.warn("Failed to update expiration time of local lock {}; is titan.storage.lock-expiry-time too low?", lc);
+                }
 				
 				/*
 				 * No action is immediately necessary even if we failed to re-lock locally.
@@ -265,14 +309,43 @@ public class ConsistentKeyLockTransaction implements StoreTransaction {
 				 */
 
             } else {
-                backer.getLocalLockMediator().unlock(lc.getKc(), this);
+                for (LockClaim lc : claims) {
+                    lockClaims.remove(lc);
+                    backer.getLocalLockMediator().unlock(lc.getKc(), this);
+                }
             }
         }
     }
 
     /**
-     * For each object in the {@link #lockClaims} set, this method verifies both
-     * of the following conditions:
+     * Returns the deletions of the lock columns written for the given claims
+     * with the given timestamp.
+     */
+    private static Map<StaticBuffer, KCVMutation> getLockDeletions(List<LockClaim> claims, long tsNS) {
+        Map<StaticBuffer, KCVMutation> deletions = new HashMap<StaticBuffer, KCVMutation>(claims.size());
+        for (LockClaim lc : claims) {
+            StaticBuffer lockCol = lc.getLockCol(tsNS, lc.getBacker().getRid());
+            deletions.put(lc.getLockKey(), new KCVMutation(KeyColumnValueStore.NO_ADDITIONS, Arrays.asList(lockCol)));
+        }
+        return deletions;
+    }
+
+    private static Map<ConsistentKeyLockStore, List<LockClaim>> groupByBacker(Collection<LockClaim> claims) {
+        Map<ConsistentKeyLockStore, List<LockClaim>> claimsByBacker = new LinkedHashMap<ConsistentKeyLockStore, List<LockClaim>>();
+        for (LockClaim lc : claims) {
+            List<LockClaim> backerClaims = claimsByBacker.get(lc.getBacker());
+            if (null == backerClaims) {
+                backerClaims = new ArrayList<LockClaim>();
+                claimsByBacker.put(lc.getBacker(), backerClaims);
+            }
+            backerClaims.add(lc);
+        }
+        return claimsByBacker;
+    }
+
+    /**
+     * Writes all pending lock claims and then, for each object in the
+     * {@link #lockClaims} set, verifies both of the following conditions:
      * 
      * <ol>
      * <li>that no transaction in another Titan process holds the lock</li>
@@ -282,6 +355,12 @@ public class ConsistentKeyLockTransaction implements StoreTransaction {
      * </ol>
      * 
      * <p>
+     * For lock stores which only mediate locks locally, the first condition is
+     * verified against the {@link LocalLockMediator} instead.
+     * <p>
+     * The lock wait period is waited out once per lock store, after which the
+     * claims on all lock keys of the store are retrieved with a single read.
+     * <p>
      * If this method reads {@code lockStore} and finds that a transaction in a
      * different Titan process holds one of our claimed locks, then this method
      * throws a {@code LockingException} and the transaction's lock attempts
@@ -303,10 +382,13 @@ public class ConsistentKeyLockTransaction implements StoreTransaction {
      */
     public void verifyAllLockClaims() throws StorageException {
 
-        // wait one full idApplicationWaitMS since the last claim attempt, if needed
-        if (0 == lastLockApplicationTimesMS.size())
+        writePendingLockClaims();
+
+        if (lockClaims.isEmpty())
             return; // no locks
 
+        // wait one full idApplicationWaitMS since the last claim attempt, if needed
+
         long now = TimeUtility.getApproxNSSinceEpoch(false);
 
         // Iterate over all backends and sleep, if necessary, until
@@ -324,107 +406,155 @@ public class ConsistentKeyLockTransaction implements StoreTransaction {
             TimeUtility.sleepUntil(appTimeMS + i.getLockWaitMS(), log);
         }
 
-        // Check lock claim seniority
-        for (LockClaim lc : lockClaims) {
+        for (Map.Entry<ConsistentKeyLockStore, List<LockClaim>> claims : groupByBacker(lockClaims).entrySet()) {
+            ConsistentKeyLockStore backer = claims.getKey();
+            List<LockClaim> backerClaims = claims.getValue();
 
-            StaticBuffer lockKey = lc.getLockKey();
+            if (backer.isLocalLockOnly()) {
+                // Check that the local locks have not expired
+                for (LockClaim lc : backerClaims) {
+                    if (!backer.getLocalLockMediator().isHeldBy(lc.getKc(), this, now))
+                        throw new PermanentLockingException("Local lock expired before it was verified [" + lc + "]");
+                }
+                verifyExpectedValues(backer, backerClaims);
+                continue;
+            }
 
-            ConsistentKeyLockStore backer = lc.getBacker();
+            // Check lock claim seniority
+            List<StaticBuffer> lockKeys = new ArrayList<StaticBuffer>(backerClaims.size());
+            for (LockClaim lc : backerClaims) lockKeys.add(lc.getLockKey());
             int bufferLen = backer.getRid().length+8;
-            StaticBuffer lower = ByteBufferUtil.zeroBuffer(bufferLen);
-            StaticBuffer upper = ByteBufferUtil.oneBuffer(bufferLen);
-            List<Entry> entries = backer.getLockStore().getSlice(new KeySliceQuery(lockKey, lower, upper), consistentTx);
-
-            // Determine the timestamp and rid of the earliest still-valid lock claim
-            Long earliestNS = null;
-            Long latestNS = null;
-            byte[] earliestRid = null;
-            Set<StaticBuffer> ridsSeen = new HashSet<StaticBuffer>();
-
-            log.trace("Retrieved {} total lock claim(s) when verifying {}", entries.size(), lc);
-
-            for (Entry e : entries) {
-                StaticBuffer bb = e.getColumn();
-                long tsNS = bb.getLong(0);
-                byte[] curRid = new byte[bb.length()-8];
-                for (int i=8;i<bb.length();i++) curRid[i-8]=bb.getByte(i);
-
-                StaticBuffer curRidBuf = new StaticArrayBuffer(curRid);
-                ridsSeen.add(curRidBuf);
-                
-                // Ignore expired lock claims
-                if (tsNS < now - (backer.getLockExpireMS() * MILLION)) {
-                    log.warn("Discarded expired lock with timestamp {}", tsNS);
-                    continue;
-                }
-                
-                if (null == latestNS || tsNS > latestNS) {
-                    latestNS = tsNS;
-                }
-                
-                if (null == earliestNS || tsNS < earliestNS) {
-                    // Appoint new winner
-                    earliestNS = tsNS;
-                    earliestRid = curRid;
-                } else if (earliestNS == tsNS) {
-                    // Timestamp tie: break with column
-                    // (Column must be unique because it contains Rid)
-                    StaticBuffer earliestRidBuf = new StaticArrayBuffer(earliestRid);
+            SliceQuery lockSlice = new SliceQuery(ByteBufferUtil.zeroBuffer(bufferLen), ByteBufferUtil.oneBuffer(bufferLen));
+            List<List<Entry>> entries = backer.getLockStore().getSlice(lockKeys, lockSlice, consistentTx);
+            for (int i = 0; i < backerClaims.size(); i++) {
+                verifySeniority(backerClaims.get(i), entries.get(i), now);
+            }
 
-                    int i = curRidBuf.compareTo(earliestRidBuf);
+            // Check expectedValue
+            verifyExpectedValues(backer, backerClaims);
+        }
+    }
 
-                    if (-1 == i) {
-                        earliestRid = curRid;
-                    } else if (1 == i) {
-                        // curRid comes after earliestRid -> don't change earliestRid
-                    } else {
-                        // This should never happen
-                        log.warn("Retrieved duplicate column from Cassandra during lock check!? lc={}", lc);
-                    }
-                }
-            }
+    private void verifySeniority(LockClaim lc, List<Entry> entries, long now) throws StorageException {
+        ConsistentKeyLockStore backer = lc.getBacker();
+
+        // Determine the timestamp and rid of the earliest still-valid lock claim
+        Long earliestNS = null;
+        Long latestNS = null;
+        byte[] earliestRid = null;
+        Set<StaticBuffer> ridsSeen = new HashSet<StaticBuffer>();
+
+        log.trace("Retrieved {} total lock claim(s) when verifying {}", entries.size(), lc);
+
+        for (Entry e : entries) {
+            StaticBuffer bb = e.getColumn();
+            long tsNS = bb.getLong(0);
+            byte[] curRid = new byte[bb.length()-8];
+            for (int i=8;i<bb.length();i++) curRid[i-8]=bb.getByte(i);
 
-            // Check: did our Rid win?
-            byte rid[] = backer.getRid();
-            StaticBuffer myRidBuf = new StaticArrayBuffer(rid);
-            if (!Arrays.equals(earliestRid, rid)) {
-                log.trace("My rid={} lost to earlier rid={},ts={}",
-                        new Object[]{
-                                Hex.encodeHex(rid),          // TODO: I MADE THIS encodeHex from encodeHexString ?!
-                                null != earliestRid ? Hex.encodeHex(earliestRid) : "null",
-                                earliestNS});
-                throw new PermanentLockingException("Lock could not be acquired because it is held by a remote transaction [" + lc + "]");
+            StaticBuffer curRidBuf = new StaticArrayBuffer(curRid);
+            ridsSeen.add(curRidBuf);
+            
+            // Ignore expired lock claims
+            if (tsNS < now - (backer.getLockExpireMS() * MILLION)) {
+                log.warn("Discarded expired lock with timestamp {}", tsNS);
+                continue;
             }
             
-            // Check timestamp
-            if (earliestNS != lc.getTimestamp()) {
-                if (1 == ridsSeen.size() && lc.getTimestamp() == latestNS && ridsSeen.iterator().next().equals(myRidBuf)) {
-                    log.debug("Ignoring prior unexpired lock claim from own rid ({}) with timestamp {} (expected {})",
-                            new Object[] { Hex.encodeHexString(earliestRid), earliestNS, latestNS } );
+            if (null == latestNS || tsNS > latestNS) {
+                latestNS = tsNS;
+            }
+            
+            if (null == earliestNS || tsNS < earliestNS) {
+                // Appoint new winner
+                earliestNS = tsNS;
+                earliestRid = curRid;
+            } else if (earliestNS == tsNS) {
+                // Timestamp tie: break with column
+                // (Column must be unique because it contains Rid)
+                StaticBuffer earliestRidBuf = new StaticArrayBuffer(earliestRid);
+
+                int i = curRidBuf.compareTo(earliestRidBuf);
+
+                if (-1 == i) {
+                    earliestRid = curRid;
+                } else if (1 == i) {
+                    // curRid comes after earliestRid -> don't change earliestRid
                 } else {
-                    log.warn("Timestamp mismatch: expected={}, actual={}", lc.getTimestamp(), earliestNS);
-                    /*
-                     * This is probably evidence of a prior attempt to write a lock
-                     * that the client perceived as a failure but which in fact
-                     * succeeded.
-                     * 
-                     * Since the Rid is ours, we could theoretically delete the lock
-                     * and even attempt to obtain it all over again, but that
-                     * implies significant refactoring.
-                     * 
-                     * Eventually, the earlier stale lock claim will expire and
-                     * progress will resume.
-                     */
-                    throw new PermanentLockingException("Lock could not be acquired due to timestamp mismatch [" + lc + "]");
+                    // This should never happen
+                    log.warn("Retrieved duplicate column from Cassandra during lock check!? lc={}", lc);
                 }
             }
+        }
 
-            // Check expectedValue
-            StaticBuffer bb = KCVSUtil.get(backer.getDataStore(),lc.getKey(), lc.getColumn(), baseTx);
-            if ((null == bb && null != lc.getExpectedValue()) ||
-                    (null != bb && null == lc.getExpectedValue()) ||
-                    (null != bb && null != lc.getExpectedValue() && !lc.getExpectedValue().equals(bb))) {
-                throw new PermanentLockingException("Updated state: lock acquired but value has changed since read [" + lc + "]");
+        // Check: did our Rid win?
+        byte rid[] = backer.getRid();
+        StaticBuffer myRidBuf = new StaticArrayBuffer(rid);
+        if (!Arrays.equals(earliestRid, rid)) {
+            log.trace("My rid={} lost to earlier rid={},ts={}",
+                    new Object[]{
+                            Hex.encodeHex(rid),          // TODO: I MADE THIS encodeHex from encodeHexString ?!
+                            null != earliestRid ? Hex.encodeHex(earliestRid) : "null",
+                            earliestNS});
+            throw new PermanentLockingException("Lock could not be acquired because it is held by a remote transaction [" + lc + "]");
+        }
+        
+        // Check timestamp
+        if (earliestNS != lc.getTimestamp()) {
+            if (1 == ridsSeen.size() && lc.getTimestamp() == latestNS && ridsSeen.iterator().next().equals(myRidBuf)) {
+                log.debug("Ignoring prior unexpired lock claim from own rid ({}) with timestamp {} (expected {})",
+                        new Object[] { Hex.encodeHexString(earliestRid), earliestNS, latestNS } );
+            } else {
+                log.warn("Timestamp mismatch: expected={}, actual={}", lc.getTimestamp(), earliestNS);
+                /*
+                 * This is probably evidence of a prior attempt to write a lock
+                 * that the client perceived as a failure but which in fact
+                 * succeeded.
+                 * 
+                 * Since the Rid is ours, we could theoretically delete the lock
+                 * and even attempt to obtain it all over again, but that
+                 * implies significant refactoring.
+                 * 
+                 * Eventually, the earlier stale lock claim will expire and
+                 * progress will resume.
+                 */
+                throw new PermanentLockingException("Lock could not be acquired due to timestamp mismatch [" + lc + "]");
+            }
+        }
+    }
+
+    /**
+     * Compares the expected values of the given claims against the data store.
+     * Claims on the same column are read with a single multi-key read.
+     */
+    private void verifyExpectedValues(ConsistentKeyLockStore backer, List<LockClaim> claims) throws StorageException {
+        Map<StaticBuffer, List<LockClaim>> claimsByColumn = new LinkedHashMap<StaticBuffer, List<LockClaim>>();
+        for (LockClaim lc : claims) {
+            List<LockClaim> columnClaims = claimsByColumn.get(lc.getColumn());
+            if (null == columnClaims) {
+                columnClaims = new ArrayList<LockClaim>();
+                claimsByColumn.put(lc.getColumn(), columnClaims);
+            }
+            columnClaims.add(lc);
+        }
+
+        for (Map.Entry<StaticBuffer, List<LockClaim>> columnClaims : claimsByColumn.entrySet()) {
+            StaticBuffer column = columnClaims.getKey();
+            List<LockClaim> lcs = columnClaims.getValue();
+            List<StaticBuffer> keys = new ArrayList<StaticBuffer>(lcs.size());
+            for (LockClaim lc : lcs) keys.add(lc.getKey());
+            List<List<Entry>> values = backer.getDataStore().getSlice(keys,
+                    new SliceQuery(column, ByteBufferUtil.nextBiggerBuffer(column), 2), baseTx);
+
+            for (int i = 0; i < lcs.size(); i++) {
+                LockClaim lc = lcs.get(i);
+                List<Entry> result = values.get(i);
+                StaticBuffer bb = result.isEmpty() ? null : result.get(0).getValue();
+                if ((null == bb && null != lc.getExpectedValue()) ||
+                        (null != bb && null == lc.getExpectedValue()) ||
+                        (null != bb && null != lc.getExpectedValue() && !lc.getExpectedValue().equals(bb))) {
+                    throw new PermanentLockingException("Updated state: lock acquired but value has changed since read [" + lc + "]");
+                }
             }
         }
     }
@@ -433,49 +563,59 @@ public class ConsistentKeyLockTransaction implements StoreTransaction {
     	
     	long nowNS = TimeUtility.getApproxNSSinceEpoch(false);
 
-        for (LockClaim lc : lockClaims) {
+        for (Map.Entry<ConsistentKeyLockStore, List<LockClaim>> claims : groupByBacker(lockClaims).entrySet()) {
+            ConsistentKeyLockStore backer = claims.getKey();
 
-            assert null != lc;
-            StaticBuffer lockKeyBuf = lc.getLockKey();
-            assert null != lockKeyBuf;
-//            assert lockKeyBuf.hasRemaining();
-            StaticBuffer lockColBuf = lc.getLockCol(lc.getTimestamp(), lc.getBacker().getRid());
-            assert null != lockColBuf;
-//            assert lockColBuf.hasRemaining();
-            
-            // Log expired locks
-            if (lc.getTimestamp() + (lc.getBacker().getLockExpireMS() * MILLION) < nowNS) {
-            	log.error("Lock expired: {} (txn={})", lc, this);
+            // Claims which have not been written only need to be released locally
+            Map<StaticBuffer, KCVMutation> deletions = new HashMap<StaticBuffer, KCVMutation>();
+            for (LockClaim lc : claims.getValue()) {
+                if (backer.isLocalLockOnly() || pendingClaims.contains(lc)) continue;
+
+                assert null != lc;
+                StaticBuffer lockKeyBuf = lc.getLockKey();
+                assert null != lockKeyBuf;
+                StaticBuffer lockColBuf = lc.getLockCol(lc.getTimestamp(), backer.getRid());
+                assert null != lockColBuf;
+
+                // Log expired locks
+                if (lc.getTimestamp() + (backer.getLockExpireMS() * MILLION) < nowNS) {
+                    log.error("Lock expired: {} (txn={})", lc, this);
+                }
+                deletions.put(lockKeyBuf, new KCVMutation(KeyColumnValueStore.NO_ADDITIONS, Arrays.asList(lockColBuf)));
             }
 
-            try {
-                // Release lock remotely
-                lc.getBacker().getLockStore().mutate(lockKeyBuf, KeyColumnValueStore.NO_ADDITIONS, Arrays.asList(lockColBuf), consistentTx);
+            if (!deletions.isEmpty()) {
+                try {
+                    // Release locks remotely
+                    backer.mutateLockStore(deletions, consistentTx);
 
-                if (log.isTraceEnabled()) {
-                    log.trace("Released {} in lock store (txn={})", lc, this);
+                    if (log.isTraceEnabled()) {
+                        log.trace("Released {} lock(s) in lock store {} (txn={})", new Object[]{deletions.size(), backer.getName(), this});
+                    }
+                } catch (Throwable t) {
+                    log.error("Unexpected exception when releasing {} lock(s) in lock store {} (txn={})", new Object[]{deletions.size(), backer.getName(), this});
+                    log.error("Lock store failure exception follows", t);
                 }
-            } catch (Throwable t) {
-                log.error("Unexpected exception when releasing {} in lock store (txn={})", lc, this);
-                log.error("Lock store failure exception follows", t);
             }
 
-            try {
-                // Release lock locally
-            	// If lc is unlocked normally, then this method returns true
-            	// If there's a problem (e.g. lc has expired), it returns false
-            	boolean locallyUnlocked = lc.getBacker().getLocalLockMediator().unlock(lc.getKc(), this);
-            	
-            	if (locallyUnlocked) {
-            		if (log.isTraceEnabled()) {
-            			log.trace("Released {} locally (txn={})", lc, this);
-            		}
-            	} else {
-            		log.warn("Failed to release {} locally (txn={})", lc, this);
-            	}
-            } catch (Throwable t) {
-                log.error("Unexpected exception while locally releasing {} (txn={})", lc, this);
-                log.error("Local release failure exception follows", t);
+            for (LockClaim lc : claims.getValue()) {
+                try {
+                    // Release lock locally
+                    // If lc is unlocked normally, then this method returns true
+                    // If there's a problem (e.g. lc has expired), it returns false
+                    boolean locallyUnlocked = backer.getLocalLockMediator().unlock(lc.getKc(), this);
+
+                    if (locallyUnlocked) {
+                        if (log.isTraceEnabled()) {
+                            log.trace("Released {} locally (txn={})", lc, this);
+                        }
+                    } else {
+                        log.warn("Failed to release {} locally (txn={})", lc, this);
+                    }
+                } catch (Throwable t) {
+                    log.error("Unexpected exception while locally releasing {} (txn={})", lc, this);
+                    log.error("Local release failure exception follows", t);
+                }
             }
         }
     }
@@ -5,7 +5,9 @@ import com.thinkaurelius.titan.diskstorage.util.TimeUtility;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 
 /**
  * This class resolves lock contention between two transactions on the same JVM.
@@ -16,6 +18,11 @@ import java.util.concurrent.ConcurrentHashMap;
  * transaction in a process holds any given lock. This class prevents two
  * transactions in a single process from concurrently writing the same lock to a
  * distributed key-value store.
+ * <p/>
+ * Locks are kept in a fixed number of stripes which are each guarded by their own
+ * monitor, so that transactions locking different key-columns rarely contend.
+ * Uncontended locks and unlocks look up the key-column only once. Expired locks
+ * which were never released are swept from a stripe periodically.
  *
  * @author Dan LaRocque <dalaro@hopcount.org>
  */
@@ -25,6 +32,17 @@ public class LocalLockMediator {
     private static final Logger log = LoggerFactory
             .getLogger(LocalLockMediator.class);
 
+    /**
+     * Number of stripes, must be a power of two
+     */
+    private static final int NUM_STRIPES = 32;
+
+    /**
+     * Number of lock acquisitions on a stripe after which it is swept for
+     * expired locks
+     */
+    private static final int SWEEP_INTERVAL = 1024;
+
     /**
      * Namespace for which this mediator is responsible
      * 
@@ -33,17 +51,29 @@ public class LocalLockMediator {
     private final String name;
 
     /**
-     * Maps a ({@code key}, {@code column}) pair to the local transaction
-     * holding a lock on that pair. Values in this map may have already expired
-     * according to {@link AuditRecord#expires}, in which case the lock should
-     * be considered invalid.
+     * Each stripe maps a ({@code key}, {@code column}) pair to the local
+     * transaction holding a lock on that pair. Records in the stripes may have
+     * already expired according to {@link LockRecord#expires}, in which case
+     * the lock should be considered invalid.
      */
-    private final ConcurrentHashMap<KeyColumn, AuditRecord> locks = new ConcurrentHashMap<KeyColumn, AuditRecord>();
+    private final Stripe[] stripes;
 
     public LocalLockMediator(String name) {
         this.name = name;
 
         assert null != this.name;
+
+        stripes = new Stripe[NUM_STRIPES];
+        for (int i = 0; i < NUM_STRIPES; i++) stripes[i] = new Stripe();
+    }
+
+    /**
+     * The stripe is selected by the high bits of the mixed hash code since the
+     * hash maps within the stripes use the low bits.
+     */
+    private Stripe stripeFor(KeyColumn kc) {
+        int h = kc.hashCode() * 0x9E3779B9;
+        return stripes[h >>> (32 - Integer.numberOfTrailingZeros(NUM_STRIPES))];
     }
 
     /**
@@ -85,52 +115,68 @@ public class LocalLockMediator {
         assert null != kc;
         assert null != requestor;
 
-        AuditRecord audit = new AuditRecord(requestor, expiresAt);
-        AuditRecord inmap = locks.putIfAbsent(kc, audit);
-
-        boolean success = false;
+        Stripe stripe = stripeFor(kc);
+        synchronized (stripe) {
+            stripe.sweepIfDue();
+            LockRecord record = new LockRecord(requestor, expiresAt);
+            // Optimistically install the new record to look up the key only once when the lock is uncontended
+            LockRecord inmap = stripe.locks.put(kc, record);
 
-        if (null == inmap) {
-            // Uncontended lock succeeded
-            if (log.isTraceEnabled()) {
-                log.trace("New local lock created: {} namespace={} txn={}",
-                        new Object[]{kc, name, requestor});
+            if (null == inmap) {
+                // Uncontended lock succeeded
+                if (log.isTraceEnabled()) {
+                    log.trace("New local lock created: {} namespace={} txn={}",
+                            new Object[]{kc, name, requestor});
+                }
+                return true;
             }
-            success = true;
-        } else if (inmap.equals(audit)) {
-            // requestor has already locked kc; update expiresAt
-            success = locks.replace(kc, inmap, audit);
-            if (log.isTraceEnabled()) {
-                if (success) {
+
+            stripe.locks.put(kc, inmap);
+            if (inmap.holder.equals(requestor)) {
+                // requestor has already locked kc; update expiresAt
+                if (log.isTraceEnabled()) {
                     log.trace(
                             "Updated local lock expiration: {} namespace={} txn={} oldexp={} newexp={}",
-                            new Object[]{kc, name, requestor, inmap.expires,
-                                    audit.expires});
-                } else {
+                            new Object[]{kc, name, requestor, inmap.expires, expiresAt});
+                }
+                inmap.expires = expiresAt;
+                return true;
+            } else if (inmap.expires <= TimeUtility.getApproxNSSinceEpoch(false)) {
+                // the recorded lock has expired; replace it
+                if (log.isTraceEnabled()) {
                     log.trace(
-                            "Failed to update local lock expiration: {} namespace={} txn={} oldexp={} newexp={}",
-                            new Object[]{kc, name, requestor, inmap.expires,
-                                    audit.expires});
+                            "Discarding expired lock: {} namespace={} txn={} expired={}",
+                            new Object[]{kc, name, inmap.holder, inmap.expires});
                 }
-            }
-        } else if (inmap.expires <= TimeUtility.getApproxNSSinceEpoch(false)) {
-            // the recorded lock has expired; replace it
-            success = locks.replace(kc, inmap, audit);
-            if (log.isTraceEnabled()) {
-                log.trace(
-                        "Discarding expired lock: {} namespace={} txn={} expired={}",
-                        new Object[]{kc, name, inmap.holder, inmap.expires});
-            }
-        } else {
-            // we lost to a valid lock
-            if (log.isTraceEnabled()) {
-                log.trace(
-                        "Local lock failed: {} namespace={} txn={} (already owned by {})",
-                        new Object[]{kc, name, requestor, inmap});
+                inmap.holder = requestor;
+                inmap.expires = expiresAt;
+                return true;
+            } else {
+                // we lost to a valid lock
+                if (log.isTraceEnabled()) {
+                    log.trace(
+                            "Local lock failed: {} namespace={} txn={} (already owned by {})",
+                            new Object[]{kc, name, requestor, inmap});
+                }
+                return false;
             }
         }
+    }
 
-        return success;
+    /**
+     * Returns true if the lock specified by {@code kc} is held by
+     * {@code requestor} and has not expired at the given time.
+     *
+     * @param kc        lock identifier
+     * @param requestor the object which previously locked {@code kc}
+     * @param now       the number of nanoseconds since the Epoch
+     */
+    public boolean isHeldBy(KeyColumn kc, ConsistentKeyLockTransaction requestor, long now) {
+        Stripe stripe = stripeFor(kc);
+        synchronized (stripe) {
+            LockRecord holder = stripe.locks.get(kc);
+            return null != holder && holder.holder.equals(requestor) && now < holder.expires;
+        }
     }
 
     /**
@@ -142,106 +188,94 @@ public class LocalLockMediator {
      */
     public boolean unlock(KeyColumn kc, ConsistentKeyLockTransaction requestor) {
 
-        if (!locks.containsKey(kc)) {
-            log.error("Local unlock failed: no locks found for {}", kc);
-            return false;
-        }
-
-        AuditRecord unlocker = new AuditRecord(requestor, 0);
+        Stripe stripe = stripeFor(kc);
+        synchronized (stripe) {
+            LockRecord holder = stripe.locks.remove(kc);
 
-        AuditRecord holder = locks.get(kc);
-
-        if (!holder.equals(unlocker)) {
-            log.error("Local unlock of {} by {} failed: it is held by {}",
-                    new Object[] { kc, unlocker, holder });
-            return false;
-        }
-
-        boolean removed = locks.remove(kc, unlocker);
+            if (null == holder) {
+                log.error("Local unlock failed: no locks found for {}", kc);
+                return false;
+            }
 
-        if (removed) {
-            if (log.isTraceEnabled()) {
-                log.trace("Local unlock succeeded: {} namespace={} txn={}",
-                        new Object[] { kc, name, requestor });
+            if (!holder.holder.equals(requestor)) {
+                stripe.locks.put(kc, holder);
+                log.error("Local unlock of {} by {} failed: it is held by {}",
+                        new Object[] { kc, requestor, holder });
+                return false;
             }
-        } else {
-            log.warn("Local unlock warning: lock record for {} disappeared "
-                    + "during removal; this suggests the lock either expired "
-                    + "while we were removing it, or that it was erroneously "
-                    + "unlocked multiple times.", kc);
         }
 
-        // Even if !removed, we're finished unlocking, so return true
+        if (log.isTraceEnabled()) {
+            log.trace("Local unlock succeeded: {} namespace={} txn={}",
+                    new Object[] { kc, name, requestor });
+        }
         return true;
     }
 
     public String toString() {
-        return "LocalLockMediator [" + name + ",  ~" + locks.size()
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.locks.size();
+            }
+        }
+        return "LocalLockMediator [" + name + ",  ~" + size
                 + " current locks]";
     }
 
+    /**
+     * A subset of the locks of this mediator. Must be synchronized on when accessed.
+     */
+    private static class Stripe {
+
+        private final Map<KeyColumn, LockRecord> locks = new HashMap<KeyColumn, LockRecord>();
+
+        /**
+         * Number of lock acquisitions since the last sweep
+         */
+        private int acquisitions = 0;
+
+        /**
+         * Removes expired locks every {@link #SWEEP_INTERVAL} lock acquisitions
+         * so that locks which are never released do not accumulate.
+         */
+        private void sweepIfDue() {
+            if (++acquisitions < SWEEP_INTERVAL) return;
+            acquisitions = 0;
+            long now = TimeUtility.getApproxNSSinceEpoch(false);
+            for (Iterator<LockRecord> iter = locks.values().iterator(); iter.hasNext(); ) {
+                if (iter.next().expires <= now) iter.remove();
+            }
+        }
+
+    }
+
     /**
      * A record containing the local transaction that holds a lock and the
-     * lock's expiration time.
+     * lock's expiration time. Only modified while holding the monitor of its
+     * stripe.
      */
-    private static class AuditRecord {
+    private static class LockRecord {
         
         /**
          * The local transaction that holds/held the lock.
          */
-        private final ConsistentKeyLockTransaction holder;
+        private ConsistentKeyLockTransaction holder;
         /**
          * The expiration time of a the lock. Conventionally, this is in
          * nanoseconds from the epoch as returned by
          * {@link TimeUtility#getApproxNSSinceEpoch(boolean)}.
          */
-        private final long expires;
-        /**
-         * Cached hashCode.
-         */
-        private int hashCode;
+        private long expires;
 
-        private AuditRecord(ConsistentKeyLockTransaction holder, long expires) {
+        private LockRecord(ConsistentKeyLockTransaction holder, long expires) {
             this.holder = holder;
             this.expires = expires;
         }
-        
-        /**
-         * This implementation depends only on the lock holder and not on the
-         * lock expiration time.
-         */
-        @Override
-        public int hashCode() {
-            if (0 == hashCode)
-                hashCode = holder.hashCode();
-
-            return hashCode;
-        }
-        
-        /**
-         * This implementation depends only on the lock holder and not on the
-         * lock expiration time.
-         */
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj)
-                return true;
-            if (obj == null)
-                return false;
-            if (getClass() != obj.getClass())
-                return false;
-            AuditRecord other = (AuditRecord) obj;
-            if (holder == null) {
-                if (other.holder != null)
-                    return false;
-            } else if (!holder.equals(other.holder))
-                return false;
-            return true;
-        }
 
         @Override
         public String toString() {
-            return "AuditRecord [txn=" + holder + ", expires=" + expires + "]";
+            return "LockRecord [txn=" + holder + ", expires=" + expires + "]";
         }
 
     }
@@ -91,6 +91,19 @@ public class ByteBufferUtil {
         return new StaticArrayBuffer(next);
     }
 
+    /**
+     * Returns the smallest buffer that is strictly greater than the given one, i.e. the given buffer
+     * extended by a single zero byte.
+     *
+     * @param buffer
+     * @return
+     */
+    public static final StaticBuffer successorBuffer(StaticBuffer buffer) {
+        byte[] next = new byte[buffer.length()+1];
+        for (int i = 0; i < buffer.length(); i++) next[i]=buffer.getByte(i);
+        return new StaticArrayBuffer(next);
+    }
+
     public static final ByteBuffer zeroByteBuffer(int len) {
         ByteBuffer res = ByteBuffer.allocate(len);
         for (int i = 0; i < len; i++) res.put((byte) 0);
@@ -14,6 +14,7 @@ import com.thinkaurelius.titan.diskstorage.StorageException;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeyColumnValueStore;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeySliceQuery;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.SliceQuery;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StoreTransaction;
 import com.thinkaurelius.titan.util.stats.MetricManager;
 
@@ -31,7 +32,10 @@ import com.thinkaurelius.titan.util.stats.MetricManager;
  * {@code getSlice} carries metrics with the identifiers "entries-returned" and
  * "entries-histogram". The first is a counter of total Entry objects returned.
  * The second is a histogram of the size of Entry lists returned.
- * {@code getKeys} returns a {@link RecordIterator} that manages metrics for its
+ * The multi-key variant of {@code getSlice} is instrumented under the method
+ * name "getSliceMulti" and carries an additional "keys-requested" counter of the
+ * total number of keys passed in.
+ * {@code getKeys} and {@code getSliceIterator} return a {@link RecordIterator} that manages metrics for its
  * methods.
  * <p>
  * This implementation does not catch any exceptions. Exceptions emitted by the
@@ -60,6 +64,17 @@ public class MetricInstrumentedStore implements KeyColumnValueStore {
     private final Histogram getSliceColumnHisto;
     private final Counter getSliceInvocationCounter;
     private final Counter getSliceFailureCounter;
+    // getSlice (multiple keys)
+    private final Timer   getSliceMultiTimer;
+    private final Counter getSliceMultiKeyCounter;
+    private final Counter getSliceMultiColumnCounter;
+    private final Counter getSliceMultiInvocationCounter;
+    private final Counter getSliceMultiFailureCounter;
+    // getSliceIterator
+    private final Timer   getSliceIteratorTimer;
+    private final Counter getSliceIteratorInvocationCounter;
+    private final Counter getSliceIteratorFailureCounter;
+    private final String  getSliceIteratorMetricPrefix;
     // mutate
     private final Timer   mutateTimer;
     private final Counter mutateInvocationCounter;
@@ -111,6 +126,25 @@ public class MetricInstrumentedStore implements KeyColumnValueStore {
                 metrics.counter(MetricRegistry.name(p, "getSlice", "entries-returned"));
         getSliceColumnHisto =
               metrics.histogram(MetricRegistry.name(p, "getSlice", "entries-histogram"));
+
+        getSliceMultiTimer =
+                  metrics.timer(MetricRegistry.name(p, "getSliceMulti", "time"));
+        getSliceMultiInvocationCounter =
+                metrics.counter(MetricRegistry.name(p, "getSliceMulti", "calls"));
+        getSliceMultiFailureCounter =
+                metrics.counter(MetricRegistry.name(p, "getSliceMulti", "exceptions"));
+        getSliceMultiKeyCounter =
+                metrics.counter(MetricRegistry.name(p, "getSliceMulti", "keys-requested"));
+        getSliceMultiColumnCounter =
+                metrics.counter(MetricRegistry.name(p, "getSliceMulti", "entries-returned"));
+
+        getSliceIteratorTimer =
+                  metrics.timer(MetricRegistry.name(p, "getSliceIterator", "time"));
+        getSliceIteratorInvocationCounter =
+                metrics.counter(MetricRegistry.name(p, "getSliceIterator", "calls"));
+        getSliceIteratorFailureCounter =
+                metrics.counter(MetricRegistry.name(p, "getSliceIterator", "exceptions"));
+        getSliceIteratorMetricPrefix = p + "." + "getSliceIterator.iterator";
         
         mutateTimer =
                   metrics.timer(MetricRegistry.name(p, "mutate", "time"));
@@ -194,6 +228,40 @@ public class MetricInstrumentedStore implements KeyColumnValueStore {
            
     }
 
+    @Override
+    public List<List<Entry>> getSlice(List<StaticBuffer> keys, SliceQuery query, StoreTransaction txh)
+            throws StorageException {
+        boolean ok = false;
+        getSliceMultiInvocationCounter.inc();
+        getSliceMultiKeyCounter.inc(keys.size());
+        final Timer.Context tc = getSliceMultiTimer.time();
+        try {
+            final List<List<Entry>> result = backend.getSlice(keys, query, txh);
+            for (List<Entry> entries : result) getSliceMultiColumnCounter.inc(entries.size());
+            ok = true;
+            return result;
+        } finally {
+            tc.stop();
+            if (!ok) getSliceMultiFailureCounter.inc();
+        }
+    }
+
+    @Override
+    public RecordIterator<Entry> getSliceIterator(KeySliceQuery query, int pageSize, StoreTransaction txh)
+            throws StorageException {
+        boolean ok = false;
+        getSliceIteratorInvocationCounter.inc();
+        final Timer.Context tc = getSliceIteratorTimer.time();
+        try {
+            final RecordIterator<Entry> iter = backend.getSliceIterator(query, pageSize, txh);
+            ok = true;
+            return MetricInstrumentedIterator.of(iter, getSliceIteratorMetricPrefix);
+        } finally {
+            tc.stop();
+            if (!ok) getSliceIteratorFailureCounter.inc();
+        }
+    }
+
     @Override
     public void mutate(StaticBuffer key, List<Entry> additions,
             List<StaticBuffer> deletions, StoreTransaction txh)
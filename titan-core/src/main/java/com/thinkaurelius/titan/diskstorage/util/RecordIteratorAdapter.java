@@ -0,0 +1,55 @@
+package com.thinkaurelius.titan.diskstorage.util;
+
+import com.google.common.base.Preconditions;
+import com.thinkaurelius.titan.core.TitanException;
+import com.thinkaurelius.titan.diskstorage.StorageException;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Exposes a {@link RecordIterator} as a standard {@link Iterator}. Any {@link StorageException} thrown by the
+ * wrapped iterator is rethrown as a {@link TitanException}. The wrapped iterator is closed once it has been exhausted.
+ *
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class RecordIteratorAdapter<T> implements Iterator<T> {
+
+    private final RecordIterator<T> iterator;
+    private boolean closed = false;
+
+    public RecordIteratorAdapter(RecordIterator<T> iterator) {
+        Preconditions.checkNotNull(iterator);
+        this.iterator = iterator;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) return false;
+        try {
+            if (iterator.hasNext()) return true;
+            closed = true;
+            iterator.close();
+            return false;
+        } catch (StorageException e) {
+            throw new TitanException("Read exception on open iterator", e);
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        try {
+            return iterator.next();
+        } catch (StorageException e) {
+            throw new TitanException("Read exception on open iterator", e);
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+}
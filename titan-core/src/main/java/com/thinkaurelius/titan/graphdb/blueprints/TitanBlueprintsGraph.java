@@ -1,5 +1,6 @@
 package com.thinkaurelius.titan.graphdb.blueprints;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -9,8 +10,10 @@ import org.slf4j.LoggerFactory;
 
 import com.thinkaurelius.titan.core.TitanGraph;
 import com.thinkaurelius.titan.core.TitanGraphQuery;
+import com.thinkaurelius.titan.core.TitanMultiVertexQuery;
 import com.thinkaurelius.titan.core.TitanTransaction;
 import com.thinkaurelius.titan.core.TitanType;
+import com.thinkaurelius.titan.core.TitanVertex;
 import com.thinkaurelius.titan.core.TypeMaker;
 import com.thinkaurelius.titan.graphdb.configuration.GraphDatabaseConfiguration;
 import com.thinkaurelius.titan.graphdb.database.StandardTitanGraph;
@@ -184,6 +187,16 @@ public abstract class TitanBlueprintsGraph implements TitanGraph {
         return getAutoStartTx().query();
     }
 
+    @Override
+    public TitanMultiVertexQuery multiQuery(TitanVertex... vertices) {
+        return getAutoStartTx().multiQuery(vertices);
+    }
+
+    @Override
+    public TitanMultiVertexQuery multiQuery(Collection<TitanVertex> vertices) {
+        return getAutoStartTx().multiQuery(vertices);
+    }
+
     @Override
     public TitanType getType(String name) {
         return getAutoStartTx().getType(name);
@@ -10,6 +10,7 @@ import com.thinkaurelius.titan.graphdb.database.idassigner.VertexIDAssigner;
 import com.thinkaurelius.titan.graphdb.database.serialize.Serializer;
 import com.thinkaurelius.titan.graphdb.database.serialize.kryo.KryoSerializer;
 import com.thinkaurelius.titan.graphdb.types.DisableDefaultTypeMaker;
+import com.thinkaurelius.titan.util.datastructures.ConcurrentLongObjectMap;
 import com.thinkaurelius.titan.util.stats.MetricManager;
 
 import org.apache.commons.configuration.BaseConfiguration;
@@ -83,6 +84,16 @@ public class GraphDatabaseConfiguration {
     public static final String STORAGE_BATCH_KEY = "batch-loading";
     public static final boolean STORAGE_BATCH_DEFAULT = false;
 
+    /**
+     * Number of added relations after which a batch loading transaction persists its relations against the storage
+     * backend and releases them from memory, so that the memory footprint of a transaction does not grow with the
+     * size of the load. The relations are persisted when the next relation is added after the flush size has been
+     * reached. Relations persisted this way can still be removed but no longer be modified, and vertices remain usable.
+     * Set to 0 to keep all relations in memory until commit. Only applies if batch loading is enabled.
+     */
+    public static final String STORAGE_BATCH_FLUSH_KEY = "batch-flush-size";
+    public static final int STORAGE_BATCH_FLUSH_DEFAULT = 0;
+
     /**
      * Enables transactions on storage backends that support them
      */
@@ -96,6 +107,39 @@ public class GraphDatabaseConfiguration {
     public static final String BUFFER_SIZE_KEY = "buffer-size";
     public static final int BUFFER_SIZE_DEFAULT = 1024;
 
+    /**
+     * Number of threads used to flush full mutation buffers in the background, so that a transaction can continue to
+     * buffer mutations while the previous buffer is being persisted. Each transaction has at most one background flush
+     * outstanding. Set to 0 to flush buffers synchronously. Only applies if buffering is enabled.
+     */
+    public static final String BUFFER_FLUSH_THREADS_KEY = "buffer-flush-threads";
+    public static final int BUFFER_FLUSH_THREADS_DEFAULT = 0;
+
+    /**
+     * Time in milliseconds during which the final flushes of concurrently committing transactions are collected and
+     * persisted against the storage backend in a single batch (group commit). This bounds the latency added to each commit.
+     * A batch holds at most {@link #BUFFER_SIZE_KEY} mutations. Set to 0 to disable.
+     * Only applies if buffering is enabled and the storage backend does not support transactions.
+     */
+    public static final String GROUP_COMMIT_WINDOW_KEY = "group-commit-window";
+    public static final long GROUP_COMMIT_WINDOW_DEFAULT = 0;
+
+    /**
+     * Number of threads used to commit the transactions against the configured index providers concurrently with
+     * each other once the transaction against the storage backend has been committed, so that the latency of the index
+     * commits is determined by the slowest rather than the sum of all index providers. Set to 0 to commit sequentially.
+     * Only applies if index providers are configured. As with sequential commits, the index transactions are not
+     * committed if the commit against the storage backend fails.
+     */
+    public static final String INDEX_COMMIT_THREADS_KEY = "index-commit-threads";
+    public static final int INDEX_COMMIT_THREADS_DEFAULT = 0;
+
+    /**
+     * Time in milliseconds that a commit waits for a concurrent index transaction commit to complete before failing.
+     */
+    public static final String INDEX_COMMIT_TIMEOUT_KEY = "index-commit-timeout";
+    public static final long INDEX_COMMIT_TIMEOUT_DEFAULT = 60 * 1000; // 1 minute
+
     /**
      * Number of times the database attempts to persist the transactional state to the storage layer.
      * Persisting the state of a committed transaction might fail for various reasons, some of which are
@@ -114,6 +158,16 @@ public class GraphDatabaseConfiguration {
     public static final String READ_ATTEMPTS_KEY = "read-attempts";
     public static final int READ_ATTEMPTS_DEFAULT = 3;
 
+    /**
+     * Number of threads used to execute reads against the storage backend asynchronously, so that a single transaction
+     * can have multiple reads in flight, e.g. one for each of the subqueries of a query. Set to 0 to execute all reads
+     * synchronously in the calling thread.
+     * Asynchronous reads are not used for storage backends with native transactions since those bind a transaction to
+     * the thread that started it.
+     */
+    public static final String READ_THREADS_KEY = "read-threads";
+    public static final int READ_THREADS_DEFAULT = 0;
+
     /**
      * Time in milliseconds that Titan waits after an unsuccessful storage attempt before retrying.
      */
@@ -151,6 +205,12 @@ public class GraphDatabaseConfiguration {
      */
     public static final String LOCK_EXPIRE_MS = "lock-expiry-time";
     public static final long LOCK_EXPIRE_MS_DEFAULT = 300 * 1000;
+    /**
+     * Whether locks are only mediated within this process, i.e. lock applications are not written to and verified
+     * against the storage backend. This is only safe if no other @TitanGraph@ instance writes to the same storage
+     * backend, such as in single-instance deployments. Defaults to true for storage backends which are not distributed.
+     */
+    public static final String LOCK_LOCAL_ONLY = "lock-local-only";
 
     /**
      * The number of milliseconds the system waits for an id block application to be acknowledged by the storage backend.
@@ -240,6 +300,25 @@ public class GraphDatabaseConfiguration {
     public static final int PAGE_SIZE_DEFAULT = 100;
     public static final String PAGE_SIZE_KEY = "page-size";
 
+    /**
+     * Number of entries to retrieve from the storage backend at a time when iterating over the adjacency list of a vertex.
+     * Adjacency lists which are larger than this are streamed page by page rather than being retrieved in their entirety,
+     * so that iterating over, counting or collecting the neighbors of a vertex with very many relations takes constant memory.
+     * This trades caching for memory: streamed adjacency lists are not cached in the transaction, hence each iteration
+     * reads them from the storage backend again and may observe a different state than a previous iteration.
+     * Set to 0, the default, to always retrieve adjacency lists in their entirety and cache them in the transaction.
+     */
+    public static final String SLICE_PAGE_SIZE_KEY = "slice-page-size";
+    public static final int SLICE_PAGE_SIZE_DEFAULT = 0;
+
+    /**
+     * Number of threads used to serialize the relations of large transactions on commit. The mutated vertices are
+     * split into partitions which are serialized concurrently before being handed to the storage backend.
+     * Set to 0 to serialize all relations in the committing thread.
+     */
+    public static final String SERIALIZATION_THREADS_KEY = "serialization-threads";
+    public static final int SERIALIZATION_THREADS_DEFAULT = 0;
+
     // ################ IDS ###########################
     // ################################################
 
@@ -253,6 +332,14 @@ public class GraphDatabaseConfiguration {
     public static final String IDS_BLOCK_SIZE_KEY = "block-size";
     public static final int IDS_BLOCK_SIZE_DEFAULT = 10000;
 
+    /**
+     * If positive, the size of the blocks acquired for each id partition is adapted to the rate at which ids are
+     * consumed, so that a new block is acquired about once per this number of milliseconds. The configured block size
+     * then only determines the size of the first block and bounds the adapted sizes. If 0, block sizes are static.
+     */
+    public static final String IDS_BLOCK_RENEWAL_INTERVAL_KEY = "block-renewal-interval";
+    public static final long IDS_BLOCK_RENEWAL_INTERVAL_DEFAULT = 0;
+
     /**
      * Whether the id space should be partitioned for equal distribution of keys. If the keyspace is ordered, this needs to be
      * enabled to ensure an even distribution of data. If the keyspace is random/hashed, then enabling this only has the benefit
@@ -261,6 +348,15 @@ public class GraphDatabaseConfiguration {
     public static final String IDS_PARTITION_KEY = "partition";
     public static final boolean IDS_PARTITION_DEFAULT = false;
 
+    /**
+     * The strategy which places new vertices into partitions if ids are partitioned. "simple" places vertices into
+     * a random one of a number of current partitions. "locality" places new vertices into the partition of the
+     * vertices they are connected to, or of a configured partition key, to reduce the number of partitions a
+     * traversal touches. Locality placement requires ids not to be flushed.
+     */
+    public static final String IDS_PLACEMENT_KEY = "placement";
+    public static final String IDS_PLACEMENT_DEFAULT = "simple";
+
     /**
      * If flush ids is enabled, vertices and edges are assigned ids immediately upon creation. If not, then ids are only
      * assigned when the transaction is committed.
@@ -284,6 +380,54 @@ public class GraphDatabaseConfiguration {
     public static final String IDS_RENEW_BUFFER_PERCENTAGE_KEY = "renew-percentage";
     public static final double IDS_RENEW_BUFFER_PERCENTAGE_DEFAULT = 0.3; // 30 %
 
+    // ################ CACHE #######################
+    // ################################################
+
+    public static final String CACHE_NAMESPACE = "cache";
+
+    /**
+     * Maximum number of bytes of serialized adjacency list data to hold in the graph-wide adjacency cache which is shared
+     * across transactions. Set to 0 to disable the cache.
+     * Since the cache only observes mutations made through the local graph instance, it should only be enabled
+     * if this instance is the only one writing to the storage backend, or in combination with {@link #DB_CACHE_TIME_KEY}.
+     */
+    public static final String DB_CACHE_SIZE_KEY = "db-cache-size";
+    public static final long DB_CACHE_SIZE_DEFAULT = 0;
+
+    /**
+     * Time in milliseconds after which an adjacency list slice expires from the graph-wide adjacency cache.
+     * Set to 0 for slices to only be removed when they are evicted or the vertex is mutated.
+     */
+    public static final String DB_CACHE_TIME_KEY = "db-cache-time";
+    public static final long DB_CACHE_TIME_DEFAULT = 0;
+
+    /**
+     * Maximum number of unmodified vertices loaded from the storage backend which a transaction retains in its
+     * vertex cache. Beyond that, the least recently used of these vertices are evicted together with their cached
+     * relations, which bounds the memory used by long running read transactions. New and modified vertices are
+     * always retained. Set to 0 to retain all vertices until the transaction is closed.
+     * This setting is ignored for batch loading transactions which flush their relations in batches.
+     */
+    public static final String TX_CACHE_SIZE_KEY = "tx-cache-size";
+    public static final int TX_CACHE_SIZE_DEFAULT = 0;
+
+    /**
+     * Whether transactions hold the relations they load for a vertex in a packed region of direct (off-heap) memory
+     * instead of as individual entry objects on the heap. This reduces heap usage and garbage collection overhead
+     * for traversals which load many relations, at the cost of copying the relations onto the heap when they are
+     * read from the cache.
+     */
+    public static final String TX_CACHE_OFFHEAP_KEY = "tx-cache-offheap";
+    public static final boolean TX_CACHE_OFFHEAP_DEFAULT = false;
+
+    /**
+     * Expected number of threads concurrently accessing a transaction which is shared between threads. The vertex
+     * cache of such a transaction is striped into this many independently locked segments (rounded up to the next
+     * power of two). Set to 1 to guard the vertex cache by a single lock, which uses less memory per transaction.
+     */
+    public static final String TX_CACHE_CONCURRENCY_KEY = "tx-cache-concurrency";
+    public static final int TX_CACHE_CONCURRENCY_DEFAULT = ConcurrentLongObjectMap.DEFAULT_CONCURRENCY_LEVEL;
+
     // ############## Attributes ######################
     // ################################################
 
@@ -378,6 +522,7 @@ public class GraphDatabaseConfiguration {
     private boolean readOnly;
     private boolean flushIDs;
     private boolean batchLoading;
+    private int batchFlushSize;
     private DefaultTypeMaker defaultTypeMaker;
 
     public GraphDatabaseConfiguration(String dirOrFile) {
@@ -427,6 +572,8 @@ public class GraphDatabaseConfiguration {
         readOnly = storageConfig.getBoolean(STORAGE_READONLY_KEY, STORAGE_READONLY_DEFAULT);
         flushIDs = configuration.subset(IDS_NAMESPACE).getBoolean(IDS_FLUSH_KEY, IDS_FLUSH_DEFAULT);
         batchLoading = storageConfig.getBoolean(STORAGE_BATCH_KEY, STORAGE_BATCH_DEFAULT);
+        batchFlushSize = storageConfig.getInt(STORAGE_BATCH_FLUSH_KEY, STORAGE_BATCH_FLUSH_DEFAULT);
+        Preconditions.checkArgument(batchFlushSize >= 0, "Batch flush size cannot be negative");
         defaultTypeMaker = preregisteredAutoType.get(configuration.getString(AUTO_TYPE_KEY, AUTO_TYPE_DEFAULT));
         Preconditions.checkNotNull(defaultTypeMaker, "Invalid " + AUTO_TYPE_KEY + " option: " + configuration.getString(AUTO_TYPE_KEY, AUTO_TYPE_DEFAULT));
         configureMetrics();
@@ -491,6 +638,10 @@ public class GraphDatabaseConfiguration {
         return batchLoading;
     }
 
+    public int getBatchFlushSize() {
+        return batchFlushSize;
+    }
+
     public DefaultTypeMaker getDefaultTypeMaker() {
         return defaultTypeMaker;
     }
@@ -507,6 +658,46 @@ public class GraphDatabaseConfiguration {
         return attempts;
     }
 
+    public int getSlicePageSize() {
+        int size = configuration.subset(STORAGE_NAMESPACE).getInt(SLICE_PAGE_SIZE_KEY, SLICE_PAGE_SIZE_DEFAULT);
+        Preconditions.checkArgument(size >= 0, "Slice page size cannot be negative");
+        return size;
+    }
+
+    public int getSerializationThreads() {
+        int threads = configuration.subset(STORAGE_NAMESPACE).getInt(SERIALIZATION_THREADS_KEY, SERIALIZATION_THREADS_DEFAULT);
+        Preconditions.checkArgument(threads >= 0, "Number of serialization threads cannot be negative");
+        return threads;
+    }
+
+    public long getDBCacheSize() {
+        long size = configuration.subset(CACHE_NAMESPACE).getLong(DB_CACHE_SIZE_KEY, DB_CACHE_SIZE_DEFAULT);
+        Preconditions.checkArgument(size >= 0, "Cache size cannot be negative");
+        return size;
+    }
+
+    public long getDBCacheTime() {
+        long time = configuration.subset(CACHE_NAMESPACE).getLong(DB_CACHE_TIME_KEY, DB_CACHE_TIME_DEFAULT);
+        Preconditions.checkArgument(time >= 0, "Cache expiration time cannot be negative");
+        return time;
+    }
+
+    public int getTxCacheSize() {
+        int size = configuration.subset(CACHE_NAMESPACE).getInt(TX_CACHE_SIZE_KEY, TX_CACHE_SIZE_DEFAULT);
+        Preconditions.checkArgument(size >= 0, "Transaction cache size cannot be negative");
+        return size;
+    }
+
+    public boolean isTxCacheOffHeap() {
+        return configuration.subset(CACHE_NAMESPACE).getBoolean(TX_CACHE_OFFHEAP_KEY, TX_CACHE_OFFHEAP_DEFAULT);
+    }
+
+    public int getTxCacheConcurrency() {
+        int concurrency = configuration.subset(CACHE_NAMESPACE).getInt(TX_CACHE_CONCURRENCY_KEY, TX_CACHE_CONCURRENCY_DEFAULT);
+        Preconditions.checkArgument(concurrency > 0, "Transaction cache concurrency must be positive");
+        return concurrency;
+    }
+
     public int getStorageWaittime() {
         int time = configuration.subset(STORAGE_NAMESPACE).getInt(STORAGE_ATTEMPT_WAITTIME_KEY, STORAGE_ATTEMPT_WAITTIME_DEFAULT);
         Preconditions.checkArgument(time > 0, "Persistence attempt retry wait time must be positive");
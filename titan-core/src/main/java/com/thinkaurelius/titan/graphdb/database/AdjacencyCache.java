@@ -0,0 +1,238 @@
+package com.thinkaurelius.titan.graphdb.database;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.thinkaurelius.titan.diskstorage.StaticBuffer;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.SliceQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Graph-wide cache of the serialized adjacency list slices of vertices which is shared by all transactions
+ * of a graph. It sits in front of the edge store so that transactions which repeatedly traverse the same
+ * vertices do not have to go back to the storage backend.
+ * <p/>
+ * The cache is keyed by vertex key and holds the {@link Entry} slices that have been retrieved for that vertex.
+ * A slice query can be answered from a cached slice with the same range or, if the cached slice is complete
+ * (i.e. it was not truncated by its limit), from any cached slice whose range covers the query.
+ * The cache is bounded by the (approximate) number of bytes held in the cached entries.
+ * <p/>
+ * All slices of a vertex are invalidated when the vertex is mutated. To prevent concurrent reads from putting
+ * stale slices back into the cache, each key maps onto one of a fixed number of striped invalidation counters.
+ * A slice read from the storage backend is only added when the counter has not changed since the read started.
+ * <p/>
+ * Note, that this cache only observes mutations made through this graph instance. If multiple instances write
+ * to the same storage backend, the cache should be configured with an expiration time.
+ *
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class AdjacencyCache {
+
+    private static final Logger log = LoggerFactory.getLogger(AdjacencyCache.class);
+
+    private static final int NUM_VERSION_STRIPES = 1024;
+
+    /**
+     * Approximate number of bytes an entry and its buffers occupy in addition to the serialized data
+     */
+    private static final int ENTRY_OVERHEAD = 64;
+    private static final int SLICE_OVERHEAD = 64;
+
+    private final Cache<StaticBuffer,CachedSlice[]> cache;
+    private final AtomicLongArray versions;
+    private final Object[] locks;
+
+    private final AtomicLong retrievals = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+
+    /**
+     *
+     * @param maxBytes Maximum number of bytes to hold in the cache
+     * @param expirationTimeMs Time in milliseconds after which a cached slice expires or 0 if slices do not expire
+     */
+    public AdjacencyCache(long maxBytes, long expirationTimeMs) {
+        Preconditions.checkArgument(maxBytes>0,"Cache size must be positive: %s",maxBytes);
+        Preconditions.checkArgument(expirationTimeMs>=0,"Invalid expiration time: %s",expirationTimeMs);
+        CacheBuilder<StaticBuffer,CachedSlice[]> builder = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+                .weigher(new Weigher<StaticBuffer, CachedSlice[]>() {
+                    @Override
+                    public int weigh(StaticBuffer key, CachedSlice[] slices) {
+                        long weight = key.length() + SLICE_OVERHEAD;
+                        for (CachedSlice slice : slices) weight += slice.weight;
+                        return (int)Math.min(weight,Integer.MAX_VALUE);
+                    }
+                });
+        if (expirationTimeMs>0) builder.expireAfterWrite(expirationTimeMs, TimeUnit.MILLISECONDS);
+        cache = builder.build();
+        versions = new AtomicLongArray(NUM_VERSION_STRIPES);
+        locks = new Object[NUM_VERSION_STRIPES];
+        for (int i=0;i<NUM_VERSION_STRIPES;i++) locks[i]=new Object();
+    }
+
+    private static int getStripe(StaticBuffer key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % NUM_VERSION_STRIPES;
+    }
+
+    /**
+     * Returns the invalidation version of the given key which needs to be passed to
+     * {@link #put(StaticBuffer, SliceQuery, List, long)} after retrieving the slice from the storage backend.
+     *
+     * @param key
+     * @return
+     */
+    public long getVersion(StaticBuffer key) {
+        return versions.get(getStripe(key));
+    }
+
+    /**
+     * Returns the cached result for the given key and slice query or null if the result is not cached.
+     *
+     * @param key
+     * @param query
+     * @return
+     */
+    public List<Entry> get(StaticBuffer key, SliceQuery query) {
+        retrievals.incrementAndGet();
+        CachedSlice[] slices = cache.getIfPresent(key);
+        if (slices!=null) {
+            for (CachedSlice slice : slices) {
+                List<Entry> result = slice.getSubslice(query);
+                if (result!=null) return result;
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Adds the result of the given slice query for the given key to the cache, unless the key has been
+     * invalidated since the given version was retrieved.
+     *
+     * @param key
+     * @param query
+     * @param entries
+     * @param version
+     */
+    public void put(StaticBuffer key, SliceQuery query, List<Entry> entries, long version) {
+        Preconditions.checkNotNull(key);
+        Preconditions.checkNotNull(entries);
+        CachedSlice slice = new CachedSlice(query,entries);
+        int stripe = getStripe(key);
+        synchronized (locks[stripe]) {
+            if (versions.get(stripe)!=version) return;
+            CachedSlice[] existing = cache.getIfPresent(key);
+            CachedSlice[] slices;
+            if (existing==null) {
+                slices = new CachedSlice[]{slice};
+            } else {
+                for (CachedSlice s : existing) {
+                    if (s.getSubslice(query)!=null) return; //Already covered
+                }
+                slices = new CachedSlice[existing.length+1];
+                System.arraycopy(existing,0,slices,0,existing.length);
+                slices[existing.length]=slice;
+            }
+            cache.put(key,slices);
+        }
+    }
+
+    /**
+     * Removes all cached slices for the given key
+     *
+     * @param key
+     */
+    public void invalidate(StaticBuffer key) {
+        int stripe = getStripe(key);
+        synchronized (locks[stripe]) {
+            versions.incrementAndGet(stripe);
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Clears this cache
+     */
+    public void invalidateAll() {
+        log.debug("Invalidating adjacency cache");
+        for (int i=0;i<NUM_VERSION_STRIPES;i++) {
+            synchronized (locks[i]) {
+                versions.incrementAndGet(i);
+            }
+        }
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public long getRetrievals() {
+        return retrievals.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static class CachedSlice {
+
+        private final SliceQuery query;
+        private final List<Entry> entries;
+        private final int weight;
+
+        private CachedSlice(SliceQuery query, List<Entry> entries) {
+            this.query = query;
+            this.entries = entries;
+            long w = SLICE_OVERHEAD;
+            for (Entry entry : entries) {
+                w += ENTRY_OVERHEAD + entry.getColumn().length();
+                if (entry.getValue()!=null) w += entry.getValue().length();
+            }
+            this.weight = (int)Math.min(w,Integer.MAX_VALUE);
+        }
+
+        private boolean isComplete() {
+            return entries.size()<query.getLimit();
+        }
+
+        /**
+         * Returns the result of the given query computed from this slice or null if this slice does not
+         * contain the complete result of the query.
+         *
+         * @param other
+         * @return
+         */
+        private List<Entry> getSubslice(SliceQuery other) {
+            if (query.getSliceStart().equals(other.getSliceStart()) && query.getSliceEnd().equals(other.getSliceEnd())) {
+                if (!isComplete() && query.getLimit()<other.getLimit()) return null;
+                return entries.size()>other.getLimit()?entries.subList(0,other.getLimit()):entries;
+            } else if (isComplete() && query.getSliceStart().compareTo(other.getSliceStart())<=0
+                    && query.getSliceEnd().compareTo(other.getSliceEnd())>=0) {
+                List<Entry> result = new ArrayList<Entry>();
+                for (Entry entry : entries) {
+                    StaticBuffer column = entry.getColumn();
+                    if (column.compareTo(other.getSliceEnd())>=0) break;
+                    if (column.compareTo(other.getSliceStart())>=0) {
+                        result.add(entry);
+                        if (result.size()>=other.getLimit()) break;
+                    }
+                }
+                return result;
+            } else return null;
+        }
+
+    }
+
+}
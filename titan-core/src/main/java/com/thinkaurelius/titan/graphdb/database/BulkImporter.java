@@ -0,0 +1,382 @@
+package com.thinkaurelius.titan.graphdb.database;
+
+import com.carrotsearch.hppc.LongLongOpenHashMap;
+import com.google.common.base.Preconditions;
+import com.thinkaurelius.titan.core.TitanException;
+import com.thinkaurelius.titan.core.TitanKey;
+import com.thinkaurelius.titan.core.TitanLabel;
+import com.thinkaurelius.titan.core.TitanTransaction;
+import com.thinkaurelius.titan.diskstorage.BackendTransaction;
+import com.thinkaurelius.titan.diskstorage.StaticBuffer;
+import com.thinkaurelius.titan.diskstorage.StorageException;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StaticBufferEntry;
+import com.thinkaurelius.titan.diskstorage.util.StaticArrayBuffer;
+import com.thinkaurelius.titan.graphdb.database.idhandling.IDHandler;
+import com.thinkaurelius.titan.graphdb.internal.ElementLifeCycle;
+import com.thinkaurelius.titan.graphdb.internal.InternalRelation;
+import com.thinkaurelius.titan.graphdb.relations.AttributeUtil;
+import com.thinkaurelius.titan.graphdb.relations.StandardEdge;
+import com.thinkaurelius.titan.graphdb.relations.StandardProperty;
+import com.thinkaurelius.titan.graphdb.transaction.StandardTitanTx;
+import com.thinkaurelius.titan.graphdb.types.system.SystemKey;
+import com.thinkaurelius.titan.graphdb.vertices.StandardVertex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+/**
+ * Imports large numbers of edges between new vertices by writing their serialized form directly into the edge store
+ * in key order, bypassing the transactional data structures of {@link StandardTitanTx}.
+ * <p/>
+ * Each input vertex is identified by an external (long) id which is mapped onto a newly allocated vertex id.
+ * Each added edge is serialized into the entries of its out- and in-vertex right away. The entries are buffered in
+ * memory up to the configured maximum and then sorted by key and column and spilled to a temporary file.
+ * On {@link #commit()}, the sorted runs are merged and each row is written in its entirety and in key order, which
+ * turns random writes into appends for ordered storage backends and produces full batches for backends that
+ * support batch mutations.
+ * <p/>
+ * All imported vertices are new, i.e. the importer cannot add edges to existing vertices. Optionally, the external
+ * id of each vertex is stored under a given property key, which is indexed as usual. The index entries are written
+ * whenever the buffered entries are spilled, so that they do not accumulate in memory until {@link #commit()}.
+ * The mapping of external ids is held in memory and requires about 16 bytes per vertex.
+ * An importer must only be used by a single thread.
+ *
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class BulkImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImporter.class);
+
+    private static final Pattern SEPARATOR = Pattern.compile("[\\s,;]+");
+
+    private final StandardTitanGraph graph;
+    private final StandardTitanTx tx;
+    private final TitanLabel label;
+    private final TitanKey idKey;
+    private final int maxBufferedEntries;
+    private final File tmpDirectory;
+
+    private final LongLongOpenHashMap vertexIds;
+    private final List<KeyEntry> buffer;
+    private final List<File> runs;
+    private long numEdges;
+
+    /**
+     *
+     * @param graph Graph to import into
+     * @param label Name of the label of all imported edges
+     * @param idKey Name of the property key under which to store the external vertex ids or null to not store them
+     * @param maxBufferedEntries Maximum number of entries to buffer in memory before spilling them to disk
+     * @param tmpDirectory Directory for the temporary files or null to use the default temporary directory
+     */
+    public BulkImporter(StandardTitanGraph graph, String label, String idKey, int maxBufferedEntries, File tmpDirectory) {
+        Preconditions.checkNotNull(graph);
+        Preconditions.checkNotNull(label);
+        Preconditions.checkArgument(maxBufferedEntries>0,"Invalid buffer size: %s",maxBufferedEntries);
+        Preconditions.checkArgument(tmpDirectory==null || tmpDirectory.isDirectory(),"Not a directory: %s",tmpDirectory);
+        this.graph = graph;
+        //Types are created up front since their definitions cannot be locked once the import has been written
+        TitanTransaction typeTx = graph.newTransaction();
+        typeTx.getEdgeLabel(label);
+        if (idKey!=null) typeTx.getPropertyKey(idKey);
+        typeTx.commit();
+        this.tx = (StandardTitanTx)graph.newTransaction();
+        this.label = tx.getEdgeLabel(label);
+        this.idKey = idKey==null?null:tx.getPropertyKey(idKey);
+        this.maxBufferedEntries = maxBufferedEntries;
+        this.tmpDirectory = tmpDirectory;
+        this.vertexIds = new LongLongOpenHashMap();
+        this.buffer = new ArrayList<KeyEntry>();
+        this.runs = new ArrayList<File>();
+        this.numEdges = 0;
+    }
+
+    /**
+     * Returns the id of the vertex with the given external id, creating the vertex if it does not yet exist.
+     *
+     * @param externalId
+     * @return
+     */
+    public long getVertexId(long externalId) {
+        if (vertexIds.containsKey(externalId)) return vertexIds.lget();
+        StandardVertex vertex = new StandardVertex(tx, -1, ElementLifeCycle.New);
+        graph.assignID(vertex);
+        vertexIds.put(externalId, vertex.getID());
+
+        add(new StandardProperty(-1, SystemKey.VertexState, vertex, (byte) 0, ElementLifeCycle.New));
+        if (idKey!=null) {
+            StandardProperty id = new StandardProperty(-1, idKey, vertex,
+                    AttributeUtil.verifyAttribute(idKey, externalId), ElementLifeCycle.New);
+            add(id);
+            try {
+                graph.indexSerializer.addProperty(id, tx.getTxHandle());
+            } catch (StorageException e) {
+                throw new TitanException("Could not index vertex: " + externalId, e);
+            }
+        }
+        return vertex.getID();
+    }
+
+    /**
+     * Adds an edge between the vertices with the given external ids
+     *
+     * @param outExternalId
+     * @param inExternalId
+     */
+    public void addEdge(long outExternalId, long inExternalId) {
+        StandardVertex out = new StandardVertex(tx, getVertexId(outExternalId), ElementLifeCycle.Loaded);
+        StandardVertex in = new StandardVertex(tx, getVertexId(inExternalId), ElementLifeCycle.Loaded);
+        add(new StandardEdge(-1, label, out, in, ElementLifeCycle.New));
+        numEdges++;
+    }
+
+    /**
+     * Imports all edges from the given reader. Each line starts with the external id of the out-vertex followed by
+     * the external ids of one or more in-vertices, separated by whitespace, commas or semicolons. Hence, this reads
+     * both edge lists and adjacency lists. Empty lines and lines starting with # are ignored.
+     *
+     * @param reader
+     * @return The number of imported edges
+     * @throws IOException
+     */
+    public long importEdgeList(BufferedReader reader) throws IOException {
+        long before = numEdges;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] ids = SEPARATOR.split(line);
+            Preconditions.checkArgument(ids.length>=2,"Invalid line: %s",line);
+            long out = Long.parseLong(ids[0]);
+            for (int i=1;i<ids.length;i++) addEdge(out, Long.parseLong(ids[i]));
+        }
+        return numEdges-before;
+    }
+
+    public long getNumEdges() {
+        return numEdges;
+    }
+
+    public long getNumVertices() {
+        return vertexIds.size();
+    }
+
+    private void add(InternalRelation relation) {
+        graph.assignID(relation);
+        for (int pos=0;pos<relation.getLen();pos++) {
+            if (pos>0 && relation.isLoop()) continue;
+            StaticBuffer key = IDHandler.getKey(relation.getVertex(pos).getID());
+            buffer.add(new KeyEntry(key, graph.getEdgeSerializer().writeRelation(relation, pos, tx)));
+        }
+        if (buffer.size()>=maxBufferedEntries) spill();
+    }
+
+    private void spill() {
+        try {
+            tx.getTxHandle().persistMutations();
+        } catch (StorageException e) {
+            throw new TitanException("Could not write index entries of imported vertices", e);
+        }
+        Collections.sort(buffer, KEY_ENTRY_COMPARATOR);
+        try {
+            File run = File.createTempFile("titan-import-", ".run", tmpDirectory);
+            run.deleteOnExit();
+            runs.add(run);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)));
+            try {
+                for (KeyEntry entry : buffer) entry.write(out);
+            } finally {
+                out.close();
+            }
+            log.debug("Spilled {} entries to {}", buffer.size(), run);
+        } catch (IOException e) {
+            throw new TitanException("Could not spill import buffer to disk", e);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes all imported edges to the storage backend in key order and commits.
+     */
+    public void commit() {
+        try {
+            if (runs.isEmpty()) {
+                Collections.sort(buffer, KEY_ENTRY_COMPARATOR);
+                RowWriter writer = new RowWriter();
+                for (KeyEntry entry : buffer) writer.add(entry);
+                writer.close();
+                buffer.clear();
+            } else {
+                if (!buffer.isEmpty()) spill();
+                merge();
+            }
+            tx.commit();
+            log.info("Imported {} edges between {} vertices", numEdges, vertexIds.size());
+        } catch (IOException e) {
+            tx.rollback();
+            throw new TitanException("Could not read import buffer from disk", e);
+        } catch (StorageException e) {
+            tx.rollback();
+            throw new TitanException("Could not write imported edges", e);
+        } finally {
+            deleteRuns();
+        }
+    }
+
+    /**
+     * Discards all imported edges that have not yet been committed
+     */
+    public void rollback() {
+        buffer.clear();
+        deleteRuns();
+        if (tx.isOpen()) tx.rollback();
+    }
+
+    private void deleteRuns() {
+        for (File run : runs) {
+            if (!run.delete()) log.warn("Could not delete temporary file: {}", run);
+        }
+        runs.clear();
+    }
+
+    private void merge() throws IOException, StorageException {
+        PriorityQueue<RunReader> readers = new PriorityQueue<RunReader>(runs.size(), new Comparator<RunReader>() {
+            @Override
+            public int compare(RunReader r1, RunReader r2) {
+                return KEY_ENTRY_COMPARATOR.compare(r1.current, r2.current);
+            }
+        });
+        try {
+            for (File run : runs) {
+                RunReader reader = new RunReader(run);
+                if (reader.advance()) readers.add(reader);
+                else reader.close();
+            }
+            RowWriter writer = new RowWriter();
+            while (!readers.isEmpty()) {
+                RunReader reader = readers.poll();
+                writer.add(reader.current);
+                if (reader.advance()) readers.add(reader);
+                else reader.close();
+            }
+            writer.close();
+        } finally {
+            for (RunReader reader : readers) reader.close();
+        }
+    }
+
+    /**
+     * Groups consecutive entries with the same key into rows and writes each row in its entirety
+     */
+    private class RowWriter {
+
+        private StaticBuffer key = null;
+        private List<Entry> row = new ArrayList<Entry>();
+
+        private void add(KeyEntry entry) throws StorageException {
+            if (key!=null && !key.equals(entry.key)) writeRow();
+            key = entry.key;
+            row.add(entry.entry);
+        }
+
+        private void writeRow() throws StorageException {
+            BackendTransaction mutator = tx.getTxHandle();
+            mutator.mutateEdges(key, row, KeyColumnValueStore.NO_DELETIONS);
+            mutator.persistMutations();
+            row = new ArrayList<Entry>();
+        }
+
+        private void close() throws StorageException {
+            if (key!=null) writeRow();
+            key = null;
+        }
+
+    }
+
+    private static class KeyEntry {
+
+        private final StaticBuffer key;
+        private final Entry entry;
+
+        private KeyEntry(StaticBuffer key, Entry entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            writeBuffer(out, key);
+            writeBuffer(out, entry.getColumn());
+            writeBuffer(out, entry.getValue());
+        }
+
+        private static void writeBuffer(DataOutputStream out, StaticBuffer buffer) throws IOException {
+            if (buffer==null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(buffer.length());
+                out.write(buffer.as(StaticBuffer.ARRAY_FACTORY));
+            }
+        }
+
+        private static KeyEntry read(DataInputStream in) throws IOException {
+            StaticBuffer key = readBuffer(in);
+            StaticBuffer column = readBuffer(in);
+            StaticBuffer value = readBuffer(in);
+            return new KeyEntry(key, new StaticBufferEntry(column, value));
+        }
+
+        private static StaticBuffer readBuffer(DataInputStream in) throws IOException {
+            int length = in.readInt();
+            if (length<0) return null;
+            byte[] data = new byte[length];
+            in.readFully(data);
+            return new StaticArrayBuffer(data);
+        }
+
+    }
+
+    private static final Comparator<KeyEntry> KEY_ENTRY_COMPARATOR = new Comparator<KeyEntry>() {
+        @Override
+        public int compare(KeyEntry e1, KeyEntry e2) {
+            int c = e1.key.compareTo(e2.key);
+            if (c!=0) return c;
+            return e1.entry.getColumn().compareTo(e2.entry.getColumn());
+        }
+    };
+
+    private static class RunReader {
+
+        private final DataInputStream in;
+        private KeyEntry current;
+
+        private RunReader(File run) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(run)));
+        }
+
+        private boolean advance() throws IOException {
+            try {
+                current = KeyEntry.read(in);
+                return true;
+            } catch (EOFException e) {
+                current = null;
+                return false;
+            }
+        }
+
+        private void close() throws IOException {
+            in.close();
+        }
+
+    }
+
+}
@@ -61,20 +61,30 @@ public class EdgeSerializer {
     }
 
     public InternalRelation readRelation(InternalVertex vertex, Entry data) {
+        return readRelation(vertex, data, new RelationCursor(this));
+    }
+
+    /**
+     * Reads the relation stored in the given entry for the given vertex, using the provided cursor to decode
+     * the entry's header. The cursor can be reused across entries to avoid per-entry allocation.
+     *
+     * @param vertex
+     * @param data
+     * @param cursor
+     * @return
+     */
+    public InternalRelation readRelation(InternalVertex vertex, Entry data, RelationCursor cursor) {
         StandardTitanTx tx = vertex.tx();
-        ImmutableLongObjectMap map = getProperties(vertex.getID(),data,true,tx);
+        readHeader(vertex.getID(),data,cursor,tx);
 
-        Direction dir = (Direction) map.get(DIRECTION_ID);
-        long typeid = (Long)map.get(TYPE_ID);
-        TitanType type = tx.getExistingType(typeid);
-        long relationId = (Long)map.get(RELATION_ID);
+        Direction dir = cursor.getDirection();
+        TitanType type = tx.getExistingType(cursor.getTypeId());
+        long relationId = cursor.getRelationId();
         if (type.isPropertyKey()) {
             Preconditions.checkArgument(dir==Direction.OUT);
-            Object value = map.get(VALUE_ID);
-            return new CacheProperty(relationId,(TitanKey)type,vertex,value,data);
+            return new CacheProperty(relationId,(TitanKey)type,vertex,cursor.getValue(),data);
         } else if (type.isEdgeLabel()) {
-            long otherid = (Long)map.get(OTHER_VERTEX_ID);
-            InternalVertex otherv = tx.getExistingVertex(otherid);
+            InternalVertex otherv = tx.getExistingVertex(cursor.getOtherVertexId());
             if (dir==Direction.IN) {
                 return new CacheEdge(relationId,(TitanLabel)type,otherv,vertex,(byte)1,data);
             } else if (dir==Direction.OUT) {
@@ -126,6 +136,35 @@ public class EdgeSerializer {
     }
 
 
+    /**
+     * Decodes the header of the given entry, i.e. direction, type, relation id and either the other vertex id or
+     * the property value, into the given cursor. Signature and remaining properties are not decoded.
+     *
+     * @param vertexid
+     * @param data
+     * @param cursor
+     * @param tx
+     * @return the given cursor
+     */
+    public RelationCursor readHeader(long vertexid, Entry data, RelationCursor cursor, StandardTitanTx tx) {
+        Preconditions.checkArgument(vertexid>0);
+        cursor.clear();
+        cursor.setEntry(vertexid,data);
+        ImmutableLongObjectMap map = data.getCache();
+        if (map!=null) {
+            Direction dir = map.get(DIRECTION_ID);
+            Object value = map.get(VALUE_ID);
+            cursor.setDirection(dir,value==null?RelationType.EDGE:RelationType.PROPERTY);
+            cursor.setTypeId((Long)map.get(TYPE_ID));
+            cursor.setRelationId((Long)map.get(RELATION_ID));
+            if (value==null) cursor.setOtherVertexId((Long)map.get(OTHER_VERTEX_ID));
+            else cursor.setValue(value);
+        } else {
+            parseHeader(vertexid,data.getReadColumn(),data.getReadValue(),cursor,null,tx);
+        }
+        return cursor;
+    }
+
     private ImmutableLongObjectMap parseProperties(long vertexid, Entry data, boolean parseHeaderOnly, StandardTitanTx tx) {
         Preconditions.checkArgument(vertexid>0);
         ImmutableLongObjectMap.Builder builder = new ImmutableLongObjectMap.Builder();
@@ -133,6 +172,36 @@ public class EdgeSerializer {
         ReadBuffer column = data.getReadColumn();
         ReadBuffer value = data.getReadValue();
 
+        RelationCursor cursor = new RelationCursor(this);
+        TypeDefinition def = parseHeader(vertexid,column,value,cursor,builder,tx);
+        builder.put(DIRECTION_ID,cursor.getDirection());
+        builder.put(TYPE_ID,cursor.getTypeId());
+        if (cursor.isEdge()) builder.put(OTHER_VERTEX_ID,cursor.getOtherVertexId());
+        else builder.put(VALUE_ID,cursor.getValue());
+        builder.put(RELATION_ID,cursor.getRelationId());
+
+        if (!parseHeaderOnly) {
+            //value signature
+            for (long typeID : def.getSignature())
+                builder.put(typeID,readInline(value,tx.getExistingType(typeID)));
+
+            //Third: read rest
+            while (value.hasRemaining()) {
+                TitanType type = tx.getExistingType(IDHandler.readInlineEdgeType(value, idManager));
+                builder.put(type.getID(), readInline(value, type));
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Reads the header of a relation from the given column and value buffers into the cursor and leaves the
+     * value buffer positioned at the start of the signature. Primary key values are added to the builder if
+     * one is given, otherwise they are skipped.
+     */
+    private TypeDefinition parseHeader(long vertexid, ReadBuffer column, ReadBuffer value, RelationCursor cursor,
+                                       ImmutableLongObjectMap.Builder builder, StandardTitanTx tx) {
         int dirID = IDHandler.getDirectionID(column.getByte(0));
         Direction dir=null;
         RelationType rtype=null;
@@ -142,9 +211,9 @@ public class EdgeSerializer {
             case 3: dir=Direction.IN; rtype=RelationType.EDGE; break;
             default: throw new IllegalArgumentException("Invalid dirID read from disk: " + dirID);
         }
-        builder.put(DIRECTION_ID,dir);
+        cursor.setDirection(dir,rtype);
         long typeId = IDHandler.readEdgeType(column, idManager);
-        builder.put(TYPE_ID,typeId);
+        cursor.setTypeId(typeId);
         TitanType titanType = tx.getExistingType(typeId);
 
         TypeDefinition def = ((InternalType) titanType).getDefinition();
@@ -152,7 +221,8 @@ public class EdgeSerializer {
         if (keysig.length>0) {
             for (int i = 0; i < keysig.length; i++) {
                 TitanType keyType = tx.getExistingType(keysig[i]);
-                builder.put(keyType.getID(),readInline(column, keyType));
+                Object keyValue = readInline(column, keyType);
+                if (builder!=null) builder.put(keyType.getID(),keyValue);
             }
         }
 
@@ -164,7 +234,7 @@ public class EdgeSerializer {
         if (rtype==RelationType.EDGE) {
             Preconditions.checkArgument(titanType.isEdgeLabel());
             long vertexIdDiff = VariableLong.read(reader);
-            builder.put(OTHER_VERTEX_ID,vertexid+vertexIdDiff);
+            cursor.setOtherVertexId(vertexid+vertexIdDiff);
         } else {
             Preconditions.checkArgument(titanType.isPropertyKey());
             TitanKey key = ((TitanKey) titanType);
@@ -176,25 +246,12 @@ public class EdgeSerializer {
                 attribute = serializer.readObjectNotNull(reader, key.getDataType());
             }
             Preconditions.checkNotNull(attribute);
-            builder.put(VALUE_ID,attribute);
+            cursor.setValue(attribute);
         }
         long relationId = VariableLong.readPositive(reader);
         Preconditions.checkArgument(relationId>0);
-        builder.put(RELATION_ID,relationId);
-
-        if (!parseHeaderOnly) {
-            //value signature
-            for (long typeID : def.getSignature())
-                builder.put(typeID,readInline(value,tx.getExistingType(typeID)));
-
-            //Third: read rest
-            while (value.hasRemaining()) {
-                TitanType type = tx.getExistingType(IDHandler.readInlineEdgeType(value, idManager));
-                builder.put(type.getID(), readInline(value, type));
-            }
-        }
-
-        return builder.build();
+        cursor.setRelationId(relationId);
+        return def;
     }
 
     private Object readInline(ReadBuffer read, TitanType type) {
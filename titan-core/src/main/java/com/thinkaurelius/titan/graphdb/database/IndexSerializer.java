@@ -81,10 +81,10 @@ public class IndexSerializer {
             if (index.equals(Titan.Token.STANDARD_INDEX)) {
                 if (key.isUnique(Direction.IN)) {
                     tx.mutateVertexIndex(getIndexKey(prop.getValue()),
-                            Lists.newArrayList(StaticBufferEntry.of(getUniqueIndexColumn(key), getIndexValue(prop))), NO_DELETIONS);
+                            ImmutableList.of(StaticBufferEntry.of(getUniqueIndexColumn(key), getIndexValue(prop))), NO_DELETIONS);
                 } else {
                     tx.mutateVertexIndex(getIndexKey(prop.getValue()),
-                            Lists.newArrayList(StaticBufferEntry.of(getIndexColumn(key, prop.getID()), getIndexValue(prop))), NO_DELETIONS);
+                            ImmutableList.of(StaticBufferEntry.of(getIndexColumn(key, prop.getID()), getIndexValue(prop))), NO_DELETIONS);
                 }
             } else {
                 addKeyValue(prop.getVertex(),key,prop.getValue(),index,tx);
@@ -98,10 +98,10 @@ public class IndexSerializer {
             if (index.equals(Titan.Token.STANDARD_INDEX)) {
                 if (key.isUnique(Direction.IN)) {
                     tx.mutateVertexIndex(getIndexKey(prop.getValue()), NO_ADDITIONS,
-                            Lists.newArrayList(getUniqueIndexColumn(key)));
+                            ImmutableList.of(getUniqueIndexColumn(key)));
                 } else {
                     tx.mutateVertexIndex(getIndexKey(prop.getValue()), NO_ADDITIONS,
-                            Lists.newArrayList(getIndexColumn(key, prop.getID())));
+                            ImmutableList.of(getIndexColumn(key, prop.getID())));
                 }
             } else {
                 removeKeyValue(prop.getVertex(),key,index,tx);
@@ -131,7 +131,7 @@ public class IndexSerializer {
                     Object value = relation.getPropertyDirect(key);
                     if (index.equals(Titan.Token.STANDARD_INDEX)) {
                         tx.mutateEdgeIndex(getIndexKey(value),
-                                Lists.newArrayList(StaticBufferEntry.of(getIndexColumn(key, relation.getID()),
+                                ImmutableList.of(StaticBufferEntry.of(getIndexColumn(key, relation.getID()),
                                         relationID2ByteBuffer((RelationIdentifier) relation.getId()))), NO_DELETIONS);
                     } else {
                         addKeyValue(relation,key,value,index,tx);
@@ -150,7 +150,7 @@ public class IndexSerializer {
                     Object value = relation.getPropertyDirect(key);
                     if (index.equals(Titan.Token.STANDARD_INDEX)) {
                         tx.mutateEdgeIndex(getIndexKey(value), NO_ADDITIONS,
-                                Lists.newArrayList(getIndexColumn(key, relation.getID())));
+                                ImmutableList.of(getIndexColumn(key, relation.getID())));
                     } else {
                         removeKeyValue(relation, key, index, tx);
                     }
@@ -0,0 +1,131 @@
+package com.thinkaurelius.titan.graphdb.database;
+
+import com.google.common.base.Preconditions;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
+import com.thinkaurelius.titan.graphdb.query.RelationType;
+import com.thinkaurelius.titan.graphdb.transaction.StandardTitanTx;
+import com.thinkaurelius.titan.util.datastructures.ImmutableLongObjectMap;
+import com.tinkerpop.blueprints.Direction;
+
+/**
+ * Flyweight that holds the decoded header of a single relation {@link Entry}, i.e. its direction, type id,
+ * relation id and either the id of the other vertex (for edges) or the value (for properties).
+ * <p/>
+ * A cursor is reset and refilled by {@link EdgeSerializer#readHeader(long, Entry, RelationCursor, StandardTitanTx)}
+ * for each entry it is used on, so the header fields are kept as primitives and reading an entry does not
+ * allocate an intermediate property map. Signature and other properties of the relation are only decoded when
+ * requested via {@link #getProperties(StandardTitanTx)}.
+ * <p/>
+ * A cursor is not thread-safe and must not be shared between concurrently running iterators.
+ *
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class RelationCursor {
+
+    private final EdgeSerializer serializer;
+
+    private Entry entry;
+    private long vertexId;
+
+    private Direction direction;
+    private RelationType relationType;
+    private long typeId;
+    private long relationId;
+    private long otherVertexId;
+    private Object value;
+
+    public RelationCursor(EdgeSerializer serializer) {
+        Preconditions.checkNotNull(serializer);
+        this.serializer = serializer;
+        clear();
+    }
+
+    void clear() {
+        entry = null;
+        vertexId = 0;
+        direction = null;
+        relationType = null;
+        typeId = 0;
+        relationId = 0;
+        otherVertexId = 0;
+        value = null;
+    }
+
+    void setEntry(long vertexId, Entry entry) {
+        this.vertexId = vertexId;
+        this.entry = entry;
+    }
+
+    void setDirection(Direction direction, RelationType relationType) {
+        this.direction = direction;
+        this.relationType = relationType;
+    }
+
+    void setTypeId(long typeId) {
+        this.typeId = typeId;
+    }
+
+    void setRelationId(long relationId) {
+        this.relationId = relationId;
+    }
+
+    void setOtherVertexId(long otherVertexId) {
+        this.otherVertexId = otherVertexId;
+    }
+
+    void setValue(Object value) {
+        this.value = value;
+    }
+
+    public Entry getEntry() {
+        return entry;
+    }
+
+    public long getVertexId() {
+        return vertexId;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public boolean isEdge() {
+        return relationType==RelationType.EDGE;
+    }
+
+    public boolean isProperty() {
+        return relationType==RelationType.PROPERTY;
+    }
+
+    public long getTypeId() {
+        return typeId;
+    }
+
+    public long getRelationId() {
+        return relationId;
+    }
+
+    public long getOtherVertexId() {
+        Preconditions.checkState(isEdge(),"Relation is not an edge");
+        return otherVertexId;
+    }
+
+    public Object getValue() {
+        Preconditions.checkState(isProperty(),"Relation is not a property");
+        return value;
+    }
+
+    /**
+     * Decodes all properties of the current relation, including signature and primary key. The result is cached
+     * on the underlying {@link Entry}.
+     *
+     * @param tx
+     * @return
+     */
+    public ImmutableLongObjectMap getProperties(StandardTitanTx tx) {
+        Preconditions.checkState(entry!=null,"Cursor has not been positioned on an entry");
+        return serializer.getProperties(vertexId,entry,false,tx);
+    }
+
+}
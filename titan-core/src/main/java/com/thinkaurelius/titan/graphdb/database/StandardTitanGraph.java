@@ -1,5 +1,7 @@
 package com.thinkaurelius.titan.graphdb.database;
 
+import cern.colt.list.IntArrayList;
+import cern.colt.list.LongArrayList;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
@@ -30,6 +32,8 @@ import com.thinkaurelius.titan.graphdb.query.StandardElementQuery;
 import com.thinkaurelius.titan.graphdb.relations.EdgeDirection;
 import com.thinkaurelius.titan.graphdb.transaction.StandardTitanTx;
 import com.thinkaurelius.titan.graphdb.transaction.TransactionConfig;
+import com.thinkaurelius.titan.graphdb.types.TypeDefinition;
+import com.thinkaurelius.titan.graphdb.types.TypeDefinitionCache;
 import com.thinkaurelius.titan.graphdb.types.system.SystemTypeManager;
 import com.thinkaurelius.titan.graphdb.util.ExceptionFactory;
 import com.tinkerpop.blueprints.Direction;
@@ -39,14 +43,24 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class StandardTitanGraph extends TitanBlueprintsGraph {
 
     private static final Logger log =
             LoggerFactory.getLogger(StandardTitanGraph.class);
 
+    /**
+     * Minimum number of mutated vertices in a partition that is serialized concurrently on commit
+     */
+    static final int MIN_SERIALIZATION_PARTITION_SIZE = 256;
+
     private final GraphDatabaseConfiguration config;
     private final IDManager idManager;
     private final VertexIDAssigner idAssigner;
@@ -56,17 +70,26 @@ public class StandardTitanGraph extends TitanBlueprintsGraph {
 
     private final int maxWriteRetryAttempts;
     private final int retryStorageWaitTime;
+    private final int slicePageSize;
+    private final int serializationThreads;
+    private final ExecutorService serializationExecutor;
 
     protected final IndexSerializer indexSerializer;
     protected final EdgeSerializer edgeSerializer;
     protected final Serializer serializer;
 
+    private final TypeDefinitionCache typeCache;
+    private final AdjacencyCache adjacencyCache;
+
 
     public StandardTitanGraph(GraphDatabaseConfiguration configuration) {
         this.config = configuration;
         this.backend = configuration.getBackend();
         this.maxWriteRetryAttempts = config.getWriteAttempts();
         this.retryStorageWaitTime = config.getStorageWaittime();
+        this.slicePageSize = config.getSlicePageSize();
+        this.serializationThreads = config.getSerializationThreads();
+        this.serializationExecutor = serializationThreads>0?Backend.getExecutor("titan-serialize-",serializationThreads):null;
 
 
         this.idAssigner = config.getIDAssigner(backend);
@@ -75,6 +98,9 @@ public class StandardTitanGraph extends TitanBlueprintsGraph {
         this.serializer = config.getSerializer();
         this.indexSerializer = new IndexSerializer(this.serializer,this.backend.getIndexInformation());
         this.edgeSerializer = new EdgeSerializer(this.serializer,this.idManager);
+        this.typeCache = new TypeDefinitionCache();
+        long cacheSize = config.getDBCacheSize();
+        this.adjacencyCache = cacheSize>0?new AdjacencyCache(cacheSize,config.getDBCacheTime()):null;
         isOpen = true;
     }
 
@@ -88,6 +114,7 @@ public class StandardTitanGraph extends TitanBlueprintsGraph {
         if (!isOpen) return;
         try {
             super.shutdown();
+            if (serializationExecutor!=null) serializationExecutor.shutdown();
             idAssigner.close();
             backend.close();
         } catch (StorageException e) {
@@ -128,6 +155,30 @@ public class StandardTitanGraph extends TitanBlueprintsGraph {
         return indexinfo;
     }
 
+    public TypeDefinitionCache getTypeCache() {
+        return typeCache;
+    }
+
+    /**
+     * Returns the graph-wide adjacency cache or null if it has not been enabled
+     *
+     * @return
+     */
+    public AdjacencyCache getAdjacencyCache() {
+        return adjacencyCache;
+    }
+
+    /**
+     * Returns the number of entries to retrieve at a time when streaming adjacency lists or 0 if adjacency
+     * lists are always retrieved in their entirety.
+     *
+     * @return
+     * @see GraphDatabaseConfiguration#SLICE_PAGE_SIZE_KEY
+     */
+    public int getSlicePageSize() {
+        return slicePageSize;
+    }
+
     public IDInspector getIDInspector() {
         return idManager;
     }
@@ -177,7 +228,81 @@ public class StandardTitanGraph extends TitanBlueprintsGraph {
 
     public List<Entry> edgeQuery(long vid, SliceQuery query, BackendTransaction tx) {
         Preconditions.checkArgument(vid>0);
-        return tx.edgeStoreQuery(new KeySliceQuery(IDHandler.getKey(vid),query));
+        StaticBuffer key = IDHandler.getKey(vid);
+        if (adjacencyCache==null) return tx.edgeStoreQuery(new KeySliceQuery(key,query));
+
+        List<Entry> result = adjacencyCache.get(key,query);
+        if (result==null) {
+            long version = adjacencyCache.getVersion(key);
+            result = tx.edgeStoreQuery(new KeySliceQuery(key,query));
+            adjacencyCache.put(key,query,result,version);
+        }
+        return result;
+    }
+
+    /**
+     * Returns an iterator over the adjacency list slice of the given vertex which is retrieved from the storage
+     * backend in pages of {@link #getSlicePageSize()} entries. Streamed slices bypass the adjacency cache.
+     *
+     * @param vid
+     * @param query
+     * @param tx
+     * @return
+     */
+    public RecordIterator<Entry> edgeQueryIterator(long vid, SliceQuery query, BackendTransaction tx) {
+        Preconditions.checkArgument(vid>0);
+        Preconditions.checkState(slicePageSize>0,"Streaming of adjacency lists has been disabled");
+        return tx.edgeStoreSliceIterator(new KeySliceQuery(IDHandler.getKey(vid),query),slicePageSize);
+    }
+
+    public List<List<Entry>> edgeMultiQuery(LongArrayList vids, SliceQuery query, BackendTransaction tx) {
+        Preconditions.checkArgument(vids!=null && !vids.isEmpty());
+        List<StaticBuffer> vertexIds = new ArrayList<StaticBuffer>(vids.size());
+        for (int i=0;i<vids.size();i++) {
+            Preconditions.checkArgument(vids.get(i)>0);
+            vertexIds.add(IDHandler.getKey(vids.get(i)));
+        }
+        if (adjacencyCache==null) return tx.edgeStoreMultiQuery(vertexIds, query);
+
+        List<List<Entry>> results = new ArrayList<List<Entry>>(vertexIds.size());
+        List<StaticBuffer> missingKeys = new ArrayList<StaticBuffer>();
+        LongArrayList missingVersions = new LongArrayList();
+        IntArrayList missingPositions = new IntArrayList();
+        for (int i=0;i<vertexIds.size();i++) {
+            StaticBuffer key = vertexIds.get(i);
+            List<Entry> result = adjacencyCache.get(key,query);
+            if (result==null) {
+                missingKeys.add(key);
+                missingVersions.add(adjacencyCache.getVersion(key));
+                missingPositions.add(i);
+            }
+            results.add(result);
+        }
+        if (!missingKeys.isEmpty()) {
+            List<List<Entry>> loaded = tx.edgeStoreMultiQuery(missingKeys, query);
+            for (int i=0;i<missingKeys.size();i++) {
+                List<Entry> result = loaded.get(i);
+                adjacencyCache.put(missingKeys.get(i),query,result,missingVersions.get(i));
+                results.set(missingPositions.get(i),result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Removes the adjacency lists of all vertices incident on the given relations from the adjacency cache.
+     * This is called once the transaction that added or deleted those relations has been committed.
+     *
+     * @param relations
+     */
+    public void invalidateAdjacencyCache(Iterable<InternalRelation> relations) {
+        if (adjacencyCache==null) return;
+        for (InternalRelation relation : relations) {
+            for (int pos=0;pos<relation.getLen();pos++) {
+                long vid = relation.getVertex(pos).getID();
+                if (vid>0) adjacencyCache.invalidate(IDHandler.getKey(vid));
+            }
+        }
     }
 
 
@@ -268,6 +393,7 @@ public class StandardTitanGraph extends TitanBlueprintsGraph {
                 }
 
                 if (!mutations.isEmpty()) persist(mutations, tx);
+                mutator.persistMutations();
                 return true;
             }
 
@@ -282,13 +408,14 @@ public class StandardTitanGraph extends TitanBlueprintsGraph {
                                                     StandardTitanTx tx) throws StorageException {
         assert mutatedEdges != null && !mutatedEdges.isEmpty();
 
-        Collection<V> vertices = mutatedEdges.keySet();
+        List<V> vertices = new ArrayList<V>(mutatedEdges.keySet());
+        List<List<Entry>> serializedAdditions = serializeAdditions(vertices, mutatedEdges, tx);
 
         BackendTransaction mutator = tx.getTxHandle();
-        for (V vertex : vertices) {
-            Preconditions.checkArgument(vertex.getID()>0,"Vertex has no id: %s",vertex.getID());
+        for (int i=0;i<vertices.size();i++) {
+            V vertex = vertices.get(i);
             List<InternalRelation> edges = mutatedEdges.get(vertex);
-            List<Entry> additions = new ArrayList<Entry>(edges.size());
+            List<Entry> additions = serializedAdditions!=null?serializedAdditions.get(i):writeAdditions(vertex,edges,tx);
             List<StaticBuffer> deletions = new ArrayList<StaticBuffer>(Math.max(10, edges.size() / 10));
             for (InternalRelation edge : edges) {
                 for (int pos=0;pos<edge.getLen();pos++) {
@@ -307,14 +434,90 @@ public class StandardTitanGraph extends TitanBlueprintsGraph {
                             } else {
                                 indexSerializer.addEdge(edge, mutator);
                             }
-                            additions.add(edgeSerializer.writeRelation(edge, pos, tx));
                         }
                     }
                 }
             }
-            mutator.mutateEdges(IDHandler.getKey(vertex.getID()), additions, deletions);
+            StaticBuffer vertexKey = IDHandler.getKey(vertex.getID());
+            if (adjacencyCache!=null) adjacencyCache.invalidate(vertexKey);
+            mutator.mutateEdges(vertexKey, additions, deletions);
+        }
+
+    }
+
+    private List<Entry> writeAdditions(InternalVertex vertex, List<InternalRelation> edges, StandardTitanTx tx) {
+        Preconditions.checkArgument(vertex.getID()>0,"Vertex has no id: %s",vertex.getID());
+        List<Entry> additions = new ArrayList<Entry>(edges.size());
+        for (InternalRelation edge : edges) {
+            if (edge.isRemoved()) continue;
+            for (int pos=0;pos<edge.getLen();pos++) {
+                if (edge.getVertex(pos).equals(vertex)) additions.add(edgeSerializer.writeRelation(edge, pos, tx));
+            }
         }
+        return additions;
+    }
 
+    /**
+     * Serializes the added relations of the given vertices concurrently on the serialization executor and returns
+     * the serialized additions for each vertex in the order of the given list, or null if the relations should be
+     * serialized in the calling thread because there is no executor or too few vertices.
+     * <p/>
+     * The serialization only reads the relations and their types. To avoid concurrent modification of the
+     * transaction's state, all types involved are resolved in the calling thread beforehand.
+     *
+     * @param vertices
+     * @param mutatedEdges
+     * @param tx
+     * @return
+     */
+    private <V extends InternalVertex> List<List<Entry>> serializeAdditions(final List<V> vertices,
+                            final ListMultimap<V, InternalRelation> mutatedEdges, final StandardTitanTx tx) {
+        if (serializationExecutor==null || vertices.size()<2*MIN_SERIALIZATION_PARTITION_SIZE) return null;
+        prepareTypes(mutatedEdges.values(),tx);
+
+        int partitionSize = Math.max(MIN_SERIALIZATION_PARTITION_SIZE,
+                (vertices.size()+serializationThreads-1)/serializationThreads);
+        List<Future<List<List<Entry>>>> partitions = new ArrayList<Future<List<List<Entry>>>>();
+        for (int start=0;start<vertices.size();start+=partitionSize) {
+            final List<V> partition = vertices.subList(start,Math.min(vertices.size(),start+partitionSize));
+            partitions.add(serializationExecutor.submit(new Callable<List<List<Entry>>>() {
+                @Override
+                public List<List<Entry>> call() {
+                    List<List<Entry>> result = new ArrayList<List<Entry>>(partition.size());
+                    for (V vertex : partition) result.add(writeAdditions(vertex,mutatedEdges.get(vertex),tx));
+                    return result;
+                }
+            }));
+        }
+
+        List<List<Entry>> additions = new ArrayList<List<Entry>>(vertices.size());
+        for (Future<List<List<Entry>>> partition : partitions) {
+            try {
+                additions.addAll(partition.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TitanException("Interrupted while serializing relations",e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException)e.getCause();
+                throw new TitanException("Could not serialize relations",e.getCause());
+            }
+        }
+        return additions;
+    }
+
+    private static void prepareTypes(Collection<InternalRelation> relations, StandardTitanTx tx) {
+        Set<TitanType> types = new HashSet<TitanType>();
+        for (InternalRelation relation : relations) {
+            if (relation.isRemoved()) continue;
+            if (types.add(relation.getType())) {
+                TypeDefinition definition = ((InternalType)relation.getType()).getDefinition();
+                for (long typeid : definition.getPrimaryKey()) ((InternalType)tx.getExistingType(typeid)).getDefinition();
+                for (long typeid : definition.getSignature()) ((InternalType)tx.getExistingType(typeid)).getDefinition();
+            }
+            for (TitanType type : relation.getPropertyKeysDirect()) {
+                if (types.add(type)) ((InternalType)type).getDefinition();
+            }
+        }
     }
 
 }
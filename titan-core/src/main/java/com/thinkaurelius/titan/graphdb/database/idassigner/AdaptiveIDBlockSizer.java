@@ -0,0 +1,114 @@
+package com.thinkaurelius.titan.graphdb.database.idassigner;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Preconditions;
+import com.thinkaurelius.titan.diskstorage.Backend;
+import com.thinkaurelius.titan.util.stats.MetricManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link IDBlockSizer} which adapts the block size of each partition to the rate at which ids are consumed from it,
+ * so that a new block is requested about once per configured renewal interval. Partitions which consume ids quickly
+ * thereby request fewer, larger blocks and partitions which are rarely used waste fewer ids.
+ * <p/>
+ * Block sizes are requested from the id pools upon renewal, which happens after most of the previously requested
+ * block has been consumed. Hence, the ids consumed between two consecutive requests for a partition are
+ * approximated by the size of the block handed out at the earlier request. The first block of a partition is sized
+ * by the wrapped {@link IDBlockSizer}. The block size changes by at most a factor of {@link #MAX_CHANGE_FACTOR} per
+ * renewal and stays within a factor of {@link #MAX_SIZE_FACTOR} of the initial block size.
+ * <p/>
+ * The number of requested blocks and ids as well as the distribution of block sizes and renewal intervals are
+ * recorded as metrics.
+ *
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+public class AdaptiveIDBlockSizer implements IDBlockSizer {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveIDBlockSizer.class);
+
+    public static final String METRICS_PREFIX = Backend.METRICS_PREFIX + "idBlockSizer";
+
+    public static final int MAX_CHANGE_FACTOR = 4;
+    public static final int MAX_SIZE_FACTOR = 100;
+
+    private final IDBlockSizer initialSizer;
+    private final long renewalIntervalMS;
+
+    private final Map<Integer, Renewal> renewals;
+
+    private final Counter blockCounter;
+    private final Counter idCounter;
+    private final Histogram blockSizeHisto;
+    private final Histogram renewalIntervalHisto;
+
+    /**
+     *
+     * @param initialSizer Determines the size of the first block of each partition
+     * @param renewalIntervalMS Targeted number of milliseconds between block renewals of a partition
+     */
+    public AdaptiveIDBlockSizer(IDBlockSizer initialSizer, long renewalIntervalMS) {
+        Preconditions.checkNotNull(initialSizer);
+        Preconditions.checkArgument(renewalIntervalMS > 0, "Renewal interval must be positive: %s", renewalIntervalMS);
+        this.initialSizer = initialSizer;
+        this.renewalIntervalMS = renewalIntervalMS;
+        this.renewals = new HashMap<Integer, Renewal>();
+
+        MetricRegistry metrics = MetricManager.INSTANCE.getRegistry();
+        blockCounter = metrics.counter(MetricRegistry.name(METRICS_PREFIX, "blocks"));
+        idCounter = metrics.counter(MetricRegistry.name(METRICS_PREFIX, "ids"));
+        blockSizeHisto = metrics.histogram(MetricRegistry.name(METRICS_PREFIX, "block-size"));
+        renewalIntervalHisto = metrics.histogram(MetricRegistry.name(METRICS_PREFIX, "renewal-interval"));
+    }
+
+    @Override
+    public synchronized long getBlockSize(int partitionID) {
+        long now = getTime();
+        long initialSize = initialSizer.getBlockSize(partitionID);
+        Renewal last = renewals.get(partitionID);
+        long size;
+        if (last == null) {
+            size = initialSize;
+            last = new Renewal();
+            renewals.put(partitionID, last);
+        } else {
+            long elapsed = Math.max(1, now - last.time);
+            renewalIntervalHisto.update(elapsed);
+            double targetSize = ((double) last.blockSize) * renewalIntervalMS / elapsed;
+            targetSize = Math.min(Math.max(targetSize, last.blockSize / (double) MAX_CHANGE_FACTOR), last.blockSize * (double) MAX_CHANGE_FACTOR);
+            targetSize = Math.min(Math.max(targetSize, initialSize / (double) MAX_SIZE_FACTOR), initialSize * (double) MAX_SIZE_FACTOR);
+            size = Math.max(1, Math.min(Math.round(targetSize), Integer.MAX_VALUE));
+            if (size != last.blockSize)
+                log.debug("Adjusted block size of partition {} from {} to {} after {} ms", new Object[]{partitionID, last.blockSize, size, elapsed});
+        }
+        last.time = now;
+        last.blockSize = size;
+
+        blockCounter.inc();
+        idCounter.inc(size);
+        blockSizeHisto.update(size);
+        return size;
+    }
+
+    /**
+     * Returns the current time in milliseconds
+     *
+     * @return
+     */
+    protected long getTime() {
+        return System.currentTimeMillis();
+    }
+
+    private static class Renewal {
+
+        private long time;
+        private long blockSize;
+
+    }
+
+}
@@ -1,13 +1,27 @@
 package com.thinkaurelius.titan.graphdb.database.idassigner;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Preconditions;
 import com.thinkaurelius.titan.core.TitanException;
+import com.thinkaurelius.titan.diskstorage.Backend;
 import com.thinkaurelius.titan.diskstorage.IDAuthority;
 import com.thinkaurelius.titan.diskstorage.StorageException;
+import com.thinkaurelius.titan.util.stats.MetricManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
+ * ID pool which hands out the ids of the blocks it acquires from an {@link IDAuthority}. The next block is acquired
+ * by a background thread once a configurable percentage of the current block has been handed out.
+ * <p/>
+ * To avoid contention between threads, each thread claims a sub-block of consecutive ids from the current block with
+ * a single atomic increment and hands out ids from that sub-block without synchronization. Only switching to the next
+ * block is synchronized. Ids are therefore unique but not handed out in increasing order across threads, and
+ * the unused ids of a thread's sub-block are lost when the pool is discarded.
+ *
  * @author Matthias Broecheler (me@matthiasb.com)
  */
 
@@ -23,6 +37,17 @@ public class StandardIDPool implements IDPool {
 
     private static final long RENEW_WAIT_INTERVAL = 1000;
 
+    /**
+     * Default number of ids a thread claims from the current block at once
+     */
+    public static final int DEFAULT_SUB_BLOCK_SIZE = 16;
+
+    /**
+     * Times how long {@link #nextID()} is blocked waiting for a new id block
+     */
+    private static final Timer renewWaitTimer = MetricManager.INSTANCE.getRegistry().timer(
+            MetricRegistry.name(Backend.METRICS_PREFIX + "idPool", "renewWait", "time"));
+
 
     private final IDAuthority idAuthority;
     private final long maxID; //inclusive
@@ -30,18 +55,30 @@ public class StandardIDPool implements IDPool {
 
     private final long renewTimeoutMS;
     private final double renewBufferPercentage;
+    private final int subBlockSize;
 
-    private long nextID;
-    private long currentMaxID;
-    private long renewBufferID;
+    private volatile Block currentBlock;
+    private final ThreadLocal<SubBlock> subBlocks;
 
     private volatile long bufferNextID;
     private volatile long bufferMaxID;
     private Thread idBlockRenewer;
 
-    private boolean initialized;
-
     public StandardIDPool(IDAuthority idAuthority, long partitionID, long maximumID, long renewTimeoutMS, double renewBufferPercentage) {
+        this(idAuthority, partitionID, maximumID, renewTimeoutMS, renewBufferPercentage, DEFAULT_SUB_BLOCK_SIZE);
+    }
+
+    /**
+     *
+     * @param idAuthority
+     * @param partitionID
+     * @param maximumID Maximum id (inclusive) to hand out
+     * @param renewTimeoutMS Maximum time to wait for the next id block
+     * @param renewBufferPercentage Percentage of the current block remaining when the next block is acquired
+     * @param subBlockSize Number of ids a thread claims from the current block at once. Use 1 for pools
+     *                     where no ids should be lost.
+     */
+    public StandardIDPool(IDAuthority idAuthority, long partitionID, long maximumID, long renewTimeoutMS, double renewBufferPercentage, int subBlockSize) {
         Preconditions.checkArgument(maximumID > 0);
         this.idAuthority = idAuthority;
         this.partitionID = (int) partitionID;
@@ -50,16 +87,20 @@ public class StandardIDPool implements IDPool {
         this.renewTimeoutMS = renewTimeoutMS;
         Preconditions.checkArgument(renewBufferPercentage>0.0 && renewBufferPercentage<=1.0,"Renew-buffer percentage must be in (0.0,1.0]");
         this.renewBufferPercentage = renewBufferPercentage;
-
-        nextID = 0;
-        currentMaxID = 0;
-        renewBufferID = 0;
+        Preconditions.checkArgument(subBlockSize>0,"Sub-block size must be positive");
+        this.subBlockSize = subBlockSize;
+
+        currentBlock = new Block(0, 0, 0);
+        subBlocks = new ThreadLocal<SubBlock>() {
+            @Override
+            protected SubBlock initialValue() {
+                return new SubBlock();
+            }
+        };
 
         bufferNextID = BUFFER_EMPTY;
         bufferMaxID = BUFFER_EMPTY;
         idBlockRenewer = null;
-
-        initialized = false;
     }
 
     private void waitForIDRenewer() throws InterruptedException {
@@ -77,18 +118,32 @@ public class StandardIDPool implements IDPool {
             throw new TitanException("ID renewal thread on partition ["+partitionID+"] did not complete in time. ["+(System.currentTimeMillis()-timeStart)+" ms]");
     }
 
-    private synchronized void nextBlock() throws InterruptedException {
-        assert nextID == currentMaxID;
-
-        waitForIDRenewer();
+    /**
+     * Replaces the given exhausted block with the block acquired by the renewal thread, unless another thread
+     * has done so already.
+     *
+     * @param exhausted
+     * @throws InterruptedException
+     */
+    private synchronized void nextBlock(Block exhausted) throws InterruptedException {
+        if (currentBlock != exhausted) return;
+        //The block may be exhausted before the thread which claimed the renewal id got to start the renewal
+        startRenewal(exhausted);
+
+        Timer.Context waitTime = renewWaitTimer.time();
+        try {
+            waitForIDRenewer();
+        } finally {
+            waitTime.stop();
+        }
         if (bufferMaxID == BUFFER_POOL_EXHAUSTION || bufferNextID == BUFFER_POOL_EXHAUSTION)
             throw new IDPoolExhaustedException("Exhausted ID Pool for partition: " + partitionID);
 
         Preconditions.checkArgument(bufferMaxID > 0, bufferMaxID);
         Preconditions.checkArgument(bufferNextID > 0, bufferNextID);
 
-        nextID = bufferNextID;
-        currentMaxID = bufferMaxID;
+        long nextID = bufferNextID;
+        long currentMaxID = bufferMaxID;
 
         log.debug("[{}] Next/Max ID: {}", partitionID, new long[]{nextID, currentMaxID});
 
@@ -97,10 +152,12 @@ public class StandardIDPool implements IDPool {
         bufferNextID = BUFFER_EMPTY;
         bufferMaxID = BUFFER_EMPTY;
 
-        renewBufferID = currentMaxID - Math.max(RENEW_ID_COUNT, Math.round((currentMaxID - nextID)*renewBufferPercentage));
+        long renewBufferID = currentMaxID - Math.max(RENEW_ID_COUNT, Math.round((currentMaxID - nextID)*renewBufferPercentage));
         if (renewBufferID >= currentMaxID) renewBufferID = currentMaxID - 1;
         if (renewBufferID < nextID) renewBufferID = nextID;
         assert renewBufferID >= nextID && renewBufferID < currentMaxID;
+
+        currentBlock = new Block(nextID, currentMaxID, renewBufferID);
     }
 
     private void renewBuffer() {
@@ -121,29 +178,43 @@ public class StandardIDPool implements IDPool {
     }
 
     @Override
-    public synchronized long nextID() {
-        assert nextID <= currentMaxID;
-        if (!initialized) {
-            startNextIDAcquisition();
-            initialized = true;
-        }
+    public long nextID() {
+        SubBlock subBlock = subBlocks.get();
+        if (subBlock.nextID == subBlock.maxID) claimSubBlock(subBlock);
+        long returnId = subBlock.nextID++;
+        if (returnId > maxID) throw new IDPoolExhaustedException("Exhausted max id of " + maxID);
+        if (log.isTraceEnabled()) log.trace("[{}] Returned id: {}", partitionID, returnId);
+        return returnId;
+    }
 
-        if (nextID == currentMaxID) {
+    /**
+     * Claims the next sub-block of the current block for the calling thread and switches to the next block
+     * if the current one is exhausted. The thread whose sub-block contains the renewal id of the block starts
+     * the acquisition of the next block.
+     *
+     * @param subBlock
+     */
+    private void claimSubBlock(SubBlock subBlock) {
+        while (true) {
+            Block block = currentBlock;
+            long start = block.nextID.getAndAdd(subBlockSize);
+            if (start < block.maxID) {
+                long end = Math.min(start + subBlockSize, block.maxID);
+                if (start <= block.renewBufferID && block.renewBufferID < end) {
+                    synchronized (this) {
+                        startRenewal(block);
+                    }
+                }
+                subBlock.nextID = start;
+                subBlock.maxID = end;
+                return;
+            }
             try {
-                nextBlock();
+                nextBlock(block);
             } catch (InterruptedException e) {
                 throw new TitanException("Could not renew id block due to interruption", e);
             }
         }
-
-        if (nextID == renewBufferID) {
-            startNextIDAcquisition();
-        }
-        long returnId = nextID;
-        nextID++;
-        if (returnId > maxID) throw new IDPoolExhaustedException("Exhausted max id of " + maxID);
-        log.trace("[{}] Returned id: {}", partitionID, returnId);
-        return returnId;
     }
 
     @Override
@@ -156,14 +227,52 @@ public class StandardIDPool implements IDPool {
         }
     }
 
-    private void startNextIDAcquisition() {
+    private void startRenewal(Block block) {
+        assert Thread.holdsLock(this);
+        if (block.renewalStarted) return;
+        block.renewalStarted = true;
+        startNextIDAcquisition(block);
+    }
+
+    private void startNextIDAcquisition(Block block) {
         Preconditions.checkArgument(idBlockRenewer == null || !idBlockRenewer.isAlive(), idBlockRenewer);
         //Renew buffer
-        log.debug("Starting id block renewal thread upon {}", nextID);
+        log.debug("Starting id block renewal thread upon {}", block.renewBufferID);
         idBlockRenewer = new IDBlockThread();
         idBlockRenewer.start();
     }
 
+    /**
+     * Block of ids [nextID,maxID) which threads claim sub-blocks from
+     */
+    private static class Block {
+
+        private final AtomicLong nextID;
+        private final long maxID;
+        private final long renewBufferID;
+
+        //Guarded by the pool
+        private boolean renewalStarted;
+
+        private Block(long nextID, long maxID, long renewBufferID) {
+            this.nextID = new AtomicLong(nextID);
+            this.maxID = maxID;
+            this.renewBufferID = renewBufferID;
+            this.renewalStarted = false;
+        }
+
+    }
+
+    /**
+     * Ids [nextID,maxID) claimed by a single thread
+     */
+    private static class SubBlock {
+
+        private long nextID = 0;
+        private long maxID = 0;
+
+    }
+
     private class IDBlockThread extends Thread {
 
         @Override
@@ -1,9 +1,6 @@
 package com.thinkaurelius.titan.graphdb.database.idassigner;
 
 
-import cern.colt.list.ObjectArrayList;
-import cern.colt.map.AbstractIntObjectMap;
-import cern.colt.map.OpenIntObjectHashMap;
 import com.google.common.base.Preconditions;
 import com.thinkaurelius.titan.core.TitanKey;
 import com.thinkaurelius.titan.core.TitanLabel;
@@ -13,6 +10,7 @@ import com.thinkaurelius.titan.diskstorage.StaticBuffer;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StoreFeatures;
 import com.thinkaurelius.titan.graphdb.database.idassigner.placement.DefaultPlacementStrategy;
 import com.thinkaurelius.titan.graphdb.database.idassigner.placement.IDPlacementStrategy;
+import com.thinkaurelius.titan.graphdb.database.idassigner.placement.LocalityPlacementStrategy;
 import com.thinkaurelius.titan.graphdb.database.idassigner.placement.PartitionAssignment;
 import com.thinkaurelius.titan.graphdb.database.idassigner.placement.SimpleBulkPlacementStrategy;
 import com.thinkaurelius.titan.graphdb.idmanagement.IDManager;
@@ -26,8 +24,8 @@ import org.slf4j.LoggerFactory;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static com.thinkaurelius.titan.graphdb.configuration.GraphDatabaseConfiguration.*;
 
@@ -43,8 +41,10 @@ public class VertexIDAssigner {
     private static final int MAX_PARTITION_RENEW_ATTEMPTS = 1000;
     private static final int DEFAULT_PARTITION = 0;
 
-    final AbstractIntObjectMap idPools;
-    final ReadWriteLock idPoolsLock;
+    /**
+     * Pools are looked up without locking for each assigned id. Creating and removing pools is synchronized on the map.
+     */
+    final ConcurrentMap<Integer,Object> idPools;
 
     private final IDAuthority idAuthority;
     private final IDManager idManager;
@@ -67,31 +67,46 @@ public class VertexIDAssigner {
         long partitionBits;
         boolean partitionIDs = config.getBoolean(IDS_PARTITION_KEY, IDS_PARTITION_DEFAULT);
         if (partitionIDs) {
-            //Use a placement strategy that balances partitions
             partitionBits = DEFAULT_PARTITION_BITS;
             hasLocalPartitions = idAuthFeatures.hasLocalKeyPartition();
-            placementStrategy = new SimpleBulkPlacementStrategy(config);
         } else {
             if (idAuthFeatures.isKeyOrdered() && idAuthFeatures.isDistributed())
                 log.warn("ID Partitioning is disabled which will likely cause uneven data distribution");
-            //Use the default placement strategy
             partitionBits = 0;
             hasLocalPartitions = false;
-            placementStrategy = new DefaultPlacementStrategy(0);
         }
         log.debug("Partition IDs? [{}], Local Partitions? [{}]",partitionIDs,hasLocalPartitions);
         idManager = new IDManager(partitionBits, groupBits);
+
+        if (partitionIDs) {
+            String placement = config.getString(IDS_PLACEMENT_KEY, IDS_PLACEMENT_DEFAULT);
+            if (placement.equalsIgnoreCase("simple")) {
+                //Use a placement strategy that balances partitions
+                placementStrategy = new SimpleBulkPlacementStrategy(config);
+            } else if (placement.equalsIgnoreCase("locality")) {
+                //Use a placement strategy that co-locates connected vertices
+                placementStrategy = new LocalityPlacementStrategy(config, idManager);
+            } else {
+                throw new IllegalArgumentException("Unrecognized placement strategy: " + placement);
+            }
+        } else {
+            //Use the default placement strategy
+            placementStrategy = new DefaultPlacementStrategy(0);
+        }
         Preconditions.checkArgument(idManager.getMaxPartitionID() < Integer.MAX_VALUE);
         this.maxPartitionID = (int) idManager.getMaxPartitionID();
 
         long baseBlockSize = config.getLong(IDS_BLOCK_SIZE_KEY, IDS_BLOCK_SIZE_DEFAULT);
-        idAuthority.setIDBlockSizer(new SimpleVertexIDBlockSizer(baseBlockSize));
+        IDBlockSizer blockSizer = new SimpleVertexIDBlockSizer(baseBlockSize);
+        long renewalInterval = config.getLong(IDS_BLOCK_RENEWAL_INTERVAL_KEY, IDS_BLOCK_RENEWAL_INTERVAL_DEFAULT);
+        Preconditions.checkArgument(renewalInterval >= 0, "Block renewal interval must be non-negative (use 0 to disable)");
+        if (renewalInterval > 0) blockSizer = new AdaptiveIDBlockSizer(blockSizer, renewalInterval);
+        idAuthority.setIDBlockSizer(blockSizer);
 
         renewTimeoutMS = config.getLong(IDS_RENEW_TIMEOUT_KEY,IDS_RENEW_TIMEOUT_DEFAULT);
         renewBufferPercentage = config.getDouble(IDS_RENEW_BUFFER_PERCENTAGE_KEY,IDS_RENEW_BUFFER_PERCENTAGE_DEFAULT);
 
-        idPools = new OpenIntObjectHashMap();
-        idPoolsLock = new ReentrantReadWriteLock();
+        idPools = new ConcurrentHashMap<Integer,Object>();
 
         setLocalPartitions();
     }
@@ -130,15 +145,11 @@ public class VertexIDAssigner {
     }
 
     public synchronized void close() {
-        idPoolsLock.writeLock().lock();
-        try {
-            ObjectArrayList pools = idPools.values();
-            for (int i = 0; i < pools.size(); i++) {
-                ((PartitionPool) pools.get(i)).close();
+        synchronized (idPools) {
+            for (Object pool : idPools.values()) {
+                if (pool != EXHAUSTED_ID_POOL) ((PartitionPool) pool).close();
             }
             idPools.clear();
-        } finally {
-            idPoolsLock.writeLock().unlock();
         }
     }
 
@@ -233,24 +244,14 @@ public class VertexIDAssigner {
         final int partitionID = (int) partitionIDl;
         long id = -1;
 
-        Object poolObj = null;
-        idPoolsLock.readLock().lock();
-        try {
-            poolObj = idPools.get(partitionID);
-        } finally {
-            idPoolsLock.readLock().unlock();
-        }
+        Object poolObj = idPools.get(partitionID);
         if (poolObj == null) {
-            idPoolsLock.writeLock().lock();
-            try {
-                if (idPools.containsKey(partitionID)) {
-                    poolObj = idPools.get(partitionID);
-                } else {
+            synchronized (idPools) {
+                poolObj = idPools.get(partitionID);
+                if (poolObj == null) {
                     poolObj = new PartitionPool(partitionID, idAuthority, idManager, partitionID == DEFAULT_PARTITION, renewTimeoutMS, renewBufferPercentage);
                     idPools.put(partitionID, poolObj);
                 }
-            } finally {
-                idPoolsLock.writeLock().unlock();
             }
         }
         Preconditions.checkNotNull(poolObj);
@@ -269,17 +270,13 @@ public class VertexIDAssigner {
                 } else {
                     id = idManager.getVertexID(pool.vertex.nextID(), partitionID);
                 }
-                pool.accessed();
             } catch (IDPoolExhaustedException e) {
                 log.debug("Pool exhausted for partition id {}", partitionID);
                 placementStrategy.exhaustedPartition(partitionID);
                 //Close and remove pool
-                idPoolsLock.writeLock().lock();
-                try {
+                synchronized (idPools) {
                     idPools.put(partitionID, EXHAUSTED_ID_POOL);
                     pool.close();
-                } finally {
-                    idPoolsLock.writeLock().unlock();
                 }
                 throw e;
             }
@@ -321,13 +318,12 @@ public class VertexIDAssigner {
         final IDPool relation;
         final IDPool relationType;
 
-        long lastAccess;
-
         PartitionPool(int partitionID, IDAuthority idAuthority, IDManager idManager, boolean includeRelationType, long renewTimeoutMS, double renewBufferPercentage) {
             vertex = new StandardIDPool(idAuthority, PoolType.VERTEX.getFullPartitionID(partitionID), idManager.getMaxVertexID(), renewTimeoutMS, renewBufferPercentage);
             relation = new StandardIDPool(idAuthority, PoolType.RELATION.getFullPartitionID(partitionID), idManager.getMaxRelationID(), renewTimeoutMS, renewBufferPercentage);
             if (includeRelationType)
-                relationType = new StandardIDPool(idAuthority, PoolType.RELATIONTYPE.getFullPartitionID(partitionID), idManager.getMaxTitanTypeID(), renewTimeoutMS, renewBufferPercentage);
+                //Type ids are scarce and rarely assigned concurrently, so threads do not claim them in sub-blocks
+                relationType = new StandardIDPool(idAuthority, PoolType.RELATIONTYPE.getFullPartitionID(partitionID), idManager.getMaxTitanTypeID(), renewTimeoutMS, renewBufferPercentage, 1);
             else relationType = null;
         }
 
@@ -337,10 +333,6 @@ public class VertexIDAssigner {
             if (relationType != null) relationType.close();
         }
 
-        public void accessed() {
-            lastAccess = System.currentTimeMillis();
-        }
-
     }
 
     private enum PoolType {
@@ -0,0 +1,305 @@
+package com.thinkaurelius.titan.graphdb.database.idassigner.placement;
+
+import com.carrotsearch.hppc.IntIntOpenHashMap;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Predicates;
+import com.thinkaurelius.titan.core.TitanProperty;
+import com.thinkaurelius.titan.core.TitanType;
+import com.thinkaurelius.titan.graphdb.idmanagement.IDInspector;
+import com.thinkaurelius.titan.graphdb.internal.InternalElement;
+import com.thinkaurelius.titan.graphdb.internal.InternalRelation;
+import com.thinkaurelius.titan.graphdb.internal.InternalVertex;
+import org.apache.commons.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Placement strategy which co-locates connected vertices to reduce the number of partitions, and hence storage
+ * nodes, that a traversal touches.
+ * <p/>
+ * On bulk placement, the new vertices are grouped into the connected components formed by the relations added in the
+ * transaction. All vertices of a component are placed into the same partition, which is chosen as follows:
+ * <ol>
+ * <li>If a partition key is configured and vertices of the component have a value for it, the partition the most
+ * frequent value hashes to. Values are hashed into a bounded number of partitions, so that the number of partitions,
+ * and hence id pools, used for key placement does not grow with the number of distinct values.</li>
+ * <li>Otherwise, the partition holding most of the component's neighbours which already have an id.</li>
+ * <li>Otherwise, a random partition as chosen by {@link SimpleBulkPlacementStrategy}.</li>
+ * </ol>
+ * To bound the imbalance this introduces, a partition receives at most the configured multiple of its fair share
+ * of the placements within each window of {@link #WINDOW_SIZE} placements, where the fair share is based on the number of
+ * concurrent partitions of {@link SimpleBulkPlacementStrategy}. Components which would exceed that bound are placed
+ * randomly.
+ * <p/>
+ * Locality requires the ids to be assigned at commit time, i.e. ids should not be flushed. Vertices which are assigned
+ * an id individually are placed randomly and relations are placed with their first vertex which has an id.
+ *
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class LocalityPlacementStrategy implements IDPlacementStrategy {
+
+    private static final Logger log =
+            LoggerFactory.getLogger(LocalityPlacementStrategy.class);
+
+    /**
+     * Name of the property key whose values determine the partition of a vertex. Vertices with equal values
+     * are placed into the same partition. Not set by default.
+     * <p/>
+     * Values are hashed by {@link Object#hashCode()}, which is only consistent across JVMs for value types such as
+     * strings and numbers. The key should have such a data type, since otherwise vertices with equal values which
+     * are added by different Titan instances may be placed into different partitions.
+     */
+    public static final String PARTITION_KEY_KEY = "placement-key";
+
+    /**
+     * Number of partitions that the values of the partition key are hashed into. Defaults to the number of
+     * concurrent partitions.
+     */
+    public static final String KEY_PARTITIONS_KEY = "placement-key-partitions";
+
+    /**
+     * Maximum multiple of its fair share of placements that a partition receives through locality placement
+     */
+    public static final String MAX_IMBALANCE_KEY = "placement-imbalance";
+    public static final double MAX_IMBALANCE_DEFAULT = 2.0;
+
+    public static final int WINDOW_SIZE = 10000;
+
+    private final SimpleBulkPlacementStrategy randomPlacement;
+    private final IDInspector idInspector;
+    private final String partitionKey;
+    private final int keyPartitions;
+    private final int maxPartitionPlacements;
+
+    private final Set<Integer> exhaustedPartitions;
+
+    //Guarded by this
+    private final IntIntOpenHashMap windowPlacements;
+    private int windowTotal;
+
+    private int lowerPartitionID = -1;
+    private int partitionWidth = -1;
+    private int idCeiling = -1;
+
+    /**
+     *
+     * @param concurrentPartitions Number of partitions that vertices without locality are randomly placed into
+     * @param maxImbalance Maximum multiple of its fair share of placements that a partition receives
+     * @param partitionKey Name of the property key which determines the partition, or null
+     * @param keyPartitions Number of partitions that the values of the partition key are hashed into
+     * @param idInspector Used to determine the partition of the neighbouring vertices
+     */
+    public LocalityPlacementStrategy(int concurrentPartitions, double maxImbalance, String partitionKey, int keyPartitions, IDInspector idInspector) {
+        Preconditions.checkArgument(maxImbalance >= 1.0, "Imbalance factor must be at least 1: %s", maxImbalance);
+        Preconditions.checkArgument(keyPartitions > 0, "Number of key partitions must be positive: %s", keyPartitions);
+        Preconditions.checkNotNull(idInspector);
+        this.randomPlacement = new SimpleBulkPlacementStrategy(concurrentPartitions);
+        this.idInspector = idInspector;
+        this.partitionKey = partitionKey;
+        this.keyPartitions = keyPartitions;
+        this.maxPartitionPlacements = (int) Math.ceil(maxImbalance * WINDOW_SIZE / concurrentPartitions);
+        this.exhaustedPartitions = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+        this.windowPlacements = new IntIntOpenHashMap();
+        this.windowTotal = 0;
+    }
+
+    public LocalityPlacementStrategy(Configuration config, IDInspector idInspector) {
+        this(config, config.getInt(SimpleBulkPlacementStrategy.CONCURRENT_PARTITIONS_KEY, SimpleBulkPlacementStrategy.CONCURRENT_PARTITIONS_DEFAULT), idInspector);
+    }
+
+    private LocalityPlacementStrategy(Configuration config, int concurrentPartitions, IDInspector idInspector) {
+        this(concurrentPartitions, config.getDouble(MAX_IMBALANCE_KEY, MAX_IMBALANCE_DEFAULT), config.getString(PARTITION_KEY_KEY, null),
+                config.getInt(KEY_PARTITIONS_KEY, concurrentPartitions), idInspector);
+    }
+
+    @Override
+    public long getPartition(InternalElement element) {
+        if (element instanceof InternalRelation) {
+            InternalRelation relation = (InternalRelation) element;
+            for (int i = 0; i < relation.getArity(); i++) {
+                int partitionID = getPartitionID(relation.getVertex(i));
+                if (partitionID >= 0 && !exhaustedPartitions.contains(partitionID)) return partitionID;
+            }
+        }
+        return randomPlacement.getPartition(element);
+    }
+
+    @Override
+    public void getPartitions(Map<InternalVertex, PartitionAssignment> vertices) {
+        //Index the new vertices and join those connected by a relation
+        Map<InternalVertex, Integer> index = new HashMap<InternalVertex, Integer>(vertices.size());
+        List<InternalVertex> newVertices = new ArrayList<InternalVertex>(vertices.size());
+        for (InternalVertex vertex : vertices.keySet()) {
+            index.put(vertex, newVertices.size());
+            newVertices.add(vertex);
+        }
+        int[] parent = new int[newVertices.size()];
+        for (int i = 0; i < parent.length; i++) parent[i] = i;
+        //Per component: partition votes from neighbours and from partition key values
+        Map<Integer, IntIntOpenHashMap> neighbourVotes = new HashMap<Integer, IntIntOpenHashMap>();
+        Map<Integer, IntIntOpenHashMap> keyVotes = new HashMap<Integer, IntIntOpenHashMap>();
+        for (int i = 0; i < parent.length; i++) {
+            InternalVertex vertex = newVertices.get(i);
+            for (InternalRelation relation : vertex.getAddedRelations(Predicates.<InternalRelation>alwaysTrue())) {
+                if (partitionKey != null && relation instanceof TitanProperty
+                        && ((TitanProperty) relation).getPropertyKey().getName().equals(partitionKey)) {
+                    vote(keyVotes, i, getKeyPartition(((TitanProperty) relation).getValue()));
+                }
+                for (int pos = 0; pos < relation.getArity(); pos++) {
+                    InternalVertex neighbour = relation.getVertex(pos);
+                    if (neighbour == vertex) continue;
+                    Integer neighbourIndex = index.get(neighbour);
+                    if (neighbourIndex != null) union(parent, i, neighbourIndex);
+                    else {
+                        int partitionID = getPartitionID(neighbour);
+                        if (partitionID >= 0) vote(neighbourVotes, i, partitionID);
+                    }
+                }
+            }
+        }
+
+        //Group the vertices and votes by component
+        Map<Integer, Component> components = new HashMap<Integer, Component>();
+        for (int i = 0; i < parent.length; i++) {
+            int root = find(parent, i);
+            Component component = components.get(root);
+            if (component == null) {
+                component = new Component();
+                components.put(root, component);
+            }
+            component.vertices.add(newVertices.get(i));
+            component.addVotes(neighbourVotes.get(i), keyVotes.get(i));
+        }
+
+        int randomPartition = -1;
+        int placedLocally = 0;
+        for (Component component : components.values()) {
+            int partitionID = choosePartition(component);
+            if (partitionID < 0) {
+                if (randomPartition < 0) randomPartition = (int) randomPlacement.getPartition(null);
+                partitionID = randomPartition;
+            } else {
+                placedLocally += component.vertices.size();
+            }
+            PartitionAssignment assignment = new SimplePartitionAssignment(partitionID);
+            for (InternalVertex vertex : component.vertices) vertices.put(vertex, assignment);
+        }
+        log.trace("Placed {} of {} vertices by locality", placedLocally, vertices.size());
+    }
+
+    /**
+     * Returns the partition with the most key votes, or neighbour votes if there are none, which is not exhausted and
+     * can take the component within the imbalance bound. Returns -1 if there is no such partition.
+     */
+    private synchronized int choosePartition(Component component) {
+        int size = component.vertices.size();
+        int partitionID = -1;
+        for (IntIntOpenHashMap votes : new IntIntOpenHashMap[]{component.keyVotes, component.neighbourVotes}) {
+            if (votes == null) continue;
+            int maxVotes = 0;
+            for (int i = 0; i < votes.allocated.length; i++) {
+                if (!votes.allocated[i]) continue;
+                int candidate = votes.keys[i];
+                if (votes.values[i] > maxVotes && !exhaustedPartitions.contains(candidate)
+                        && windowPlacements.get(candidate) + size <= maxPartitionPlacements) {
+                    partitionID = candidate;
+                    maxVotes = votes.values[i];
+                }
+            }
+            if (partitionID >= 0) break;
+        }
+        if (partitionID >= 0) windowPlacements.putOrAdd(partitionID, size, size);
+        windowTotal += size;
+        if (windowTotal >= WINDOW_SIZE) {
+            windowPlacements.clear();
+            windowTotal = 0;
+        }
+        return partitionID;
+    }
+
+    private int getPartitionID(InternalVertex vertex) {
+        if (!vertex.hasId() || vertex instanceof TitanType) return -1;
+        return (int) idInspector.getPartitionID(vertex.getID());
+    }
+
+    private int getKeyPartition(Object value) {
+        Preconditions.checkArgument(idCeiling > 0, "Local partition bounds have not been set");
+        int hash = value.hashCode() * 0x9E3779B9;
+        int range = Math.min(partitionWidth, keyPartitions);
+        return (int) ((lowerPartitionID + ((hash & Integer.MAX_VALUE) % range)) % idCeiling);
+    }
+
+    private static void vote(Map<Integer, IntIntOpenHashMap> votes, int vertexIndex, int partitionID) {
+        IntIntOpenHashMap v = votes.get(vertexIndex);
+        if (v == null) {
+            v = new IntIntOpenHashMap(4);
+            votes.put(vertexIndex, v);
+        }
+        v.putOrAdd(partitionID, 1, 1);
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a), rootB = find(parent, b);
+        if (rootA != rootB) parent[rootB] = rootA;
+    }
+
+    @Override
+    public boolean supportsBulkPlacement() {
+        return true;
+    }
+
+    @Override
+    public void setLocalPartitionBounds(int lowerID, int upperID, int idLimit) {
+        randomPlacement.setLocalPartitionBounds(lowerID, upperID, idLimit);
+        lowerPartitionID = lowerID;
+        idCeiling = idLimit;
+        if (lowerID < upperID) partitionWidth = upperID - lowerID;
+        else partitionWidth = (idLimit - lowerID) + upperID;
+    }
+
+    @Override
+    public void exhaustedPartition(int partitionID) {
+        exhaustedPartitions.add(partitionID);
+        randomPlacement.exhaustedPartition(partitionID);
+    }
+
+    private static class Component {
+
+        private final List<InternalVertex> vertices = new ArrayList<InternalVertex>(1);
+        private IntIntOpenHashMap neighbourVotes;
+        private IntIntOpenHashMap keyVotes;
+
+        private void addVotes(IntIntOpenHashMap neighbour, IntIntOpenHashMap key) {
+            neighbourVotes = merge(neighbourVotes, neighbour);
+            keyVotes = merge(keyVotes, key);
+        }
+
+        private static IntIntOpenHashMap merge(IntIntOpenHashMap into, IntIntOpenHashMap from) {
+            if (from == null) return into;
+            if (into == null) return from;
+            for (int i = 0; i < from.allocated.length; i++) {
+                if (from.allocated[i]) into.putOrAdd(from.keys[i], from.values[i], from.values[i]);
+            }
+            return into;
+        }
+
+    }
+
+}
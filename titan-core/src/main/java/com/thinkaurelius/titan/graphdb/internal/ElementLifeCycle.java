@@ -9,7 +9,7 @@ import com.google.common.base.Preconditions;
  */
 public class ElementLifeCycle {
 
-    public enum Event {REMOVED, REMOVED_RELATION, ADDED_RELATION }
+    public enum Event {REMOVED, REMOVED_RELATION, ADDED_RELATION, PERSISTED_ADDED_RELATIONS }
 
     /**
      * The entity has been newly created and not yet persisted.
@@ -74,6 +74,12 @@ public class ElementLifeCycle {
     public static final byte update(final byte lifecycle, final Event event) {
         Preconditions.checkArgument(lifecycle>=New && lifecycle<=Removed,"Invalid element state: " + lifecycle);
         if (event==Event.REMOVED) return Removed;
+        else if (event==Event.PERSISTED_ADDED_RELATIONS) {
+            //The added relations have been persisted, only the removed ones are still pending
+            if (lifecycle==Removed) return Removed;
+            else if (hasRemovedRelations(lifecycle)) return RemovedRelations;
+            else return Loaded;
+        }
         else if (lifecycle==New || lifecycle==Modified) {
             return lifecycle;
         } else if (lifecycle== Removed) {
@@ -0,0 +1,215 @@
+package com.thinkaurelius.titan.graphdb.query;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.thinkaurelius.titan.core.*;
+import com.thinkaurelius.titan.core.attribute.Cmp;
+import com.thinkaurelius.titan.graphdb.internal.InternalVertex;
+import com.thinkaurelius.titan.graphdb.query.keycondition.KeyAnd;
+import com.thinkaurelius.titan.graphdb.query.keycondition.KeyAtom;
+import com.thinkaurelius.titan.graphdb.query.keycondition.Relation;
+import com.thinkaurelius.titan.graphdb.relations.AttributeUtil;
+import com.thinkaurelius.titan.graphdb.transaction.StandardTitanTx;
+import com.tinkerpop.blueprints.Direction;
+
+import java.util.*;
+
+/**
+ * Collects the constraints of a vertex centric query (direction, types, group, key constraints, limit) and
+ * turns them into a {@link VertexCentricQuery} for a given vertex. Shared by the single and multi-vertex
+ * query builders.
+ *
+ * @param <Q> the concrete builder type returned by the query construction methods
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public abstract class AbstractVertexCentricQueryBuilder<Q extends AbstractVertexCentricQueryBuilder<Q>> {
+
+    protected final StandardTitanTx tx;
+
+    private Direction dir;
+    private Set<String> types;
+    private TypeGroup group;
+    private List<KeyAtom<String>> constraints;
+    private boolean includeHidden;
+    private int limit = Query.NO_LIMIT;
+
+
+    public AbstractVertexCentricQueryBuilder(StandardTitanTx tx) {
+        Preconditions.checkNotNull(tx);
+        this.tx=tx;
+
+        dir = Direction.BOTH;
+        types = new HashSet<String>(4);
+        group = null;
+        constraints = Lists.newArrayList();
+        includeHidden = false;
+    }
+
+    protected abstract Q getThis();
+
+    private final TitanType getType(String typeName) {
+        TitanType t = tx.getType(typeName);
+        if (t == null && !tx.getConfiguration().getAutoEdgeTypeMaker().ignoreUndefinedQueryTypes()) {
+            throw new IllegalArgumentException("Undefined type used in query: " + typeName);
+        }
+        return t;
+    }
+
+	/* ---------------------------------------------------------------
+     * Query Execution
+	 * ---------------------------------------------------------------
+	 */
+
+    protected VertexCentricQuery constructQuery(InternalVertex vertex, RelationType returnType) {
+        Preconditions.checkNotNull(vertex);
+        Preconditions.checkNotNull(returnType);
+        Preconditions.checkArgument(limit>=0);
+        Preconditions.checkArgument(dir!=null);
+
+        if (limit==0) return VertexCentricQuery.INVALID;
+
+        if (returnType== RelationType.PROPERTY) {
+            if (dir==Direction.IN) return VertexCentricQuery.INVALID;
+            else dir=Direction.OUT;
+        }
+
+        List<TitanType> ts = Lists.newArrayList();
+        if (!types.isEmpty()) {
+            for (String type : types) {
+                TitanType t = getType(type);
+                if (t!=null) {
+                    ts.add(t);
+                    if (group!=null && !group.equals(t.getGroup()))
+                        throw new IllegalArgumentException("Given type conflicts with group assignment: " + type);
+                    if (t.isPropertyKey()) {
+                        if (returnType==RelationType.EDGE)
+                            throw new IllegalArgumentException("Querying for edges but including a property key: " + t.getName());
+                        returnType=RelationType.PROPERTY;
+                    }
+                    if (t.isEdgeLabel()) {
+                        if (returnType== RelationType.PROPERTY)
+                            throw new IllegalArgumentException("Querying for properties but including an edge label: " + t.getName());
+                        returnType = RelationType.EDGE;
+                    }
+                }
+            }
+            if (ts.isEmpty()) return VertexCentricQuery.INVALID;
+            group = null;
+        }
+
+        //check constraints
+        List<KeyAtom<TitanType>> c = new ArrayList<KeyAtom<TitanType>>(constraints.size());
+        for (int i=0;i<constraints.size();i++) {
+            KeyAtom<String> atom = constraints.get(i);
+            TitanType t = getType(atom.getKey());
+            if (t==null) {
+                if (atom.getRelation()==Cmp.EQUAL && atom.getCondition()==null) continue; //Ignore condition
+                else return VertexCentricQuery.INVALID;
+            }
+            Object condition = atom.getCondition();
+            Relation relation = atom.getRelation();
+            //Check condition
+            Preconditions.checkArgument(relation.isValidCondition(condition),"Invalid condition onf key [%s]: %s",t.getName(),condition);
+            if (t.isPropertyKey()) {
+                condition = AttributeUtil.verifyAttributeQuery((TitanKey)t,condition);
+                Preconditions.checkArgument(relation.isValidCondition(condition),"Invalid condition: %s",condition);
+//                Preconditions.checkArgument(relation.isValidDataType(((TitanKey)t).getDataType()),"Invalid data type for condition");
+            } else { //t.isEdgeLabel()
+                Preconditions.checkArgument(((TitanLabel)t).isUnidirected() && (condition instanceof TitanVertex));
+            }
+            c.add(new KeyAtom<TitanType>(t, relation, condition));
+        }
+
+        return new VertexCentricQuery(vertex,dir,ts.toArray(new TitanType[ts.size()]),group,KeyAnd.of(c.toArray(new KeyAtom[c.size()])),includeHidden,limit,returnType);
+    }
+
+    /* ---------------------------------------------------------------
+     * Query Construction
+	 * ---------------------------------------------------------------
+	 */
+
+    private Q addConstraint(String type, Relation rel, Object value) {
+        Preconditions.checkNotNull(type);
+        Preconditions.checkNotNull(rel);
+        constraints.add(new KeyAtom<String>(type, rel, value));
+        return getThis();
+    }
+
+    public Q has(TitanKey key, Object value) {
+        return has(key.getName(),value);
+    }
+
+    public Q has(TitanLabel label, TitanVertex vertex) {
+        return has(label.getName(), vertex);
+    }
+
+    public Q has(String type, Object value) {
+        return addConstraint(type,Cmp.EQUAL,value);
+    }
+
+    public <T extends Comparable<T>> Q interval(TitanKey key, T start, T end) {
+        return interval(key.getName(),start,end);
+    }
+
+    public <T extends Comparable<T>> Q interval(String key, T start, T end) {
+        addConstraint(key,Cmp.GREATER_THAN_EQUAL,start);
+        return addConstraint(key,Cmp.LESS_THAN,end);
+    }
+
+    public <T extends Comparable<T>> Q has(String key, T value, com.tinkerpop.blueprints.Query.Compare compare) {
+        return addConstraint(key,Cmp.convert(compare),value);
+    }
+
+    public <T extends Comparable<T>> Q has(TitanKey key, T value, com.tinkerpop.blueprints.Query.Compare compare) {
+        return has(key.getName(),value,compare);
+    }
+
+    public Q types(TitanType... type) {
+        for (TitanType t : type) type(t);
+        return getThis();
+    }
+
+    public Q labels(String... labels) {
+        types.addAll(Arrays.asList(labels));
+        return getThis();
+    }
+
+    public Q keys(String... keys) {
+        types.addAll(Arrays.asList(keys));
+        return getThis();
+    }
+
+    public Q type(TitanType type) {
+        return type(type.getName());
+    }
+
+    public Q type(String type) {
+        types.add(type);
+        return getThis();
+    }
+
+    public Q group(TypeGroup group) {
+        Preconditions.checkNotNull(group);
+        this.group = group;
+        return getThis();
+    }
+
+    public Q direction(Direction d) {
+        Preconditions.checkNotNull(d);
+        dir = d;
+        return getThis();
+    }
+
+    public Q includeHidden() {
+        includeHidden = true;
+        return getThis();
+    }
+
+    public Q limit(long limit) {
+        Preconditions.checkArgument(limit>=0,"Limit must be non-negative [%s]",limit);
+        Preconditions.checkArgument(limit<Integer.MAX_VALUE,"Limit is too large [%s]",limit);
+        this.limit = (int)limit;
+        return getThis();
+    }
+}
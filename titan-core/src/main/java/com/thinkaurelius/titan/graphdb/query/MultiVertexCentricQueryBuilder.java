@@ -0,0 +1,126 @@
+package com.thinkaurelius.titan.graphdb.query;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.thinkaurelius.titan.core.*;
+import com.thinkaurelius.titan.graphdb.internal.InternalVertex;
+import com.thinkaurelius.titan.graphdb.transaction.StandardTitanTx;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Executes a vertex centric query against multiple vertices. The adjacency lists of all vertices are retrieved
+ * in one batched backend call per (optimized) subquery and loaded into the vertices' relation caches, so that
+ * the per-vertex results returned by this builder are answered from cache.
+ *
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class MultiVertexCentricQueryBuilder extends AbstractVertexCentricQueryBuilder<MultiVertexCentricQueryBuilder> implements TitanMultiVertexQuery {
+
+    private final Set<InternalVertex> vertices;
+
+    public MultiVertexCentricQueryBuilder(StandardTitanTx tx) {
+        super(tx);
+        vertices = Sets.newLinkedHashSet();
+    }
+
+    @Override
+    protected MultiVertexCentricQueryBuilder getThis() {
+        return this;
+    }
+
+    @Override
+    public MultiVertexCentricQueryBuilder addVertex(TitanVertex vertex) {
+        Preconditions.checkNotNull(vertex);
+        Preconditions.checkArgument(vertex instanceof InternalVertex,"Invalid vertex: %s",vertex);
+        vertices.add((InternalVertex)vertex);
+        return this;
+    }
+
+    @Override
+    public MultiVertexCentricQueryBuilder addAllVertices(Collection<TitanVertex> vertices) {
+        for (TitanVertex v : vertices) addVertex(v);
+        return this;
+    }
+
+	/* ---------------------------------------------------------------
+     * Query Execution
+	 * ---------------------------------------------------------------
+	 */
+
+    /**
+     * Constructs the query for each vertex and loads the matching adjacency lists of all vertices
+     * into their relation caches.
+     *
+     * @param returnType
+     * @return Map of vertex to the query constructed for it
+     */
+    private Map<InternalVertex,VertexCentricQuery> execute(RelationType returnType) {
+        Preconditions.checkArgument(!vertices.isEmpty(),"Need to add at least one vertex to query");
+        Map<InternalVertex,VertexCentricQuery> queries = Maps.newLinkedHashMap();
+        //The optimizer splits each query into the same sequence of subqueries since they only differ in the vertex
+        List<List<VertexCentricQuery>> subqueries = Lists.newArrayList();
+        for (InternalVertex v : vertices) {
+            VertexCentricQuery query = constructQuery(v, returnType);
+            List<VertexCentricQuery> optimal = VertexCentricQueryOptimizer.INSTANCE.optimize(query);
+            for (int i=0;i<optimal.size();i++) {
+                if (subqueries.size()<=i) subqueries.add(new ArrayList<VertexCentricQuery>(vertices.size()));
+                subqueries.get(i).add(optimal.get(i));
+            }
+            queries.put(v,query);
+        }
+        for (List<VertexCentricQuery> sq : subqueries) tx.executeMultiQuery(sq);
+        return queries;
+    }
+
+    public Map<TitanVertex,Iterable<TitanRelation>> relations(RelationType returnType) {
+        Map<InternalVertex,VertexCentricQuery> queries = execute(returnType);
+        Map<TitanVertex,Iterable<TitanRelation>> result = Maps.newHashMapWithExpectedSize(queries.size());
+        for (Map.Entry<InternalVertex,VertexCentricQuery> entry : queries.entrySet()) {
+            result.put(entry.getKey(),new QueryProcessor<VertexCentricQuery, TitanRelation>(entry.getValue(),tx.edgeProcessor,VertexCentricQueryOptimizer.INSTANCE));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<TitanVertex,Iterable<TitanEdge>> titanEdges() {
+        Map<TitanVertex,Iterable<TitanEdge>> result = Maps.newHashMapWithExpectedSize(vertices.size());
+        for (Map.Entry<TitanVertex,Iterable<TitanRelation>> entry : relations(RelationType.EDGE).entrySet()) {
+            result.put(entry.getKey(),Iterables.filter(entry.getValue(),TitanEdge.class));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<TitanVertex,Iterable<TitanProperty>> properties() {
+        Map<TitanVertex,Iterable<TitanProperty>> result = Maps.newHashMapWithExpectedSize(vertices.size());
+        for (Map.Entry<TitanVertex,Iterable<TitanRelation>> entry : relations(RelationType.PROPERTY).entrySet()) {
+            result.put(entry.getKey(),Iterables.filter(entry.getValue(),TitanProperty.class));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<TitanVertex,Iterable<TitanRelation>> relations() {
+        return relations(RelationType.RELATION);
+    }
+
+    @Override
+    public Map<TitanVertex,VertexList> vertexIds() {
+        Map<InternalVertex,VertexCentricQuery> queries = execute(RelationType.EDGE);
+        Map<TitanVertex,VertexList> result = Maps.newHashMapWithExpectedSize(queries.size());
+        for (Map.Entry<InternalVertex,VertexCentricQuery> entry : queries.entrySet()) {
+            result.put(entry.getKey(),tx.getVertexIds(entry.getValue()));
+        }
+        return result;
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.thinkaurelius.titan.graphdb.query;
 
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * @author Matthias Broecheler (me@matthiasb.com)
@@ -14,4 +15,13 @@ public interface QueryExecutor<Q extends Query<Q>,R> {
 
     public Iterator<R> execute(Q query);
 
+    /**
+     * Notifies this executor that all of the given queries are about to be executed, which allows the executor
+     * to retrieve their results from the storage backend concurrently rather than one after another.
+     * Executors that cannot do so may ignore this call.
+     *
+     * @param queries
+     */
+    public void prefetch(List<Q> queries);
+
 }
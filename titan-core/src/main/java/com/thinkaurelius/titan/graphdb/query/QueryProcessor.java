@@ -50,6 +50,8 @@ public class QueryProcessor<Q extends Query<Q>,R> implements Iterable<R> {
 
     public Iterator<R> getUnwrappedIterator() {
         Iterator<R> iter = null;
+        //Subqueries are only all executed if the results are merged or not limited
+        if (optimal.size()>1 && (query.isSorted() || !query.hasLimit())) executor.prefetch(optimal);
         if (query.isSorted()) {
 
             for (int i=optimal.size()-1;i>=0;i--) {
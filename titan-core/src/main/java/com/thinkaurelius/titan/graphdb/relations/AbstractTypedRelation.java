@@ -85,7 +85,19 @@ public abstract class AbstractTypedRelation extends AbstractElement implements I
         return RelationIdentifier.get(this);
     }
 
-    protected void verifyRemoval() {
+    /**
+     * Returns the current representation of this relation for modification. Relations which have already been
+     * persisted by a batch flush of the transaction can no longer be modified.
+     */
+    private InternalRelation modifiable() {
+        InternalRelation r = it();
+        Preconditions.checkArgument(!r.isRemoved(),"Cannot modified removed relation");
+        if (r instanceof StandardRelation && r.isLoaded())
+            throw new UnsupportedOperationException("Relation has been persisted by a batch flush and cannot be modified: " + r);
+        return r;
+    }
+
+        protected void verifyRemoval() {
         if (!isModifiable())
             throw new UnsupportedOperationException("This relation is not modifiable and hence cannot be removed");
     }
@@ -103,23 +115,20 @@ public abstract class AbstractTypedRelation extends AbstractElement implements I
 
     @Override
     public <O> O removeProperty(TitanType type) {
-        Preconditions.checkArgument(!it().isRemoved(),"Cannot modified removed relation");
-        return it().removePropertyDirect(type);
+        return modifiable().removePropertyDirect(type);
     }
 
     @Override
     public void setProperty(TitanLabel label, TitanVertex vertex) {
-        Preconditions.checkArgument(!it().isRemoved(),"Cannot modified removed relation");
         Preconditions.checkArgument(label.isUnidirected(),"Label must be unidirected");
         Preconditions.checkArgument(label.isUnique(Direction.OUT),"Label must have unique end point");
-        it().setPropertyDirect(label,vertex);
+        modifiable().setPropertyDirect(label,vertex);
     }
 
     @Override
     public void setProperty(TitanKey key, Object value) {
-        Preconditions.checkArgument(!it().isRemoved(),"Cannot modified removed relation");
         Preconditions.checkArgument(key.isUnique(Direction.OUT),"Key must have unique assignment");
-        it().setPropertyDirect(key,AttributeUtil.verifyAttribute(key,value));
+        modifiable().setPropertyDirect(key,AttributeUtil.verifyAttribute(key,value));
     }
 
     @Override
@@ -42,6 +42,12 @@ public class StandardEdge extends AbstractEdge implements StandardRelation {
         this.previousID=previousID;
     }
 
+    @Override
+    public void setLoaded() {
+        Preconditions.checkArgument(ElementLifeCycle.isNew(lifecycle),"Relation is not new");
+        lifecycle = ElementLifeCycle.Loaded;
+    }
+
     @Override
     public <O> O getPropertyDirect(TitanType type) {
         return (O)properties.get(type);
@@ -10,4 +10,10 @@ public interface StandardRelation {
 
     public void setPreviousID(long previousID);
 
+    /**
+     * Marks this new relation as loaded after it has been persisted by a batch flush of the enclosing transaction.
+     * From then on, the relation can be removed but no longer modified.
+     */
+    public void setLoaded();
+
 }
@@ -1,5 +1,6 @@
 package com.thinkaurelius.titan.graphdb.transaction;
 
+import cern.colt.list.LongArrayList;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
@@ -13,9 +14,12 @@ import com.thinkaurelius.titan.diskstorage.BackendTransaction;
 import com.thinkaurelius.titan.diskstorage.StorageException;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.SliceQuery;
+import com.thinkaurelius.titan.diskstorage.util.ByteBufferUtil;
+import com.thinkaurelius.titan.diskstorage.util.RecordIteratorAdapter;
 import com.thinkaurelius.titan.graphdb.blueprints.TitanBlueprintsTransaction;
 import com.thinkaurelius.titan.graphdb.database.EdgeSerializer;
 import com.thinkaurelius.titan.graphdb.database.FittedSliceQuery;
+import com.thinkaurelius.titan.graphdb.database.RelationCursor;
 import com.thinkaurelius.titan.graphdb.database.StandardTitanGraph;
 import com.thinkaurelius.titan.graphdb.idmanagement.IDInspector;
 import com.thinkaurelius.titan.graphdb.internal.ElementLifeCycle;
@@ -29,6 +33,7 @@ import com.thinkaurelius.titan.graphdb.relations.AttributeUtil;
 import com.thinkaurelius.titan.graphdb.relations.RelationIdentifier;
 import com.thinkaurelius.titan.graphdb.relations.StandardEdge;
 import com.thinkaurelius.titan.graphdb.relations.StandardProperty;
+import com.thinkaurelius.titan.graphdb.relations.StandardRelation;
 import com.thinkaurelius.titan.graphdb.transaction.addedrelations.AddedRelationsContainer;
 import com.thinkaurelius.titan.graphdb.transaction.addedrelations.ConcurrentBufferAddedRelations;
 import com.thinkaurelius.titan.graphdb.transaction.addedrelations.SimpleBufferAddedRelations;
@@ -36,6 +41,7 @@ import com.thinkaurelius.titan.graphdb.transaction.indexcache.ConcurrentIndexCac
 import com.thinkaurelius.titan.graphdb.transaction.indexcache.IndexCache;
 import com.thinkaurelius.titan.graphdb.transaction.indexcache.SimpleIndexCache;
 import com.thinkaurelius.titan.graphdb.transaction.vertexcache.ConcurrentVertexCache;
+import com.thinkaurelius.titan.graphdb.transaction.vertexcache.EvictingVertexCache;
 import com.thinkaurelius.titan.graphdb.transaction.vertexcache.SimpleVertexCache;
 import com.thinkaurelius.titan.graphdb.transaction.vertexcache.VertexCache;
 import com.thinkaurelius.titan.graphdb.types.EdgeLabelDefinition;
@@ -51,6 +57,7 @@ import com.thinkaurelius.titan.graphdb.util.FakeLock;
 import com.thinkaurelius.titan.graphdb.util.VertexCentricEdgeIterable;
 import com.thinkaurelius.titan.graphdb.vertices.CacheVertex;
 import com.thinkaurelius.titan.graphdb.vertices.StandardVertex;
+import com.thinkaurelius.titan.graphdb.vertices.relationcache.DirectMemoryArena;
 import com.thinkaurelius.titan.util.datastructures.IterablesUtil;
 import com.thinkaurelius.titan.util.datastructures.Retriever;
 import com.tinkerpop.blueprints.Direction;
@@ -64,6 +71,8 @@ import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -88,14 +97,19 @@ public class StandardTitanTx extends TitanBlueprintsTransaction {
 
     //Internal data structures
     private final VertexCache vertexCache;
+    private final DirectMemoryArena relationArena;
     private final AtomicLong temporaryID;
-    private final AddedRelationsContainer addedRelations;
+    private volatile AddedRelationsContainer addedRelations;
     private Map<Long,InternalRelation> deletedRelations;
     private final Cache<StandardElementQuery,List<Object>> indexCache;
-    private final IndexCache newVertexIndexEntries;
+    private volatile IndexCache newVertexIndexEntries;
+    //Guarded by this
+    private int unflushedRelations;
+    private volatile boolean flushPending;
     private ConcurrentMap<UniqueLockApplication,Lock> uniqueLocks;
 
     private final Map<String,TitanType> typeCache;
+    private volatile boolean hasCreatedTypes;
 
     private boolean isOpen;
 
@@ -119,14 +133,20 @@ public class StandardTitanTx extends TitanBlueprintsTransaction {
                 }).
                 maximumWeight(DEFAULT_CACHE_SIZE).build();
         int concurrencyLevel;
-        if (config.isSingleThreaded()) {
+        relationArena = config.hasOffHeapRelationCache() ? new DirectMemoryArena() : null;
+        if (config.hasBoundedVertexCache()) {
+            vertexCache = new EvictingVertexCache(config.getVertexCacheSize());
+        } else if (config.isSingleThreaded()) {
             vertexCache = new SimpleVertexCache();
+        } else {
+            vertexCache = new ConcurrentVertexCache(config.getVertexCacheConcurrency());
+        }
+        if (config.isSingleThreaded()) {
             addedRelations = new SimpleBufferAddedRelations();
             concurrencyLevel = 1;
             typeCache = new HashMap<String,TitanType>();
             newVertexIndexEntries = new SimpleIndexCache();
         } else {
-            vertexCache = new ConcurrentVertexCache();
             addedRelations = new ConcurrentBufferAddedRelations();
             concurrencyLevel = 4;
             typeCache = new ConcurrentHashMap<String, TitanType>();
@@ -143,6 +163,8 @@ public class StandardTitanTx extends TitanBlueprintsTransaction {
 
         uniqueLocks = UNINITIALIZED_LOCKS;
         deletedRelations = EMPTY_DELETED_RELATIONS;
+        unflushedRelations = 0;
+        hasCreatedTypes = false;
         this.isOpen = true;
     }
 
@@ -237,8 +259,7 @@ public class StandardTitanTx extends TitanBlueprintsTransaction {
                     Preconditions.checkArgument(idInspector.isEdgeLabelID(id));
                     vertex = new TitanLabelVertex(StandardTitanTx.this,id,ElementLifeCycle.Loaded);
                 }
-                //If its a newly created type, add to type cache
-                typeCache.put(((TitanType)vertex).getName(),(TitanType)vertex);
+                //Not added to the type cache here since the vertex cache may discard this vertex in favor of a concurrently constructed one
             } else if (idInspector.isVertexID(id)) {
                 vertex = new CacheVertex(StandardTitanTx.this,id,ElementLifeCycle.Loaded);
             } else throw new IllegalArgumentException("ID could not be recognized");
@@ -288,11 +309,22 @@ public class StandardTitanTx extends TitanBlueprintsTransaction {
     }
 
     public void removeRelation(InternalRelation relation) {
+        if (config.hasBatchFlush()) {
+            synchronized (this) {
+                removeRelationInternal(relation);
+            }
+        } else {
+            removeRelationInternal(relation);
+        }
+    }
+
+    private void removeRelationInternal(InternalRelation relation) {
         Preconditions.checkArgument(!relation.isRemoved());
         relation = relation.it();
         //Delete from Vertex
         for (int i=0;i<relation.getLen();i++) {
             relation.getVertex(i).removeRelation(relation);
+            pinModifiedVertex(relation.getVertex(i));
         }
         //Update transaction data structures
         if (relation.isNew()) {
@@ -314,6 +346,16 @@ public class StandardTitanTx extends TitanBlueprintsTransaction {
         }
     }
 
+    /**
+     * Returns the arena from which vertices allocate their off-heap relation caches, or null if relations are
+     * cached on the heap
+     *
+     * @return
+     */
+    public DirectMemoryArena getRelationArena() {
+        return relationArena;
+    }
+
     public boolean isRemovedRelation(Long relationId) {
         return deletedRelations.containsKey(relationId);
     }
@@ -338,6 +380,7 @@ public class StandardTitanTx extends TitanBlueprintsTransaction {
     @Override
     public TitanEdge addEdge(TitanVertex outVertex, TitanVertex inVertex, TitanLabel label) {
         verifyWriteAccess(outVertex, inVertex);
+        flushIfPending();
         outVertex = ((InternalVertex)outVertex).it();
         inVertex = ((InternalVertex)inVertex).it();
         Preconditions.checkNotNull(label);
@@ -366,14 +409,100 @@ public class StandardTitanTx extends TitanBlueprintsTransaction {
     }
 
     private void connectRelation(InternalRelation r) {
+        if (config.hasBatchFlush()) {
+            synchronized (this) {
+                connectRelationInternal(r);
+                if (++unflushedRelations >= config.getBatchFlushSize() && isFlushable(r)) flushPending = true;
+            }
+        } else {
+            connectRelationInternal(r);
+        }
+    }
+
+    /**
+     * A vertex which has been evicted from a bounded vertex cache may still be modified through a retained reference.
+     * Such a vertex is added back to the cache since its added relations are only accessible through the vertex.
+     */
+    private void pinModifiedVertex(InternalVertex v) {
+        if ((config.hasBoundedVertexCache() || config.hasBatchFlush()) && !v.isNew() && !vertexCache.contains(v.getID())) {
+            vertexCache.add(v, v.getID());
+        }
+    }
+
+    /**
+     * Flushes the added relations if the batch flush size has been reached. This is called before a relation is added
+     * rather than when the triggering relation is connected, so that the caller can still modify the triggering relation.
+     */
+    private void flushIfPending() {
+        if (flushPending) {
+            synchronized (this) {
+                if (flushPending) flushAddedRelations();
+            }
+        }
+    }
+
+    /**
+     * A batch flush must not be triggered while a vertex is being created (i.e. before it has an id) or while
+     * a type is being defined, since the partially added relations cannot be persisted
+     */
+    private static boolean isFlushable(InternalRelation r) {
+        for (int i=0;i<r.getLen();i++) {
+            InternalVertex v = r.getVertex(i);
+            if (!v.hasId() || v instanceof TitanType) return false;
+        }
+        return true;
+    }
+
+    private void connectRelationInternal(InternalRelation r) {
         for (int i=0;i<r.getLen();i++) {
             boolean success = r.getVertex(i).addRelation(r);
             if (!success) throw new AssertionError("Could not connect relation: " + r);
+            pinModifiedVertex(r.getVertex(i));
         }
         addedRelations.add(r);
         if (isVertexIndexProperty(r)) newVertexIndexEntries.add((TitanProperty)r);
     }
 
+    /**
+     * Persists all relations added to this transaction so far and releases them, together with the vertices they are
+     * incident on, from the transaction's data structures so that they can be garbage collected.
+     * Type vertices are retained since their definitions are read from their added relations.
+     * The persisted relations and vertices are marked as loaded, so that subsequent removals are persisted on commit
+     * and subsequent modifications of a persisted relation are rejected.
+     */
+    private void flushAddedRelations() {
+        Collection<InternalRelation> relations = addedRelations.getAll();
+        unflushedRelations = 0;
+        flushPending = false;
+        if (relations.isEmpty()) return;
+        log.debug("Flushing {} added relations of batch loading transaction", relations.size());
+        graph.save(relations, ImmutableList.<InternalRelation>of(), this);
+        try {
+            txHandle.flush();
+        } catch (StorageException e) {
+            throw new TitanException("Could not flush added relations", e);
+        }
+        graph.invalidateAdjacencyCache(relations);
+
+        for (InternalRelation r : relations) {
+            ((StandardRelation)r).setLoaded();
+            for (int i=0;i<r.getLen();i++) {
+                InternalVertex v = r.getVertex(i);
+                if (v instanceof StandardVertex && !(v instanceof TitanType)) {
+                    ((StandardVertex)v).releaseAddedRelations();
+                    vertexCache.remove(v.getID());
+                }
+            }
+        }
+        if (config.isSingleThreaded()) {
+            addedRelations = new SimpleBufferAddedRelations();
+            newVertexIndexEntries = new SimpleIndexCache();
+        } else {
+            addedRelations = new ConcurrentBufferAddedRelations();
+            newVertexIndexEntries = new ConcurrentIndexCache();
+        }
+    }
+
     @Override
     public TitanProperty addProperty(TitanVertex vertex, TitanKey key, Object value) {
         if (key.isUnique(Direction.OUT)) return setProperty(vertex,key,value);
@@ -382,6 +511,7 @@ public class StandardTitanTx extends TitanBlueprintsTransaction {
 
     public TitanProperty addPropertyInternal(TitanVertex vertex, TitanKey key, Object value) {
         verifyWriteAccess(vertex);
+        flushIfPending();
         vertex = ((InternalVertex)vertex).it();
         Preconditions.checkNotNull(key);
         value = AttributeUtil.verifyAttribute(key,value);
@@ -460,6 +590,7 @@ public class StandardTitanTx extends TitanBlueprintsTransaction {
         Preconditions.checkArgument(prop.getID()>0);
         vertexCache.add(prop,prop.getID());
         typeCache.put(definition.getName(),prop);
+        hasCreatedTypes = true;
         return prop;
     }
 
@@ -472,20 +603,28 @@ public class StandardTitanTx extends TitanBlueprintsTransaction {
         graph.assignID(label);
         vertexCache.add(label, label.getID());
         typeCache.put(definition.getName(), label);
+        hasCreatedTypes = true;
         return label;
     }
 
     @Override
     public boolean containsType(String name) {
         verifyOpen();
-        return (typeCache.containsKey(name) || !Iterables.isEmpty(getVertices(SystemKey.TypeName,name)));
+        return (typeCache.containsKey(name) || graph.getTypeCache().getTypeId(name)!=null
+                || !Iterables.isEmpty(getVertices(SystemKey.TypeName,name)));
     }
 
     @Override
     public TitanType getType(String name) {
         verifyOpen();
         TitanType type = typeCache.get(name);
-        if (type==null) type = (TitanType)Iterables.getOnlyElement(getVertices(SystemKey.TypeName,name),null);
+        if (type==null) {
+            Long typeid = graph.getTypeCache().getTypeId(name);
+            if (typeid!=null) type = getExistingType(typeid);
+            else type = (TitanType)Iterables.getOnlyElement(getVertices(SystemKey.TypeName,name),null);
+            //Only cache the type vertex held by the vertex cache
+            if (type!=null) typeCache.put(name,type);
+        }
         return type;
     }
 
@@ -536,6 +675,297 @@ public class StandardTitanTx extends TitanBlueprintsTransaction {
         return new VertexCentricQueryBuilder((InternalVertex)vertex);
     }
 
+    @Override
+    public TitanMultiVertexQuery multiQuery(TitanVertex... vertices) {
+        MultiVertexCentricQueryBuilder builder = new MultiVertexCentricQueryBuilder(this);
+        for (TitanVertex v : vertices) builder.addVertex(v);
+        return builder;
+    }
+
+    @Override
+    public TitanMultiVertexQuery multiQuery(Collection<TitanVertex> vertices) {
+        MultiVertexCentricQueryBuilder builder = new MultiVertexCentricQueryBuilder(this);
+        builder.addAllVertices(vertices);
+        return builder;
+    }
+
+    /**
+     * Retrieves the adjacency lists for the given queries, which must be identical but for their vertex, in a single
+     * batched call to the storage backend and loads them into the relation caches of the respective vertices.
+     * New vertices and those whose relation cache already covers the query are skipped.
+     *
+     * @param queries vertex centric queries against different vertices
+     */
+    public void executeMultiQuery(final List<VertexCentricQuery> queries) {
+        FittedSliceQuery sq = null;
+        LongArrayList vids = new LongArrayList(queries.size());
+        List<CacheVertex> vertices = new ArrayList<CacheVertex>(queries.size());
+        for (VertexCentricQuery query : queries) {
+            InternalVertex v = query.getVertex();
+            if (v.isNew() || !(v instanceof CacheVertex)) continue;
+            if (sq==null) sq = getSliceQuery(query);
+            if (((CacheVertex)v).hasLoadedRelations(sq)) continue;
+            vids.add(v.getID());
+            vertices.add((CacheVertex)v);
+        }
+        if (vids.isEmpty()) return;
+
+        List<List<Entry>> results = graph.edgeMultiQuery(vids, sq, txHandle);
+        for (int i=0;i<vertices.size();i++) {
+            final List<Entry> vresults = results.get(i);
+            vertices.get(i).loadRelations(sq, new Retriever<SliceQuery, List<Entry>>() {
+                @Override
+                public List<Entry> get(SliceQuery query) {
+                    return vresults;
+                }
+            });
+        }
+    }
+
+    /**
+     * Retrieves the adjacency lists for the given queries concurrently and loads them into the relation caches of the
+     * respective vertices, so that the subsequent execution of the queries is answered from those caches.
+     * New vertices and those whose relation cache already covers the query are skipped, as are adjacency lists which
+     * turn out to be larger than a page since those are streamed on execution.
+     * This has no effect if the backend transaction does not support asynchronous reads.
+     *
+     * @param queries vertex centric queries
+     */
+    public void prefetchRelations(List<VertexCentricQuery> queries) {
+        if (!txHandle.hasAsyncReads()) return;
+        final int pageSize = graph.getSlicePageSize();
+        List<CacheVertex> vertices = new ArrayList<CacheVertex>(queries.size());
+        List<FittedSliceQuery> slices = new ArrayList<FittedSliceQuery>(queries.size());
+        List<Future<List<Entry>>> results = new ArrayList<Future<List<Entry>>>(queries.size());
+        for (VertexCentricQuery query : queries) {
+            InternalVertex v = query.getVertex();
+            if (v.isNew() || !(v instanceof CacheVertex)) continue;
+            FittedSliceQuery sq = getSliceQuery(query);
+            if (((CacheVertex)v).hasLoadedRelations(sq)) continue;
+            final long vid = v.getID();
+            final SliceQuery retrieve = pageSize>0 && sq.getLimit()>pageSize?
+                    new SliceQuery(sq.getSliceStart(),sq.getSliceEnd(),pageSize,sq.isStatic()):sq;
+            results.add(txHandle.executeAsync(new Callable<List<Entry>>() {
+                @Override
+                public List<Entry> call() throws Exception {
+                    return graph.edgeQuery(vid, retrieve, txHandle);
+                }
+            }));
+            vertices.add((CacheVertex)v);
+            slices.add(sq);
+        }
+        for (int i=0;i<vertices.size();i++) {
+            final List<Entry> result = getResult(results.get(i));
+            FittedSliceQuery sq = slices.get(i);
+            if (pageSize>0 && sq.getLimit()>pageSize && result.size()>=pageSize) continue;
+            vertices.get(i).loadRelations(sq, new Retriever<SliceQuery, List<Entry>>() {
+                @Override
+                public List<Entry> get(SliceQuery query) {
+                    return result;
+                }
+            });
+        }
+    }
+
+    private static<V> V getResult(Future<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TitanException("Interrupted while waiting for read",e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TitanException) throw (TitanException)e.getCause();
+            throw new TitanException("Could not execute read",e.getCause());
+        }
+    }
+
+    private FittedSliceQuery getSliceQuery(VertexCentricQuery query) {
+        FittedSliceQuery sq = graph.getEdgeSerializer().getQuery(query);
+        final boolean needsFiltering = !sq.isFitted() || !deletedRelations.isEmpty();
+        if (needsFiltering && sq.hasLimit()) sq = new FittedSliceQuery(sq,QueryUtil.updateLimit(sq.getLimit(),1.1));
+        return sq;
+    }
+
+    /**
+     * Returns the fitted slice queries for the given optimized subqueries of the query or null if the query has a
+     * limit or any of its subqueries cannot be answered by a fitted slice query, in which case the stored
+     * entries would have to be filtered.
+     *
+     * @param query
+     * @param optimal
+     * @return
+     */
+    private List<FittedSliceQuery> getFittedSliceQueries(VertexCentricQuery query, List<VertexCentricQuery> optimal) {
+        if (query.hasLimit() || query.hasUniqueResults()) return null;
+        if (query.getVertex().isNew()) return ImmutableList.of();
+        List<FittedSliceQuery> slices = new ArrayList<FittedSliceQuery>(optimal.size());
+        for (VertexCentricQuery subquery : optimal) {
+            FittedSliceQuery sq = getSliceQuery(subquery);
+            if (!sq.isFitted()) return null;
+            slices.add(sq);
+        }
+        return slices;
+    }
+
+    private Iterable<Entry> getStoredEntries(final InternalVertex v, FittedSliceQuery sq) {
+        if (v instanceof CacheVertex) {
+            return ((CacheVertex) v).loadRelations(sq, new Retriever<SliceQuery, List<Entry>>() {
+                @Override
+                public List<Entry> get(SliceQuery query) {
+                    return graph.edgeQuery(v.getID(), query, txHandle);
+                }
+            });
+        } else {
+            return graph.edgeQuery(v.getID(),sq,txHandle);
+        }
+    }
+
+    /**
+     * Like {@link #getStoredEntries(InternalVertex, FittedSliceQuery)} but adjacency lists which do not fit into a single
+     * page of {@link StandardTitanGraph#getSlicePageSize()} entries are neither materialized nor loaded into the relation
+     * cache of the vertex. Instead, all entries beyond the first page are streamed from the storage backend page by page
+     * on each iteration, so that iterating over the relations of a vertex with very many relations takes constant memory.
+     *
+     * @param v
+     * @param sq
+     * @return
+     */
+    private Iterable<Entry> getPagedEntries(final InternalVertex v, final FittedSliceQuery sq) {
+        final int pageSize = graph.getSlicePageSize();
+        if (pageSize<=0 || sq.getLimit()<=pageSize ||
+                (v instanceof CacheVertex && ((CacheVertex)v).hasLoadedRelations(sq))) return getStoredEntries(v,sq);
+
+        final List<Entry> firstPage = graph.edgeQuery(v.getID(),
+                new SliceQuery(sq.getSliceStart(),sq.getSliceEnd(),pageSize,sq.isStatic()),txHandle);
+        if (firstPage.size()<pageSize) {
+            //The first page contains the entire adjacency list
+            if (!(v instanceof CacheVertex)) return firstPage;
+            return ((CacheVertex) v).loadRelations(sq, new Retriever<SliceQuery, List<Entry>>() {
+                @Override
+                public List<Entry> get(SliceQuery query) {
+                    return firstPage;
+                }
+            });
+        }
+        final SliceQuery remainder = new SliceQuery(ByteBufferUtil.successorBuffer(firstPage.get(pageSize-1).getColumn()),
+                sq.getSliceEnd(),sq.hasLimit()?sq.getLimit()-pageSize:Query.NO_LIMIT,sq.isStatic());
+        return new Iterable<Entry>() {
+            @Override
+            public Iterator<Entry> iterator() {
+                return Iterators.concat(firstPage.iterator(),
+                        new RecordIteratorAdapter<Entry>(graph.edgeQueryIterator(v.getID(),remainder,txHandle)));
+            }
+        };
+    }
+
+    /**
+     * Returns the ids of the relations that are returned from the added relations for the given query and
+     * hence need to be excluded from the stored entries.
+     */
+    private static Set<Long> getExcludedIds(Set<TitanRelation> allNew) {
+        if (allNew.isEmpty()) return ImmutableSet.of();
+        Set<Long> excludedIds = new HashSet<Long>();
+        for (TitanRelation r : allNew) {
+            if (r.isEdge()) excludedIds.add(Long.valueOf(r.getID()));
+        }
+        return excludedIds;
+    }
+
+    /**
+     * Counts the relations matching the given query without constructing the relation objects.
+     * If all optimized subqueries can be answered by fitted slice queries, the count is computed from the
+     * number of matching entries, corrected for the relations deleted and added in this transaction.
+     * Only the relation ids of the entries are decoded and only if such a correction is needed.
+     * Otherwise, the count falls back to iterating over the query result.
+     *
+     * @param query
+     * @return
+     */
+    public long countRelations(final VertexCentricQuery query) {
+        final InternalVertex v = query.getVertex();
+        List<VertexCentricQuery> optimal = VertexCentricQueryOptimizer.INSTANCE.optimize(query);
+        if (optimal.isEmpty()) return 0;
+        List<FittedSliceQuery> slices = getFittedSliceQueries(query,optimal);
+        if (slices==null) {
+            return Iterables.size(new QueryProcessor<VertexCentricQuery, TitanRelation>(query,edgeProcessor,VertexCentricQueryOptimizer.INSTANCE));
+        }
+
+        Set<TitanRelation> allNew = edgeProcessor.hasNew(query)?Sets.newHashSet(edgeProcessor.getNew(query)):ImmutableSet.<TitanRelation>of();
+        long count = allNew.size();
+        Set<Long> excludedIds = getExcludedIds(allNew);
+
+        final EdgeSerializer edgeSerializer = graph.getEdgeSerializer();
+        RelationCursor cursor = null;
+        for (FittedSliceQuery sq : slices) {
+            Iterable<Entry> entries = getPagedEntries(v,sq);
+            if (deletedRelations.isEmpty() && excludedIds.isEmpty()) {
+                count += Iterables.size(entries);
+            } else {
+                if (cursor==null) cursor = new RelationCursor(edgeSerializer);
+                for (Entry entry : entries) {
+                    edgeSerializer.readHeader(v.getID(),entry,cursor,this);
+                    Long relationId = Long.valueOf(cursor.getRelationId());
+                    if (!deletedRelations.containsKey(relationId) && !excludedIds.contains(relationId)) count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the ids of the vertices adjacent to the query vertex along the edges matching the given query.
+     * If all optimized subqueries can be answered by fitted slice queries, the ids are decoded directly from the
+     * entries into a {@link VertexLongList} so that no edge or vertex objects are created. Otherwise, or if a
+     * newly added edge connects to a vertex that has not yet been assigned an id, the ids are collected by
+     * iterating over the matching edges.
+     *
+     * @param query
+     * @return
+     */
+    public VertexList getVertexIds(final VertexCentricQuery query) {
+        Preconditions.checkArgument(query.getReturnType()==RelationType.EDGE,"Expected edge query: %s",query);
+        final InternalVertex v = query.getVertex();
+        List<VertexCentricQuery> optimal = VertexCentricQueryOptimizer.INSTANCE.optimize(query);
+        if (optimal.isEmpty()) return new VertexArrayList();
+        List<FittedSliceQuery> slices = getFittedSliceQueries(query,optimal);
+        Set<TitanRelation> allNew = null;
+        LongArrayList ids = null;
+        if (slices!=null) {
+            allNew = edgeProcessor.hasNew(query)?Sets.newHashSet(edgeProcessor.getNew(query)):ImmutableSet.<TitanRelation>of();
+            ids = new LongArrayList(allNew.size());
+            for (TitanRelation r : allNew) {
+                TitanVertex other = ((TitanEdge)r).getOtherVertex(v);
+                if (!other.hasId()) {
+                    slices = null;
+                    break;
+                }
+                ids.add(other.getID());
+            }
+        }
+        if (slices==null) {
+            VertexArrayList vertices = new VertexArrayList();
+            for (TitanRelation r : new QueryProcessor<VertexCentricQuery, TitanRelation>(query,edgeProcessor,VertexCentricQueryOptimizer.INSTANCE)) {
+                vertices.add(((TitanEdge)r).getOtherVertex(v));
+            }
+            return vertices;
+        }
+
+        Set<Long> excludedIds = getExcludedIds(allNew);
+        final EdgeSerializer edgeSerializer = graph.getEdgeSerializer();
+        RelationCursor cursor = new RelationCursor(edgeSerializer);
+        for (FittedSliceQuery sq : slices) {
+            for (Entry entry : getPagedEntries(v,sq)) {
+                edgeSerializer.readHeader(v.getID(),entry,cursor,this);
+                if (!deletedRelations.isEmpty() || !excludedIds.isEmpty()) {
+                    Long relationId = Long.valueOf(cursor.getRelationId());
+                    if (deletedRelations.containsKey(relationId) || excludedIds.contains(relationId)) continue;
+                }
+                ids.add(cursor.getOtherVertexId());
+            }
+        }
+        return new VertexLongList(this,ids);
+    }
+
     public final QueryExecutor<VertexCentricQuery,TitanRelation> edgeProcessor = new QueryExecutor<VertexCentricQuery, TitanRelation>() {
 
         @Override
@@ -562,16 +992,20 @@ public class StandardTitanTx extends TitanBlueprintsTransaction {
             }).iterator();
         }
 
+        @Override
+        public void prefetch(List<VertexCentricQuery> queries) {
+            prefetchRelations(queries);
+        }
+
         @Override
         public Iterator<TitanRelation> execute(final VertexCentricQuery query) {
             if (query.getVertex().isNew()) return Iterators.emptyIterator();
 
             final EdgeSerializer edgeSerializer = graph.getEdgeSerializer();
-            FittedSliceQuery sq = edgeSerializer.getQuery(query);
+            FittedSliceQuery sq = getSliceQuery(query);
             final boolean fittedQuery = sq.isFitted();
             final InternalVertex v = query.getVertex();
             final boolean needsFiltering = !sq.isFitted() || !deletedRelations.isEmpty();
-            if (needsFiltering && sq.hasLimit()) sq = new FittedSliceQuery(sq,QueryUtil.updateLimit(sq.getLimit(),1.1));
 
             Iterable<TitanRelation> result = null;
             double limitMultiplier = 1.0;
@@ -579,26 +1013,22 @@ public class StandardTitanTx extends TitanBlueprintsTransaction {
             boolean finished;
             do {
                 finished = true;
-                Iterable<Entry> iter = null;
-
-                if (v instanceof CacheVertex) {
-                    CacheVertex cv = (CacheVertex)v;
-                    iter = ((CacheVertex) v).loadRelations(sq, new Retriever<SliceQuery, List<Entry>>() {
-                        @Override
-                        public List<Entry> get(SliceQuery query) {
-                            return graph.edgeQuery(v.getID(), query, txHandle);
-                        }
-                    });
-                } else {
-                    iter = graph.edgeQuery(v.getID(),sq,txHandle);
-                }
-                result = Iterables.transform(iter, new Function<Entry, TitanRelation>() {
-                    @Nullable
+                final Iterable<Entry> iter = getPagedEntries(v,sq);
+                final Iterable<Entry> entries = iter;
+                result = new Iterable<TitanRelation>() {
                     @Override
-                    public TitanRelation apply(@Nullable Entry entry) {
-                        return edgeSerializer.readRelation(v, entry);
+                    public Iterator<TitanRelation> iterator() {
+                        //Each iterator decodes through its own cursor which is reused across entries
+                        final RelationCursor cursor = new RelationCursor(edgeSerializer);
+                        return Iterators.transform(entries.iterator(), new Function<Entry, TitanRelation>() {
+                            @Nullable
+                            @Override
+                            public TitanRelation apply(@Nullable Entry entry) {
+                                return edgeSerializer.readRelation(v, entry, cursor);
+                            }
+                        });
                     }
-                });
+                };
                 if (needsFiltering) {
                     result = Iterables.filter(result,new Predicate<TitanRelation>() {
                         @Override
@@ -711,6 +1141,11 @@ public class StandardTitanTx extends TitanBlueprintsTransaction {
             } else throw new IllegalArgumentException("Unexpected type: " + query.getType());
         }
 
+        @Override
+        public void prefetch(List<StandardElementQuery> queries) {
+            //Index query results are not cached by the transaction, hence there is nothing to prefetch into
+        }
+
         @Override
         public Iterator<TitanElement> execute(final StandardElementQuery query) {
             Iterator<TitanElement> iter = null;
@@ -841,6 +1276,9 @@ public class StandardTitanTx extends TitanBlueprintsTransaction {
                 graph.save(addedRelations.getAll(), deletedRelations.values(), this);
             }
             txHandle.commit();
+            if (hasCreatedTypes) graph.getTypeCache().invalidate();
+            if (hasModifications())
+                graph.invalidateAdjacencyCache(Iterables.concat(addedRelations.getAll(), deletedRelations.values()));
         } catch (Exception e) {
             try {
                 txHandle.rollback();
@@ -867,6 +1305,7 @@ public class StandardTitanTx extends TitanBlueprintsTransaction {
 
     private void close() {
         //TODO: release non crucial data structures to preserve memory?
+        if (relationArena!=null) relationArena.close();
         isOpen=false;
     }
 
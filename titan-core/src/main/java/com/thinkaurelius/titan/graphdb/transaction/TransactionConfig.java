@@ -29,22 +29,37 @@ public class TransactionConfig {
 
     private final boolean threadBound;
 
+    private final int batchFlushSize;
+
+    private final int vertexCacheSize;
+
+    private final boolean offHeapRelationCache;
+
+    private final int vertexCacheConcurrency;
+
     /**
      * Constructs a new TitanTransaction configuration with default configuration parameters.
      */
     public TransactionConfig(GraphDatabaseConfiguration graphConfig, boolean threadBound) {
         this.isReadOnly = graphConfig.isReadOnly();
-        this.assignIDsImmediately = graphConfig.hasFlushIDs();
         this.defaultTypeMaker = graphConfig.getDefaultTypeMaker();
         if (graphConfig.isBatchLoading()) {
             verifyUniqueness = false;
             verifyVertexExistence = false;
             acquireLocks = false;
+            batchFlushSize = graphConfig.getBatchFlushSize();
         } else {
             verifyUniqueness = true;
             verifyVertexExistence = true;
             acquireLocks = true;
+            batchFlushSize = 0;
         }
+        //Relations can only be persisted before commit if they have ids
+        this.assignIDsImmediately = graphConfig.hasFlushIDs() || batchFlushSize > 0;
+        //Batch flushing releases vertices from the cache on its own
+        this.vertexCacheSize = batchFlushSize > 0 ? 0 : graphConfig.getTxCacheSize();
+        this.offHeapRelationCache = graphConfig.isTxCacheOffHeap();
+        this.vertexCacheConcurrency = graphConfig.getTxCacheConcurrency();
         this.threadBound = threadBound;
         singleThreaded = threadBound;
     }
@@ -56,6 +71,10 @@ public class TransactionConfig {
         verifyUniqueness = true;
         verifyVertexExistence = true;
         acquireLocks = true;
+        batchFlushSize = 0;
+        vertexCacheSize = 0;
+        offHeapRelationCache = false;
+        vertexCacheConcurrency = GraphDatabaseConfiguration.TX_CACHE_CONCURRENCY_DEFAULT;
         this.threadBound = threadBound;
         singleThreaded = threadBound;
     }
@@ -111,6 +130,57 @@ public class TransactionConfig {
         return verifyUniqueness;
     }
 
+    /**
+     * Whether this transaction persists its added relations and releases them from memory whenever the
+     * number of added relations reaches {@link #getBatchFlushSize()}.
+     *
+     * @return True, if added relations are flushed in batches, else false
+     */
+    public final boolean hasBatchFlush() {
+        return batchFlushSize > 0;
+    }
+
+    /**
+     * @return The number of added relations after which they are persisted, or 0 if they are kept until commit
+     */
+    public final int getBatchFlushSize() {
+        return batchFlushSize;
+    }
+
+    /**
+     * Whether this transaction evicts unmodified vertices from its vertex cache once their number exceeds
+     * {@link #getVertexCacheSize()}.
+     *
+     * @return True, if the vertex cache is bounded, else false
+     */
+    public final boolean hasBoundedVertexCache() {
+        return vertexCacheSize > 0;
+    }
+
+    /**
+     * @return The maximum number of unmodified vertices retained in the vertex cache, or 0 if it is unbounded
+     */
+    public final int getVertexCacheSize() {
+        return vertexCacheSize;
+    }
+
+    /**
+     * Whether this transaction holds the loaded relations of vertices in direct memory rather than on the heap.
+     *
+     * @return True, if relations are cached off-heap, else false
+     */
+    public final boolean hasOffHeapRelationCache() {
+        return offHeapRelationCache;
+    }
+
+    /**
+     * @return The expected number of threads concurrently accessing the vertex cache of this transaction if it is
+     *         not single threaded
+     */
+    public final int getVertexCacheConcurrency() {
+        return vertexCacheConcurrency;
+    }
+
     /**
      * Whether this transaction is only accessed by a single thread.
      * If so, then certain data structures may be optimized for single threaded access since locking can be avoided.
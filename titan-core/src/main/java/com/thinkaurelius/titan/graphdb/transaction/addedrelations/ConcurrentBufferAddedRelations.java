@@ -3,32 +3,82 @@ package com.thinkaurelius.titan.graphdb.transaction.addedrelations;
 import com.google.common.base.Predicate;
 import com.thinkaurelius.titan.graphdb.internal.InternalRelation;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
+ * Added relations container for transactions which are accessed by multiple threads concurrently.
+ * The relations are partitioned into a fixed number of {@link SimpleBufferAddedRelations} stripes which are each
+ * guarded by their own lock. Relations are assigned to stripes by identity, since the id of a relation may
+ * change while it is in the container.
+ *
  * @author Matthias Broecheler (me@matthiasb.com)
  */
 
-public class ConcurrentBufferAddedRelations extends SimpleBufferAddedRelations {
+public class ConcurrentBufferAddedRelations implements AddedRelationsContainer {
+
+    private static final int NUM_STRIPES = 16;
+
+    private final SimpleBufferAddedRelations[] stripes;
+
+    public ConcurrentBufferAddedRelations() {
+        stripes = new SimpleBufferAddedRelations[NUM_STRIPES];
+        for (int i=0;i<NUM_STRIPES;i++) stripes[i]=new SimpleBufferAddedRelations();
+    }
+
+    private SimpleBufferAddedRelations stripeFor(InternalRelation relation) {
+        int h = System.identityHashCode(relation);
+        h ^= (h>>>16);
+        return stripes[h & (NUM_STRIPES-1)];
+    }
+
+    @Override
+    public boolean add(InternalRelation relation) {
+        SimpleBufferAddedRelations stripe = stripeFor(relation);
+        synchronized (stripe) {
+            return stripe.add(relation);
+        }
+    }
 
     @Override
-    public synchronized boolean add(InternalRelation relation) {
-        return super.add(relation);
+    public boolean remove(InternalRelation relation) {
+        SimpleBufferAddedRelations stripe = stripeFor(relation);
+        synchronized (stripe) {
+            return stripe.remove(relation);
+        }
     }
 
     @Override
-    public synchronized boolean remove(InternalRelation relation) {
-        return super.remove(relation);
+    public boolean isEmpty() {
+        for (SimpleBufferAddedRelations stripe : stripes) {
+            synchronized (stripe) {
+                if (!stripe.isEmpty()) return false;
+            }
+        }
+        return true;
     }
 
     @Override
-    public synchronized boolean isEmpty() {
-        return super.isEmpty();
+    public List<InternalRelation> getView(Predicate<InternalRelation> filter) {
+        List<InternalRelation> result = new ArrayList<InternalRelation>();
+        for (SimpleBufferAddedRelations stripe : stripes) {
+            synchronized (stripe) {
+                result.addAll(stripe.getView(filter));
+            }
+        }
+        return result;
     }
 
     @Override
-    public synchronized List<InternalRelation> getView(Predicate<InternalRelation> filter) {
-        return super.getView(filter);
+    public Collection<InternalRelation> getAll() {
+        List<InternalRelation> result = new ArrayList<InternalRelation>();
+        for (SimpleBufferAddedRelations stripe : stripes) {
+            synchronized (stripe) {
+                result.addAll(stripe.getAll());
+            }
+        }
+        return result;
     }
 
 }
@@ -8,32 +8,55 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
+ * Index cache for transactions which are accessed by multiple threads concurrently.
+ * The properties are partitioned by value into a fixed number of stripes which are each guarded by their own lock.
+ *
  * @author Matthias Broecheler (me@matthiasb.com)
  */
 
 public class ConcurrentIndexCache implements IndexCache {
 
-    private final HashMultimap<Object,TitanProperty> map;
+    private static final int NUM_STRIPES = 16;
 
+    private final HashMultimap<Object,TitanProperty>[] stripes;
+
+    @SuppressWarnings("unchecked")
     public ConcurrentIndexCache() {
-        this.map = HashMultimap.create();
+        this.stripes = new HashMultimap[NUM_STRIPES];
+        for (int i=0;i<NUM_STRIPES;i++) stripes[i]=HashMultimap.create();
+    }
+
+    private HashMultimap<Object,TitanProperty> stripeFor(Object value) {
+        int h = value.hashCode();
+        h ^= (h>>>20) ^ (h>>>12);
+        h ^= (h>>>7) ^ (h>>>4);
+        return stripes[h & (NUM_STRIPES-1)];
     }
 
     @Override
-    public synchronized void add(TitanProperty property) {
-        map.put(property.getValue(),property);
+    public void add(TitanProperty property) {
+        HashMultimap<Object,TitanProperty> map = stripeFor(property.getValue());
+        synchronized (map) {
+            map.put(property.getValue(),property);
+        }
     }
 
     @Override
-    public synchronized void remove(TitanProperty property) {
-        map.remove(property.getValue(),property);
+    public void remove(TitanProperty property) {
+        HashMultimap<Object,TitanProperty> map = stripeFor(property.getValue());
+        synchronized (map) {
+            map.remove(property.getValue(),property);
+        }
     }
 
     @Override
-    public synchronized Iterable<TitanProperty> get(final Object value, final TitanKey key) {
+    public Iterable<TitanProperty> get(final Object value, final TitanKey key) {
         List<TitanProperty> result = new ArrayList<TitanProperty>(4);
-        for (TitanProperty p : map.get(value)) {
-            if (p.getPropertyKey().equals(key)) result.add(p);
+        HashMultimap<Object,TitanProperty> map = stripeFor(value);
+        synchronized (map) {
+            for (TitanProperty p : map.get(value)) {
+                if (p.getPropertyKey().equals(key)) result.add(p);
+            }
         }
         return result;
     }
@@ -1,62 +1,49 @@
 package com.thinkaurelius.titan.graphdb.transaction.vertexcache;
 
-import com.carrotsearch.hppc.LongObjectMap;
-import com.carrotsearch.hppc.LongObjectOpenHashMap;
-import com.carrotsearch.hppc.ObjectContainer;
-import com.carrotsearch.hppc.cursors.ObjectCursor;
 import com.google.common.base.Preconditions;
 import com.thinkaurelius.titan.graphdb.internal.InternalVertex;
+import com.thinkaurelius.titan.util.datastructures.ConcurrentLongObjectMap;
 import com.thinkaurelius.titan.util.datastructures.Retriever;
 
-import java.util.ArrayList;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-
+/**
+ * Vertex cache for transactions which are accessed by multiple threads concurrently.
+ * The vertices are held in a lock-striped map and vertices are constructed outside of any lock. If multiple threads
+ * construct the same vertex concurrently, the first one to be added wins and is returned to all threads.
+ * The number of lock stripes is determined by the expected number of concurrently accessing threads; with a
+ * concurrency level of 1 the cache is guarded by a single lock.
+ */
 public class ConcurrentVertexCache implements VertexCache {
 
-    private static final int defaultCacheSize = 10;
+    private static final int defaultSegmentSize = 4;
 
-    private final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock();
-    private final Lock readLock = rwl.readLock();
-    private final Lock writeLock = rwl.writeLock();
-    private final LongObjectMap map;
+    private final ConcurrentLongObjectMap<InternalVertex> map;
 
     public ConcurrentVertexCache() {
-        map = new LongObjectOpenHashMap(defaultCacheSize);
+        this(ConcurrentLongObjectMap.DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     *
+     * @param concurrencyLevel Expected number of threads concurrently accessing the cache
+     */
+    public ConcurrentVertexCache(int concurrencyLevel) {
+        map = new ConcurrentLongObjectMap<InternalVertex>(concurrencyLevel, defaultSegmentSize);
     }
 
 
     @Override
     public boolean contains(long id) {
-        readLock.lock();
-        try {
-            return map.containsKey(id);
-        } finally {
-            readLock.unlock();
-        }
+        return map.containsKey(id);
     }
 
     @Override
     public InternalVertex get(long id, Retriever<Long,InternalVertex> constructor) {
-        InternalVertex v = null;
-        readLock.lock();
-        try {
-            v = (InternalVertex) map.get(id);
-        } finally {
-            readLock.unlock();
-        }
+        InternalVertex v = map.get(id);
         if (v==null) {
-            writeLock.lock();
-            try {
-                v = (InternalVertex) map.get(id);
-                if (v==null) {
-                    v = constructor.get(id);
-                    Preconditions.checkNotNull(v);
-                    map.put(id,v);
-                }
-            } finally {
-                writeLock.unlock();
-            }
+            InternalVertex newVertex = constructor.get(id);
+            Preconditions.checkNotNull(newVertex);
+            v = map.putIfAbsent(id,newVertex);
+            if (v==null) v = newVertex;
         }
         return v;
     }
@@ -65,33 +52,23 @@ public class ConcurrentVertexCache implements VertexCache {
     public void add(InternalVertex vertex, long id) {
         Preconditions.checkNotNull(vertex);
         Preconditions.checkArgument(id != 0, "Vertex id must be positive");
-        writeLock.lock();
-        try {
-            assert !map.containsKey(id);
-            map.put(id, vertex);
-        } finally {
-            writeLock.unlock();
-        }
+        InternalVertex existing = map.put(id, vertex);
+        assert existing==null;
+    }
+
+    @Override
+    public void remove(long id) {
+        map.remove(id);
     }
 
     @Override
     public Iterable<InternalVertex> getAll() {
-        ArrayList<InternalVertex> vertices = new ArrayList<InternalVertex>(map.size() + 2);
-        readLock.lock();
-        try {
-            ObjectContainer<InternalVertex> oc = map.values();
-            for (ObjectCursor<InternalVertex> o : oc) {
-                vertices.add(o.value);
-            }
-        } finally {
-            readLock.unlock();
-        }
-        return vertices;
+        return map.values();
     }
 
 
     @Override
-    public synchronized void close() {
+    public void close() {
         map.clear();
     }
 
@@ -0,0 +1,170 @@
+package com.thinkaurelius.titan.graphdb.transaction.vertexcache;
+
+import com.carrotsearch.hppc.LongObjectOpenHashMap;
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.thinkaurelius.titan.core.TitanType;
+import com.thinkaurelius.titan.graphdb.internal.InternalVertex;
+import com.thinkaurelius.titan.graphdb.vertices.CacheVertex;
+import com.thinkaurelius.titan.util.datastructures.Retriever;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vertex cache which holds at most a configured number of clean vertices, i.e. vertices which have been loaded
+ * from the database and not been modified in the transaction, and evicts the least recently used clean vertex
+ * beyond that. Evicted vertices are only weakly referenced, so that they and their relation cache can be garbage
+ * collected. A vertex which is still referenced elsewhere, e.g. by the application, is returned again when it is
+ * retrieved, so that there is only a single instance per vertex and modifications through any reference are visible
+ * to the transaction. Otherwise, the vertex is reconstructed and its relations reloaded.
+ * <p/>
+ * New, modified and removed vertices as well as types are pinned and never evicted, since they hold state
+ * of the transaction. A clean vertex which is modified while in the cache is pinned once it reaches the end of the
+ * eviction order.
+ * <p/>
+ * All access is synchronized on the cache, but vertices are constructed outside the lock.
+ *
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+public class EvictingVertexCache implements VertexCache {
+
+    private static final int defaultCacheSize = 10;
+
+    private final int maxCleanVertices;
+
+    private final LongObjectOpenHashMap<InternalVertex> pinned;
+    private final LinkedHashMap<Long,InternalVertex> clean;
+    private final Cache<Long,InternalVertex> evicted;
+    private long evictions;
+
+    /**
+     *
+     * @param maxCleanVertices Maximum number of clean vertices to hold
+     */
+    public EvictingVertexCache(int maxCleanVertices) {
+        Preconditions.checkArgument(maxCleanVertices>0,"Invalid cache size: %s",maxCleanVertices);
+        this.maxCleanVertices = maxCleanVertices;
+        this.pinned = new LongObjectOpenHashMap<InternalVertex>(defaultCacheSize);
+        this.clean = new LinkedHashMap<Long,InternalVertex>(defaultCacheSize,0.75f,true);
+        this.evicted = CacheBuilder.newBuilder().weakValues().build();
+        this.evictions = 0;
+    }
+
+    private static boolean isEvictable(InternalVertex vertex) {
+        return vertex instanceof CacheVertex && !(vertex instanceof TitanType) && vertex.isLoaded();
+    }
+
+    @Override
+    public synchronized boolean contains(long id) {
+        return pinned.containsKey(id) || clean.containsKey(id);
+    }
+
+    private InternalVertex getIfPresent(long id) {
+        InternalVertex v = pinned.get(id);
+        if (v==null) v = clean.get(id);
+        if (v==null) {
+            v = evicted.getIfPresent(id);
+            if (v!=null) {
+                evicted.invalidate(id);
+                put(v,id);
+            }
+        }
+        return v;
+    }
+
+    @Override
+    public InternalVertex get(long id, Retriever<Long,InternalVertex> constructor) {
+        InternalVertex v;
+        synchronized (this) {
+            v = getIfPresent(id);
+        }
+        if (v==null) {
+            InternalVertex newVertex = constructor.get(id);
+            Preconditions.checkNotNull(newVertex);
+            synchronized (this) {
+                v = getIfPresent(id);
+                if (v==null) {
+                    put(newVertex,id);
+                    v = newVertex;
+                }
+            }
+        }
+        return v;
+    }
+
+    /**
+     * Adds the given vertex unless a vertex with the given id is already in the cache, which may happen when an
+     * evicted vertex is added back concurrently
+     */
+    @Override
+    public synchronized void add(InternalVertex vertex, long id) {
+        Preconditions.checkNotNull(vertex);
+        Preconditions.checkArgument(id != 0, "Vertex id must be positive");
+        if (!contains(id)) {
+            evicted.invalidate(id);
+            put(vertex,id);
+        }
+    }
+
+    private void put(InternalVertex vertex, long id) {
+        if (isEvictable(vertex)) {
+            clean.put(id,vertex);
+            if (clean.size()>maxCleanVertices) evict();
+        } else {
+            pinned.put(id,vertex);
+        }
+    }
+
+    /**
+     * Removes vertices in least recently used order until the number of clean vertices is within bounds. Vertices
+     * which have been modified since they were added are moved to the pinned vertices instead.
+     */
+    private void evict() {
+        Iterator<Map.Entry<Long,InternalVertex>> iter = clean.entrySet().iterator();
+        while (clean.size()>maxCleanVertices && iter.hasNext()) {
+            Map.Entry<Long,InternalVertex> entry = iter.next();
+            iter.remove();
+            if (isEvictable(entry.getValue())) {
+                evicted.put(entry.getKey(),entry.getValue());
+                evictions++;
+            } else pinned.put(entry.getKey(),entry.getValue());
+        }
+    }
+
+    @Override
+    public synchronized void remove(long id) {
+        if (pinned.remove(id)==null) clean.remove(id);
+        evicted.invalidate(id);
+    }
+
+    @Override
+    public synchronized Iterable<InternalVertex> getAll() {
+        List<InternalVertex> vertices = new ArrayList<InternalVertex>(pinned.size()+clean.size());
+        for (ObjectCursor<InternalVertex> c : pinned.values()) vertices.add(c.value);
+        vertices.addAll(clean.values());
+        return vertices;
+    }
+
+    /**
+     * Returns the number of vertices evicted from this cache
+     *
+     * @return
+     */
+    public synchronized long getNumEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized void close() {
+        pinned.clear();
+        clean.clear();
+        evicted.invalidateAll();
+    }
+
+}
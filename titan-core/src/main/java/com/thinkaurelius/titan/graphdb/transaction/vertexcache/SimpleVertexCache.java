@@ -44,6 +44,11 @@ public class SimpleVertexCache implements VertexCache {
         map.put(id, vertex);
     }
 
+    @Override
+    public void remove(long id) {
+        map.remove(id);
+    }
+
     @Override
     public Iterable<InternalVertex> getAll() {
         ArrayList<InternalVertex> vertices = new ArrayList<InternalVertex>(map.size() + 2);
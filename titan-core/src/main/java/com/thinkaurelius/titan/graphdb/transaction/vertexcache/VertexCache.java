@@ -30,6 +30,13 @@ public interface VertexCache {
      */
     public void add(InternalVertex vertex, long id);
 
+    /**
+     * Removes the vertex with the given id from the cache, if present
+     *
+     * @param id
+     */
+    public void remove(long id);
+
     /**
      * Returns an iterable over all vertices in the cache
      *
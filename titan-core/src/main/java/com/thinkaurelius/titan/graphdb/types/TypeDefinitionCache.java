@@ -0,0 +1,85 @@
+package com.thinkaurelius.titan.graphdb.types;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Graph-wide cache of type names, ids and definitions which is shared by all transactions of a graph, so that
+ * transactions do not have to re-read the type definitions from the storage backend.
+ * <p/>
+ * The cache only holds types which have been persisted. It is kept as a pair of immutable maps that are
+ * replaced on write (copy-on-write) so that reads are lock free. Since the number of types is small and
+ * the cache is only written when a type is first loaded, the cost of copying is negligible.
+ * The cache is invalidated whenever new types are created.
+ *
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class TypeDefinitionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TypeDefinitionCache.class);
+
+    private volatile ImmutableMap<String,Long> typeIds;
+    private volatile ImmutableMap<Long,TypeDefinition> definitions;
+
+    public TypeDefinitionCache() {
+        invalidate();
+    }
+
+    /**
+     * Returns the id of the type with the given name or null if the type is not cached.
+     *
+     * @param name
+     * @return
+     */
+    public Long getTypeId(String name) {
+        Preconditions.checkNotNull(name);
+        return typeIds.get(name);
+    }
+
+    /**
+     * Returns the definition of the type with the given id or null if the type is not cached.
+     *
+     * @param typeid
+     * @return
+     */
+    public TypeDefinition getDefinition(long typeid) {
+        return definitions.get(typeid);
+    }
+
+    /**
+     * Adds the definition of a persisted type to this cache.
+     *
+     * @param typeid
+     * @param definition
+     */
+    public synchronized void add(long typeid, TypeDefinition definition) {
+        Preconditions.checkArgument(typeid>0);
+        Preconditions.checkNotNull(definition);
+        if (definitions.containsKey(typeid)) return;
+        String name = definition.getName();
+        Long existing = typeIds.get(name);
+        Preconditions.checkArgument(existing==null || existing.longValue()==typeid,
+                "Type name [%s] is already associated with a different type id: %s",name,existing);
+
+        definitions = ImmutableMap.<Long,TypeDefinition>builder().putAll(definitions).put(typeid,definition).build();
+        if (existing==null)
+            typeIds = ImmutableMap.<String,Long>builder().putAll(typeIds).put(name,typeid).build();
+    }
+
+    /**
+     * Clears this cache
+     */
+    public synchronized void invalidate() {
+        log.debug("Invalidating type definition cache");
+        typeIds = ImmutableMap.of();
+        definitions = ImmutableMap.of();
+    }
+
+    public int size() {
+        return definitions.size();
+    }
+
+}
@@ -5,6 +5,7 @@ import com.thinkaurelius.titan.core.TitanKey;
 import com.thinkaurelius.titan.graphdb.query.QueryUtil;
 import com.thinkaurelius.titan.graphdb.transaction.StandardTitanTx;
 import com.thinkaurelius.titan.graphdb.types.PropertyKeyDefinition;
+import com.thinkaurelius.titan.graphdb.types.TypeDefinitionCache;
 import com.thinkaurelius.titan.graphdb.types.system.SystemKey;
 import com.tinkerpop.blueprints.Element;
 
@@ -21,9 +22,15 @@ public class TitanKeyVertex extends TitanTypeVertex implements TitanKey {
         if (definition == null) {
             synchronized (this) {
                 if (definition==null) {
-                    definition = QueryUtil.queryHiddenUniqueProperty(this, SystemKey.PropertyKeyDefinition)
-                            .getValue(PropertyKeyDefinition.class);
-                    Preconditions.checkNotNull(definition);
+                    //Persisted types are shared through the graph-wide cache
+                    TypeDefinitionCache typeCache = tx().getGraph().getTypeCache();
+                    if (isLoaded()) definition = (PropertyKeyDefinition)typeCache.getDefinition(getID());
+                    if (definition==null) {
+                        definition = QueryUtil.queryHiddenUniqueProperty(this, SystemKey.PropertyKeyDefinition)
+                                .getValue(PropertyKeyDefinition.class);
+                        Preconditions.checkNotNull(definition);
+                        if (isLoaded()) typeCache.add(getID(),definition);
+                    }
                 }
             }
         }
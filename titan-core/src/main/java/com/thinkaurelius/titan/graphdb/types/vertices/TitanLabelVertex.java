@@ -5,6 +5,7 @@ import com.thinkaurelius.titan.core.TitanLabel;
 import com.thinkaurelius.titan.graphdb.query.QueryUtil;
 import com.thinkaurelius.titan.graphdb.transaction.StandardTitanTx;
 import com.thinkaurelius.titan.graphdb.types.EdgeLabelDefinition;
+import com.thinkaurelius.titan.graphdb.types.TypeDefinitionCache;
 import com.thinkaurelius.titan.graphdb.types.system.SystemKey;
 
 public class TitanLabelVertex extends TitanTypeVertex implements TitanLabel {
@@ -20,9 +21,15 @@ public class TitanLabelVertex extends TitanTypeVertex implements TitanLabel {
         if (definition == null) {
             synchronized (this) {
                 if (definition==null) {
-                    definition = QueryUtil.queryHiddenUniqueProperty(this, SystemKey.RelationTypeDefinition)
-                            .getValue(EdgeLabelDefinition.class);
-                    Preconditions.checkNotNull(definition);
+                    //Persisted types are shared through the graph-wide cache
+                    TypeDefinitionCache typeCache = tx().getGraph().getTypeCache();
+                    if (isLoaded()) definition = (EdgeLabelDefinition)typeCache.getDefinition(getID());
+                    if (definition==null) {
+                        definition = QueryUtil.queryHiddenUniqueProperty(this, SystemKey.RelationTypeDefinition)
+                                .getValue(EdgeLabelDefinition.class);
+                        Preconditions.checkNotNull(definition);
+                        if (isLoaded()) typeCache.add(getID(),definition);
+                    }
                 }
             }
         }
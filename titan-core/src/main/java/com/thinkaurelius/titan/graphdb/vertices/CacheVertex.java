@@ -8,6 +8,8 @@ import com.thinkaurelius.titan.graphdb.transaction.StandardTitanTx;
 import com.thinkaurelius.titan.graphdb.vertices.querycache.ConcurrentQueryCache;
 import com.thinkaurelius.titan.graphdb.vertices.querycache.QueryCache;
 import com.thinkaurelius.titan.graphdb.vertices.querycache.SimpleQueryCache;
+import com.thinkaurelius.titan.graphdb.vertices.relationcache.DirectMemoryArena;
+import com.thinkaurelius.titan.graphdb.vertices.relationcache.PackedRelationCache;
 import com.thinkaurelius.titan.util.datastructures.Retriever;
 
 import java.util.List;
@@ -21,40 +23,61 @@ import java.util.concurrent.ConcurrentSkipListSet;
 public class CacheVertex extends StandardVertex {
 
     private SortedSet<Entry> relationCache=null;
+    private PackedRelationCache packedRelationCache=null;
     private QueryCache queryCache=null;
 
     public CacheVertex(StandardTitanTx tx, long id, byte lifecycle) {
         super(tx, id, lifecycle);
     }
 
+    /**
+     * Whether the relations for the given query have already been loaded into the relation cache of this vertex.
+     *
+     * @param query
+     * @return
+     */
+    public boolean hasLoadedRelations(SliceQuery query) {
+        return queryCache!=null && queryCache.isCovered(query);
+    }
+
     @Override
     public Iterable<Entry> loadRelations(SliceQuery query, Retriever<SliceQuery, List<Entry>> lookup) {
         if (isNew()) return ImmutableList.of();
         else {
-            if (relationCache==null) {
+            if (queryCache==null) {
                 //Initialize datastructures
                 if (tx().getConfiguration().isSingleThreaded()) {
-                    relationCache = new ConcurrentSkipListSet<Entry>();
-                    queryCache = new SimpleQueryCache();
+                    initializeCache(new SimpleQueryCache());
                 } else {
                     synchronized (this) {
-                        if (relationCache==null) {
-                            relationCache = new ConcurrentSkipListSet<Entry>();
-                            queryCache = new ConcurrentQueryCache();
-                        }
+                        if (queryCache==null) initializeCache(new ConcurrentQueryCache());
                     }
                 }
             }
             if (queryCache.isCovered(query)) {
+                if (packedRelationCache!=null)
+                    return packedRelationCache.getSlice(query.getSliceStart(), query.getSliceEnd());
                 SortedSet<Entry> results = relationCache.subSet(StaticBufferEntry.of(query.getSliceStart(), null),StaticBufferEntry.of(query.getSliceEnd(),null));
                 return results;
             } else {
                 List<Entry> results = lookup.get(query);
-                relationCache.addAll(results);
+                if (packedRelationCache!=null) packedRelationCache.addAll(results);
+                else relationCache.addAll(results);
                 queryCache.add(query);
                 return results;
             }
         }
     }
 
+    /**
+     * Relations are held off-heap if the transaction has a relation arena. The query cache is assigned last since
+     * it indicates that the data structures have been initialized.
+     */
+    private void initializeCache(QueryCache queries) {
+        DirectMemoryArena arena = tx().getRelationArena();
+        if (arena!=null) packedRelationCache = new PackedRelationCache(arena);
+        else relationCache = new ConcurrentSkipListSet<Entry>();
+        queryCache = queries;
+    }
+
 }
@@ -59,6 +59,16 @@ public class StandardVertex extends AbstractVertex {
         } else return false;
     }
 
+    /**
+     * Releases the added relations of this vertex after they have been persisted by a batch flush of the
+     * enclosing transaction. The vertex is considered loaded from then on, so that its relations are retrieved
+     * from the storage backend.
+     */
+    public void releaseAddedRelations() {
+        addedRelations=AddedRelationsContainer.EMPTY;
+        updateLifeCycle(ElementLifeCycle.Event.PERSISTED_ADDED_RELATIONS);
+    }
+
     @Override
     public List<InternalRelation> getAddedRelations(Predicate<InternalRelation> query) {
         return addedRelations.getView(query);
@@ -0,0 +1,103 @@
+package com.thinkaurelius.titan.graphdb.vertices.relationcache;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Allocates regions of direct (off-heap) memory for the {@link PackedRelationCache}s of a transaction.
+ * Small regions are carved out of larger chunks to avoid the overhead of allocating many small direct buffers, large
+ * regions are allocated individually. Regions which are no longer used are released to the arena and handed out again
+ * by subsequent allocations of the same size, hence callers should allocate regions of few distinct sizes.
+ * <p/>
+ * Direct memory is reclaimed by the garbage collector once neither the arena nor any region of a chunk is referenced
+ * anymore. Closing the arena releases its references to the current chunk and all released regions, so that the
+ * memory is reclaimed once the vertices of the transaction are no longer referenced.
+ *
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+public class DirectMemoryArena {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1<<20;
+
+    private final int chunkSize;
+
+    private ByteBuffer current;
+    private final Map<Integer,List<ByteBuffer>> releasedRegions;
+    private long allocatedBytes;
+
+    public DirectMemoryArena() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public DirectMemoryArena(int chunkSize) {
+        Preconditions.checkArgument(chunkSize>0,"Invalid chunk size: %s",chunkSize);
+        this.chunkSize = chunkSize;
+        this.current = null;
+        this.releasedRegions = new HashMap<Integer,List<ByteBuffer>>();
+        this.allocatedBytes = 0;
+    }
+
+    /**
+     * Returns a direct buffer of the given size with position 0 and limit and capacity equal to the size
+     *
+     * @param size
+     * @return
+     */
+    public synchronized ByteBuffer allocate(int size) {
+        Preconditions.checkArgument(size>=0);
+        List<ByteBuffer> released = releasedRegions.get(size);
+        if (released!=null && !released.isEmpty()) {
+            ByteBuffer region = released.remove(released.size()-1);
+            region.clear();
+            return region;
+        }
+        if (size>chunkSize/4) {
+            allocatedBytes+=size;
+            return ByteBuffer.allocateDirect(size);
+        }
+        if (current==null || current.remaining()<size) {
+            current = ByteBuffer.allocateDirect(chunkSize);
+            allocatedBytes+=chunkSize;
+        }
+        ByteBuffer region = current.slice();
+        region.limit(size);
+        current.position(current.position()+size);
+        return region.slice();
+    }
+
+    /**
+     * Releases a region previously allocated from this arena so that it can be handed out again. The region must no
+     * longer be used by the caller.
+     *
+     * @param region
+     */
+    public synchronized void release(ByteBuffer region) {
+        Preconditions.checkArgument(region.isDirect());
+        List<ByteBuffer> released = releasedRegions.get(region.capacity());
+        if (released==null) {
+            released = new ArrayList<ByteBuffer>();
+            releasedRegions.put(region.capacity(),released);
+        }
+        released.add(region);
+    }
+
+    /**
+     * Returns the total number of bytes of direct memory allocated by this arena
+     *
+     * @return
+     */
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public synchronized void close() {
+        current = null;
+        releasedRegions.clear();
+    }
+
+}
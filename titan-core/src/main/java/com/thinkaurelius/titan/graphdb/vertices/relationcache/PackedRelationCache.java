@@ -0,0 +1,215 @@
+package com.thinkaurelius.titan.graphdb.vertices.relationcache;
+
+import com.google.common.base.Preconditions;
+import com.thinkaurelius.titan.diskstorage.StaticBuffer;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StaticBufferEntry;
+import com.thinkaurelius.titan.diskstorage.util.ByteBufferUtil;
+import com.thinkaurelius.titan.diskstorage.util.StaticArrayBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Holds the loaded relation entries of a vertex sorted by column in a single packed region of direct memory
+ * allocated from a {@link DirectMemoryArena}, rather than as individual entry objects on the heap.
+ * Each entry is stored as the length of its column, the column, the length of its value (or -1 if it has no value)
+ * and the value. The offsets of the entries are kept in an array to look up slices by binary search.
+ * <p/>
+ * Adding entries merges them into the region in place, starting from the back, so that entries which sort after all
+ * contained entries are simply appended. If the region is too small, it is replaced by one of at least twice its
+ * capacity and returned to the arena for reuse. Hence, a vertex which is queried incrementally uses direct memory
+ * proportional to the size of its entries.
+ * Retrieving a slice copies the entries onto the heap, hence the parsed representation cached on an {@link Entry}
+ * does not persist across retrievals.
+ *
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+public class PackedRelationCache {
+
+    private static final int[] NO_OFFSETS = new int[0];
+
+    static final int MIN_REGION_SIZE = 64;
+
+    private final DirectMemoryArena arena;
+
+    private ByteBuffer region;
+    private int usedBytes;
+    private int[] offsets;
+    private int count;
+
+    public PackedRelationCache(DirectMemoryArena arena) {
+        Preconditions.checkNotNull(arena);
+        this.arena = arena;
+        this.region = null;
+        this.usedBytes = 0;
+        this.offsets = NO_OFFSETS;
+        this.count = 0;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Returns all entries whose column is greater than or equal to the start and smaller than the end column
+     *
+     * @param start
+     * @param end
+     * @return
+     */
+    public synchronized List<Entry> getSlice(StaticBuffer start, StaticBuffer end) {
+        int from = lowerBound(start), to = lowerBound(end);
+        if (from>=to) return Collections.emptyList();
+        List<Entry> result = new ArrayList<Entry>(to-from);
+        for (int i=from;i<to;i++) result.add(read(offsets[i]));
+        return result;
+    }
+
+    /**
+     * Adds the given entries, replacing none of the entries already contained
+     *
+     * @param entries
+     */
+    public synchronized void addAll(List<Entry> entries) {
+        if (entries.isEmpty()) return;
+        if (!isSorted(entries)) {
+            entries = new ArrayList<Entry>(entries);
+            Collections.sort(entries);
+        }
+        //Skip duplicates within the added entries and entries already contained
+        List<Entry> added = new ArrayList<Entry>(entries.size());
+        int addedBytes = 0;
+        for (int j=0;j<entries.size();j++) {
+            Entry e = entries.get(j);
+            if (j>0 && entries.get(j-1).compareTo(e)==0) continue;
+            int pos = lowerBound(e.getColumn());
+            if (pos<count && compareColumn(offsets[pos],e.getColumn())==0) continue;
+            added.add(e);
+            addedBytes+=getSize(e);
+        }
+        if (added.isEmpty()) return;
+        ensureCapacity(usedBytes+addedBytes, count+added.size());
+
+        //Merge from the back so that contained entries are only moved towards the end of the region
+        int i=count-1, w=count+added.size()-1, end=usedBytes+addedBytes;
+        for (int j=added.size()-1;j>=0;j--) {
+            Entry e = added.get(j);
+            while (i>=0 && compareColumn(offsets[i],e.getColumn())>0) {
+                int size = getSize(offsets[i]);
+                end-=size;
+                move(offsets[i--],end,size);
+                offsets[w--]=end;
+            }
+            end-=getSize(e);
+            ByteBuffer out = region.duplicate();
+            out.position(end);
+            write(e,out);
+            offsets[w--]=end;
+        }
+        assert w==i && (i<0 || end==offsets[i]+getSize(offsets[i]));
+        usedBytes+=addedBytes;
+        count+=added.size();
+    }
+
+    /**
+     * Grows the region and offsets geometrically so that they can hold the given number of bytes and entries.
+     * The previous region is returned to the arena.
+     */
+    private void ensureCapacity(int bytes, int entries) {
+        if (region==null || region.capacity()<bytes) {
+            int capacity = Math.max(MIN_REGION_SIZE,region==null?0:region.capacity());
+            while (capacity<bytes) capacity = capacity<<1;
+            ByteBuffer grown = arena.allocate(capacity);
+            if (region!=null) {
+                ByteBuffer source = region.duplicate();
+                source.position(0).limit(usedBytes);
+                grown.put(source);
+                grown.clear();
+                arena.release(region);
+            }
+            region = grown;
+        }
+        if (offsets.length<entries) {
+            int[] grown = new int[Math.max(entries,offsets.length*2)];
+            System.arraycopy(offsets,0,grown,0,count);
+            offsets = grown;
+        }
+    }
+
+    private static boolean isSorted(List<Entry> entries) {
+        for (int i=1;i<entries.size();i++) {
+            if (entries.get(i-1).compareTo(entries.get(i))>0) return false;
+        }
+        return true;
+    }
+
+    private static int getSize(Entry e) {
+        StaticBuffer value = e.getValue();
+        return 8+e.getColumn().length()+(value==null?0:value.length());
+    }
+
+    private static void write(Entry e, ByteBuffer out) {
+        StaticBuffer column = e.getColumn();
+        out.putInt(column.length());
+        for (int k=0;k<column.length();k++) out.put(column.getByte(k));
+        StaticBuffer value = e.getValue();
+        if (value==null) out.putInt(-1);
+        else {
+            out.putInt(value.length());
+            for (int k=0;k<value.length();k++) out.put(value.getByte(k));
+        }
+    }
+
+    private int getSize(int offset) {
+        int columnLength = region.getInt(offset);
+        int valueLength = region.getInt(offset+4+columnLength);
+        return 8+columnLength+Math.max(0,valueLength);
+    }
+
+    /**
+     * Moves the given number of bytes towards the end of the region, the source and target may overlap
+     */
+    private void move(int from, int to, int length) {
+        assert to>=from;
+        if (to==from) return;
+        for (int k=length-1;k>=0;k--) region.put(to+k,region.get(from+k));
+    }
+
+    private Entry read(int offset) {
+        int columnLength = region.getInt(offset);
+        int valueLength = region.getInt(offset+4+columnLength);
+        byte[] data = new byte[columnLength+Math.max(0,valueLength)];
+        for (int k=0;k<columnLength;k++) data[k]=region.get(offset+4+k);
+        int valueOffset = offset+8+columnLength;
+        for (int k=0;k<valueLength;k++) data[columnLength+k]=region.get(valueOffset+k);
+        return StaticBufferEntry.of(new StaticArrayBuffer(data,0,columnLength),
+                valueLength<0?null:new StaticArrayBuffer(data,columnLength,data.length));
+    }
+
+    private int compareColumn(int offset, StaticBuffer column) {
+        int length = region.getInt(offset);
+        int common = Math.min(length,column.length());
+        for (int k=0;k<common;k++) {
+            int cmp = ByteBufferUtil.compare(region.get(offset+4+k),column.getByte(k));
+            if (cmp!=0) return cmp;
+        }
+        return length-column.length();
+    }
+
+    /**
+     * Returns the index of the first entry whose column is not smaller than the given column
+     */
+    private int lowerBound(StaticBuffer column) {
+        int low = 0, high = count;
+        while (low<high) {
+            int mid = (low+high)>>>1;
+            if (compareColumn(offsets[mid],column)<0) low=mid+1;
+            else high=mid;
+        }
+        return low;
+    }
+
+}
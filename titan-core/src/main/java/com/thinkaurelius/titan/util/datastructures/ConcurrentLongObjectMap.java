@@ -0,0 +1,166 @@
+package com.thinkaurelius.titan.util.datastructures;
+
+import com.carrotsearch.hppc.LongObjectOpenHashMap;
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thread-safe map from primitive long keys to objects.
+ * The keys are partitioned into a fixed number of segments which are each guarded by their own lock, so that threads
+ * accessing different segments do not contend. Within a segment, the entries are stored in a primitive hash map
+ * to avoid boxing the keys.
+ *
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+public class ConcurrentLongObjectMap<V> {
+
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private final Segment<V>[] segments;
+    private final int segmentShift;
+
+    public ConcurrentLongObjectMap() {
+        this(DEFAULT_CONCURRENCY_LEVEL, 4);
+    }
+
+    /**
+     *
+     * @param concurrencyLevel Expected number of threads concurrently modifying the map, which is rounded up to the
+     *                         next power of two to determine the number of segments
+     * @param initialSegmentCapacity Initial capacity of each segment
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLongObjectMap(int concurrencyLevel, int initialSegmentCapacity) {
+        Preconditions.checkArgument(concurrencyLevel>0 && concurrencyLevel<=(1<<16),"Invalid concurrency level: %s",concurrencyLevel);
+        Preconditions.checkArgument(initialSegmentCapacity>0);
+        int bits = 32-Integer.numberOfLeadingZeros(concurrencyLevel-1);
+        segments = new Segment[1<<bits];
+        segmentShift = 64-bits;
+        for (int i=0;i<segments.length;i++) segments[i]=new Segment<V>(initialSegmentCapacity);
+    }
+
+    /**
+     * The segment is selected by the high bits of the mixed key since the hash maps within the segments use
+     * the low bits.
+     */
+    private Segment<V> segmentFor(long key) {
+        if (segments.length==1) return segments[0];
+        long h = key * 0x9E3779B97F4A7C15L;
+        return segments[(int)((h ^ (h>>>32)) >>> segmentShift)];
+    }
+
+    public boolean containsKey(long key) {
+        Segment<V> s = segmentFor(key);
+        synchronized (s) {
+            return s.map.containsKey(key);
+        }
+    }
+
+    /**
+     * Returns the value for the given key or null if there is none
+     *
+     * @param key
+     * @return
+     */
+    public V get(long key) {
+        Segment<V> s = segmentFor(key);
+        synchronized (s) {
+            return s.map.get(key);
+        }
+    }
+
+    /**
+     * Associates the given value with the given key and returns the previous value or null if there was none
+     *
+     * @param key
+     * @param value
+     * @return
+     */
+    public V put(long key, V value) {
+        Preconditions.checkNotNull(value);
+        Segment<V> s = segmentFor(key);
+        synchronized (s) {
+            return s.map.put(key,value);
+        }
+    }
+
+    /**
+     * Associates the given value with the given key unless the key already has a value, in which case that value
+     * is returned. Otherwise, null is returned.
+     *
+     * @param key
+     * @param value
+     * @return
+     */
+    public V putIfAbsent(long key, V value) {
+        Preconditions.checkNotNull(value);
+        Segment<V> s = segmentFor(key);
+        synchronized (s) {
+            V existing = s.map.get(key);
+            if (existing!=null) return existing;
+            s.map.put(key,value);
+            return null;
+        }
+    }
+
+    /**
+     * Removes the value for the given key and returns it or null if there was none
+     *
+     * @param key
+     * @return
+     */
+    public V remove(long key) {
+        Segment<V> s = segmentFor(key);
+        synchronized (s) {
+            return s.map.remove(key);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<V> s : segments) {
+            synchronized (s) {
+                size+=s.map.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns a snapshot of all values in this map. Each segment is copied atomically, but concurrent modifications
+     * of other segments may or may not be reflected.
+     *
+     * @return
+     */
+    public List<V> values() {
+        List<V> values = new ArrayList<V>();
+        for (Segment<V> s : segments) {
+            synchronized (s) {
+                for (ObjectCursor<V> c : s.map.values()) values.add(c.value);
+            }
+        }
+        return values;
+    }
+
+    public void clear() {
+        for (Segment<V> s : segments) {
+            synchronized (s) {
+                s.map.clear();
+            }
+        }
+    }
+
+    private static class Segment<V> {
+
+        private final LongObjectOpenHashMap<V> map;
+
+        private Segment(int initialCapacity) {
+            map = new LongObjectOpenHashMap<V>(initialCapacity);
+        }
+
+    }
+
+}
@@ -90,6 +90,44 @@ public class HBaseKeyColumnValueStore implements KeyColumnValueStore {
         return getHelper(query.getKey(), getFilter(query));
     }
 
+    @Override
+    public List<List<Entry>> getSlice(List<StaticBuffer> keys, SliceQuery query, StoreTransaction txh) throws StorageException {
+        List<Get> requests = new ArrayList<Get>(keys.size());
+        for (StaticBuffer key : keys) {
+            requests.add(new Get(key.as(StaticBuffer.ARRAY_FACTORY)).addFamily(columnFamilyBytes).setFilter(getFilter(query)));
+        }
+
+        try {
+            HTableInterface table = null;
+            Result[] rs = null;
+
+            try {
+                table = pool.getTable(tableName);
+                rs = table.get(requests);
+            } finally {
+                IOUtils.closeQuietly(table);
+            }
+
+            List<List<Entry>> results = new ArrayList<List<Entry>>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                results.add(toEntries(rs == null ? null : rs[i]));
+            }
+            return results;
+        } catch (IOException e) {
+            throw new TemporaryStorageException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Each page is retrieved by a limited slice query which starts right after the last column of the previous page.
+     */
+    @Override
+    public RecordIterator<Entry> getSliceIterator(KeySliceQuery query, int pageSize, StoreTransaction txh) throws StorageException {
+        return new PagedSliceIterator(this, query, pageSize, txh);
+    }
+
     public static Filter getFilter(SliceQuery query) {
         byte[] colStartBytes = query.getSliceEnd().length()>0 ? query.getSliceStart().as(StaticBuffer.ARRAY_FACTORY) : null;
         byte[] colEndBytes = query.getSliceEnd().length()>0 ? query.getSliceEnd().as(StaticBuffer.ARRAY_FACTORY) : null;
@@ -110,8 +148,6 @@ public class HBaseKeyColumnValueStore implements KeyColumnValueStore {
 
         Get g = new Get(keyBytes).addFamily(columnFamilyBytes).setFilter(getFilter);
 
-        List<Entry> ret;
-
         try {
             HTableInterface table = null;
             Result r = null;
@@ -123,23 +159,27 @@ public class HBaseKeyColumnValueStore implements KeyColumnValueStore {
                 IOUtils.closeQuietly(table);
             }
 
-            if (r == null)
-                return Collections.emptyList();
+            return toEntries(r);
+        } catch (IOException e) {
+            throw new TemporaryStorageException(e);
+        }
+    }
 
-            ret = new ArrayList<Entry>(r.size());
+    private List<Entry> toEntries(Result r) {
+        if (r == null)
+            return Collections.emptyList();
 
-            Map<byte[], byte[]> fmap = r.getFamilyMap(columnFamilyBytes);
+        List<Entry> ret = new ArrayList<Entry>(r.size());
 
-            if (null != fmap) {
-                for (Map.Entry<byte[], byte[]> ent : fmap.entrySet()) {
-                    ret.add(StaticBufferEntry.of(new StaticArrayBuffer(ent.getKey()), new StaticArrayBuffer(ent.getValue())));
-                }
-            }
+        Map<byte[], byte[]> fmap = r.getFamilyMap(columnFamilyBytes);
 
-            return ret;
-        } catch (IOException e) {
-            throw new TemporaryStorageException(e);
+        if (null != fmap) {
+            for (Map.Entry<byte[], byte[]> ent : fmap.entrySet()) {
+                ret.add(StaticBufferEntry.of(new StaticArrayBuffer(ent.getKey()), new StaticArrayBuffer(ent.getValue())));
+            }
         }
+
+        return ret;
     }
 
     @Override
@@ -23,6 +23,7 @@ import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KCVSUtil;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeyColumnValueStore;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeyColumnValueStoreManager;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeySliceQuery;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.SliceQuery;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StaticBufferEntry;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StoreTransaction;
 import com.thinkaurelius.titan.diskstorage.util.RecordIterator;
@@ -329,6 +330,78 @@ public abstract class KeyColumnValueStoreTest {
         }
     }
 
+    @Test
+    public void multiKeySliceTest() throws StorageException {
+        String[][] values = generateValues();
+        log.debug("Loading values...");
+        loadValues(values);
+        Set<KeyColumn> deleted = deleteValues(7);
+        clopen();
+        int trails = 500;
+        for (int t = 0; t < trails; t++) {
+            int start = RandomGenerator.randomInt(0, numColumns);
+            int end = RandomGenerator.randomInt(start, numColumns);
+            int limit = RandomGenerator.randomInt(1, 30);
+            List<StaticBuffer> keys = new ArrayList<StaticBuffer>();
+            List<Integer> keyIds = new ArrayList<Integer>();
+            int numQueryKeys = RandomGenerator.randomInt(1, 20);
+            for (int k = 0; k < numQueryKeys; k++) {
+                //Include keys that do not exist
+                int key = RandomGenerator.randomInt(0, numKeys + 10);
+                keys.add(KeyValueStoreUtil.getBuffer(key));
+                keyIds.add(key);
+            }
+            List<List<Entry>> results = store.getSlice(keys, new SliceQuery(KeyValueStoreUtil.getBuffer(start), KeyValueStoreUtil.getBuffer(end), limit), tx);
+            Assert.assertEquals(keys.size(), results.size());
+            for (int k = 0; k < keys.size(); k++) {
+                int key = keyIds.get(k);
+                List<Entry> entries = results.get(k);
+                if (key >= numKeys) {
+                    Assert.assertTrue(entries.isEmpty());
+                } else {
+                    int pos = 0;
+                    for (int i = start; i < end && pos < limit; i++) {
+                        if (deleted.contains(new KeyColumn(key, i))) continue;
+                        Assert.assertEquals(i, KeyValueStoreUtil.getID(entries.get(pos).getColumn()));
+                        Assert.assertEquals(values[key][i], KeyValueStoreUtil.getString(entries.get(pos).getValue()));
+                        pos++;
+                    }
+                    Assert.assertEquals(pos, entries.size());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sliceIteratorTest() throws StorageException {
+        String[][] values = generateValues();
+        log.debug("Loading values...");
+        loadValues(values);
+        Set<KeyColumn> deleted = deleteValues(7);
+        clopen();
+        int trails = 500;
+        for (int t = 0; t < trails; t++) {
+            int key = RandomGenerator.randomInt(0, numKeys);
+            int start = RandomGenerator.randomInt(0, numColumns);
+            int end = RandomGenerator.randomInt(start, numColumns);
+            int pageSize = RandomGenerator.randomInt(1, 10);
+            KeySliceQuery query = t % 2 == 0 ?
+                    new KeySliceQuery(KeyValueStoreUtil.getBuffer(key), KeyValueStoreUtil.getBuffer(start), KeyValueStoreUtil.getBuffer(end)) :
+                    new KeySliceQuery(KeyValueStoreUtil.getBuffer(key), KeyValueStoreUtil.getBuffer(start), KeyValueStoreUtil.getBuffer(end), RandomGenerator.randomInt(1, 30));
+            RecordIterator<Entry> iterator = store.getSliceIterator(query, pageSize, tx);
+            int pos = 0;
+            for (int i = start; i < end && pos < query.getLimit(); i++) {
+                if (deleted.contains(new KeyColumn(key, i))) continue;
+                Assert.assertTrue(iterator.hasNext());
+                Entry entry = iterator.next();
+                Assert.assertEquals(i, KeyValueStoreUtil.getID(entry.getColumn()));
+                Assert.assertEquals(values[key][i], KeyValueStoreUtil.getString(entry.getValue()));
+                pos++;
+            }
+            Assert.assertFalse(iterator.hasNext());
+            iterator.close();
+        }
+    }
 
     @Test
     public void getNonExistentKeyReturnsNull() throws Exception {
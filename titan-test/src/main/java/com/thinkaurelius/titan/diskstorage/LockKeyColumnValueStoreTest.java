@@ -28,6 +28,7 @@ import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KCVSUtil;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeyColumnValueStore;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeyColumnValueStoreManager;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeySliceQuery;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StaticBufferEntry;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StoreFeatures;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StoreTransaction;
@@ -37,7 +38,9 @@ import com.thinkaurelius.titan.diskstorage.locking.consistentkey.ConsistentKeyLo
 import com.thinkaurelius.titan.diskstorage.locking.consistentkey.ConsistentKeyLockStore;
 import com.thinkaurelius.titan.diskstorage.locking.consistentkey.ConsistentKeyLockTransaction;
 import com.thinkaurelius.titan.diskstorage.locking.consistentkey.LocalLockMediators;
+import com.thinkaurelius.titan.diskstorage.locking.consistentkey.LockClaim;
 import com.thinkaurelius.titan.diskstorage.locking.transactional.TransactionalLockStore;
+import com.thinkaurelius.titan.diskstorage.util.ByteBufferUtil;
 import com.thinkaurelius.titan.graphdb.configuration.GraphDatabaseConfiguration;
 import com.thinkaurelius.titan.graphdb.database.idassigner.IDBlockSizer;
 
@@ -217,17 +220,17 @@ public abstract class LockKeyColumnValueStoreTest {
 
         Thread.sleep(50L);
 
+        // This should succeed since lock claims are written to the lock store on the first mutation
+        store[0].mutate(k, Arrays.<Entry>asList(new StaticBufferEntry(c1, v1)), NO_DELETIONS, tx[0][0]);
+
         try {
-            // This must fail since "host1" took the lock first
+            // This must fail since "host1" wrote its lock claim first
             store[1].mutate(k, Arrays.<Entry>asList(new StaticBufferEntry(c1, v2)), NO_DELETIONS, tx[1][0]);
             Assert.fail("Expected lock contention between remote transactions did not occur");
         } catch (StorageException e) {
             Assert.assertTrue(e instanceof LockingException);
         }
 
-        // This should succeed
-        store[0].mutate(k, Arrays.<Entry>asList(new StaticBufferEntry(c1, v1)), NO_DELETIONS, tx[0][0]);
-
         tx[0][0].commit();
         tx[0][0] = newTransaction(manager[0]);
         Assert.assertEquals(v1, KCVSUtil.get(store[0],k, c1, tx[0][0]));
@@ -243,6 +246,66 @@ public abstract class LockKeyColumnValueStoreTest {
         tx[0][0] = null;
     }
 
+    @Test
+    public void singleTransactionWithManyLocks() throws StorageException {
+        int numLocks = 50;
+        List<Entry> additions = new ArrayList<Entry>(numLocks);
+        for (int i = 0; i < numLocks; i++) {
+            StaticBuffer col = KeyValueStoreUtil.getBuffer(i);
+            store[0].acquireLock(k, col, null, tx[0][0]);
+            store[0].acquireLock(KeyValueStoreUtil.getBuffer("key" + i), c1, null, tx[0][0]);
+            additions.add(new StaticBufferEntry(col, v1));
+        }
+        store[0].mutate(k, additions, NO_DELETIONS, tx[0][0]);
+        tx[0][0].commit();
+
+        tx[0][0] = newTransaction(manager[0]);
+        for (int i = 0; i < numLocks; i++) {
+            Assert.assertEquals(v1, KCVSUtil.get(store[0], k, KeyValueStoreUtil.getBuffer(i), tx[0][0]));
+            //All locks have been released
+            store[0].acquireLock(k, KeyValueStoreUtil.getBuffer(i), v1, tx[0][0]);
+            store[0].acquireLock(KeyValueStoreUtil.getBuffer("key" + i), c1, null, tx[0][0]);
+        }
+        store[0].mutate(k, Arrays.<Entry>asList(new StaticBufferEntry(c2, v2)), NO_DELETIONS, tx[0][0]);
+    }
+
+    @Test
+    public void localOnlyLocksAreNotWritten() throws StorageException {
+        if (!(store[0] instanceof ConsistentKeyLockStore)) return;
+        Configuration sc = new BaseConfiguration();
+        sc.addProperty(ConsistentKeyLockStore.LOCAL_LOCK_MEDIATOR_PREFIX_KEY, "localonly");
+        sc.addProperty(GraphDatabaseConfiguration.INSTANCE_RID_SHORT_KEY, (short) 0);
+        sc.addProperty(GraphDatabaseConfiguration.LOCK_LOCAL_ONLY, true);
+        KeyColumnValueStore lockStore = manager[0].openDatabase(dbName + "_localonly_lock_");
+        ConsistentKeyLockStore localStore = new ConsistentKeyLockStore(((ConsistentKeyLockStore) store[0]).getDataStore(),
+                lockStore, new ConsistentKeyLockConfiguration(sc, "localonly"));
+
+        StoreTransaction tx1 = newTransaction(manager[0]), tx2 = newTransaction(manager[0]);
+        localStore.acquireLock(k, c1, null, tx1);
+        try {
+            localStore.acquireLock(k, c1, null, tx2);
+            Assert.fail("Lock contention exception not thrown");
+        } catch (StorageException e) {
+            Assert.assertTrue(e instanceof LockingException);
+        }
+        localStore.mutate(k, Arrays.<Entry>asList(new StaticBufferEntry(c1, v1)), NO_DELETIONS, tx1);
+        //No lock claim has been written
+        StaticBuffer lockKey = new LockClaim(localStore, k, c1, null).getLockKey();
+        StaticBuffer lower = ByteBufferUtil.zeroBuffer(16), upper = ByteBufferUtil.oneBuffer(16);
+        Assert.assertTrue(lockStore.getSlice(new KeySliceQuery(lockKey, lower, upper), tx1).isEmpty());
+        tx1.commit();
+
+        //The lock has been released and the expected value is verified
+        localStore.acquireLock(k, c1, null, tx2);
+        try {
+            localStore.mutate(k, Arrays.<Entry>asList(new StaticBufferEntry(c1, v2)), NO_DELETIONS, tx2);
+            Assert.fail("Expected value mismatch not detected");
+        } catch (StorageException e) {
+            Assert.assertTrue(e instanceof PermanentLockingException);
+        }
+        tx2.rollback();
+    }
+
     @Test
     public void twoLocalTransactionsWithIndependentLocks() throws StorageException {
         tryWrites(store[0], manager[0], tx[0][0], store[0], tx[0][1]);
@@ -8,6 +8,7 @@ import com.thinkaurelius.titan.diskstorage.keycolumnvalue.*;
 import com.thinkaurelius.titan.diskstorage.util.RecordIterator;
 import org.apache.commons.configuration.Configuration;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -35,6 +36,18 @@ public class InMemoryStorageAdapter implements KeyColumnValueStoreManager {
                 return ImmutableList.of();
             }
 
+            @Override
+            public List<List<Entry>> getSlice(List<StaticBuffer> keys, SliceQuery query, StoreTransaction txh) throws StorageException {
+                List<List<Entry>> results = new ArrayList<List<Entry>>(keys.size());
+                for (int i=0;i<keys.size();i++) results.add(ImmutableList.<Entry>of());
+                return results;
+            }
+
+            @Override
+            public RecordIterator<Entry> getSliceIterator(KeySliceQuery query, int pageSize, StoreTransaction txh) throws StorageException {
+                return new PagedSliceIterator(this, query, pageSize, txh);
+            }
+
             @Override
             public void mutate(StaticBuffer key, List<Entry> additions, List<StaticBuffer> deletions, StoreTransaction txh) throws StorageException {
                 //Do nothing
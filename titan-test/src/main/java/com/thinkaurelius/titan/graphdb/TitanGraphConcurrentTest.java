@@ -2,6 +2,7 @@ package com.thinkaurelius.titan.graphdb;
 
 import com.google.common.collect.Iterables;
 import com.thinkaurelius.titan.core.*;
+import com.thinkaurelius.titan.graphdb.configuration.GraphDatabaseConfiguration;
 import com.thinkaurelius.titan.testutil.RandomGenerator;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Vertex;
@@ -48,8 +49,13 @@ public abstract class TitanGraphConcurrentTest extends TitanGraphTestCommon {
         super.setUp();
 
         executor = Executors.newFixedThreadPool(THREAD_COUNT);
-        // Generate synthetic graph
+        generateGraph();
+    }
 
+    /**
+     * Generates the synthetic graph and starts a new transaction
+     */
+    private void generateGraph() {
         TitanLabel[] rels = new TitanLabel[REL_COUNT];
         for (int i = 0; i < rels.length; i++) {
             rels[i] = makeSimpleEdgeLabel("rel" + i);
@@ -146,6 +152,52 @@ public abstract class TitanGraphConcurrentTest extends TitanGraphTestCommon {
         stopLatch.await();
     }
 
+    /**
+     * Compares the throughput of the readers of {@link #concurrentReadsOnSingleTransaction()} on a fresh transaction
+     * as the number of threads sharing the transaction increases, between a lock-striped vertex cache and a vertex
+     * cache guarded by a single lock. Since the transaction starts out empty, this includes the contention on the
+     * vertex cache when the vertices are first loaded.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void concurrentReadThroughputOnSingleTransaction() throws Exception {
+        final int numTasks = 256;
+        int[] concurrencyLevels = {1, GraphDatabaseConfiguration.TX_CACHE_CONCURRENCY_DEFAULT};
+        int numRounds = 32 - Integer.numberOfLeadingZeros(THREAD_COUNT);
+        long[][] throughput = new long[concurrencyLevels.length][numRounds];
+        for (int c = 0; c < concurrencyLevels.length; c++) {
+            config.subset(GraphDatabaseConfiguration.CACHE_NAMESPACE).setProperty(GraphDatabaseConfiguration.TX_CACHE_CONCURRENCY_KEY, concurrencyLevels[c]);
+            //The graph has to be reopened for the setting to take effect
+            close();
+            super.setUp();
+            generateGraph();
+            for (int round = 0, numThreads = 1; round < numRounds; round++, numThreads *= 2) {
+                clopen();
+                TitanKey id = tx.getPropertyKey("uid");
+                ExecutorService readers = Executors.newFixedThreadPool(numThreads);
+                CountDownLatch startLatch = new CountDownLatch(numTasks);
+                CountDownLatch stopLatch = new CountDownLatch(numTasks);
+                long start = System.nanoTime();
+                for (int i = 0; i < numTasks; i++) {
+                    int nodeid = RandomGenerator.randomInt(0, NODE_COUNT);
+                    TitanLabel rel = tx.getEdgeLabel("rel" + RandomGenerator.randomInt(0, REL_COUNT));
+                    readers.execute(new SimpleReader(tx, startLatch, stopLatch, nodeid, rel, EDGE_COUNT * 2, id));
+                    startLatch.countDown();
+                }
+                stopLatch.await();
+                long time = System.nanoTime() - start;
+                readers.shutdown();
+                throughput[c][round] = numTasks * 1000000000L / Math.max(1, time);
+            }
+        }
+        for (int round = 0, numThreads = 1; round < numRounds; round++, numThreads *= 2) {
+            log.info("Read throughput with {} threads: {} tasks/s with a single lock, {} tasks/s with lock striping ({}x)",
+                    new Object[]{numThreads, throughput[0][round], throughput[1][round],
+                            String.format("%.2f", throughput[1][round] / (double) Math.max(1, throughput[0][round]))});
+        }
+    }
+
     /**
      * Tail many readers, as in {@link #concurrentReadsOnSingleTransaction()},
      * but also start some threads that add and remove relationships and
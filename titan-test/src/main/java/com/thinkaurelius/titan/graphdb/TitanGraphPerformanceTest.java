@@ -21,6 +21,8 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
 import java.text.NumberFormat;
 import java.util.LinkedHashMap;
 
@@ -116,6 +118,99 @@ public abstract class TitanGraphPerformanceTest extends TitanGraphTestCommon {
         System.out.println("Total time (ms): " + (System.currentTimeMillis()-start));
     }
 
+    /**
+     * Measures how the commit time of a transaction with 100k relations scales with the number of threads used
+     * to serialize the relations.
+     */
+    @Test
+    public void parallelSerialization() throws Exception {
+        int noNodes = 10000, noEdgesPerNode = 10;
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int threads = 0; threads <= maxThreads; threads = threads == 0 ? 1 : threads * 2) {
+            close();
+            config.subset(GraphDatabaseConfiguration.STORAGE_NAMESPACE).setProperty(GraphDatabaseConfiguration.SERIALIZATION_THREADS_KEY, threads);
+            open();
+            for (int trial = 0; trial < trials + jitPretrials; trial++) {
+                TitanKey weight = tx.getPropertyKey("weight");
+                TitanLabel knows = tx.getEdgeLabel("knows");
+                TitanVertex[] nodes = new TitanVertex[noNodes];
+                for (int i = 0; i < noNodes; i++) nodes[i] = tx.addVertex();
+                for (int i = 0; i < noNodes; i++) {
+                    for (int e = 1; e <= noEdgesPerNode; e++) {
+                        nodes[i].addEdge(knows, nodes[(i + e) % noNodes]).setProperty(weight, Math.random());
+                    }
+                }
+                long start = System.nanoTime();
+                tx.commit();
+                long commitMS = (System.nanoTime() - start) / 1000000;
+                if (trial >= jitPretrials)
+                    getMetric("Commit time of " + (noNodes * noEdgesPerNode) + " edges with " + threads + " serialization threads", "ms").addValue(commitMS);
+                newTx();
+            }
+        }
+        logMetrics();
+    }
+
+    /**
+     * Compares the retained heap and the garbage collection time of a transaction which traverses all edges of a graph
+     * with one million edges when the loaded relations are cached on the heap and off-heap.
+     */
+    @Test
+    public void offHeapRelationCache() throws Exception {
+        int noNodes = 100000, noEdgesPerNode = 10, batchSize = 10000;
+        makeSimpleEdgeLabel("knows");
+        TitanVertex[] nodes = new TitanVertex[noNodes];
+        for (int i = 0; i < noNodes; i++) nodes[i] = tx.addVertex();
+        newTx();
+        long[] ids = new long[noNodes];
+        for (int i = 0; i < noNodes; i++) ids[i] = nodes[i].getID();
+        nodes = null;
+        for (int i = 0; i < noNodes; i++) {
+            TitanVertex v = tx.getVertex(ids[i]);
+            for (int e = 1; e <= noEdgesPerNode; e++) v.addEdge("knows", tx.getVertex(ids[(i + e) % noNodes]));
+            if ((i + 1) % batchSize == 0) newTx();
+        }
+        tx.commit();
+        tx = null;
+
+        for (boolean offHeap : new boolean[]{false, true}) {
+            close();
+            config.subset(GraphDatabaseConfiguration.CACHE_NAMESPACE).setProperty(GraphDatabaseConfiguration.TX_CACHE_OFFHEAP_KEY, offHeap);
+            open();
+            for (int trial = 0; trial < trials + jitPretrials; trial++) {
+                newTx();
+                MemoryAssess memory = new MemoryAssess().start();
+                long gcStart = getGCTime();
+                long start = System.nanoTime();
+                long edges = 0;
+                for (int pass = 0; pass < 2; pass++) {
+                    for (long id : ids) {
+                        edges += Iterables.size(tx.getVertex(id).getEdges(Direction.BOTH, "knows"));
+                    }
+                }
+                long timeMS = (System.nanoTime() - start) / 1000000;
+                long gcMS = getGCTime() - gcStart;
+                long heap = memory.end();
+                assertEquals(4L * noNodes * noEdgesPerNode, edges);
+                if (trial >= jitPretrials) {
+                    String mode = offHeap ? "off-heap" : "on-heap";
+                    getMetric("Traversal time with " + mode + " relation cache", "ms").addValue(timeMS);
+                    getMetric("GC time during traversal with " + mode + " relation cache", "ms").addValue(gcMS);
+                    getMetric("Retained heap with " + mode + " relation cache", "MB").addValue(heap / (1024.0 * 1024.0));
+                }
+                tx.rollback();
+                tx = null;
+            }
+        }
+        logMetrics();
+    }
+
+    private static long getGCTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) time += Math.max(0, gc.getCollectionTime());
+        return time;
+    }
+
     @Test
     public void unlabeledEdgeInsertion() throws Exception {
         runEdgeInsertion(new UnlabeledEdgeInsertion());
@@ -6,9 +6,12 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.thinkaurelius.titan.core.*;
 import com.thinkaurelius.titan.graphdb.configuration.GraphDatabaseConfiguration;
+import com.thinkaurelius.titan.graphdb.database.BulkImporter;
 import com.thinkaurelius.titan.graphdb.internal.InternalType;
+import com.thinkaurelius.titan.graphdb.query.VertexLongList;
 import com.thinkaurelius.titan.graphdb.serializer.SpecialInt;
 import com.thinkaurelius.titan.graphdb.serializer.SpecialIntSerializer;
+import com.thinkaurelius.titan.graphdb.transaction.StandardTitanTx;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Query;
@@ -18,6 +21,8 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.StringReader;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -1246,4 +1251,508 @@ public abstract class TitanGraphTest extends TitanGraphTestCommon {
         assertEquals(1,     Iterators.size(i.iterator()));
     }
 
+
+    @Test
+    public void testTypeDefinitionCache() {
+        TitanKey weight = makeWeightPropertyKey("weight");
+        TitanLabel knows = makeSimpleEdgeLabel("knows");
+        long weightId = weight.getID(), knowsId = knows.getID();
+        //Types are only cached once they have been persisted
+        assertNull(graph.getTypeCache().getTypeId("weight"));
+        clopen();
+
+        assertEquals(Double.class, tx.getPropertyKey("weight").getDataType());
+        assertTrue(tx.getEdgeLabel("knows").isDirected());
+        assertEquals(weightId, graph.getTypeCache().getTypeId("weight").longValue());
+        assertEquals(knowsId, graph.getTypeCache().getTypeId("knows").longValue());
+        assertEquals("weight", graph.getTypeCache().getDefinition(weightId).getName());
+        newTx();
+
+        //New transactions resolve types through the graph-wide cache
+        assertTrue(tx.containsType("knows"));
+        weight = tx.getPropertyKey("weight");
+        assertEquals(weightId, weight.getID());
+        assertEquals(Double.class, weight.getDataType());
+
+        //Creating a type invalidates the cache on commit
+        makeSimpleEdgeLabel("likes");
+        newTx();
+        assertNull(graph.getTypeCache().getTypeId("weight"));
+        assertEquals(knowsId, tx.getEdgeLabel("knows").getID());
+        assertTrue(tx.containsType("likes"));
+    }
+
+    @Test
+    public void testMultiQuery() {
+        TitanKey name = makeStringPropertyKey("name");
+        TitanLabel knows = makeSimpleEdgeLabel("knows");
+        TitanLabel likes = makeSimpleEdgeLabel("likes");
+
+        int numV = 50;
+        TitanVertex[] vs = new TitanVertex[numV];
+        for (int i = 0; i < numV; i++) {
+            vs[i] = tx.addVertex();
+            vs[i].setProperty(name, "v" + i);
+        }
+        for (int i = 0; i < numV; i++) {
+            for (int j = 1; j <= i % 5; j++) tx.addEdge(vs[i], vs[(i + j) % numV], knows);
+            tx.addEdge(vs[i], vs[(i + 1) % numV], likes);
+        }
+        clopen();
+
+        name = tx.getPropertyKey("name");
+        knows = tx.getEdgeLabel("knows");
+        List<TitanVertex> frontier = new ArrayList<TitanVertex>();
+        for (int i = 0; i < numV; i++) frontier.add(tx.getVertex(vs[i].getID()));
+
+        Map<TitanVertex, Iterable<TitanEdge>> edges = tx.multiQuery(frontier).direction(OUT).types(knows).titanEdges();
+        assertEquals(numV, edges.size());
+        for (int i = 0; i < numV; i++) {
+            TitanVertex v = frontier.get(i);
+            assertEquals(i % 5, Iterables.size(edges.get(v)));
+            //Results are served from the relation cache and must agree with the single vertex query
+            assertEquals(v.query().direction(OUT).types(knows).count(), Iterables.size(edges.get(v)));
+        }
+
+        Map<TitanVertex, VertexList> neighbors = tx.multiQuery(frontier.toArray(new TitanVertex[numV])).direction(OUT).labels("likes").vertexIds();
+        for (int i = 0; i < numV; i++) {
+            VertexList vl = neighbors.get(frontier.get(i));
+            assertEquals(1, vl.size());
+            assertEquals(vs[(i + 1) % numV].getID(), vl.getID(0));
+        }
+
+        Map<TitanVertex, Iterable<TitanProperty>> props = tx.multiQuery(frontier).keys("name").properties();
+        for (int i = 0; i < numV; i++) {
+            assertEquals("v" + i, Iterables.getOnlyElement(props.get(frontier.get(i))).getValue());
+        }
+
+        //Mix in a new vertex and a removed edge
+        TitanVertex nv = tx.addVertex();
+        tx.addEdge(nv, frontier.get(0), knows);
+        Iterables.getFirst(frontier.get(4).getTitanEdges(OUT, knows), null).remove();
+        frontier.add(nv);
+        edges = tx.multiQuery(frontier).direction(OUT).types(knows).limit(2).titanEdges();
+        assertEquals(1, Iterables.size(edges.get(nv)));
+        assertEquals(2, Iterables.size(edges.get(frontier.get(3))));
+        assertEquals(2, Iterables.size(edges.get(frontier.get(4))));
+        assertEquals(0, Iterables.size(edges.get(frontier.get(5))));
+    }
+
+    @Test
+    public void testAdjacencyCache() {
+        config.subset(GraphDatabaseConfiguration.CACHE_NAMESPACE).setProperty(GraphDatabaseConfiguration.DB_CACHE_SIZE_KEY, 1024 * 1024);
+        close();
+        open();
+        assertNotNull(graph.getAdjacencyCache());
+
+        TitanLabel knows = makeSimpleEdgeLabel("knows");
+        TitanVertex v = tx.addVertex();
+        int numE = 20;
+        for (int i = 0; i < numE; i++) tx.addEdge(v, tx.addVertex(), knows);
+        long vid = v.getID();
+        newTx();
+
+        //First retrieval populates the cache
+        assertEquals(numE, Iterables.size(tx.getVertex(vid).getEdges(OUT, "knows")));
+        long misses = graph.getAdjacencyCache().getMisses();
+        assertTrue(graph.getAdjacencyCache().size() > 0);
+        newTx();
+        //Subsequent transactions are answered from the cache, including subsumed queries
+        assertEquals(numE, Iterables.size(tx.getVertex(vid).getEdges(OUT, "knows")));
+        assertEquals(5, Iterables.size(tx.getVertex(vid).query().direction(OUT).labels("knows").limit(5).edges()));
+        assertEquals(misses, graph.getAdjacencyCache().getMisses());
+
+        //Mutating the vertex invalidates its cached adjacency list on commit
+        v = tx.getVertex(vid);
+        tx.addEdge(v, tx.addVertex(), knows);
+        Iterables.getFirst(v.getTitanEdges(OUT, tx.getEdgeLabel("knows")), null).remove();
+        tx.addEdge(v, tx.addVertex(), knows);
+        newTx();
+        assertEquals(numE + 1, Iterables.size(tx.getVertex(vid).getEdges(OUT, "knows")));
+        assertTrue(graph.getAdjacencyCache().getMisses() > misses);
+    }
+
+    @Test
+    public void testStreamedAdjacencyList() {
+        config.subset(GraphDatabaseConfiguration.STORAGE_NAMESPACE).setProperty(GraphDatabaseConfiguration.SLICE_PAGE_SIZE_KEY, 10);
+        close();
+        open();
+        assertEquals(10, graph.getSlicePageSize());
+
+        TitanKey name = makeStringPropertyKey("name");
+        TitanLabel knows = makeSimpleEdgeLabel("knows");
+        TitanVertex v = tx.addVertex();
+        v.setProperty(name, "v");
+        TitanVertex small = tx.addVertex();
+        int numE = 95;
+        for (int i = 0; i < numE; i++) {
+            TitanVertex u = tx.addVertex();
+            u.setProperty(name, "u" + i);
+            tx.addEdge(v, u, knows);
+            if (i < 5) tx.addEdge(small, u, knows);
+        }
+        long vid = v.getID(), sid = small.getID();
+        newTx();
+
+        //Adjacency lists larger than a page are streamed on each iteration
+        v = tx.getVertex(vid);
+        assertEquals(numE, Iterables.size(v.getEdges(OUT, "knows")));
+        assertEquals(numE, Iterables.size(v.getEdges(OUT, "knows")));
+        assertEquals(numE, v.query().direction(OUT).labels("knows").count());
+        assertEquals(25, Iterables.size(v.query().direction(OUT).labels("knows").limit(25).edges()));
+        Set<Long> neighbors = new HashSet<Long>();
+        for (Vertex u : v.getVertices(OUT, "knows")) assertTrue(neighbors.add((Long) u.getId()));
+        assertEquals(numE, neighbors.size());
+        assertEquals(numE + 1, Iterables.size(tx.getVertex(vid).query().relations()));
+        assertEquals(5, Iterables.size(tx.getVertex(sid).getEdges(OUT, "knows")));
+        //Counting and collecting neighbor ids stream as well
+        newTx();
+        v = tx.getVertex(vid);
+        assertEquals(numE, v.query().direction(OUT).labels("knows").count());
+        assertEquals(numE, v.query().direction(OUT).labels("knows").vertexIds().size());
+        assertEquals(numE, Iterables.size(v.getEdges(OUT, "knows")));
+
+        //Deleted and added relations are accounted for in streamed adjacency lists
+        Iterables.getFirst(v.getTitanEdges(OUT, tx.getEdgeLabel("knows")), null).remove();
+        tx.addEdge(v, tx.addVertex(), knows);
+        tx.addEdge(v, tx.addVertex(), knows);
+        assertEquals(numE + 1, Iterables.size(v.getEdges(OUT, "knows")));
+        newTx();
+        assertEquals(numE + 1, Iterables.size(tx.getVertex(vid).getEdges(OUT, "knows")));
+    }
+
+    @Test
+    public void testAsyncReads() {
+        config.subset(GraphDatabaseConfiguration.STORAGE_NAMESPACE).setProperty(GraphDatabaseConfiguration.READ_THREADS_KEY, 4);
+        close();
+        open();
+        assertTrue(((StandardTitanTx) tx).getTxHandle().hasAsyncReads());
+
+        TitanKey name = makeStringPropertyKey("name");
+        TitanLabel knows = makeSimpleEdgeLabel("knows");
+        TitanLabel likes = makeSimpleEdgeLabel("likes");
+        TitanLabel hates = makeSimpleEdgeLabel("hates");
+        TitanVertex v = tx.addVertex();
+        v.setProperty(name, "v");
+        int numE = 20;
+        for (int i = 0; i < numE; i++) {
+            tx.addEdge(v, tx.addVertex(), knows);
+            tx.addEdge(v, tx.addVertex(), likes);
+            tx.addEdge(tx.addVertex(), v, hates);
+        }
+        long vid = v.getID();
+        newTx();
+
+        //The subqueries for the individual labels are retrieved concurrently
+        v = tx.getVertex(vid);
+        assertEquals(2 * numE, Iterables.size(v.getEdges(OUT, "knows", "likes")));
+        assertEquals(3 * numE, Iterables.size(v.getEdges(BOTH, "knows", "likes", "hates")));
+        assertEquals(numE, Iterables.size(v.getEdges(IN, "knows", "likes", "hates")));
+        assertEquals(5, Iterables.size(v.query().labels("knows", "likes").limit(5).edges()));
+        newTx();
+        assertEquals(3 * numE, tx.getVertex(vid).query().labels("knows", "likes", "hates").count());
+    }
+
+    @Test
+    public void testParallelSerialization() {
+        config.subset(GraphDatabaseConfiguration.STORAGE_NAMESPACE).setProperty(GraphDatabaseConfiguration.SERIALIZATION_THREADS_KEY, 4);
+        close();
+        open();
+
+        TitanKey uid = makeIntegerUIDPropertyKey("uid");
+        TitanKey weight = makeWeightPropertyKey("weight");
+        TitanKey name = makeUnindexedStringPropertyKey("name");
+        TitanLabel knows = makeKeyedEdgeLabel("knows", uid, weight);
+        int numV = 2000;
+        TitanVertex[] vs = new TitanVertex[numV];
+        for (int i = 0; i < numV; i++) {
+            vs[i] = tx.addVertex();
+            vs[i].addProperty(uid, i);
+            vs[i].addProperty(name, "v" + i);
+        }
+        //Enough vertices to be serialized in multiple partitions
+        for (int i = 0; i < numV; i++) {
+            TitanEdge e = vs[i].addEdge(knows, vs[(i + 1) % numV]);
+            e.setProperty(uid, i);
+            e.setProperty(weight, i * 0.5);
+        }
+        clopen();
+
+        for (int i = 0; i < numV; i += 2) {
+            TitanVertex v = tx.getVertex(uid, i);
+            Iterables.getOnlyElement(v.getTitanEdges(OUT, knows)).remove();
+            v.addEdge(knows, tx.getVertex(uid, (i + 2) % numV)).setProperty(uid, numV + i);
+        }
+        clopen();
+
+        for (int i = 0; i < numV; i++) {
+            TitanVertex v = tx.getVertex(uid, i);
+            assertEquals("v" + i, v.getProperty(name));
+            TitanEdge e = Iterables.getOnlyElement(v.getTitanEdges(OUT, knows));
+            if (i % 2 == 0) {
+                assertEquals(numV + i, e.getProperty(uid));
+                assertEquals((i + 2) % numV, e.getVertex(IN).getProperty(uid));
+            } else {
+                assertEquals(i, e.getProperty(uid));
+                assertEquals(i * 0.5, e.getProperty(weight));
+            }
+            assertEquals(i % 2 == 0 ? 2 : 0, Iterables.size(v.getTitanEdges(IN, knows)));
+        }
+    }
+
+    @Test
+    public void testBatchFlush() {
+        config.subset(GraphDatabaseConfiguration.STORAGE_NAMESPACE).setProperty(GraphDatabaseConfiguration.STORAGE_BATCH_KEY, true);
+        config.subset(GraphDatabaseConfiguration.STORAGE_NAMESPACE).setProperty(GraphDatabaseConfiguration.STORAGE_BATCH_FLUSH_KEY, 100);
+        close();
+        open();
+        assertTrue(((StandardTitanTx) tx).getConfiguration().hasBatchFlush());
+
+        TitanKey uid = makeIntegerUIDPropertyKey("uid");
+        TitanKey name = makeUnindexedStringPropertyKey("name");
+        TitanLabel knows = makeSimpleEdgeLabel("knows");
+        int numV = 1000;
+        TitanVertex first = tx.addVertex();
+        first.addProperty(uid, 0);
+        TitanVertex previous = first;
+        for (int i = 1; i < numV; i++) {
+            TitanVertex v = tx.addVertex();
+            v.addProperty(uid, i);
+            v.addProperty(name, "v" + i);
+            //Vertices remain usable after their relations have been flushed
+            tx.addEdge(previous, v, knows);
+            tx.addEdge(first, v, knows);
+            previous = v;
+        }
+        clopen();
+
+        first = tx.getVertex(uid, 0);
+        assertEquals(numV, Iterables.size(first.getEdges(OUT, "knows")));
+        for (int i = 1; i < numV; i++) {
+            TitanVertex v = tx.getVertex(uid, i);
+            assertEquals("v" + i, v.getProperty(name));
+            assertEquals(2, Iterables.size(v.getEdges(IN, "knows")));
+            assertEquals(i == numV - 1 ? 0 : 1, Iterables.size(v.getEdges(OUT, "knows")));
+        }
+    }
+
+    @Test
+    public void testBatchFlushModifications() {
+        config.subset(GraphDatabaseConfiguration.STORAGE_NAMESPACE).setProperty(GraphDatabaseConfiguration.STORAGE_BATCH_KEY, true);
+        config.subset(GraphDatabaseConfiguration.STORAGE_NAMESPACE).setProperty(GraphDatabaseConfiguration.STORAGE_BATCH_FLUSH_KEY, 10);
+        close();
+        open();
+
+        TitanKey uid = makeIntegerUIDPropertyKey("uid");
+        TitanKey name = makeUnindexedStringPropertyKey("name");
+        TitanKey since = makeUnindexedStringPropertyKey("since");
+        TitanLabel knows = makeSimpleEdgeLabel("knows");
+        int numV = 100, offset = 20;
+        TitanVertex first = tx.addVertex();
+        first.addProperty(uid, 0);
+        TitanVertex[] vertices = new TitanVertex[numV];
+        TitanEdge[] edges = new TitanEdge[numV];
+        for (int i = 1; i < numV; i++) {
+            vertices[i] = tx.addVertex();
+            vertices[i].addProperty(uid, i);
+            vertices[i].addProperty(name, "v" + i);
+            //Properties set on a new edge must not be lost to a flush triggered by the edge
+            edges[i] = tx.addEdge(first, vertices[i], knows);
+            edges[i].setProperty(since, "s" + i);
+            //Removals of relations which have already been flushed must be persisted
+            if (i > offset && i % 3 == 0) {
+                edges[i - offset].remove();
+                vertices[i - offset].removeProperty(name);
+            }
+        }
+        try {
+            edges[numV - offset].setProperty(since, "modified");
+            fail();
+        } catch (UnsupportedOperationException e) {
+        }
+        clopen();
+
+        int numEdges = 0;
+        for (int i = 1; i < numV; i++) {
+            TitanVertex v = tx.getVertex(uid, i);
+            boolean removed = i + offset < numV && (i + offset) % 3 == 0;
+            assertEquals(removed ? null : "v" + i, v.getProperty(name));
+            Iterable<TitanEdge> inEdges = v.getTitanEdges(IN, knows);
+            assertEquals(removed ? 0 : 1, Iterables.size(inEdges));
+            if (!removed) {
+                assertEquals("s" + i, Iterables.getOnlyElement(inEdges).getProperty(since));
+                numEdges++;
+            }
+        }
+        assertEquals(numEdges, Iterables.size(tx.getVertex(uid, 0).getEdges(OUT, "knows")));
+    }
+
+    @Test
+    public void testBoundedVertexCache() {
+        config.subset(GraphDatabaseConfiguration.CACHE_NAMESPACE).setProperty(GraphDatabaseConfiguration.TX_CACHE_SIZE_KEY, 10);
+        close();
+        open();
+        assertTrue(((StandardTitanTx) tx).getConfiguration().hasBoundedVertexCache());
+
+        TitanKey uid = makeIntegerUIDPropertyKey("uid");
+        TitanKey name = makeUnindexedStringPropertyKey("name");
+        TitanLabel next = makeSimpleEdgeLabel("next");
+        int numV = 100;
+        TitanVertex previous = null;
+        for (int i = 0; i < numV; i++) {
+            TitanVertex v = tx.addVertex();
+            v.addProperty(uid, i);
+            if (previous != null) tx.addEdge(previous, v, next);
+            previous = v;
+        }
+        //New vertices are never evicted
+        assertEquals(numV, Iterables.size(tx.getVertices()));
+        clopen();
+
+        TitanVertex first = tx.getVertex(uid, 0);
+        long firstId = first.getID();
+        TitanVertex v = first;
+        for (int i = 1; i < numV; i++) {
+            v = (TitanVertex) Iterables.getOnlyElement(v.getVertices(OUT, "next"));
+            //Modified vertices are retained
+            if (i % 10 == 0) v.setProperty(name, "v" + i);
+        }
+        //The first vertex has been evicted, but since it is still referenced the same instance is returned
+        TitanVertex reloaded = tx.getVertex(firstId);
+        assertTrue(first == reloaded);
+        first.setProperty(name, "v0");
+        assertEquals("v0", reloaded.getProperty(name));
+        assertEquals("v0", tx.getVertex(uid, 0).getProperty(name));
+        for (int i = 1; i < numV; i++) {
+            v = tx.getVertex(uid, i);
+            assertEquals(i % 10 == 0 ? "v" + i : null, v.getProperty(name));
+        }
+        clopen();
+        for (int i = 0; i < numV; i++) {
+            assertEquals(i % 10 == 0 ? "v" + i : null, tx.getVertex(uid, i).getProperty(name));
+        }
+    }
+
+    @Test
+    public void testBulkImport() throws Exception {
+        tx.makeType().name("uid").dataType(Long.class).unique(Direction.OUT).unique(Direction.IN)
+                .indexed(Vertex.class).makePropertyKey();
+        tx.commit();
+        tx = null;
+
+        int numV = 500;
+        StringBuilder input = new StringBuilder("# ring with chords\n");
+        for (int i = 0; i < numV; i++) {
+            input.append(i).append(' ').append((i + 1) % numV);
+            if (i % 10 == 0) input.append(',').append((i + 7) % numV);
+            input.append('\n');
+        }
+        input.append("3\t3\n");
+        //A small buffer forces the import to be sorted through several runs on disk
+        BulkImporter importer = new BulkImporter(graph, "connect", "uid", 100, null);
+        assertEquals(numV + numV / 10 + 1, importer.importEdgeList(new BufferedReader(new StringReader(input.toString()))));
+        assertEquals(numV, importer.getNumVertices());
+        importer.commit();
+
+        newTx();
+        for (int i = 0; i < numV; i++) {
+            TitanVertex v = tx.getVertex("uid", Long.valueOf(i));
+            assertNotNull(v);
+            int out = 1 + (i % 10 == 0 ? 1 : 0) + (i == 3 ? 1 : 0);
+            assertEquals(out, Iterables.size(v.getEdges(OUT, "connect")));
+            Vertex next = v.getEdges(OUT, "connect").iterator().next().getVertex(IN);
+            assertTrue(Long.valueOf((i + 1) % numV).equals(next.getProperty("uid")) || i % 10 == 0 || i == 3);
+        }
+        assertEquals(numV, Iterables.size(tx.getVertices()));
+    }
+
+    @Test
+    public void testPushedDownCount() {
+        TitanKey weight = makeWeightPropertyKey("weight");
+        TitanKey name = makeStringPropertyKey("name");
+        TitanLabel knows = makeSimpleEdgeLabel("knows");
+        TitanLabel likes = makeSimpleEdgeLabel("likes");
+        TitanVertex v = tx.addVertex();
+        v.setProperty(name, "v");
+        int numE = 30;
+        for (int i = 0; i < numE; i++) {
+            TitanEdge e = tx.addEdge(v, tx.addVertex(), knows);
+            e.setProperty(weight, i * 1.0);
+            tx.addEdge(tx.addVertex(), v, likes);
+        }
+        tx.addEdge(v, v, likes);
+        long vid = v.getID();
+        clopen();
+
+        v = tx.getVertex(vid);
+        knows = tx.getEdgeLabel("knows");
+        assertEquals(numE, v.query().direction(OUT).labels("knows").count());
+        assertEquals(numE + 2, v.query().direction(BOTH).labels("likes").count());
+        assertEquals(numE + 1, v.query().direction(IN).labels("likes").count());
+        assertEquals(2 * numE + 2, v.query().count());
+        assertEquals(1, v.query().propertyCount());
+        //Limited and unfitted queries fall back to iterating the result
+        assertEquals(5, v.query().labels("knows").limit(5).count());
+        assertEquals(10, v.query().labels("knows").interval("weight", 0.0, 10.0).count());
+
+        //Counts reflect the modifications in the current transaction
+        Iterables.getFirst(v.getTitanEdges(OUT, knows), null).remove();
+        tx.addEdge(v, tx.addVertex(), knows);
+        tx.addEdge(v, tx.addVertex(), knows);
+        v.setProperty(name, "w");
+        for (Direction dir : new Direction[]{OUT, IN, BOTH}) {
+            assertEquals(Iterables.size(v.query().direction(dir).edges()), v.query().direction(dir).count());
+            assertEquals(Iterables.size(v.query().direction(dir).labels("knows").edges()), v.query().direction(dir).labels("knows").count());
+        }
+        assertEquals(numE + 1, v.query().direction(OUT).labels("knows").count());
+        assertEquals(1, v.query().propertyCount());
+        assertEquals(0, tx.addVertex().query().count());
+    }
+
+    private static Set<Long> getNeighborIds(TitanVertex v, Direction dir, String... labels) {
+        Set<Long> ids = new HashSet<Long>();
+        for (TitanEdge e : v.query().direction(dir).labels(labels).titanEdges()) ids.add(e.getOtherVertex(v).getID());
+        return ids;
+    }
+
+    private static Set<Long> getIds(VertexList vl) {
+        Set<Long> ids = new HashSet<Long>();
+        for (int i = 0; i < vl.size(); i++) ids.add(vl.getID(i));
+        return ids;
+    }
+
+    @Test
+    public void testVertexIds() {
+        TitanLabel knows = makeSimpleEdgeLabel("knows");
+        makeSimpleEdgeLabel("likes");
+        TitanVertex v = tx.addVertex();
+        int numE = 25;
+        for (int i = 0; i < numE; i++) {
+            tx.addEdge(v, tx.addVertex(), knows);
+            tx.addEdge(tx.addVertex(), v, "likes");
+        }
+        long vid = v.getID();
+        clopen();
+
+        v = tx.getVertex(vid);
+        VertexList vl = v.query().direction(OUT).labels("knows").vertexIds();
+        assertTrue(vl instanceof VertexLongList);
+        assertEquals(numE, vl.size());
+        assertEquals(getNeighborIds(v, OUT, "knows"), getIds(vl));
+        assertEquals(2 * numE, v.query().vertexIds().size());
+        assertEquals(getNeighborIds(v, IN, "likes"), getIds(v.query().direction(IN).vertexIds()));
+        for (int i = 0; i < vl.size(); i++) assertEquals(vl.getID(i), vl.get(i).getID());
+
+        //Ids reflect the modifications in the current transaction
+        knows = tx.getEdgeLabel("knows");
+        Iterables.getFirst(v.getTitanEdges(OUT, knows), null).remove();
+        TitanVertex n = tx.addVertex();
+        tx.addEdge(v, n, knows);
+        vl = v.query().direction(OUT).labels("knows").vertexIds();
+        assertEquals(numE, vl.size());
+        assertTrue(getIds(vl).contains(n.getID()));
+        assertEquals(getNeighborIds(v, OUT, "knows"), getIds(vl));
+        assertEquals(3, v.query().labels("knows").limit(3).vertexIds().size());
+    }
+
 }
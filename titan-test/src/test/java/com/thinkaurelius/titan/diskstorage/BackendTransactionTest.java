@@ -0,0 +1,268 @@
+package com.thinkaurelius.titan.diskstorage;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.thinkaurelius.titan.diskstorage.common.AbstractStoreTransaction;
+import com.thinkaurelius.titan.diskstorage.indexing.IndexMutation;
+import com.thinkaurelius.titan.diskstorage.indexing.IndexProvider;
+import com.thinkaurelius.titan.diskstorage.indexing.IndexQuery;
+import com.thinkaurelius.titan.diskstorage.indexing.IndexTransaction;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.ConsistencyLevel;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeySliceQuery;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StaticBufferEntry;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StoreTransaction;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.inmemory.InMemoryKeyColumnValueStore;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.inmemory.InMemoryStoreManager;
+import com.thinkaurelius.titan.diskstorage.util.RecordIterator;
+import com.thinkaurelius.titan.graphdb.query.keycondition.Relation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class BackendTransactionTest {
+
+    private InMemoryStoreManager manager;
+    private KeyColumnValueStore store;
+    private ExecutorService commitExecutor;
+
+    @Before
+    public void setUp() throws StorageException {
+        manager = new InMemoryStoreManager();
+        store = manager.openDatabase("edgestore");
+        commitExecutor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() throws StorageException {
+        commitExecutor.shutdownNow();
+        manager.close();
+    }
+
+    private BackendTransaction getTransaction(StoreTransaction storeTx, Map<String,IndexProvider> indexes, long timeout) throws StorageException {
+        ImmutableMap.Builder<String,IndexTransaction> indexTx = ImmutableMap.builder();
+        for (Map.Entry<String,IndexProvider> entry : indexes.entrySet())
+            indexTx.put(entry.getKey(),new IndexTransaction(entry.getValue()));
+        return new BackendTransaction(storeTx, store, store, store, 1, 0, indexTx.build(), null, commitExecutor, timeout);
+    }
+
+    @Test
+    public void testConcurrentIndexCommit() throws StorageException {
+        //Both index commits have to run at the same time to get past the latch
+        CountDownLatch latch = new CountDownLatch(2);
+        AtomicInteger commits = new AtomicInteger(0);
+        BackendTransaction tx = getTransaction(manager.beginTransaction(ConsistencyLevel.DEFAULT),
+                ImmutableMap.<String,IndexProvider>of("index1",new TestIndex(latch,commits,false),
+                        "index2",new TestIndex(latch,commits,false)), 10000);
+        tx.commit();
+        assertEquals(2, commits.get());
+    }
+
+    @Test
+    public void testIndexCommitFailure() throws StorageException {
+        AtomicInteger commits = new AtomicInteger(0);
+        BackendTransaction tx = getTransaction(manager.beginTransaction(ConsistencyLevel.DEFAULT),
+                ImmutableMap.<String,IndexProvider>of("index1",new TestIndex(null,commits,true),
+                        "index2",new TestIndex(null,commits,false)), 10000);
+        try {
+            tx.commit();
+            fail();
+        } catch (PermanentStorageException e) {
+        }
+        //The successful index commit is not affected by the failed one
+        assertEquals(1, commits.get());
+    }
+
+    @Test
+    public void testIndexCommitTimeout() throws Exception {
+        AtomicInteger commits = new AtomicInteger(0);
+        TestIndex index = new TestIndex(new CountDownLatch(2),commits,false);
+        BackendTransaction tx = getTransaction(manager.beginTransaction(ConsistencyLevel.DEFAULT),
+                ImmutableMap.<String,IndexProvider>of("index1",index), 100);
+        try {
+            tx.commit();
+            fail();
+        } catch (TemporaryStorageException e) {
+        }
+        assertEquals(0, commits.get());
+        //The timed out commit is cancelled rather than left running
+        assertTrue(index.interrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStoreCommitFailure() throws StorageException {
+        AtomicInteger commits = new AtomicInteger(0);
+        StoreTransaction failingTx = new AbstractStoreTransaction(ConsistencyLevel.DEFAULT) {
+            @Override
+            public void commit() throws StorageException {
+                throw new PermanentStorageException("Failed commit");
+            }
+        };
+        BackendTransaction tx = getTransaction(failingTx,
+                ImmutableMap.<String,IndexProvider>of("index1",new TestIndex(null,commits,false),
+                        "index2",new TestIndex(null,commits,false)), 10000);
+        try {
+            tx.commit();
+            fail();
+        } catch (PermanentStorageException e) {
+        }
+        //Indexes are not committed if the storage transaction fails to commit
+        assertEquals(0, commits.get());
+    }
+
+    @Test
+    public void testSliceIteratorRetriesEachPage() throws StorageException {
+        final AtomicInteger reads = new AtomicInteger(0);
+        //Every other read of a page fails temporarily
+        KeyColumnValueStore flakyStore = new InMemoryKeyColumnValueStore("flaky") {
+            @Override
+            public List<Entry> getSlice(KeySliceQuery query, StoreTransaction txh) throws StorageException {
+                if (reads.incrementAndGet() % 2 == 1) throw new TemporaryStorageException("Flaky read");
+                return super.getSlice(query, txh);
+            }
+        };
+        StoreTransaction storeTx = manager.beginTransaction(ConsistencyLevel.DEFAULT);
+        StaticBuffer key = KeyValueStoreUtil.getBuffer(1);
+        int numEntries = 10;
+        ImmutableList.Builder<Entry> entries = ImmutableList.builder();
+        for (int i = 0; i < numEntries; i++)
+            entries.add(new StaticBufferEntry(KeyValueStoreUtil.getBuffer(i), KeyValueStoreUtil.getBuffer(i)));
+        flakyStore.mutate(key, entries.build(), KeyColumnValueStore.NO_DELETIONS, storeTx);
+
+        BackendTransaction tx = new BackendTransaction(storeTx, flakyStore, store, store, 3, 0,
+                ImmutableMap.<String,IndexTransaction>of());
+        RecordIterator<Entry> iter = tx.edgeStoreSliceIterator(new KeySliceQuery(key, KeyValueStoreUtil.getBuffer(0),
+                KeyValueStoreUtil.getBuffer(numEntries)), 2);
+        int count = 0;
+        while (iter.hasNext()) {
+            assertEquals(KeyValueStoreUtil.getBuffer(count), iter.next().getColumn());
+            count++;
+        }
+        iter.close();
+        assertEquals(numEntries, count);
+        //Each of the six pages, including the last empty one, failed once before it was read
+        assertEquals(12, reads.get());
+    }
+
+    @Test
+    public void testMutationBufferSize() throws StorageException {
+        final AtomicInteger mutations = new AtomicInteger(0);
+        KeyColumnValueStore countingStore = new InMemoryKeyColumnValueStore("counting") {
+            @Override
+            public void mutate(StaticBuffer key, List<Entry> additions, List<StaticBuffer> deletions, StoreTransaction txh) throws StorageException {
+                mutations.incrementAndGet();
+                super.mutate(key, additions, deletions, txh);
+            }
+        };
+        StoreTransaction storeTx = manager.beginTransaction(ConsistencyLevel.DEFAULT);
+        BackendTransaction tx = new BackendTransaction(storeTx, countingStore, store, store, 1, 0,
+                ImmutableMap.<String,IndexTransaction>of(), null, null, 0, 10);
+        //Mutations of the same key within a buffer are written once
+        StaticBuffer hotKey = KeyValueStoreUtil.getBuffer(0);
+        for (int i = 0; i < 10; i++) {
+            tx.mutateEdges(hotKey, ImmutableList.<Entry>of(new StaticBufferEntry(KeyValueStoreUtil.getBuffer(i),
+                    KeyValueStoreUtil.getBuffer(i))), KeyColumnValueStore.NO_DELETIONS);
+        }
+        assertEquals(1, mutations.get());
+        //Accumulated mutations are written once they reach the buffer size rather than only when persisted
+        for (int i = 1; i <= 25; i++) {
+            tx.mutateEdges(KeyValueStoreUtil.getBuffer(i), ImmutableList.<Entry>of(new StaticBufferEntry(KeyValueStoreUtil.getBuffer(i),
+                    KeyValueStoreUtil.getBuffer(i))), KeyColumnValueStore.NO_DELETIONS);
+        }
+        assertEquals(21, mutations.get());
+        tx.persistMutations();
+        assertEquals(26, mutations.get());
+        assertEquals(10, countingStore.getSlice(new KeySliceQuery(hotKey, KeyValueStoreUtil.getBuffer(0),
+                KeyValueStoreUtil.getBuffer(10)), storeTx).size());
+    }
+
+    private static class TestIndex implements IndexProvider {
+
+        private final CountDownLatch latch;
+        private final AtomicInteger commits;
+        private final boolean fail;
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+
+        private TestIndex(CountDownLatch latch, AtomicInteger commits, boolean fail) {
+            this.latch = latch;
+            this.commits = commits;
+            this.fail = fail;
+        }
+
+        @Override
+        public void register(String store, String key, Class<?> dataType, TransactionHandle tx) throws StorageException {
+        }
+
+        @Override
+        public void mutate(Map<String, Map<String, IndexMutation>> mutations, TransactionHandle tx) throws StorageException {
+        }
+
+        @Override
+        public List<String> query(IndexQuery query, TransactionHandle tx) throws StorageException {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public TransactionHandle beginTransaction() throws StorageException {
+            return new TransactionHandle() {
+                @Override
+                public void commit() throws StorageException {
+                    if (latch!=null) {
+                        latch.countDown();
+                        try {
+                            latch.await();
+                        } catch (InterruptedException e) {
+                            interrupted.countDown();
+                            throw new TemporaryStorageException("Interrupted",e);
+                        }
+                    }
+                    if (fail) throw new PermanentStorageException("Failed commit");
+                    commits.incrementAndGet();
+                }
+
+                @Override
+                public void rollback() throws StorageException {
+                }
+
+                @Override
+                public void flush() throws StorageException {
+                }
+            };
+        }
+
+        @Override
+        public void close() throws StorageException {
+        }
+
+        @Override
+        public void clearStorage() throws StorageException {
+        }
+
+        @Override
+        public boolean supports(Class<?> dataType, Relation relation) {
+            return false;
+        }
+
+        @Override
+        public boolean supports(Class<?> dataType) {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.thinkaurelius.titan.diskstorage.idmanagement;
+
+import com.thinkaurelius.titan.diskstorage.IDAuthority;
+import com.thinkaurelius.titan.diskstorage.StorageException;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.inmemory.InMemoryStoreManager;
+import com.thinkaurelius.titan.graphdb.configuration.GraphDatabaseConfiguration;
+import com.thinkaurelius.titan.graphdb.database.idassigner.IDBlockSizer;
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class ConsistentKeyIDManagerTest {
+
+    private InMemoryStoreManager manager;
+    private IDAuthority[] idAuthorities;
+
+    @Before
+    public void setUp() throws StorageException {
+        manager = new InMemoryStoreManager();
+        idAuthorities = new IDAuthority[2];
+        for (int i = 0; i < idAuthorities.length; i++) {
+            Configuration config = new BaseConfiguration();
+            config.addProperty(GraphDatabaseConfiguration.INSTANCE_RID_SHORT_KEY, (short) i);
+            config.addProperty(GraphDatabaseConfiguration.IDAUTHORITY_RETRY_COUNT_KEY, 50);
+            config.addProperty(GraphDatabaseConfiguration.IDAUTHORITY_WAIT_MS_KEY, 20);
+            //Both authorities share the id store
+            idAuthorities[i] = new ConsistentKeyIDManager(manager.openDatabase("ids"), manager, config);
+        }
+    }
+
+    @After
+    public void tearDown() throws StorageException {
+        manager.close();
+    }
+
+    @Test
+    public void testContentionWithDifferentBlockSizes() throws Exception {
+        final int numBlocks = 30;
+        final int partition = 0;
+        final List<long[]> blocks = Collections.synchronizedList(new ArrayList<long[]>());
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[idAuthorities.length];
+        for (int i = 0; i < idAuthorities.length; i++) {
+            final IDAuthority idAuthority = idAuthorities[i];
+            final long blockSize = 100 + 70 * i;
+            idAuthority.setIDBlockSizer(new IDBlockSizer() {
+                @Override
+                public long getBlockSize(int partitionID) {
+                    return blockSize;
+                }
+            });
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < numBlocks; j++) {
+                            long[] block = idAuthority.getIDBlock(partition);
+                            assertEquals(blockSize, block[1] - block[0]);
+                            blocks.add(block);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) thread.join();
+        if (failure.get() != null) throw new AssertionError(failure.get());
+
+        assertEquals(numBlocks * idAuthorities.length, blocks.size());
+        Collections.sort(blocks, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] b1, long[] b2) {
+                return Long.valueOf(b1[0]).compareTo(b2[0]);
+            }
+        });
+        //Blocks of different sizes must not overlap
+        for (int i = 1; i < blocks.size(); i++) {
+            assertTrue(blocks.get(i - 1)[1] <= blocks.get(i)[0]);
+        }
+    }
+
+}
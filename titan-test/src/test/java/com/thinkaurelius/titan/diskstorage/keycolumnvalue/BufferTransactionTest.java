@@ -0,0 +1,147 @@
+package com.thinkaurelius.titan.diskstorage.keycolumnvalue;
+
+import com.thinkaurelius.titan.core.TitanException;
+import com.thinkaurelius.titan.diskstorage.KeyValueStoreUtil;
+import com.thinkaurelius.titan.diskstorage.PermanentStorageException;
+import com.thinkaurelius.titan.diskstorage.StaticBuffer;
+import com.thinkaurelius.titan.diskstorage.StorageException;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.inmemory.InMemoryStoreManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class BufferTransactionTest {
+
+    private static final String storeName = "buffered";
+    private static final int bufferSize = 10;
+
+    private ExecutorService flushExecutor;
+
+    @Before
+    public void setUp() {
+        flushExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        flushExecutor.shutdownNow();
+    }
+
+    private void write(BufferTransaction tx, int key, int numColumns) throws StorageException {
+        for (int c = 0; c < numColumns; c++) {
+            List<Entry> additions = new ArrayList<Entry>();
+            additions.add(new StaticBufferEntry(KeyValueStoreUtil.getBuffer(c), KeyValueStoreUtil.getBuffer(c)));
+            tx.mutate(storeName, KeyValueStoreUtil.getBuffer(key), additions, new ArrayList<StaticBuffer>());
+        }
+    }
+
+    @Test
+    public void testBackgroundFlush() throws StorageException {
+        final AtomicInteger flushes = new AtomicInteger(0);
+        KeyColumnValueStoreManager manager = new InMemoryStoreManager() {
+            @Override
+            public void mutateMany(Map<String, Map<StaticBuffer, KCVMutation>> mutations, StoreTransaction txh) throws StorageException {
+                flushes.incrementAndGet();
+                super.mutateMany(mutations, txh);
+            }
+        };
+        KeyColumnValueStore store = manager.openDatabase(storeName);
+        StoreTransaction base = manager.beginTransaction(ConsistencyLevel.DEFAULT);
+        BufferTransaction tx = new BufferTransaction(base, manager, bufferSize, 1, 0, 1, flushExecutor);
+
+        int numKeys = 10, numColumns = 25;
+        for (int k = 0; k < numKeys; k++) write(tx, k, numColumns);
+        tx.commit();
+        assertEquals(numKeys * numColumns / bufferSize, flushes.get());
+        for (int k = 0; k < numKeys; k++) {
+            KeySliceQuery query = new KeySliceQuery(KeyValueStoreUtil.getBuffer(k), KeyValueStoreUtil.getBuffer(0), KeyValueStoreUtil.getBuffer(numColumns));
+            assertEquals(numColumns, store.getSlice(query, base).size());
+        }
+        manager.close();
+    }
+
+    @Test
+    public void testBackgroundFlushFailure() throws StorageException {
+        KeyColumnValueStoreManager manager = new InMemoryStoreManager() {
+            @Override
+            public void mutateMany(Map<String, Map<StaticBuffer, KCVMutation>> mutations, StoreTransaction txh) throws StorageException {
+                throw new PermanentStorageException("Failed flush");
+            }
+        };
+        manager.openDatabase(storeName);
+        BufferTransaction tx = new BufferTransaction(manager.beginTransaction(ConsistencyLevel.DEFAULT), manager, bufferSize, 1, 0, 1, flushExecutor);
+
+        //Filling the buffer hands it to the background flusher without failing
+        write(tx, 1, bufferSize);
+        //The failure is reported on commit
+        try {
+            tx.commit();
+            fail();
+        } catch (TitanException e) {
+        } catch (StorageException e) {
+        }
+        manager.close();
+    }
+
+    @Test
+    public void testGroupCommit() throws Exception {
+        final AtomicInteger flushes = new AtomicInteger(0);
+        final KeyColumnValueStoreManager manager = new InMemoryStoreManager() {
+            @Override
+            public void mutateMany(Map<String, Map<StaticBuffer, KCVMutation>> mutations, StoreTransaction txh) throws StorageException {
+                flushes.incrementAndGet();
+                super.mutateMany(mutations, txh);
+            }
+        };
+        KeyColumnValueStore store = manager.openDatabase(storeName);
+        final GroupCommitCoordinator groupCommit = new GroupCommitCoordinator(manager, 200, 1000);
+
+        final int numTx = 8, numColumns = 5;
+        final CyclicBarrier barrier = new CyclicBarrier(numTx);
+        ExecutorService committers = Executors.newFixedThreadPool(numTx);
+        List<Future<?>> results = new ArrayList<Future<?>>();
+        for (int t = 0; t < numTx; t++) {
+            final int key = t;
+            results.add(committers.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    BufferTransaction tx = new BufferTransaction(manager.beginTransaction(ConsistencyLevel.DEFAULT),
+                            manager, bufferSize, 1, 0, 1, null, groupCommit);
+                    write(tx, key, numColumns);
+                    //The last two transactions write to the same key which must not be merged into one batch
+                    if (key == numTx - 1) write(tx, key - 1, numColumns + 1);
+                    barrier.await();
+                    tx.commit();
+                    return true;
+                }
+            }));
+        }
+        for (Future<?> result : results) result.get();
+        committers.shutdown();
+
+        assertTrue(flushes.get() > 1 && flushes.get() < numTx);
+        StoreTransaction txh = manager.beginTransaction(ConsistencyLevel.DEFAULT);
+        for (int k = 0; k < numTx; k++) {
+            KeySliceQuery query = new KeySliceQuery(KeyValueStoreUtil.getBuffer(k), KeyValueStoreUtil.getBuffer(0), KeyValueStoreUtil.getBuffer(numColumns + 1));
+            assertEquals(k == numTx - 2 ? numColumns + 1 : numColumns, store.getSlice(query, txh).size());
+        }
+        manager.close();
+    }
+
+}
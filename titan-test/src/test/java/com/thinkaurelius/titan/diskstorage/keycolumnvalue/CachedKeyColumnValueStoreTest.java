@@ -0,0 +1,122 @@
+package com.thinkaurelius.titan.diskstorage.keycolumnvalue;
+
+import com.thinkaurelius.titan.diskstorage.KeyValueStoreUtil;
+import com.thinkaurelius.titan.diskstorage.StaticBuffer;
+import com.thinkaurelius.titan.diskstorage.StorageException;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.inmemory.InMemoryStoreManager;
+import com.thinkaurelius.titan.graphdb.query.Query;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class CachedKeyColumnValueStoreTest {
+
+    private static final int numKeys = 10;
+    private static final int numColumns = 100;
+
+    private KeyColumnValueStoreManager manager;
+    private KeyColumnValueStore store;
+    private CachedKeyColumnValueStore cachedStore;
+    private StoreTransaction tx;
+
+    @Before
+    public void setUp() throws Exception {
+        manager = new InMemoryStoreManager();
+        store = manager.openDatabase("cached");
+        tx = manager.beginTransaction(ConsistencyLevel.DEFAULT);
+        for (int k = 0; k < numKeys; k++) {
+            List<Entry> entries = new ArrayList<Entry>();
+            for (int c = 0; c < numColumns; c++) {
+                entries.add(new StaticBufferEntry(KeyValueStoreUtil.getBuffer(c), KeyValueStoreUtil.getBuffer(k * numColumns + c)));
+            }
+            store.mutate(KeyValueStoreUtil.getBuffer(k), entries, KeyColumnValueStore.NO_DELETIONS, tx);
+        }
+        cachedStore = new CachedKeyColumnValueStore(store);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        tx.commit();
+        store.close();
+        manager.close();
+    }
+
+    private KeySliceQuery query(int key, int start, int end, int limit) {
+        return new KeySliceQuery(KeyValueStoreUtil.getBuffer(key), KeyValueStoreUtil.getBuffer(start),
+                KeyValueStoreUtil.getBuffer(end), limit, true);
+    }
+
+    private void checkSlice(KeySliceQuery query) throws StorageException {
+        List<Entry> expected = store.getSlice(query, tx);
+        List<Entry> result = cachedStore.getSlice(query, tx);
+        assertEquals(expected.size(), result.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getColumn(), result.get(i).getColumn());
+            assertEquals(expected.get(i).getValue(), result.get(i).getValue());
+        }
+    }
+
+    @Test
+    public void testSubsumedSlices() throws StorageException {
+        checkSlice(query(1, 0, numColumns, Query.NO_LIMIT));
+        assertEquals(0.0, cachedStore.getCacheHitRatio(), 0.0);
+
+        //Narrower and limited queries are answered from the cached full range
+        checkSlice(query(1, 10, 20, Query.NO_LIMIT));
+        checkSlice(query(1, 50, 51, Query.NO_LIMIT));
+        checkSlice(query(1, 0, numColumns, 5));
+        checkSlice(query(1, 30, 80, 7));
+        checkSlice(query(1, 90, numColumns, Query.NO_LIMIT));
+        assertEquals(5.0 / 6, cachedStore.getCacheHitRatio(), 0.0001);
+
+        //Ranges outside of the cached range are retrieved from the store
+        checkSlice(query(1, numColumns + 10, numColumns + 20, Query.NO_LIMIT));
+        checkSlice(query(2, 10, 20, Query.NO_LIMIT));
+        assertEquals(5.0 / 8, cachedStore.getCacheHitRatio(), 0.0001);
+    }
+
+    @Test
+    public void testTruncatedAndMergedSlices() throws StorageException {
+        //A truncated result only covers the range up to its last column
+        checkSlice(query(3, 0, numColumns, 10));
+        checkSlice(query(3, 2, 9, Query.NO_LIMIT));
+        checkSlice(query(3, 5, 9, 3));
+        assertEquals(2.0 / 3, cachedStore.getCacheHitRatio(), 0.0001);
+        checkSlice(query(3, 5, 11, Query.NO_LIMIT));
+        assertEquals(2.0 / 4, cachedStore.getCacheHitRatio(), 0.0001);
+
+        //Adjacent slices are merged such that queries spanning both are answered from cache
+        checkSlice(query(3, 11, 40, Query.NO_LIMIT));
+        checkSlice(query(3, 0, 40, Query.NO_LIMIT));
+        checkSlice(query(3, 8, 35, 20));
+        assertEquals(4.0 / 7, cachedStore.getCacheHitRatio(), 0.0001);
+    }
+
+    @Test
+    public void testMultiKeySlices() throws StorageException {
+        SliceQuery full = new SliceQuery(KeyValueStoreUtil.getBuffer(0), KeyValueStoreUtil.getBuffer(numColumns), true);
+        List<StaticBuffer> keys = Arrays.asList(KeyValueStoreUtil.getBuffer(4), KeyValueStoreUtil.getBuffer(5));
+        List<List<Entry>> results = cachedStore.getSlice(keys, full, tx);
+        assertEquals(numColumns, results.get(0).size());
+        assertEquals(numColumns, results.get(1).size());
+
+        SliceQuery narrow = new SliceQuery(KeyValueStoreUtil.getBuffer(20), KeyValueStoreUtil.getBuffer(30), 4, true);
+        results = cachedStore.getSlice(keys, narrow, tx);
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(4, results.get(i).size());
+            assertEquals(KeyValueStoreUtil.getBuffer(20), results.get(i).get(0).getColumn());
+        }
+        assertEquals(2.0 / 4, cachedStore.getCacheHitRatio(), 0.0001);
+    }
+
+}
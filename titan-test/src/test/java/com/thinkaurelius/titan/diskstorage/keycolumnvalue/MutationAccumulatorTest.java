@@ -0,0 +1,88 @@
+package com.thinkaurelius.titan.diskstorage.keycolumnvalue;
+
+import com.google.common.collect.ImmutableList;
+import com.thinkaurelius.titan.diskstorage.KeyValueStoreUtil;
+import com.thinkaurelius.titan.diskstorage.StaticBuffer;
+import com.thinkaurelius.titan.diskstorage.StorageException;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.inmemory.InMemoryKeyColumnValueStore;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.inmemory.InMemoryStoreManager;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class MutationAccumulatorTest {
+
+    private AtomicInteger mutations;
+    private KeyColumnValueStore store;
+    private StoreTransaction txh;
+
+    @Before
+    public void setUp() throws StorageException {
+        mutations = new AtomicInteger(0);
+        store = new InMemoryKeyColumnValueStore("store") {
+            @Override
+            public void mutate(StaticBuffer key, List<Entry> additions, List<StaticBuffer> deletions, StoreTransaction txh) throws StorageException {
+                mutations.incrementAndGet();
+                super.mutate(key, additions, deletions, txh);
+            }
+        };
+        txh = new InMemoryStoreManager().beginTransaction(ConsistencyLevel.DEFAULT);
+    }
+
+    private static Entry entry(int column, int value) {
+        return new StaticBufferEntry(KeyValueStoreUtil.getBuffer(column), KeyValueStoreUtil.getBuffer(value));
+    }
+
+    private List<Entry> getRow(int key) throws StorageException {
+        return store.getSlice(new KeySliceQuery(KeyValueStoreUtil.getBuffer(key), KeyValueStoreUtil.getBuffer(0),
+                KeyValueStoreUtil.getBuffer(Integer.MAX_VALUE)), txh);
+    }
+
+    @Test
+    public void testGroupByKey() throws StorageException {
+        MutationAccumulator acc = new MutationAccumulator();
+        int numKeys = 5, numColumns = 100;
+        for (int c = 0; c < numColumns; c++) {
+            for (int k = 0; k < numKeys; k++) {
+                acc.mutate(KeyValueStoreUtil.getBuffer(k), ImmutableList.of(entry(c, c)), KeyColumnValueStore.NO_DELETIONS);
+            }
+        }
+        assertEquals(numKeys, acc.getNumKeys());
+        acc.persist(store, txh);
+        assertTrue(acc.isEmpty());
+        assertEquals(numKeys, mutations.get());
+        for (int k = 0; k < numKeys; k++) assertEquals(numColumns, getRow(k).size());
+    }
+
+    @Test
+    public void testCancellation() throws StorageException {
+        StaticBuffer key = KeyValueStoreUtil.getBuffer(1);
+        store.mutate(key, ImmutableList.of(entry(1, 1), entry(2, 2)), KeyColumnValueStore.NO_DELETIONS, txh);
+
+        MutationAccumulator acc = new MutationAccumulator();
+        //Added and then deleted: the deletion remains since the column existed before
+        acc.mutate(key, ImmutableList.of(entry(1, 10)), null);
+        acc.mutate(key, null, ImmutableList.of(KeyValueStoreUtil.getBuffer(1)));
+        //Deleted and then added: only the addition remains
+        acc.mutate(key, KeyColumnValueStore.NO_ADDITIONS, ImmutableList.of(KeyValueStoreUtil.getBuffer(2)));
+        acc.mutate(key, ImmutableList.of(entry(2, 20)), KeyColumnValueStore.NO_DELETIONS);
+        //Added and deleted within a single mutation: deletions apply first
+        acc.mutate(key, ImmutableList.of(entry(3, 30)), ImmutableList.of(KeyValueStoreUtil.getBuffer(3)));
+        acc.persist(store, txh);
+
+        List<Entry> row = getRow(1);
+        assertEquals(2, row.size());
+        assertEquals(KeyValueStoreUtil.getBuffer(2), row.get(0).getColumn());
+        assertEquals(KeyValueStoreUtil.getBuffer(20), row.get(0).getValue());
+        assertEquals(KeyValueStoreUtil.getBuffer(3), row.get(1).getColumn());
+    }
+
+}
@@ -5,12 +5,18 @@ import com.thinkaurelius.titan.diskstorage.locking.consistentkey.ConsistentKeyLo
 import com.thinkaurelius.titan.diskstorage.locking.consistentkey.LocalLockMediator;
 import com.thinkaurelius.titan.diskstorage.util.KeyColumn;
 import com.thinkaurelius.titan.diskstorage.util.StaticByteBuffer;
+import com.thinkaurelius.titan.diskstorage.util.TimeUtility;
 
 import org.junit.Test;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -37,4 +43,67 @@ public class LocalLockMediatorTest {
         assertTrue(llm.lock(kc, mockTx1, Long.MAX_VALUE));
         assertFalse(llm.lock(kc, mockTx2, Long.MAX_VALUE));
     }
+
+    @Test
+    public void testLockHolder() {
+        LocalLockMediator llm = new LocalLockMediator(LOCK_NAMESPACE);
+        long now = TimeUtility.getApproxNSSinceEpoch(false);
+
+        assertTrue(llm.lock(kc, mockTx1, now + 1000000000L));
+        assertTrue(llm.isHeldBy(kc, mockTx1, now));
+        assertFalse(llm.isHeldBy(kc, mockTx2, now));
+        assertFalse(llm.isHeldBy(kc, mockTx1, now + 2000000000L));
+
+        assertFalse(llm.unlock(kc, mockTx2));
+        assertTrue(llm.unlock(kc, mockTx1));
+        assertFalse(llm.isHeldBy(kc, mockTx1, now));
+        assertFalse(llm.unlock(kc, mockTx1));
+        assertTrue(llm.lock(kc, mockTx2, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testConcurrentLocking() throws InterruptedException {
+        final LocalLockMediator llm = new LocalLockMediator(LOCK_NAMESPACE);
+        final int numThreads = 8, numKeys = 64, numOperations = 100000;
+        final KeyColumn[] kcs = new KeyColumn[numKeys];
+        for (int i = 0; i < numKeys; i++) {
+            kcs[i] = new KeyColumn(new StaticByteBuffer(ByteBuffer.wrap(new byte[]{(byte) i})), LOCK_COL);
+        }
+        final AtomicIntegerArray holders = new AtomicIntegerArray(numKeys);
+        final AtomicInteger violations = new AtomicInteger(0);
+        final AtomicInteger acquired = new AtomicInteger(0);
+        final AtomicInteger failedUnlocks = new AtomicInteger(0);
+        //Assertions would only terminate the worker thread, hence failures are collected and checked after join()
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            final int seed = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        ConsistentKeyLockTransaction tx = mock(ConsistentKeyLockTransaction.class);
+                        for (int i = 0; i < numOperations; i++) {
+                            int k = (i * 31 + seed * 7) % numKeys;
+                            if (llm.lock(kcs[k], tx, Long.MAX_VALUE)) {
+                                if (holders.incrementAndGet(k) != 1) violations.incrementAndGet();
+                                acquired.incrementAndGet();
+                                holders.decrementAndGet(k);
+                                if (!llm.unlock(kcs[k], tx)) failedUnlocks.incrementAndGet();
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+        }
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+        assertNull(failure.get());
+        assertEquals(0, violations.get());
+        assertEquals(0, failedUnlocks.get());
+        assertTrue(acquired.get() > 0);
+    }
 }
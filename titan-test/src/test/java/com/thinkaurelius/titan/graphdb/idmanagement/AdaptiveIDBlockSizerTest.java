@@ -0,0 +1,61 @@
+package com.thinkaurelius.titan.graphdb.idmanagement;
+
+import com.thinkaurelius.titan.graphdb.database.idassigner.AdaptiveIDBlockSizer;
+import com.thinkaurelius.titan.graphdb.database.idassigner.StaticIDBlockSizer;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class AdaptiveIDBlockSizerTest {
+
+    private long time = 0;
+
+    private final AdaptiveIDBlockSizer sizer = new AdaptiveIDBlockSizer(new StaticIDBlockSizer(1000), 1000) {
+        @Override
+        protected long getTime() {
+            return time;
+        }
+    };
+
+    /**
+     * Simulates a partition which consumes ids at the given rate and returns the size of the block requested at
+     * the next renewal
+     */
+    private long renew(int partition, long lastBlockSize, double idsPerMS) {
+        time += Math.max(1, Math.round(lastBlockSize / idsPerMS));
+        return sizer.getBlockSize(partition);
+    }
+
+    @Test
+    public void testConvergence() {
+        //Fast partition grows its blocks to renew about once per second
+        long size = sizer.getBlockSize(1);
+        assertEquals(1000, size);
+        for (int i = 0; i < 10; i++) size = renew(1, size, 50.0);
+        assertEquals(50000, size, 1000);
+
+        //Slow partition shrinks its blocks independently
+        long slowSize = sizer.getBlockSize(2);
+        assertEquals(1000, slowSize);
+        for (int i = 0; i < 10; i++) slowSize = renew(2, slowSize, 0.1);
+        assertEquals(100, slowSize, 5);
+    }
+
+    @Test
+    public void testBounds() {
+        long size = sizer.getBlockSize(1);
+        //Growth is limited per renewal
+        size = renew(1, size, 1000000.0);
+        assertEquals(1000 * AdaptiveIDBlockSizer.MAX_CHANGE_FACTOR, size);
+        //and overall
+        for (int i = 0; i < 10; i++) size = renew(1, size, 1000000.0);
+        assertEquals(1000 * AdaptiveIDBlockSizer.MAX_SIZE_FACTOR, size);
+        for (int i = 0; i < 10; i++) size = renew(1, size, 0.00001);
+        assertEquals(1000 / AdaptiveIDBlockSizer.MAX_SIZE_FACTOR, size);
+    }
+
+}
@@ -97,6 +97,35 @@ public class IDPoolTest {
         }
     }
 
+    @Test
+    public void testConcurrentIDAssignment() throws InterruptedException {
+        final MockIDAuthority idauth = new MockIDAuthority(10000);
+        final StandardIDPool pool = new StandardIDPool(idauth, 0, Integer.MAX_VALUE, 2000, 0.2);
+        final int numThreads = 8, idsPerThread = 500000;
+        final long[][] ids = new long[numThreads][idsPerThread];
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            final long[] threadIds = ids[i];
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < idsPerThread; j++) threadIds[j] = pool.nextID();
+                }
+            });
+        }
+        for (int i = 0; i < numThreads; i++) threads[i].start();
+        for (int i = 0; i < numThreads; i++) threads[i].join();
+        pool.close();
+
+        IntSet all = new IntHashSet(numThreads * idsPerThread);
+        for (int i = 0; i < numThreads; i++) {
+            for (int j = 0; j < idsPerThread; j++) {
+                assertTrue(ids[i][j] > 0 && ids[i][j] < Integer.MAX_VALUE);
+                assertTrue(all.add((int) ids[i][j]));
+            }
+        }
+    }
+
     @Test
     public void testAllocationTimeout() {
         final MockIDAuthority idauth = new MockIDAuthority(10000);
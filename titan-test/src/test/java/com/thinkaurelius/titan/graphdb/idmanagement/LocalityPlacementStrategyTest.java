@@ -0,0 +1,152 @@
+package com.thinkaurelius.titan.graphdb.idmanagement;
+
+import com.google.common.collect.ImmutableList;
+import com.thinkaurelius.titan.core.TitanFactory;
+import com.thinkaurelius.titan.core.TitanGraph;
+import com.thinkaurelius.titan.core.TitanVertex;
+import com.thinkaurelius.titan.diskstorage.inmemory.InMemoryStorageAdapter;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StoreFeatures;
+import com.thinkaurelius.titan.graphdb.configuration.GraphDatabaseConfiguration;
+import com.thinkaurelius.titan.graphdb.database.idassigner.VertexIDAssigner;
+import com.thinkaurelius.titan.graphdb.database.idassigner.placement.LocalityPlacementStrategy;
+import com.thinkaurelius.titan.graphdb.database.idassigner.placement.SimpleBulkPlacementStrategy;
+import com.thinkaurelius.titan.graphdb.internal.InternalRelation;
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class LocalityPlacementStrategyTest {
+
+    private static final int NUM_PARTITIONS = 10;
+
+    private VertexIDAssigner idAssigner;
+    private TitanGraph graph;
+
+    @Before
+    public void setUp() {
+        StoreFeatures features = new StoreFeatures();
+        features.supportsScan = false;
+        features.supportsBatchMutation = false;
+        features.supportsTransactions = false;
+        features.supportsConsistentKeyOperations = false;
+        features.supportsLocking = false;
+        features.isKeyOrdered = false;
+        features.isDistributed = false;
+        features.hasLocalKeyPartition = false;
+        Configuration config = new BaseConfiguration();
+        config.setProperty(GraphDatabaseConfiguration.IDS_PARTITION_KEY, true);
+        config.setProperty(GraphDatabaseConfiguration.IDS_PLACEMENT_KEY, "locality");
+        config.setProperty(LocalityPlacementStrategy.PARTITION_KEY_KEY, "region");
+        config.setProperty(SimpleBulkPlacementStrategy.CONCURRENT_PARTITIONS_KEY, NUM_PARTITIONS);
+        idAssigner = new VertexIDAssigner(config, new MockIDAuthority(500), features);
+
+        BaseConfiguration graphConfig = new BaseConfiguration();
+        graphConfig.subset(GraphDatabaseConfiguration.STORAGE_NAMESPACE).addProperty(GraphDatabaseConfiguration.STORAGE_BACKEND_KEY, InMemoryStorageAdapter.class.getCanonicalName());
+        graphConfig.subset(GraphDatabaseConfiguration.IDS_NAMESPACE).addProperty(GraphDatabaseConfiguration.IDS_FLUSH_KEY, false);
+        graph = TitanFactory.open(graphConfig);
+    }
+
+    @After
+    public void tearDown() {
+        //Ids were assigned outside of the graph, so the transaction cannot be committed
+        graph.rollback();
+        graph.shutdown();
+        idAssigner.close();
+    }
+
+    private long getPartition(TitanVertex vertex) {
+        assertTrue(vertex.getID() > 0);
+        return idAssigner.getIDManager().getPartitionID(vertex.getID());
+    }
+
+    private TitanVertex addPersistedVertex() {
+        TitanVertex vertex = (TitanVertex) graph.addVertex(null);
+        idAssigner.assignIDs(ImmutableList.of((InternalRelation) vertex.addProperty("age", 1)));
+        return vertex;
+    }
+
+    @Test
+    public void testNeighbourLocality() {
+        TitanVertex hub = addPersistedVertex();
+        long hubPartition = getPartition(hub);
+
+        for (int t = 0; t < 5; t++) {
+            List<InternalRelation> relations = new ArrayList<InternalRelation>();
+            TitanVertex[] chain = new TitanVertex[10];
+            for (int i = 0; i < chain.length; i++) {
+                chain[i] = (TitanVertex) graph.addVertex(null);
+                relations.add((InternalRelation) graph.addEdge(null, i == 0 ? hub : chain[i - 1], chain[i], "knows"));
+            }
+            idAssigner.assignIDs(relations);
+            for (TitanVertex v : chain) assertEquals(hubPartition, getPartition(v));
+        }
+    }
+
+    @Test
+    public void testPartitionKey() {
+        long partition = -1;
+        for (int t = 0; t < 5; t++) {
+            TitanVertex keyed = (TitanVertex) graph.addVertex(null);
+            TitanVertex connected = (TitanVertex) graph.addVertex(null);
+            idAssigner.assignIDs(ImmutableList.of((InternalRelation) keyed.addProperty("region", "eu"),
+                    (InternalRelation) graph.addEdge(null, connected, keyed, "knows")));
+            if (partition < 0) partition = getPartition(keyed);
+            assertEquals(partition, getPartition(keyed));
+            assertEquals(partition, getPartition(connected));
+        }
+    }
+
+    @Test
+    public void testBoundedKeyPartitions() {
+        Set<Long> partitions = new HashSet<Long>();
+        for (int t = 0; t < 20; t++) {
+            List<InternalRelation> relations = new ArrayList<InternalRelation>();
+            TitanVertex[] vertices = new TitanVertex[50];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = (TitanVertex) graph.addVertex(null);
+                relations.add((InternalRelation) vertices[i].addProperty("region", "r" + (t * vertices.length + i)));
+            }
+            idAssigner.assignIDs(relations);
+            for (TitanVertex v : vertices) partitions.add(getPartition(v));
+        }
+        //Distinct values share a bounded number of partitions and hence id pools
+        assertTrue(partitions.size() > 1);
+        assertTrue(partitions.size() <= NUM_PARTITIONS);
+    }
+
+    @Test
+    public void testImbalanceBound() {
+        TitanVertex hub = addPersistedVertex();
+        long hubPartition = getPartition(hub);
+
+        int maxLocal = (int) Math.ceil(LocalityPlacementStrategy.MAX_IMBALANCE_DEFAULT * LocalityPlacementStrategy.WINDOW_SIZE / NUM_PARTITIONS);
+        int numVertices = maxLocal + 1000, inHubPartition = 0;
+        for (int t = 0; t < numVertices / 100; t++) {
+            List<InternalRelation> relations = new ArrayList<InternalRelation>();
+            TitanVertex[] vertices = new TitanVertex[100];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = (TitanVertex) graph.addVertex(null);
+                relations.add((InternalRelation) graph.addEdge(null, hub, vertices[i], "knows"));
+            }
+            idAssigner.assignIDs(relations);
+            for (TitanVertex v : vertices) if (getPartition(v) == hubPartition) inHubPartition++;
+        }
+        //Once the bound is reached, vertices are placed randomly
+        assertTrue(inHubPartition >= maxLocal);
+        assertTrue(inHubPartition < numVertices);
+    }
+
+}
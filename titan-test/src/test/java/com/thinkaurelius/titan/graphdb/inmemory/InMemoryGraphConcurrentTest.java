@@ -0,0 +1,16 @@
+package com.thinkaurelius.titan.graphdb.inmemory;
+
+import com.thinkaurelius.titan.graphdb.TitanGraphConcurrentTest;
+
+public class InMemoryGraphConcurrentTest extends TitanGraphConcurrentTest {
+
+    public InMemoryGraphConcurrentTest() {
+        super(InMemoryGraphTest.getConfiguration());
+    }
+
+    @Override
+    public void clopen() {
+        newTx();
+    }
+
+}
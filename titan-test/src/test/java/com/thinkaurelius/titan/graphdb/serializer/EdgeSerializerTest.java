@@ -0,0 +1,135 @@
+package com.thinkaurelius.titan.graphdb.serializer;
+
+import com.thinkaurelius.titan.core.*;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
+import com.thinkaurelius.titan.graphdb.TitanGraphTestCommon;
+import com.thinkaurelius.titan.graphdb.database.EdgeSerializer;
+import com.thinkaurelius.titan.graphdb.database.RelationCursor;
+import com.thinkaurelius.titan.graphdb.inmemory.InMemoryGraphTest;
+import com.thinkaurelius.titan.graphdb.internal.InternalRelation;
+import com.thinkaurelius.titan.graphdb.transaction.StandardTitanTx;
+import com.thinkaurelius.titan.testutil.PerformanceTest;
+import com.thinkaurelius.titan.util.datastructures.ImmutableLongObjectMap;
+import com.tinkerpop.blueprints.Direction;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares decoding relation entries through {@link RelationCursor} against the property map based decoding.
+ *
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class EdgeSerializerTest extends TitanGraphTestCommon {
+
+    private static final Logger log = LoggerFactory.getLogger(EdgeSerializerTest.class);
+
+    private static final int numEdges = 2000;
+
+    public EdgeSerializerTest() {
+        super(InMemoryGraphTest.getConfiguration());
+    }
+
+    private List<Entry> writeEntries(TitanVertex v) {
+        StandardTitanTx stx = (StandardTitanTx)tx;
+        EdgeSerializer serializer = graph.getEdgeSerializer();
+        List<Entry> entries = new ArrayList<Entry>(numEdges+1);
+        for (TitanRelation r : v.query().direction(Direction.OUT).relations()) {
+            entries.add(serializer.writeRelation((InternalRelation)r,0,stx));
+        }
+        return entries;
+    }
+
+    private TitanVertex createVertex() {
+        TitanKey weight = makeWeightPropertyKey("weight");
+        TitanKey name = makeStringPropertyKey("name");
+        TitanLabel connect = makeSimpleEdgeLabel("connect");
+        TitanVertex v = tx.addVertex();
+        v.setProperty(name, "v");
+        for (int i = 0; i < numEdges; i++) {
+            TitanEdge e = tx.addEdge(v, tx.addVertex(), connect);
+            e.setProperty(weight, i * 0.5);
+        }
+        long vid = v.getID();
+        newTx();
+        return tx.getVertex(vid);
+    }
+
+    @Test
+    public void testReadHeader() {
+        TitanVertex v = createVertex();
+        StandardTitanTx stx = (StandardTitanTx)tx;
+        EdgeSerializer serializer = graph.getEdgeSerializer();
+        List<Entry> entries = writeEntries(v);
+        assertEquals(numEdges + 1, entries.size());
+
+        RelationCursor cursor = new RelationCursor(serializer);
+        TitanKey weight = tx.getPropertyKey("weight");
+        int pos = 0;
+        for (TitanRelation r : v.query().direction(Direction.OUT).relations()) {
+            Entry entry = entries.get(pos++);
+            serializer.readHeader(v.getID(), entry, cursor, stx);
+            assertEquals(Direction.OUT, cursor.getDirection());
+            assertEquals(r.getType().getID(), cursor.getTypeId());
+            assertEquals(r.getID(), cursor.getRelationId());
+            if (r.isProperty()) {
+                assertTrue(cursor.isProperty());
+                assertEquals(((TitanProperty) r).getValue(), cursor.getValue());
+            } else {
+                assertTrue(cursor.isEdge());
+                assertEquals(((TitanEdge) r).getVertex(Direction.IN).getID(), cursor.getOtherVertexId());
+                //Remaining properties are only decoded on request and then cached on the entry
+                assertNull(entry.getCache());
+                assertEquals(r.getProperty(weight), cursor.getProperties(stx).get(weight.getID()));
+                assertNotNull(entry.getCache());
+                //Decoding from the cached property map yields the same header
+                serializer.readHeader(v.getID(), entry, cursor, stx);
+                assertEquals(r.getID(), cursor.getRelationId());
+                assertEquals(((TitanEdge) r).getVertex(Direction.IN).getID(), cursor.getOtherVertexId());
+            }
+        }
+        assertEquals(entries.size(), pos);
+    }
+
+    @Test
+    public void performanceTestReadHeader() {
+        TitanVertex v = createVertex();
+        StandardTitanTx stx = (StandardTitanTx)tx;
+        EdgeSerializer serializer = graph.getEdgeSerializer();
+        List<Entry> entries = writeEntries(v);
+        long vid = v.getID();
+        int runs = 50;
+
+        RelationCursor cursor = new RelationCursor(serializer);
+        long checksum = 0;
+        for (int t = 0; t < 3; t++) {
+            PerformanceTest p = new PerformanceTest(true);
+            for (int r = 0; r < runs; r++) {
+                for (Entry entry : entries) {
+                    ImmutableLongObjectMap map = serializer.getProperties(vid, entry, true, stx);
+                    checksum += map.size();
+                }
+            }
+            p.end();
+            log.debug("Property map decoding: Avg micro time per entry: {}", (double) p.getMicroTime() / (runs * entries.size()));
+
+            p = new PerformanceTest(true);
+            for (int r = 0; r < runs; r++) {
+                for (Entry entry : entries) {
+                    serializer.readHeader(vid, entry, cursor, stx);
+                    checksum += cursor.getRelationId();
+                }
+            }
+            p.end();
+            log.debug("Cursor decoding: Avg micro time per entry: {}", (double) p.getMicroTime() / (runs * entries.size()));
+        }
+        assertTrue(checksum > 0);
+    }
+
+}
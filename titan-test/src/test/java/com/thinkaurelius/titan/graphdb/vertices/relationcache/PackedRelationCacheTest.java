@@ -0,0 +1,96 @@
+package com.thinkaurelius.titan.graphdb.vertices.relationcache;
+
+import com.thinkaurelius.titan.diskstorage.StaticBuffer;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StaticBufferEntry;
+import com.thinkaurelius.titan.diskstorage.util.StaticArrayBuffer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class PackedRelationCacheTest {
+
+    private static final Random random = new Random();
+
+    private static StaticBuffer buffer(int value, int length) {
+        byte[] b = new byte[length];
+        for (int i = 0; i < length; i++) b[i] = (byte) (value >>> (8 * (length - i - 1)));
+        return new StaticArrayBuffer(b);
+    }
+
+    private static Entry entry(int column) {
+        return StaticBufferEntry.of(buffer(column, 4), column % 7 == 0 ? null : buffer(column * 31, 1 + column % 5));
+    }
+
+    @Test
+    public void testSlices() {
+        //A small chunk size allocates large regions individually
+        PackedRelationCache cache = new PackedRelationCache(new DirectMemoryArena(512));
+        TreeSet<Entry> expected = new TreeSet<Entry>();
+        for (int round = 0; round < 20; round++) {
+            List<Entry> added = new ArrayList<Entry>();
+            int start = random.nextInt(1000);
+            for (int i = 0; i < 50; i++) added.add(entry(start + random.nextInt(200)));
+            //Entries are sorted by the cache if necessary and duplicates are ignored
+            if (round % 2 == 0) Collections.sort(added);
+            cache.addAll(added);
+            expected.addAll(added);
+            assertEquals(expected.size(), cache.size());
+        }
+        for (int i = 0; i < 100; i++) {
+            int start = random.nextInt(1300), end = start + random.nextInt(300);
+            List<Entry> slice = cache.getSlice(buffer(start, 4), buffer(end, 4));
+            List<Entry> expectedSlice = new ArrayList<Entry>(expected.subSet(entry(start), entry(end)));
+            assertEquals(expectedSlice.size(), slice.size());
+            for (int j = 0; j < slice.size(); j++) {
+                assertEquals(expectedSlice.get(j).getColumn(), slice.get(j).getColumn());
+                assertEquals(expectedSlice.get(j).getValue(), slice.get(j).getValue());
+            }
+        }
+        //Shorter columns are smaller than longer ones with the same prefix
+        assertEquals(expected.size(), cache.getSlice(buffer(0, 1), buffer(-1, 5)).size());
+        assertTrue(cache.getSlice(buffer(5, 4), buffer(5, 4)).isEmpty());
+    }
+
+    @Test
+    public void testIncrementalQueries() {
+        DirectMemoryArena arena = new DirectMemoryArena(4096);
+        PackedRelationCache cache = new PackedRelationCache(arena);
+        TreeSet<Entry> expected = new TreeSet<Entry>();
+        int numQueries = 500, numBlocks = 10, entryBytes = 0;
+        for (int q = 0; q < numQueries; q++) {
+            //Each query adds entries in between the contained ones and repeats some of them
+            List<Entry> added = new ArrayList<Entry>();
+            for (int b = 0; b < numBlocks; b++) {
+                added.add(entry(b * numQueries + q));
+                if (q > 0) added.add(entry(b * numQueries + q - 1));
+            }
+            cache.addAll(added);
+            for (Entry e : added) {
+                if (expected.add(e)) entryBytes += 8 + e.getColumn().length() + (e.getValue() == null ? 0 : e.getValue().length());
+            }
+        }
+        assertEquals(expected.size(), cache.size());
+        List<Entry> all = cache.getSlice(buffer(0, 1), buffer(-1, 5));
+        assertEquals(expected.size(), all.size());
+        int i = 0;
+        for (Entry e : expected) {
+            assertEquals(e.getColumn(), all.get(i).getColumn());
+            assertEquals(e.getValue(), all.get(i).getValue());
+            i++;
+        }
+        //Regions grow geometrically and replaced regions are reused, so memory is linear in the size of the entries
+        assertTrue(arena.getAllocatedBytes() <= 4 * entryBytes);
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.thinkaurelius.titan.util.datastructures;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Matthias Broecheler (me@matthiasb.com)
+ */
+
+public class ConcurrentLongObjectMapTest {
+
+    @Test
+    public void testMap() {
+        ConcurrentLongObjectMap<String> map = new ConcurrentLongObjectMap<String>();
+        int len = 1000;
+        for (int i=1;i<=len;i++) assertNull(map.put(i*1024L,"Value " + i));
+        assertEquals(len, map.size());
+        assertEquals("Value 5", map.get(5*1024L));
+        assertNull(map.get(5));
+        assertTrue(map.containsKey(len*1024L));
+        assertEquals("Value 5", map.putIfAbsent(5*1024L,"Other"));
+        assertEquals("Value 5", map.remove(5*1024L));
+        assertNull(map.putIfAbsent(5*1024L,"Other"));
+        assertEquals("Other", map.get(5*1024L));
+        Set<String> values = new HashSet<String>(map.values());
+        assertEquals(len, values.size());
+        assertTrue(values.contains("Other"));
+        map.clear();
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testConcurrentPutIfAbsent() throws InterruptedException {
+        final ConcurrentLongObjectMap<Integer> map = new ConcurrentLongObjectMap<Integer>(4, 1);
+        final int numThreads = 4, numKeys = 10000;
+        final AtomicInteger inserted = new AtomicInteger(0);
+        Thread[] threads = new Thread[numThreads];
+        for (int t=0;t<numThreads;t++) {
+            final int thread = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (long k=0;k<numKeys;k++) {
+                        if (map.putIfAbsent(k,thread)==null) inserted.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        assertEquals(numKeys, inserted.get());
+        assertEquals(numKeys, map.size());
+    }
+
+}